@@ -63,6 +63,15 @@ public class AnnotationClassRef extends ScanResultObject {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Get the type descriptor of the referenced class.
+     *
+     * @return The type descriptor of the referenced class.
+     */
+    String getTypeDescriptorStr() {
+        return typeDescriptorStr;
+    }
+
     /**
      * Get the name of the referenced class.
      *
@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.IncompleteAnnotationException;
 import java.lang.annotation.Inherited;
@@ -41,6 +42,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /** Holds metadata about a specific annotation instance on a class, method, method parameter or field. */
@@ -232,6 +235,16 @@ public class AnnotationInfo extends ScanResultObject implements Comparable<Annot
         }
     }
 
+    /* (non-Javadoc)
+     * @see io.github.classgraph.ScanResultObject#clearCachedScanResultValues()
+     */
+    @Override
+    void clearCachedScanResultValues() {
+        super.clearCachedScanResultValues();
+        // Default parameter values are read from the annotation class' ClassInfo
+        annotationParamValuesWithDefaults = null;
+    }
+
     /**
      * Get {@link ClassInfo} objects for any classes referenced in the type descriptor or type signature.
      *
@@ -479,6 +492,33 @@ public class AnnotationInfo extends ScanResultObject implements Comparable<Annot
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Write this annotation in binary form.
+     *
+     * @param writer
+     *            the writer
+     */
+    void write(final BinaryWriter writer) {
+        writer.writeString(name);
+        AnnotationParameterValueList.write(annotationParamValues, writer);
+    }
+
+    /**
+     * Read an annotation written by {@link #write(BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the annotation
+     * @throws IOException
+     *             if the annotation could not be read.
+     */
+    static AnnotationInfo read(final BinaryReader reader) throws IOException {
+        final String name = reader.readString();
+        return new AnnotationInfo(name, AnnotationParameterValueList.read(reader));
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /* (non-Javadoc)
      * @see java.lang.Comparable#compareTo(java.lang.Object)
      */
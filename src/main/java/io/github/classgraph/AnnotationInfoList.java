@@ -28,9 +28,11 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Repeatable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,8 @@ import java.util.Set;
 
 import io.github.classgraph.ClassInfo.RelType;
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
 
@@ -113,6 +117,48 @@ public class AnnotationInfoList extends MappableInfoList<AnnotationInfo> {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Write a list or set of annotations in binary form.
+     *
+     * @param annotations
+     *            the annotations, or null
+     * @param writer
+     *            the writer
+     */
+    static void write(final Collection<AnnotationInfo> annotations, final BinaryWriter writer) {
+        if (annotations == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(annotations.size() + 1);
+            for (final AnnotationInfo annotationInfo : annotations) {
+                annotationInfo.write(writer);
+            }
+        }
+    }
+
+    /**
+     * Read a list of annotations written by {@link #write(Collection, BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the list, or null
+     * @throws IOException
+     *             if the list could not be read.
+     */
+    static AnnotationInfoList read(final BinaryReader reader) throws IOException {
+        final int sizePlusOne = reader.readCount();
+        if (sizePlusOne == 0) {
+            return null;
+        }
+        final AnnotationInfoList list = new AnnotationInfoList(sizePlusOne - 1);
+        for (int i = 1; i < sizePlusOne; i++) {
+            list.add(AnnotationInfo.read(reader));
+        }
+        return list;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Filter an {@link AnnotationInfoList} using a predicate mapping an {@link AnnotationInfo} object to a boolean,
      * producing another {@link AnnotationInfoList} for all items in the list for which the predicate is true.
@@ -183,8 +229,9 @@ public class AnnotationInfoList extends MappableInfoList<AnnotationInfo> {
      *            the first reverse relationship type for linking (or null for none)
      * @param reverseRelType1
      *            the second reverse relationship type for linking (or null for none)
+     * @return true if any repeatable annotations were found and replaced with their component annotations.
      */
-    void handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames,
+    boolean handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames,
             final ClassInfo containingClassInfo, final RelType forwardRelType, final RelType reverseRelType0,
             final RelType reverseRelType1) {
         List<AnnotationInfo> repeatableAnnotations = null;
@@ -236,6 +283,7 @@ public class AnnotationInfoList extends MappableInfoList<AnnotationInfo> {
                 }
             }
         }
+        return repeatableAnnotations != null;
     }
 
     // -------------------------------------------------------------------------------------------------------------
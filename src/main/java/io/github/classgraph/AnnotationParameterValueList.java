@@ -28,10 +28,13 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /** A list of {@link AnnotationParameterValue} objects. */
@@ -85,6 +88,51 @@ public class AnnotationParameterValueList extends MappableInfoList<AnnotationPar
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Write a list of annotation parameter values in binary form.
+     *
+     * @param list
+     *            the list, or null
+     * @param writer
+     *            the writer
+     */
+    static void write(final AnnotationParameterValueList list, final BinaryWriter writer) {
+        if (list == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(list.size() + 1);
+            for (final AnnotationParameterValue apv : list) {
+                writer.writeString(apv.getName());
+                ObjectTypedValueWrapper.writeValue(apv.getValue(), writer);
+            }
+        }
+    }
+
+    /**
+     * Read a list of annotation parameter values written by {@link #write(AnnotationParameterValueList,
+     * BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the list, or null
+     * @throws IOException
+     *             if the list could not be read.
+     */
+    static AnnotationParameterValueList read(final BinaryReader reader) throws IOException {
+        final int sizePlusOne = reader.readCount();
+        if (sizePlusOne == 0) {
+            return null;
+        }
+        final AnnotationParameterValueList list = new AnnotationParameterValueList(sizePlusOne - 1);
+        for (int i = 1; i < sizePlusOne; i++) {
+            final String name = reader.readString();
+            list.add(new AnnotationParameterValue(name, ObjectTypedValueWrapper.readValue(reader)));
+        }
+        return list;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Get {@link ClassInfo} objects for any classes referenced in the methods in this list.
      *
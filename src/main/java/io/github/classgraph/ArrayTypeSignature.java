@@ -211,6 +211,15 @@ public class ArrayTypeSignature extends ReferenceTypeSignature {
         }
     }
 
+    /* (non-Javadoc)
+     * @see io.github.classgraph.ScanResultObject#clearCachedScanResultValues()
+     */
+    @Override
+    void clearCachedScanResultValues() {
+        super.clearCachedScanResultValues();
+        arrayClassInfo = null;
+    }
+
     /**
      * Get the names of any classes referenced in the type signature.
      *
@@ -29,6 +29,7 @@
 package io.github.classgraph;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.AccessibleObject;
 import java.net.URI;
@@ -36,6 +37,8 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
@@ -44,14 +47,21 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
+import io.github.classgraph.ClassInfoList.ClassInfoFilter;
+import io.github.classgraph.Scanner.FirstMatchFinder;
 import nonapi.io.github.classgraph.classpath.SystemJarFinder;
 import nonapi.io.github.classgraph.concurrency.AutoCloseableExecutorService;
 import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.concurrency.VirtualThreads;
+import nonapi.io.github.classgraph.fastzipfilereader.SharedJarCache;
 import nonapi.io.github.classgraph.reflection.ReflectionUtils;
 import nonapi.io.github.classgraph.scanspec.AcceptReject;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.scanspec.UnionScanSpec;
 import nonapi.io.github.classgraph.utils.JarUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
 import nonapi.io.github.classgraph.utils.VersionFinder;
@@ -82,6 +92,12 @@ public class ClassGraph {
                             Runtime.getRuntime().availableProcessors() * 1.25) //
     );
 
+    /**
+     * The number of virtual worker threads to start if {@link #enableVirtualThreads()} is called. This is the
+     * number of concurrent tasks used for the I/O-bound stages of the scan.
+     */
+    static final int MAX_VIRTUAL_WORKER_THREADS = 64;
+
     /**
      * Method to use to attempt to circumvent encapsulation in JDK 16+, in order to get access to a classloader's
      * private classpath.
@@ -377,6 +393,23 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Enables the extraction of a method-level call graph from the bytecode of each method, which may be read by
+     * calling {@link MethodInfo#getCalledMethods()} or {@link ScanResult#getCallers(MethodInfo)}. The targets of
+     * {@code invokevirtual}, {@code invokespecial}, {@code invokestatic} and {@code invokeinterface} instructions
+     * are recorded, as are the method handles passed to the bootstrap method of {@code invokedynamic}
+     * instructions (e.g. the implementation methods of lambda expressions and method references). (Automatically
+     * calls {@link #enableClassInfo()} and {@link #enableMethodInfo()}.)
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableMethodCallGraph() {
+        enableClassInfo();
+        enableMethodInfo();
+        scanSpec.enableMethodCallGraph = true;
+        return this;
+    }
+
     
     // -------------------------------------------------------------------------------------------------------------
 
@@ -1020,6 +1053,43 @@ public class ClassGraph {
         return acceptClasses(classNames);
     }
 
+    /**
+     * Only scan the accepted classes that reference at least one of the named classes, e.g. as a class, field or
+     * method annotation, superclass, interface or field type. Each classfile is checked for the internal name
+     * (e.g. {@code "com/foo/Bar"}) or type descriptor (e.g. {@code "Lcom/foo/Bar;"}) of the named classes as soon
+     * as its constant pool has been read, and the rest of the classfile is skipped if neither is found. This speeds up scans that only look for classes with one of a
+     * few annotations, e.g. using {@link ScanResult#getClassesWithAnnotation(String)}.
+     *
+     * <p>
+     * A class that is skipped is still scanned if it is the superclass, an interface or a class annotation of a
+     * scanned class, so that the superclasses, interfaces and meta-annotations of the scanned classes are
+     * complete. However, a class that only carries one of the annotations indirectly is skipped, since it does
+     * not reference the annotation: i.e. a class that is annotated with a meta-annotation of the annotation, or a
+     * class that inherits the annotation from a superclass (when the annotation is {@code @Inherited}). To find
+     * these classes, also pass the names of the meta-annotations, or of the superclasses, to this method.
+     *
+     * <p>
+     * N.B. Automatically calls {@link #enableClassInfo()}.
+     *
+     * @param classNames
+     *            The fully-qualified names of the classes that scanned classes must reference (using '.' as a
+     *            separator). Globs are not supported.
+     * @return this (for method chaining).
+     */
+    public ClassGraph acceptClassesReferencing(final String... classNames) {
+        enableClassInfo();
+        for (final String className : classNames) {
+            if (className.indexOf('*') >= 0) {
+                throw new IllegalArgumentException("Globs are not supported: " + className);
+            }
+            if (scanSpec.classReferencePrefilter == null) {
+                scanSpec.classReferencePrefilter = new ArrayList<>();
+            }
+            scanSpec.classReferencePrefilter.add(AcceptReject.normalizePackageOrClassName(className));
+        }
+        return this;
+    }
+
     /**
      * Specifically reject one or more specific classes, preventing them from being scanned even if they are in a
      * accepted package.
@@ -1454,6 +1524,229 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Run worker tasks on virtual threads, if the running JDK supports them (JDK 21+, or JDK 19-20 with preview
+     * features enabled). Ignored on older JDKs. Only applies to {@link #scan()}, {@link #scan(int)} and the
+     * {@code getClasspath*()} and {@link #getModules()} methods, i.e. not when you supply your own
+     * {@link ExecutorService}.
+     * 
+     * <p>
+     * With virtual threads, no platform threads are held by the scan while it is blocked on I/O. The I/O-bound
+     * stages of the scan (opening jarfiles and directories, and listing their contents) are run with up to
+     * {@value #MAX_VIRTUAL_WORKER_THREADS} concurrent tasks, while classfile parsing and linking are still limited
+     * to the requested number of threads, so that CPU usage is bounded by the JDK's virtual thread carrier pool.
+     * 
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableVirtualThreads() {
+        scanSpec.enableVirtualThreads = true;
+        return this;
+    }
+
+    /**
+     * Scan classfiles in a pipelined fashion: the classfiles of a classpath element are scheduled for scanning as
+     * soon as the paths within that classpath element and all earlier classpath elements have been scanned, rather
+     * than after the paths within all classpath elements have been scanned. This keeps worker threads busy when
+     * some classpath elements (e.g. large jarfiles containing nested jars) are slow to scan. Classpath masking
+     * behaves the same way as for a non-pipelined scan.
+     * 
+     * @return this (for method chaining).
+     */
+    public ClassGraph enablePipelinedScan() {
+        scanSpec.enablePipelinedScan = true;
+        return this;
+    }
+
+    /**
+     * Adjust the number of worker threads that are active in each stage of the scan while the scan is running.
+     * Each stage starts with one active worker per available CPU, taking into account the CPU quota of the JVM's
+     * cgroup when running in a container, and the number of active workers is then moved up or down one at a time
+     * (between one worker and the number of parallel tasks requested for the scan) in whichever direction
+     * increases the measured throughput, in classfiles per second and bytes per second. This avoids
+     * oversubscribing the CPU in containers with a CPU quota, while still using extra workers when the scan is
+     * waiting on I/O, e.g. on a cold disk. The number of workers chosen for each stage is reported by
+     * {@link ScanMetrics#getNumWorkerThreads(ScanMetrics.Phase)}.
+     * 
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableAdaptiveConcurrency() {
+        scanSpec.enableAdaptiveConcurrency = true;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of classfiles from the same jarfile that a worker thread scans as a single unit of
+     * work. The classfiles of each jarfile are grouped into batches of up to this size, in the order in which they
+     * are stored in the jarfile, so that each worker reads a region of the jarfile roughly sequentially, rather
+     * than jumping between jarfiles. Idle workers take work from busy workers one batch at a time, so larger
+     * batches reduce scheduling overhead and improve locality of access, while smaller batches balance the load
+     * between workers more evenly towards the end of the scan. If a scan deadline is set, the classfiles of a
+     * batch that has already been started are scanned even if the deadline passes.
+     * 
+     * <p>
+     * Default: 32. Classfiles in directories and modules are always scheduled one at a time.
+     *
+     * @param classfileBatchSize
+     *            the maximum number of classfiles per batch, or 1 to schedule each classfile on its own.
+     * @return this (for method chaining).
+     * @throws IllegalArgumentException
+     *             if the batch size is less than 1.
+     */
+    public ClassGraph setClassfileBatchSize(final int classfileBatchSize) {
+        if (classfileBatchSize < 1) {
+            throw new IllegalArgumentException("Classfile batch size must be at least 1");
+        }
+        scanSpec.classfileBatchSize = classfileBatchSize;
+        return this;
+    }
+
+    /**
+     * Limit the time spent scanning. Once the time limit has passed, no new classpath elements are opened or
+     * scanned and no new classfiles are parsed, but classpath elements and classfiles that are already being
+     * scanned are completed, and the classfiles that were parsed are linked as usual. The {@link ScanResult} is
+     * then returned rather than an exception being thrown, and {@link ScanResult#isPartial()} returns true if any
+     * classpath element was not fully scanned. {@link ScanResult#getUnscannedClasspathElements()} lists the
+     * classpath elements that were not fully scanned. Classes in those classpath elements may be missing from the
+     * {@link ScanResult}, and the superclasses, interfaces and annotations of the classes that were scanned may be
+     * reported as external classes. The time limit includes classpath discovery.
+     *
+     * @param timeout
+     *            the maximum time to spend scanning, or 0 for no limit.
+     * @param timeUnit
+     *            the unit of the timeout.
+     * @return this (for method chaining).
+     * @throws IllegalArgumentException
+     *             if the timeout is negative.
+     */
+    public ClassGraph setScanDeadline(final long timeout, final TimeUnit timeUnit) {
+        if (timeout < 0L) {
+            throw new IllegalArgumentException("Scan deadline timeout cannot be negative");
+        }
+        scanSpec.scanDeadlineNanos = timeUnit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Retain the parsed contents of classfiles after the scan, so that {@link ScanResult#rescan()} only needs to
+     * read and parse the classfiles that have changed since the scan. Classfiles in a jarfile are reused if the
+     * size and last modified time of the jarfile are unchanged, and classfiles in a directory are reused if their
+     * own size and last modified time are unchanged. Increases the memory usage of the {@link ScanResult}.
+     * 
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableIncrementalRescan() {
+        scanSpec.enableIncrementalRescan = true;
+        return this;
+    }
+
+    /**
+     * Only parse class-level information (the class name, modifiers, superclass, interfaces and class annotations)
+     * while scanning, and defer parsing the fields and methods of each class until they are first accessed, e.g.
+     * by {@link ClassInfo#getMethodInfo()} or {@link ClassInfo#getFieldInfo()}. Reduces scanning time and memory
+     * usage when {@link #enableFieldInfo()} or {@link #enableMethodInfo()} is called, but the fields and methods of
+     * only a few classes are accessed. The fields and methods of annotation classes are always parsed while
+     * scanning, since they define the default parameter values of the annotation.
+     *
+     * <p>
+     * Deferred fields and methods are read from the classpath element when they are first accessed, so they
+     * cannot be accessed after {@link ScanResult#close()} is called. Queries that find classes by the annotations
+     * on their fields or methods, e.g. {@link ScanResult#getClassesWithMethodAnnotation(String)}, and
+     * serialization of the {@link ScanResult}, first parse the fields and methods of all classes. Scanning is not
+     * extended upwards to external classes that are only referenced by the annotations or thrown exceptions of
+     * fields and methods, since these are not known until the fields and methods are parsed.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableLazyMemberInfo() {
+        scanSpec.enableLazyMemberInfo = true;
+        return this;
+    }
+
+    /**
+     * Open local jarfiles through a JVM-wide cache that is shared with other {@link ClassGraph} instances that
+     * call this method, so that the jarfiles, their central directories, and any nested jarfiles extracted from
+     * them are reused by later scans, even if the later scans accept different packages. Closing a
+     * {@link ScanResult} only closes the cached jarfiles that are not in use by another scan, once the total size
+     * of the unused jarfiles exceeds the size set by {@link #setSharedJarCacheMaxSize(long)}. A cached jarfile is
+     * reopened if its size or last modified time has changed. Jarfiles downloaded from URLs are not cached.
+     *
+     * <p>
+     * The I/O counters in {@link ScanResult#getScanMetrics()} do not include reads of shared jarfiles.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableSharedJarCache() {
+        scanSpec.enableSharedJarCache = true;
+        return this;
+    }
+
+    /**
+     * Set the maximum total size of the jarfiles in the JVM-wide shared jarfile cache (see
+     * {@link #enableSharedJarCache()}) that are not in use by any scan. Unused jarfiles are closed in
+     * least-recently-used order once this size is exceeded. Defaults to 256MB. Setting the maximum size to zero
+     * closes all unused jarfiles.
+     *
+     * @param maxSizeBytes
+     *            the maximum size, in bytes.
+     */
+    public static void setSharedJarCacheMaxSize(final long maxSizeBytes) {
+        SharedJarCache.setMaxSize(maxSizeBytes);
+    }
+
+    /**
+     * Cache the parsed contents of the classfiles in jarfiles in the given directory, so that later scans (including
+     * scans in other JVM instances) do not need to parse the classfiles again. The cache for a jarfile is only used
+     * if the jarfile's canonical path, size, last modified time and End Of Central Directory CRC are unchanged, and
+     * if the scan options that affect classfile parsing (e.g. {@link #enableMethodInfo()}) are the same. Only
+     * toplevel jarfiles on the local filesystem are cached, and classfiles containing type annotations are always
+     * parsed. Has no effect unless class info is enabled.
+     *
+     * @param cacheDir
+     *            the cache directory (created if it does not exist).
+     * @return this (for method chaining).
+     */
+    public ClassGraph enablePersistentCache(final Path cacheDir) {
+        if (cacheDir == null) {
+            throw new IllegalArgumentException("cacheDir cannot be null");
+        }
+        scanSpec.persistentCacheDir = cacheDir;
+        return this;
+    }
+
+    /**
+     * Ignore any precomputed index of parsed classfiles that was written into a jarfile by
+     * {@link #writeJarIndex(File)}, and always parse the classfiles in jarfiles.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph disableJarIndex() {
+        scanSpec.disableJarIndex = true;
+        return this;
+    }
+
+    /**
+     * Precompute the parsed contents of the classfiles in a jarfile, and write them into the jarfile as an index
+     * at {@code META-INF/classgraph/index.bin}, replacing any existing index. Intended to be called at build time.
+     * Later scans that find the jarfile on the classpath read the parsed contents of each classfile from the index
+     * instead of parsing the classfile, as long as the scan uses the same options that affect classfile parsing
+     * as this {@link ClassGraph} instance (e.g. {@link #enableMethodInfo()} or {@link #ignoreClassVisibility()}),
+     * and the classfile has not changed since the index was written. Classfiles containing type annotations are
+     * not indexed. Accept/reject criteria are ignored, and all classfiles in the jarfile are indexed. The index can
+     * also be written by running {@link JarIndex} from the command line.
+     *
+     * @param jarFile
+     *            the jarfile to index.
+     * @return the number of classfiles in the index.
+     * @throws IOException
+     *             if the jarfile could not be read or written.
+     */
+    public int writeJarIndex(final File jarFile) throws IOException {
+        if (jarFile == null) {
+            throw new IllegalArgumentException("jarFile cannot be null");
+        }
+        return JarIndex.write(jarFile, scanSpec);
+    }
+
     /**
      * If true, provide all versions of a multi-release resource using their multi-release path prefix, instead of
      * just the one the running JVM would select. Implicitly disables {@link #enableClassInfo()} and all features
@@ -1473,6 +1766,7 @@ public class ClassGraph {
         scanSpec.enableStaticFinalFieldConstantInitializerValues = false;
         scanSpec.enableAnnotationInfo = false;
         scanSpec.enableInterClassDependencies = false;
+        scanSpec.enableMethodCallGraph = false;
         scanSpec.disableRuntimeInvisibleAnnotations = false;
         scanSpec.enableExternalClasses = false;
         scanSpec.enableSystemJarsAndModules = false;
@@ -1521,6 +1815,19 @@ public class ClassGraph {
         void onFailure(Throwable throwable);
     }
 
+    /** A callback used to consume each {@link ClassInfo} object produced by a streaming scan. */
+    @FunctionalInterface
+    public interface ClassInfoConsumer {
+        /**
+         * Consume a {@link ClassInfo} object produced by a streaming scan. Called on a worker thread, so this
+         * method must be threadsafe.
+         *
+         * @param classInfo
+         *            the {@link ClassInfo} object for a scanned class.
+         */
+        void accept(ClassInfo classInfo);
+    }
+
     /**
      * Asynchronously scans the classpath, calling a {@link ScanResultProcessor} callback on success or a
      * {@link FailureHandler} callback on failure.
@@ -1555,7 +1862,8 @@ public class ClassGraph {
                 try {
                     // Call scanner, but ignore the returned ScanResult
                     new Scanner(/* performScan = */ true, scanSpec, executorService, numParallelTasks,
-                            scanResultProcessor, failureHandler, reflectionUtils, topLevelLog).call();
+                            scanResultProcessor, failureHandler, /* classInfoConsumer = */ null,
+                            /* previousClassfiles = */ null, reflectionUtils, topLevelLog).call();
                 } catch (final InterruptedException | CancellationException | ExecutionException e) {
                     // Call failure handler
                     failureHandler.onFailure(e);
@@ -1583,7 +1891,8 @@ public class ClassGraph {
             final int numParallelTasks) {
         try {
             return executorService.submit(new Scanner(performScan, scanSpec, executorService, numParallelTasks,
-                    /* scanResultProcessor = */ null, /* failureHandler = */ null, reflectionUtils, topLevelLog));
+                    /* scanResultProcessor = */ null, /* failureHandler = */ null, /* classInfoConsumer = */ null,
+                    /* previousClassfiles = */ null, reflectionUtils, topLevelLog));
         } catch (final InterruptedException e) {
             // Interrupted during the Scanner constructor's execution (specifically, by getModuleOrder(),
             // which is unlikely to ever actually be interrupted -- but this exception needs to be caught).
@@ -1613,6 +1922,28 @@ public class ClassGraph {
         return scanAsync(/* performScan = */ true, executorService, numParallelTasks);
     }
 
+    /**
+     * Create the {@link ExecutorService} for a scan. If {@link #enableVirtualThreads()} was called and virtual
+     * threads are supported, the worker threads are virtual threads, and enough of them are started to run the
+     * I/O-bound stages of the scan with {@value #MAX_VIRTUAL_WORKER_THREADS} concurrent tasks.
+     *
+     * @param scanSpec
+     *            The scan spec.
+     * @param numThreads
+     *            The number of worker threads to use for the CPU-bound stages of the scan.
+     * @return the {@link AutoCloseableExecutorService}.
+     */
+    static AutoCloseableExecutorService newExecutorService(final ScanSpec scanSpec, final int numThreads) {
+        if (scanSpec.enableVirtualThreads) {
+            final ThreadFactory virtualThreadFactory = VirtualThreads.newThreadFactory();
+            if (virtualThreadFactory != null) {
+                return new AutoCloseableExecutorService(Math.max(numThreads, MAX_VIRTUAL_WORKER_THREADS),
+                        virtualThreadFactory, /* virtualThreads = */ true);
+            }
+        }
+        return new AutoCloseableExecutorService(numThreads);
+    }
+
     /**
      * Scans the classpath using the requested {@link ExecutorService} and the requested degree of parallelism,
      * blocking until the scan is complete. You should assign the returned {@link ScanResult} in a
@@ -1673,7 +2004,7 @@ public class ClassGraph {
      *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
      */
     public ScanResult scan(final int numThreads) {
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(numThreads)) {
+        try (AutoCloseableExecutorService executorService = newExecutorService(scanSpec, numThreads)) {
             return scan(executorService, numThreads);
         }
     }
@@ -1690,6 +2021,190 @@ public class ClassGraph {
         return scan(DEFAULT_NUM_WORKER_THREADS);
     }
 
+    /**
+     * Scans the classpath with the requested number of threads, passing the {@link ClassInfo} object for each
+     * accepted class to a {@link ClassInfoConsumer} as soon as the class has been scanned, without building a
+     * {@link ScanResult}. Blocks until the scan is complete. Calls {@link #enableClassInfo()} implicitly.
+     *
+     * <p>
+     * The consumer is called on the worker threads, so it must be threadsafe, and a worker cannot scan another
+     * class until the consumer returns -- so a slow consumer slows down the scan rather than causing scanned
+     * classes to be buffered. Each {@link ClassInfo} object is linked only to itself, so it is not retained by
+     * ClassGraph after the consumer returns. Related classes (superclasses, interfaces, annotations etc.) are
+     * represented by placeholder {@link ClassInfo} objects that only have a name, and methods that find classes
+     * by following links between classes (e.g. {@link ClassInfo#getSubclasses()}) will return incomplete
+     * results. Use {@link ClassInfo#getSuperclassName()} and {@link ClassInfo#getDeclaredInterfaceNames()} to get
+     * the names of related classes. Inter-class dependencies are not supported in a streaming scan.
+     *
+     * <p>
+     * {@link ClassInfo} objects passed to the consumer must not be used after the scan has completed, since the
+     * resources they were loaded from are closed when this method returns.
+     *
+     * @param classInfoConsumer
+     *            The {@link ClassInfoConsumer} to pass each {@link ClassInfo} object to.
+     * @param numThreads
+     *            The number of worker threads to start up.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception (including any exception thrown by
+     *             the consumer), or the scan was interrupted.
+     */
+    public void scanStreaming(final ClassInfoConsumer classInfoConsumer, final int numThreads) {
+        if (classInfoConsumer == null) {
+            throw new IllegalArgumentException("classInfoConsumer cannot be null");
+        }
+        enableClassInfo();
+        try (AutoCloseableExecutorService executorService = newExecutorService(scanSpec, numThreads)) {
+            final ScanResult scanResult = executorService.submit(new Scanner(/* performScan = */ true, scanSpec,
+                    executorService, numThreads, /* scanResultProcessor = */ null, /* failureHandler = */ null,
+                    classInfoConsumer, /* previousClassfiles = */ null, reflectionUtils, topLevelLog)).get();
+            // The ScanResult contains no classes, so it is closed immediately
+            if (scanResult != null) {
+                scanResult.close();
+            }
+        } catch (final InterruptedException | CancellationException e) {
+            throw new ClassGraphException("Scan interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new ClassGraphException("Uncaught exception during scan", InterruptionChecker.getCause(e));
+        }
+    }
+
+    /**
+     * Scans the classpath, passing the {@link ClassInfo} object for each accepted class to a
+     * {@link ClassInfoConsumer} as soon as the class has been scanned, without building a {@link ScanResult}.
+     * Blocks until the scan is complete. See {@link #scanStreaming(ClassInfoConsumer, int)} for details.
+     *
+     * @param classInfoConsumer
+     *            The {@link ClassInfoConsumer} to pass each {@link ClassInfo} object to.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception (including any exception thrown by
+     *             the consumer), or the scan was interrupted.
+     */
+    public void scanStreaming(final ClassInfoConsumer classInfoConsumer) {
+        scanStreaming(classInfoConsumer, DEFAULT_NUM_WORKER_THREADS);
+    }
+
+    /**
+     * Scans the classpath with the requested number of threads until a class is found that matches a filter, and
+     * returns the first matching class in classpath order. The filter is tested against each accepted class as
+     * soon as the class has been scanned, as in {@link #scanStreaming(ClassInfoConsumer, int)}, so it can only
+     * use class-level information (e.g. the class name, modifiers, superclass and interface names, and class
+     * annotations). Once a class has matched, the classfiles that come after it in classpath order are skipped
+     * rather than scanned, so the scan returns early. Classes that are masked by a class of the same name earlier
+     * in the classpath are never tested against the filter. Calls {@link #enableClassInfo()} implicitly.
+     *
+     * <p>
+     * The filter is called on the worker threads, so it must be threadsafe. The returned {@link ClassInfo} object
+     * is not linked to any other classes (see {@link #scanStreaming(ClassInfoConsumer, int)}), and the
+     * {@link ScanResult} it belongs to is closed when this method returns, so only its class-level information
+     * (e.g. {@link ClassInfo#getName()}) can be used. Its resource cannot be read.
+     *
+     * @param filter
+     *            The {@link ClassInfoFilter} to test each class against.
+     * @param numThreads
+     *            The number of worker threads to start up.
+     * @return the first class in classpath order that matches the filter, or null if no class matches.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception (including any exception thrown by
+     *             the filter), or the scan was interrupted.
+     */
+    public ClassInfo findFirst(final ClassInfoFilter filter, final int numThreads) {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter cannot be null");
+        }
+        final FirstMatchFinder firstMatchFinder = new FirstMatchFinder(filter);
+        scanStreaming(firstMatchFinder, numThreads);
+        return firstMatchFinder.getMatch();
+    }
+
+    /**
+     * Scans the classpath until a class is found that matches a filter, and returns the first matching class in
+     * classpath order. See {@link #findFirst(ClassInfoFilter, int)} for details.
+     *
+     * @param filter
+     *            The {@link ClassInfoFilter} to test each class against.
+     * @return the first class in classpath order that matches the filter, or null if no class matches.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception (including any exception thrown by
+     *             the filter), or the scan was interrupted.
+     */
+    public ClassInfo findFirst(final ClassInfoFilter filter) {
+        return findFirst(filter, DEFAULT_NUM_WORKER_THREADS);
+    }
+
+    /**
+     * Performs the scans configured by several {@link ClassGraph} instances together, with the requested number of
+     * threads, blocking until the scans are complete. The classpath is found and opened once, and each classfile
+     * that is accepted by any of the scans is read and parsed once, then the result of each scan is produced from
+     * the parsed classfiles, applying the path, package and class accept/reject criteria and the visibility
+     * options of that scan. This is faster than performing the scans one after another when the scans accept
+     * overlapping packages, or share the same jarfiles. You should close each of the returned {@link ScanResult}
+     * instances when you are finished with it.
+     *
+     * <p>
+     * Other than the accept/reject criteria for paths, packages and classes, the visibility options (e.g.
+     * {@link #ignoreClassVisibility()}), and the types of information to scan (e.g. {@link #enableMethodInfo()}
+     * and {@link #enableAnnotationInfo()}), all of the options of the scans must be the same. Classfiles are
+     * parsed with the union of the information requested by the scans, so the fields and methods of a class may
+     * include annotations or constant initializer values that were only requested by another scan.
+     *
+     * @param numThreads
+     *            The number of worker threads to start up.
+     * @param classGraphs
+     *            The {@link ClassGraph} instances that configure the scans.
+     * @return a {@link ScanResult} for each of the scans, in the same order as the {@link ClassGraph} instances.
+     * @throws IllegalArgumentException
+     *             if no {@link ClassGraph} instances were provided, or the scans differ in an option that must be
+     *             the same for all of the scans, or {@link #enableIncrementalRescan()} was called for any of the
+     *             scans.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
+     */
+    public static List<ScanResult> scanAll(final int numThreads, final ClassGraph... classGraphs) {
+        if (classGraphs == null || classGraphs.length == 0) {
+            throw new IllegalArgumentException("No ClassGraph instances provided");
+        }
+        final List<ScanSpec> scanSpecs = new ArrayList<>(classGraphs.length);
+        for (final ClassGraph classGraph : classGraphs) {
+            scanSpecs.add(classGraph.scanSpec);
+        }
+        final UnionScanSpec unionScanSpec = new UnionScanSpec(scanSpecs);
+        final ClassGraph firstClassGraph = classGraphs[0];
+        try (AutoCloseableExecutorService executorService = newExecutorService(unionScanSpec, numThreads)) {
+            final Scanner scanner = new Scanner(/* performScan = */ true, unionScanSpec, executorService,
+                    numThreads, /* scanResultProcessor = */ null, /* failureHandler = */ null,
+                    /* classInfoConsumer = */ null, /* previousClassfiles = */ null,
+                    firstClassGraph.reflectionUtils, firstClassGraph.topLevelLog);
+            final ScanResult unionScanResult = executorService.submit(scanner).get();
+            // The union ScanResult contains no classes, and only holds a reference to the resources shared by
+            // the ScanResult of each scan, so it is closed immediately
+            if (unionScanResult != null) {
+                unionScanResult.close();
+            }
+            return scanner.getMultiScanResults();
+        } catch (final InterruptedException | CancellationException e) {
+            throw new ClassGraphException("Scan interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new ClassGraphException("Uncaught exception during scan", InterruptionChecker.getCause(e));
+        }
+    }
+
+    /**
+     * Performs the scans configured by several {@link ClassGraph} instances together, blocking until the scans
+     * are complete. See {@link #scanAll(int, ClassGraph...)} for details.
+     *
+     * @param classGraphs
+     *            The {@link ClassGraph} instances that configure the scans.
+     * @return a {@link ScanResult} for each of the scans, in the same order as the {@link ClassGraph} instances.
+     * @throws IllegalArgumentException
+     *             if no {@link ClassGraph} instances were provided, or the scans differ in an option that must be
+     *             the same for all of the scans.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
+     */
+    public static List<ScanResult> scanAll(final ClassGraph... classGraphs) {
+        return scanAll(DEFAULT_NUM_WORKER_THREADS, classGraphs);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1731,8 +2246,8 @@ public class ClassGraph {
      *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
      */
     public List<File> getClasspathFiles() {
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
-                DEFAULT_NUM_WORKER_THREADS); ScanResult scanResult = getClasspathScanResult(executorService)) {
+        try (AutoCloseableExecutorService executorService = newExecutorService(scanSpec, DEFAULT_NUM_WORKER_THREADS);
+                ScanResult scanResult = getClasspathScanResult(executorService)) {
             return scanResult.getClasspathFiles();
         }
     }
@@ -1764,8 +2279,8 @@ public class ClassGraph {
      *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
      */
     public List<URI> getClasspathURIs() {
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
-                DEFAULT_NUM_WORKER_THREADS); ScanResult scanResult = getClasspathScanResult(executorService)) {
+        try (AutoCloseableExecutorService executorService = newExecutorService(scanSpec, DEFAULT_NUM_WORKER_THREADS);
+                ScanResult scanResult = getClasspathScanResult(executorService)) {
             return scanResult.getClasspathURIs();
         }
     }
@@ -1780,8 +2295,8 @@ public class ClassGraph {
      *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
      */
     public List<URL> getClasspathURLs() {
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
-                DEFAULT_NUM_WORKER_THREADS); ScanResult scanResult = getClasspathScanResult(executorService)) {
+        try (AutoCloseableExecutorService executorService = newExecutorService(scanSpec, DEFAULT_NUM_WORKER_THREADS);
+                ScanResult scanResult = getClasspathScanResult(executorService)) {
             return scanResult.getClasspathURLs();
         }
     }
@@ -1794,8 +2309,8 @@ public class ClassGraph {
      *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
      */
     public List<ModuleRef> getModules() {
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
-                DEFAULT_NUM_WORKER_THREADS); ScanResult scanResult = getClasspathScanResult(executorService)) {
+        try (AutoCloseableExecutorService executorService = newExecutorService(scanSpec, DEFAULT_NUM_WORKER_THREADS);
+                ScanResult scanResult = getClasspathScanResult(executorService)) {
             return scanResult.getModules();
         }
     }
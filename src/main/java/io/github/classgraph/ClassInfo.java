@@ -29,6 +29,7 @@
 package io.github.classgraph;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Repeatable;
@@ -48,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import io.github.classgraph.Classfile.ClassContainment;
 import io.github.classgraph.Classfile.ClassTypeAnnotationDecorator;
@@ -60,6 +62,8 @@ import nonapi.io.github.classgraph.types.Parser;
 import nonapi.io.github.classgraph.types.TypeUtils;
 import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /** Holds metadata about a class encountered during a scan. */
@@ -141,6 +145,12 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     /** Info on fields. */
     MethodInfoList methodInfo;
 
+    /**
+     * True if the fields and methods of this class have not been parsed yet, because
+     * {@link ClassGraph#enableLazyMemberInfo()} was called before the scan.
+     */
+    private transient volatile boolean hasLazyMembers;
+
     /** For annotations, the default values of parameters. */
     AnnotationParameterValueList annotationDefaultParamValues;
 
@@ -333,7 +343,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the {@link ClassInfo}
      * @return true, if successful
      */
-    boolean addRelatedClass(final RelType relType, final ClassInfo classInfo) {
+    synchronized boolean addRelatedClass(final RelType relType, final ClassInfo classInfo) {
         Set<ClassInfo> classInfoSet = relatedClasses.get(relType);
         if (classInfoSet == null) {
             relatedClasses.put(relType, classInfoSet = new LinkedHashSet<>(4));
@@ -344,8 +354,9 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     // -------------------------------------------------------------------------------------------------------------
 
     /**
-     * Get a ClassInfo object, or create it if it doesn't exist. N.B. not threadsafe, so ClassInfo objects should
-     * only ever be constructed by a single thread.
+     * Get a ClassInfo object, or create it if it doesn't exist. Threadsafe if classNameToClassInfo is a
+     * {@link ConcurrentMap}, in which case only one {@link ClassInfo} object will ever be registered for a given
+     * class name, even if multiple threads race to create it.
      *
      * @param className
      *            the class name
@@ -407,11 +418,36 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
                 classInfo = new ArrayClassInfo(
                         new ArrayTypeSignature(elementTypeSignature, numArrayDims, arrayTypeSigStrBuf.toString()));
             }
-            classNameToClassInfo.put(className, classInfo);
+            classInfo = putIfAbsent(className, classInfo, classNameToClassInfo);
         }
         return classInfo;
     }
 
+    /**
+     * Add a {@link ClassInfo} object to the map if there is not already a {@link ClassInfo} object for the class
+     * name. If the map is a {@link ConcurrentMap}, this is performed atomically, so that concurrent linking
+     * threads all agree on a single {@link ClassInfo} object per class name.
+     *
+     * @param className
+     *            the class name
+     * @param classInfo
+     *            the newly-created {@link ClassInfo} object
+     * @param classNameToClassInfo
+     *            the map from class name to class info
+     * @return the {@link ClassInfo} object that is registered in the map for the class name.
+     */
+    private static ClassInfo putIfAbsent(final String className, final ClassInfo classInfo,
+            final Map<String, ClassInfo> classNameToClassInfo) {
+        if (classNameToClassInfo instanceof ConcurrentMap) {
+            final ClassInfo existingClassInfo = ((ConcurrentMap<String, ClassInfo>) classNameToClassInfo)
+                    .putIfAbsent(className, classInfo);
+            return existingClassInfo == null ? classInfo : existingClassInfo;
+        } else {
+            classNameToClassInfo.put(className, classInfo);
+            return classInfo;
+        }
+    }
+
     /**
      * Set classfile version.
      * 
@@ -431,7 +467,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      * @param modifiers
      *            the class modifiers
      */
-    void setModifiers(final int modifiers) {
+    synchronized void setModifiers(final int modifiers) {
         this.modifiers |= modifiers;
     }
 
@@ -441,7 +477,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      * @param isInterface
      *            true if this is an interface
      */
-    void setIsInterface(final boolean isInterface) {
+    synchronized void setIsInterface(final boolean isInterface) {
         if (isInterface) {
             this.modifiers |= Modifier.INTERFACE;
         }
@@ -453,7 +489,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      * @param isAnnotation
      *            true if this is an annotation
      */
-    void setIsAnnotation(final boolean isAnnotation) {
+    synchronized void setIsAnnotation(final boolean isAnnotation) {
         if (isAnnotation) {
             this.modifiers |= ANNOTATION_CLASS_MODIFIER;
         }
@@ -683,6 +719,99 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         }
     }
 
+    /**
+     * Record that parsing the fields and methods of this class was deferred until they are first accessed.
+     */
+    void setHasLazyMembers() {
+        hasLazyMembers = true;
+    }
+
+    /**
+     * Parse the fields and methods of this class, if parsing them was deferred because
+     * {@link ClassGraph#enableLazyMemberInfo()} was called before the scan. The classfile is read again from its
+     * classpath element. Threadsafe -- the fields and methods are only parsed once, even if they are accessed by
+     * multiple threads at the same time.
+     *
+     * @throws IllegalArgumentException
+     *             if the {@link ScanResult} has been closed, or the classfile could not be read.
+     */
+    void loadLazyMembers() {
+        if (!hasLazyMembers) {
+            return;
+        }
+        synchronized (this) {
+            if (!hasLazyMembers) {
+                return;
+            }
+            if (scanResult.isClosed()) {
+                throw new IllegalArgumentException("Cannot read the fields and methods of class " + name
+                        + " after the ScanResult has been closed");
+            }
+            final Classfile classfile;
+            try {
+                classfile = new Classfile(classpathElement, classfileResource, scanResult.scanSpec);
+            } catch (final IOException e) {
+                throw new IllegalArgumentException("Could not read the fields and methods of class " + name, e);
+            }
+            final FieldInfoList fieldInfoList = classfile.getFieldInfoList();
+            final MethodInfoList methodInfoList = classfile.getMethodInfoList();
+            if (fieldInfoList != null) {
+                addFieldInfo(fieldInfoList, scanResult.classNameToClassInfo);
+            }
+            if (methodInfoList != null) {
+                addMethodInfo(methodInfoList, scanResult.classNameToClassInfo);
+            }
+
+            // Attach the fields and methods, and any placeholder ClassInfo objects that were created for their
+            // annotations, to the ScanResult
+            setScanResult(scanResult);
+            for (final RelType relType : new RelType[] { RelType.FIELD_ANNOTATIONS, RelType.METHOD_ANNOTATIONS,
+                    RelType.METHOD_PARAMETER_ANNOTATIONS }) {
+                final Set<ClassInfo> annotationClassInfos = relatedClasses.get(relType);
+                if (annotationClassInfos != null) {
+                    for (final ClassInfo annotationClassInfo : annotationClassInfos) {
+                        if (annotationClassInfo.scanResult == null) {
+                            annotationClassInfo.setScanResult(scanResult);
+                        }
+                    }
+                }
+            }
+
+            // Handle @Repeatable annotations on the fields and methods
+            final Set<String> allRepeatableAnnotationNames = scanResult.allRepeatableAnnotationNames;
+            if (allRepeatableAnnotationNames != null) {
+                if (fieldInfoList != null) {
+                    for (final FieldInfo fi : fieldInfoList) {
+                        fi.handleRepeatableAnnotations(allRepeatableAnnotationNames);
+                    }
+                }
+                if (methodInfoList != null) {
+                    for (final MethodInfo mi : methodInfoList) {
+                        mi.handleRepeatableAnnotations(allRepeatableAnnotationNames);
+                    }
+                }
+            }
+            hasLazyMembers = false;
+        }
+    }
+
+    /**
+     * Create the type descriptor and type signature strings of the fields and methods of this class, if they are
+     * stored in the scan-wide symbol table, so that they are serialized to JSON.
+     */
+    void materializeMemberTypeStrs() {
+        if (fieldInfo != null) {
+            for (final FieldInfo fi : fieldInfo) {
+                fi.materializeTypeStrs();
+            }
+        }
+        if (methodInfo != null) {
+            for (final MethodInfo mi : methodInfo) {
+                mi.materializeTypeStrs();
+            }
+        }
+    }
+
     /**
      * Set the class type signature, including any type params.
      *
@@ -712,8 +841,8 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     // -------------------------------------------------------------------------------------------------------------
 
     /**
-     * Add a class that has just been scanned (as opposed to just referenced by a scanned class). Not threadsafe,
-     * should be run in single threaded context.
+     * Add a class that has just been scanned (as opposed to just referenced by a scanned class). Threadsafe if
+     * classNameToClassInfo is a {@link ConcurrentMap}, but each class name should only be added by one thread.
      *
      * @param className
      *            the class name
@@ -733,39 +862,45 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
             final boolean isExternalClass, final Map<String, ClassInfo> classNameToClassInfo,
             final ClasspathElement classpathElement, final Resource classfileResource) {
         ClassInfo classInfo = classNameToClassInfo.get(className);
+        boolean isNewClassInfo = false;
         if (classInfo == null) {
-            // This is the first time this class has been seen, add it
-            classNameToClassInfo.put(className,
-                    classInfo = new ClassInfo(className, classModifiers, classfileResource));
-        } else {
-            // There was a previous placeholder ClassInfo class added, due to the class being referred
-            // to as a superclass, interface or annotation. The isScannedClass field should be false
-            // in this case, since the actual class definition wasn't reached before now.
-            if (classInfo.isScannedClass) {
-                // The class should not have been scanned more than once, because of classpath masking
-                throw new IllegalArgumentException("Class " + className
-                        + " should not have been encountered more than once due to classpath masking --"
-                        + " please report this bug at: https://github.com/classgraph/classgraph/issues");
-            }
+            // This is the first time this class has been seen, add it (another linking thread may have
+            // added a placeholder ClassInfo object in the meantime, in which case that object is used)
+            final ClassInfo newClassInfo = new ClassInfo(className, classModifiers, classfileResource);
+            classInfo = putIfAbsent(className, newClassInfo, classNameToClassInfo);
+            isNewClassInfo = classInfo == newClassInfo;
+        }
+        synchronized (classInfo) {
+            if (!isNewClassInfo) {
+                // There was a previous placeholder ClassInfo class added, due to the class being referred
+                // to as a superclass, interface or annotation. The isScannedClass field should be false
+                // in this case, since the actual class definition wasn't reached before now.
+                if (classInfo.isScannedClass) {
+                    // The class should not have been scanned more than once, because of classpath masking
+                    throw new IllegalArgumentException("Class " + className
+                            + " should not have been encountered more than once due to classpath masking --"
+                            + " please report this bug at: https://github.com/classgraph/classgraph/issues");
+                }
 
-            // Set the classfileResource for the placeholder class
-            classInfo.classfileResource = classfileResource;
+                // Set the classfileResource for the placeholder class
+                classInfo.classfileResource = classfileResource;
 
-            // Add any additional modifier bits
-            classInfo.modifiers |= classModifiers;
-        }
+                // Add any additional modifier bits
+                classInfo.modifiers |= classModifiers;
+            }
 
-        // Mark the class as scanned
-        classInfo.isScannedClass = true;
+            // Mark the class as scanned
+            classInfo.isScannedClass = true;
 
-        // Mark the class as non-external if it is an accepted class
-        classInfo.isExternalClass = isExternalClass;
+            // Mark the class as non-external if it is an accepted class
+            classInfo.isExternalClass = isExternalClass;
 
-        // Remember which classpath element (zipfile / classpath root directory / module) the class was found in
-        classInfo.classpathElement = classpathElement;
+            // Remember which classpath element (zipfile / classpath root directory / module) the class was found in
+            classInfo.classpathElement = classpathElement;
 
-        // Remember which classloader is used to load the class
-        classInfo.classLoader = classpathElement.getClassLoader();
+            // Remember which classloader is used to load the class
+            classInfo.classLoader = classpathElement.getClassLoader();
+        }
 
         return classInfo;
     }
@@ -909,6 +1044,19 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      */
     private ReachableAndDirectlyRelatedClasses filterClassInfo(final RelType relType, final boolean strictAccept,
             final ClassType... classTypes) {
+        if (relType == RelType.METHOD_ANNOTATIONS || relType == RelType.METHOD_PARAMETER_ANNOTATIONS
+                || relType == RelType.FIELD_ANNOTATIONS) {
+            // Field and method annotations are only known once the fields and methods have been parsed
+            loadLazyMembers();
+        } else if (relType == RelType.CLASSES_WITH_METHOD_ANNOTATION
+                || relType == RelType.CLASSES_WITH_NONPRIVATE_METHOD_ANNOTATION
+                || relType == RelType.CLASSES_WITH_METHOD_PARAMETER_ANNOTATION
+                || relType == RelType.CLASSES_WITH_NONPRIVATE_METHOD_PARAMETER_ANNOTATION
+                || relType == RelType.CLASSES_WITH_FIELD_ANNOTATION
+                || relType == RelType.CLASSES_WITH_NONPRIVATE_FIELD_ANNOTATION) {
+            // Any class may have a field or method with this annotation
+            scanResult.loadAllLazyMembers();
+        }
         Set<ClassInfo> directlyRelatedClasses = this.relatedClasses.get(relType);
         if (directlyRelatedClasses == null) {
             return NO_REACHABLE_CLASSES;
@@ -1857,6 +2005,41 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         }
     }
 
+    /**
+     * Get the name of the single direct superclass of this class, or null if none. Unlike {@link #getSuperclass()},
+     * this does not require the superclass to have been linked, so it can also be used for {@link ClassInfo}
+     * objects produced by {@link ClassGraph#scanStreaming(ClassGraph.ClassInfoConsumer)}.
+     *
+     * @return the name of the superclass of this class, or null if none (or if the superclass is
+     *         {@code java.lang.Object}).
+     */
+    public String getSuperclassName() {
+        final ClassInfo superclass = getSuperclass();
+        return superclass == null ? null : superclass.getName();
+    }
+
+    /**
+     * Get the names of the interfaces directly implemented by this class, if this is a standard class, or the
+     * names of the superinterfaces directly extended by this interface, if this is an interface. Unlike
+     * {@link #getInterfaces()}, this does not include interfaces implemented by superclasses, and does not require
+     * the interfaces to have been linked, so it can also be used for {@link ClassInfo} objects produced by
+     * {@link ClassGraph#scanStreaming(ClassGraph.ClassInfoConsumer)}.
+     *
+     * @return the names of the directly implemented interfaces or extended superinterfaces, in declaration order,
+     *         or the empty list if none.
+     */
+    public List<String> getDeclaredInterfaceNames() {
+        final Set<ClassInfo> interfaces = relatedClasses.get(RelType.IMPLEMENTED_INTERFACES);
+        if (interfaces == null || interfaces.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> interfaceNames = new ArrayList<>(interfaces.size());
+        for (final ClassInfo iface : interfaces) {
+            interfaceNames.add(iface.getName());
+        }
+        return interfaceNames;
+    }
+
     /**
      * Get the containing outer classes, if this is an inner class.
      *
@@ -2270,6 +2453,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableMethodInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableMethodInfo() before #scan()");
         }
+        loadLazyMembers();
         if (methodInfo == null) {
             return MethodInfoList.EMPTY_LIST;
         }
@@ -2752,6 +2936,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableFieldInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableFieldInfo() before #scan()");
         }
+        loadLazyMembers();
         return fieldInfo == null ? FieldInfoList.EMPTY_LIST : fieldInfo;
     }
 
@@ -2860,6 +3045,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableFieldInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableFieldInfo() before #scan()");
         }
+        loadLazyMembers();
         if (fieldInfo == null) {
             return null;
         }
@@ -3270,22 +3456,25 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *
      * @param allRepeatableAnnotationNames
      *            the names of all repeatable annotations
+     * @return true if the annotations of any field, method or method parameter of this class were modified.
      */
-    void handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames) {
+    boolean handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames) {
         if (annotationInfo != null) {
             annotationInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames, this,
                     RelType.CLASS_ANNOTATIONS, RelType.CLASSES_WITH_ANNOTATION, null);
         }
+        boolean memberAnnotationsModified = false;
         if (fieldInfo != null) {
             for (final FieldInfo fi : fieldInfo) {
-                fi.handleRepeatableAnnotations(allRepeatableAnnotationNames);
+                memberAnnotationsModified |= fi.handleRepeatableAnnotations(allRepeatableAnnotationNames);
             }
         }
         if (methodInfo != null) {
             for (final MethodInfo mi : methodInfo) {
-                mi.handleRepeatableAnnotations(allRepeatableAnnotationNames);
+                memberAnnotationsModified |= mi.handleRepeatableAnnotations(allRepeatableAnnotationNames);
             }
         }
+        return memberAnnotationsModified;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -3418,6 +3607,146 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Add the {@link ClassInfo}, {@link PackageInfo} and {@link ModuleInfo} objects referenced by this class to an
+     * object table.
+     *
+     * @param objectTable
+     *            the object table
+     */
+    void addReferencedObjects(final ScanResultObjectTable objectTable) {
+        objectTable.add(packageInfo);
+        objectTable.add(moduleInfo);
+        if (referencedClasses != null) {
+            objectTable.addAll(referencedClasses);
+        }
+        for (final Set<ClassInfo> classInfoSet : relatedClasses.values()) {
+            objectTable.addAll(classInfoSet);
+        }
+    }
+
+    /**
+     * Write the contents of this class (other than the class name) in binary form.
+     *
+     * @param writer
+     *            the writer
+     * @param objectTable
+     *            the object table, for writing references to other objects
+     */
+    void write(final BinaryWriter writer, final ScanResultObjectTable objectTable) {
+        loadLazyMembers();
+        writer.writeVarInt(modifiers);
+        writer.writeBoolean(isRecord);
+        writer.writeBoolean(isInherited);
+        writer.writeVarInt(classfileMinorVersion);
+        writer.writeVarInt(classfileMajorVersion);
+        writer.writeString(typeSignatureStr);
+        writer.writeString(sourceFile);
+        writer.writeString(fullyQualifiedDefiningMethodName);
+        writer.writeBoolean(isExternalClass);
+        writer.writeBoolean(isScannedClass);
+        objectTable.writeModuleInfoRef(moduleInfo, writer);
+        objectTable.writePackageInfoRef(packageInfo, writer);
+        AnnotationInfoList.write(annotationInfo, writer);
+        if (fieldInfo == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(fieldInfo.size() + 1);
+            for (final FieldInfo fi : fieldInfo) {
+                fi.write(writer);
+            }
+        }
+        if (methodInfo == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(methodInfo.size() + 1);
+            for (final MethodInfo mi : methodInfo) {
+                mi.write(writer);
+            }
+        }
+        AnnotationParameterValueList.write(annotationDefaultParamValues, writer);
+        if (referencedClassNames == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(referencedClassNames.size() + 1);
+            for (final String refdClassName : referencedClassNames) {
+                writer.writeString(refdClassName);
+            }
+        }
+        objectTable.writeClassInfoRefs(referencedClasses, writer);
+        writer.writeVarInt(relatedClasses.size());
+        for (final Entry<RelType, Set<ClassInfo>> ent : relatedClasses.entrySet()) {
+            writer.writeVarInt(ent.getKey().ordinal());
+            objectTable.writeClassInfoRefs(ent.getValue(), writer);
+        }
+    }
+
+    /**
+     * Read the contents of this class written by {@link #write(BinaryWriter, ScanResultObjectTable)}.
+     *
+     * @param reader
+     *            the reader
+     * @param objectTable
+     *            the object table, for reading references to other objects
+     * @throws IOException
+     *             if the contents could not be read.
+     */
+    void read(final BinaryReader reader, final ScanResultObjectTable objectTable) throws IOException {
+        modifiers = reader.readVarInt();
+        isRecord = reader.readBoolean();
+        isInherited = reader.readBoolean();
+        classfileMinorVersion = reader.readVarInt();
+        classfileMajorVersion = reader.readVarInt();
+        typeSignatureStr = reader.readString();
+        sourceFile = reader.readString();
+        fullyQualifiedDefiningMethodName = reader.readString();
+        isExternalClass = reader.readBoolean();
+        isScannedClass = reader.readBoolean();
+        moduleInfo = objectTable.readModuleInfoRef(reader);
+        packageInfo = objectTable.readPackageInfoRef(reader);
+        annotationInfo = AnnotationInfoList.read(reader);
+        final int numFieldsPlusOne = reader.readCount();
+        if (numFieldsPlusOne > 0) {
+            fieldInfo = new FieldInfoList(numFieldsPlusOne - 1);
+            for (int i = 1; i < numFieldsPlusOne; i++) {
+                fieldInfo.add(FieldInfo.read(reader));
+            }
+        }
+        final int numMethodsPlusOne = reader.readCount();
+        if (numMethodsPlusOne > 0) {
+            methodInfo = new MethodInfoList(numMethodsPlusOne - 1);
+            for (int i = 1; i < numMethodsPlusOne; i++) {
+                methodInfo.add(MethodInfo.read(reader));
+            }
+        }
+        annotationDefaultParamValues = AnnotationParameterValueList.read(reader);
+        final int numRefdClassNamesPlusOne = reader.readCount();
+        if (numRefdClassNamesPlusOne > 0) {
+            referencedClassNames = new HashSet<>();
+            for (int i = 1; i < numRefdClassNamesPlusOne; i++) {
+                referencedClassNames.add(reader.readString());
+            }
+        }
+        final Set<ClassInfo> refdClasses = objectTable.readClassInfoRefs(new LinkedHashSet<ClassInfo>(),
+                reader);
+        referencedClasses = refdClasses == null ? null
+                : new ClassInfoList(refdClasses, /* sortByName = */ true);
+        final RelType[] relTypes = RelType.values();
+        for (int i = 0, numRelTypes = reader.readCount(); i < numRelTypes; i++) {
+            final int relTypeOrdinal = reader.readVarInt();
+            if (relTypeOrdinal < 0 || relTypeOrdinal >= relTypes.length) {
+                throw new IOException("Unknown relationship type: " + relTypeOrdinal);
+            }
+            final Set<ClassInfo> classInfoSet = objectTable.readClassInfoRefs(new LinkedHashSet<ClassInfo>(),
+                    reader);
+            if (classInfoSet != null) {
+                relatedClasses.put(relTypes[relTypeOrdinal], classInfoSet);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * To string.
      *
@@ -33,6 +33,7 @@ import java.lang.annotation.Repeatable;
 import java.lang.reflect.Modifier;
 
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.SymbolTable;
 
 /**
  * Holds metadata about class members of a class encountered during a scan. All values are taken directly out of the
@@ -60,6 +61,22 @@ public abstract class ClassMemberInfo extends ScanResultObject implements HasNam
      */
     protected String typeSignatureStr;
 
+    /**
+     * The scan-wide symbol table that holds the type descriptor and type signature, if they were stored as symbols
+     * when the classfile was parsed (in which case {@link #typeDescriptorStr} and {@link #typeSignatureStr} are
+     * null until {@link #materializeTypeStrs()} is called), otherwise null.
+     */
+    private transient SymbolTable symbolTable;
+
+    /** The symbol ID of the type descriptor, if {@link #symbolTable} is not null. */
+    private transient int typeDescriptorSymbol;
+
+    /**
+     * The symbol ID of the type signature, or -1 if there is no type signature, if {@link #symbolTable} is not
+     * null.
+     */
+    private transient int typeSignatureSymbol;
+
     /** The annotation on the class member, if any. */
     protected AnnotationInfoList annotationInfo;
 
@@ -99,6 +116,89 @@ public abstract class ClassMemberInfo extends ScanResultObject implements HasNam
         this.annotationInfo = annotationInfo == null || annotationInfo.isEmpty() ? null : annotationInfo;
     }
 
+    /**
+     * Store the type descriptor and type signature of the class member as symbols of a symbol table, rather than
+     * as strings. The strings are created each time they are accessed.
+     *
+     * @param symbolTable
+     *            the symbol table
+     * @param typeDescriptorSymbol
+     *            the symbol ID of the type descriptor
+     * @param typeSignatureSymbol
+     *            the symbol ID of the type signature, or -1 if there is no type signature
+     */
+    void setTypeSymbols(final SymbolTable symbolTable, final int typeDescriptorSymbol,
+            final int typeSignatureSymbol) {
+        this.symbolTable = symbolTable;
+        this.typeDescriptorSymbol = typeDescriptorSymbol;
+        this.typeSignatureSymbol = typeSignatureSymbol;
+        this.typeDescriptorStr = null;
+        this.typeSignatureStr = null;
+    }
+
+    /**
+     * Store the type descriptor and, optionally, the type signature of another class member in this class member,
+     * in the same form (as strings or as symbols) as they are stored in the other class member.
+     *
+     * @param other
+     *            the other class member
+     * @param copyTypeSignature
+     *            if false, this class member has no type signature
+     */
+    void copyTypeStrs(final ClassMemberInfo other, final boolean copyTypeSignature) {
+        this.symbolTable = other.symbolTable;
+        this.typeDescriptorSymbol = other.typeDescriptorSymbol;
+        this.typeSignatureSymbol = copyTypeSignature ? other.typeSignatureSymbol : -1;
+        this.typeDescriptorStr = other.typeDescriptorStr;
+        this.typeSignatureStr = copyTypeSignature ? other.typeSignatureStr : null;
+    }
+
+    /**
+     * Check whether the class member has a type signature, without creating a string for the type signature.
+     *
+     * @return true if the class member has a type signature.
+     */
+    boolean hasTypeSignature() {
+        return symbolTable != null ? typeSignatureSymbol != -1 : typeSignatureStr != null;
+    }
+
+    /**
+     * Create the type descriptor and type signature strings from the symbol table, if they are stored as symbols,
+     * so that they are serialized by {@link ScanResult#toJSON()}.
+     */
+    void materializeTypeStrs() {
+        if (symbolTable != null && typeDescriptorStr == null) {
+            typeDescriptorStr = getTypeDescriptorStr();
+            typeSignatureStr = getTypeSignatureStr();
+        }
+    }
+
+    /**
+     * Check whether the type descriptor of this class member is equal to the type descriptor of another class
+     * member, without creating strings for type descriptors that are stored in the same symbol table.
+     *
+     * @param other
+     *            the other class member
+     * @return true if the type descriptors are equal.
+     */
+    boolean typeDescriptorEquals(final ClassMemberInfo other) {
+        if (symbolTable != null && symbolTable == other.symbolTable) {
+            // Symbols are unique within a symbol table
+            return typeDescriptorSymbol == other.typeDescriptorSymbol;
+        }
+        return getTypeDescriptorStr().equals(other.getTypeDescriptorStr());
+    }
+
+    /**
+     * Get the hash code of the type descriptor of this class member, without creating a string for the type
+     * descriptor.
+     *
+     * @return the hash code of the type descriptor string.
+     */
+    int typeDescriptorHashCode() {
+        return symbolTable != null ? symbolTable.hashCode(typeDescriptorSymbol) : typeDescriptorStr.hashCode();
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -224,7 +324,8 @@ public abstract class ClassMemberInfo extends ScanResultObject implements HasNam
      * @return The type descriptor string for the class member.
      */
     public String getTypeDescriptorStr() {
-        return typeDescriptorStr;
+        final SymbolTable symbols = symbolTable;
+        return symbols == null ? typeDescriptorStr : symbols.get(typeDescriptorSymbol);
     }
 
     /**
@@ -248,7 +349,9 @@ public abstract class ClassMemberInfo extends ScanResultObject implements HasNam
      * @return The type signature string for the class member, or null if not available.
      */
     public String getTypeSignatureStr() {
-        return typeSignatureStr;
+        final SymbolTable symbols = symbolTable;
+        return symbols == null ? typeSignatureStr
+                : typeSignatureSymbol == -1 ? null : symbols.get(typeSignatureSymbol);
     }
 
     /**
@@ -270,10 +373,11 @@ public abstract class ClassMemberInfo extends ScanResultObject implements HasNam
      *         the class member.
      */
     public String getTypeSignatureOrTypeDescriptorStr() {
-        if (typeSignatureStr != null) {
-            return typeSignatureStr;
+        final String typeSignatureString = getTypeSignatureStr();
+        if (typeSignatureString != null) {
+            return typeSignatureString;
         }
-        return typeDescriptorStr;
+        return getTypeDescriptorStr();
     }
 
     // -------------------------------------------------------------------------------------------------------------
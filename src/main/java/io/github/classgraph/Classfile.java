@@ -39,17 +39,21 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import io.github.classgraph.Scanner.ClassfileScanWorkUnit;
 import nonapi.io.github.classgraph.concurrency.WorkQueue;
 import nonapi.io.github.classgraph.fileslice.reader.ClassfileReader;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.types.ParseException;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
+import nonapi.io.github.classgraph.utils.ByteStringInterner;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
 import nonapi.io.github.classgraph.utils.StringUtils;
+import nonapi.io.github.classgraph.utils.SymbolTable;
 
 /**
  * A classfile binary format parser. Implements its own buffering to avoid the overhead of using DataInputStream.
@@ -75,8 +79,8 @@ class Classfile {
     /** The classfile resource. */
     private final Resource classfileResource;
 
-    /** The string intern map. */
-    private final ConcurrentHashMap<String, String> stringInternMap;
+    /** The string intern table (only used while parsing). */
+    private ByteStringInterner stringInterner;
 
     /** The name of the class. */
     private String className;
@@ -138,6 +142,24 @@ class Classfile {
     /** The type annotation decorators for the {@link ClassTypeSignature} instance. */
     private List<ClassTypeAnnotationDecorator> classTypeAnnotationDecorators;
 
+    /** The module name, if this is a module descriptor ({@code module-info.class}) with a module name. */
+    private String moduleNameFromModuleDescriptor;
+
+    /**
+     * True if type annotation decorators were created for the class or any of its fields or methods (these cannot
+     * be written by {@link #write(BinaryWriter)}).
+     */
+    private boolean hasTypeAnnotations;
+
+    /**
+     * True if parsing the fields and methods of the class was deferred until they are first accessed (see
+     * {@link ScanSpec#enableLazyMemberInfo}).
+     */
+    private boolean hasLazyMembers;
+
+    /** True if only the fields and methods of the class are being read, after they were deferred. */
+    private boolean readingLazyMembers;
+
     /** The names of accepted classes found in the classpath while scanning paths within classpath elements. */
     private final Set<String> acceptedClassNamesFound;
 
@@ -150,6 +172,12 @@ class Classfile {
     /** Any additional work units scheduled for scanning. */
     private List<ClassfileScanWorkUnit> additionalWorkUnits;
 
+    /** True if extending scanning upwards to external classes was deferred. */
+    private boolean extendScanningUpwardsDeferred;
+
+    /** The log to use when extending scanning upwards, if this was deferred. */
+    private LogNode extendScanningUpwardsLog;
+
     /** The scan spec. */
     private final ScanSpec scanSpec;
 
@@ -167,11 +195,77 @@ class Classfile {
     /** The indirection index for String/Class entries in the constant pool. */
     private int[] indirectStringRefs;
 
+    /** The recycled buffers to parse the classfile with, or null to allocate new buffers. */
+    private ClassfileParseBuffers parseBuffers;
+
+    /**
+     * The methods that call other methods, if {@link ScanSpec#enableMethodCallGraph} is true. The called methods
+     * are resolved once the BootstrapMethods class attribute has been read.
+     */
+    private List<MethodInfo> callingMethods;
+
+    /**
+     * For each method in {@link #callingMethods}, the constant pool indices of the method ref and invoke dynamic
+     * entries referenced by the invoke instructions of the method.
+     */
+    private List<int[]> callingMethodCpIdxs;
+
+    /** The offset of each bootstrap method in the BootstrapMethods class attribute, or null if not read. */
+    private int[] bootstrapMethodOffsets;
+
+    /** A buffer for the constant pool indices or symbols of the methods called by one method. */
+    private int[] calledMethodBuf;
+
+    /**
+     * For each constant pool entry, the last value of {@link #calledMethodStamp} at which the entry was added to
+     * {@link #calledMethodBuf}, so that each called method is only added once per method.
+     */
+    private int[] calledMethodCpIdxStamp;
+
+    /** Incremented each time the methods called by one method start being collected. */
+    private int calledMethodStamp;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** An empty array for the case where there are no annotations. */
     private static final AnnotationInfo[] NO_ANNOTATIONS = new AnnotationInfo[0];
 
+    /**
+     * The length in bytes of each JVM instruction, including the opcode, indexed by opcode, or 0 for the
+     * variable-length instructions (tableswitch, lookupswitch and wide) and for undefined opcodes.
+     */
+    private static final byte[] INSTRUCTION_LENGTH = new byte[256];
+
+    static {
+        Arrays.fill(INSTRUCTION_LENGTH, 0x00, 0xc9 + 1, (byte) 1);
+        for (final int opcode : new int[] { 0x10, 0x12, 0x15, 0x16, 0x17, 0x18, 0x19, 0x36, 0x37, 0x38, 0x39,
+                0x3a, 0xa9, 0xbc }) {
+            // bipush, ldc, iload..aload, istore..astore, ret, newarray
+            INSTRUCTION_LENGTH[opcode] = 2;
+        }
+        for (final int opcode : new int[] { 0x11, 0x13, 0x14, 0x84, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8,
+                0xbb, 0xbd, 0xc0, 0xc1, 0xc6, 0xc7 }) {
+            // sipush, ldc_w, ldc2_w, iinc, getstatic..putfield, invokevirtual..invokestatic, new, anewarray,
+            // checkcast, instanceof, ifnull, ifnonnull
+            INSTRUCTION_LENGTH[opcode] = 3;
+        }
+        for (int opcode = 0x99; opcode <= 0xa8; opcode++) {
+            // ifeq..if_acmpne, goto, jsr
+            INSTRUCTION_LENGTH[opcode] = 3;
+        }
+        // multianewarray
+        INSTRUCTION_LENGTH[0xc5] = 4;
+        // invokeinterface, invokedynamic, goto_w, jsr_w
+        INSTRUCTION_LENGTH[0xb9] = 5;
+        INSTRUCTION_LENGTH[0xba] = 5;
+        INSTRUCTION_LENGTH[0xc8] = 5;
+        INSTRUCTION_LENGTH[0xc9] = 5;
+        // tableswitch, lookupswitch, wide
+        INSTRUCTION_LENGTH[0xaa] = 0;
+        INSTRUCTION_LENGTH[0xab] = 0;
+        INSTRUCTION_LENGTH[0xc4] = 0;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -271,6 +365,20 @@ class Classfile {
         }
     }
 
+    /**
+     * Thrown when a classfile is skipped because its constant pool does not reference any of the classes in
+     * {@link ScanSpec#classReferencePrefilter}.
+     */
+    static class PrefilteredClassException extends SkipClassException {
+        /** serialVersionUID. */
+        static final long serialVersionUID = 1L;
+
+        /** Constructor. */
+        public PrefilteredClassException() {
+            super("Class does not reference any of the classes accepted by the class reference prefilter");
+        }
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -458,10 +566,63 @@ class Classfile {
         }
     }
 
+    /**
+     * Extend scanning upwards to external classes, if this was deferred when the classfile was parsed (because
+     * the classfile was parsed before all accepted classes had been found).
+     *
+     * @return the work units for any external classes that need to be scanned, or null if none.
+     */
+    List<ClassfileScanWorkUnit> extendScanningUpwardsDeferred() {
+        if (!extendScanningUpwardsDeferred) {
+            return null;
+        }
+        extendScanningUpwardsDeferred = false;
+        extendScanningUpwards(extendScanningUpwardsLog);
+        extendScanningUpwardsLog = null;
+        return additionalWorkUnits;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
-     * Link classes. Not threadsafe, should be run in a single-threaded context.
+     * Get the name of the class.
+     *
+     * @return the class name
+     */
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * Get the classpath element that contains the classfile.
+     *
+     * @return the classpath element
+     */
+    ClasspathElement getClasspathElement() {
+        return classpathElement;
+    }
+
+    /**
+     * Get the classfile resource.
+     *
+     * @return the classfile resource
+     */
+    Resource getClassfileResource() {
+        return classfileResource;
+    }
+
+    /**
+     * Check whether this is an external class.
+     *
+     * @return true if this is an external class.
+     */
+    boolean isExternalClass() {
+        return isExternalClass;
+    }
+
+    /**
+     * Link classes. Threadsafe (multiple {@link Classfile} objects may be linked concurrently), as long as the
+     * provided maps are {@link ConcurrentMap} instances.
      *
      * @param classNameToClassInfo
      *            map from class name to class info
@@ -520,6 +681,9 @@ class Classfile {
             if (methodInfoList != null) {
                 classInfo.addMethodInfo(methodInfoList, classNameToClassInfo);
             }
+            if (hasLazyMembers) {
+                classInfo.setHasLazyMembers();
+            }
             if (typeSignatureStr != null) {
                 classInfo.setTypeSignature(typeSignatureStr);
             }
@@ -553,8 +717,16 @@ class Classfile {
             // Get or create a ModuleInfo object for this module
             ModuleInfo moduleInfo = moduleNameToModuleInfo.get(moduleName);
             if (moduleInfo == null) {
-                moduleNameToModuleInfo.put(moduleName,
-                        moduleInfo = new ModuleInfo(classfileResource.getModuleRef(), classpathElement));
+                moduleInfo = new ModuleInfo(classfileResource.getModuleRef(), classpathElement);
+                if (moduleNameToModuleInfo instanceof ConcurrentMap) {
+                    final ModuleInfo existingModuleInfo = ((ConcurrentMap<String, ModuleInfo>) moduleNameToModuleInfo)
+                            .putIfAbsent(moduleName, moduleInfo);
+                    if (existingModuleInfo != null) {
+                        moduleInfo = existingModuleInfo;
+                    }
+                } else {
+                    moduleNameToModuleInfo.put(moduleName, moduleInfo);
+                }
             }
             if (isModuleDescriptor) {
                 // Add any class annotations on the module-info.class file to the ModuleInfo
@@ -574,24 +746,6 @@ class Classfile {
 
     // -------------------------------------------------------------------------------------------------------------
 
-    /**
-     * Intern a string.
-     *
-     * @param str
-     *            the str
-     * @return the string
-     */
-    private String intern(final String str) {
-        if (str == null) {
-            return null;
-        }
-        final String interned = stringInternMap.putIfAbsent(str, str);
-        if (interned != null) {
-            return interned;
-        }
-        return str;
-    }
-
     /**
      * Get the byte offset within the buffer of a string from the constant pool, or 0 for a null string.
      *
@@ -666,6 +820,73 @@ class Classfile {
         return entryOffset[cpIdxToUse];
     }
 
+    /**
+     * Intern a string from the constant pool, at the given offset in the buffer. The string is looked up by its
+     * encoded bytes, so a {@link String} is only created if the string has not been seen before in this scan.
+     *
+     * @param constantPoolStringOffset
+     *            the offset of the constant pool string (i.e. of its length field)
+     * @param utfLen
+     *            the length of the constant pool string, in bytes
+     * @param replaceSlashWithDot
+     *            if true, replace slash with dot in the result.
+     * @param stripLSemicolon
+     *            if true, strip 'L' from the beginning and ';' from the end before returning (for class reference
+     *            constants)
+     * @return the interned string
+     * @throws IOException
+     *             If an IO exception occurs.
+     */
+    private String internConstantPoolString(final int constantPoolStringOffset, final int utfLen,
+            final boolean replaceSlashWithDot, final boolean stripLSemicolon) throws IOException {
+        final int strStart = constantPoolStringOffset + 2;
+        reader.bufferTo(strStart + utfLen);
+        return stringInterner.intern(reader.buf(), strStart, utfLen, replaceSlashWithDot, stripLSemicolon);
+    }
+
+    /**
+     * Intern a string from the constant pool as a symbol of the scan-wide {@link SymbolTable}, without creating a
+     * {@link String} for the string.
+     *
+     * @param cpIdx
+     *            the constant pool index
+     * @return the symbol ID, or -1 if the constant pool entry is null
+     * @throws ClassfileFormatException
+     *             If a problem occurs.
+     * @throws IOException
+     *             If an IO exception occurs.
+     */
+    private int getConstantPoolSymbol(final int cpIdx) throws ClassfileFormatException, IOException {
+        return getConstantPoolSymbol(cpIdx, /* subFieldIdx = */ 0);
+    }
+
+    /**
+     * Intern a string from the constant pool as a symbol of the scan-wide {@link SymbolTable}, without creating a
+     * {@link String} for the string.
+     *
+     * @param cpIdx
+     *            the constant pool index
+     * @param subFieldIdx
+     *            should be 0 for CONSTANT_Utf8, CONSTANT_Class and CONSTANT_String, and for
+     *            CONSTANT_NameAndType_info, fetches the name for value 0, or the type descriptor for value 1.
+     * @return the symbol ID, or -1 if the constant pool entry is null
+     * @throws ClassfileFormatException
+     *             If a problem occurs.
+     * @throws IOException
+     *             If an IO exception occurs.
+     */
+    private int getConstantPoolSymbol(final int cpIdx, final int subFieldIdx)
+            throws ClassfileFormatException, IOException {
+        final int constantPoolStringOffset = getConstantPoolStringOffset(cpIdx, subFieldIdx);
+        if (constantPoolStringOffset == 0) {
+            return -1;
+        }
+        final int utfLen = reader.readUnsignedShort(constantPoolStringOffset);
+        final int strStart = constantPoolStringOffset + 2;
+        reader.bufferTo(strStart + utfLen);
+        return stringInterner.internSymbol(reader.buf(), strStart, utfLen);
+    }
+
     /**
      * Get a string from the constant pool, optionally replacing '/' with '.'.
      *
@@ -692,8 +913,7 @@ class Classfile {
         if (utfLen == 0) {
             return "";
         }
-        return intern(
-                reader.readString(constantPoolStringOffset + 2L, utfLen, replaceSlashWithDot, stripLSemicolon));
+        return internConstantPoolString(constantPoolStringOffset, utfLen, replaceSlashWithDot, stripLSemicolon);
     }
 
     /**
@@ -720,8 +940,8 @@ class Classfile {
         if (utfLen == 0) {
             return "";
         }
-        return intern(reader.readString(constantPoolStringOffset + 2L, utfLen, /* replaceSlashWithDot = */ false,
-                /* stripLSemicolon = */ false));
+        return internConstantPoolString(constantPoolStringOffset, utfLen, /* replaceSlashWithDot = */ false,
+                /* stripLSemicolon = */ false);
     }
 
     /**
@@ -832,6 +1052,40 @@ class Classfile {
         return true;
     }
 
+    /**
+     * Check whether any Modified UTF8 string in the constant pool is equal to any of the given strings, without
+     * constructing the constant pool String objects.
+     *
+     * @param utf8Strs
+     *            the strings to look for, as UTF-8 bytes
+     * @return true if the constant pool contains any of the strings.
+     * @throws IOException
+     *             If an IO exception occurs.
+     */
+    private boolean constantPoolContainsAny(final byte[][] utf8Strs) throws IOException {
+        for (int i = 1; i < cpCount; i++) {
+            if (entryTag[i] == 1) {
+                final int cpStrOffset = entryOffset[i];
+                final int cpStrLen = reader.readUnsignedShort(cpStrOffset);
+                for (final byte[] utf8Str : utf8Strs) {
+                    if (utf8Str.length == cpStrLen) {
+                        final int cpStrStart = cpStrOffset + 2;
+                        reader.bufferTo(cpStrStart + cpStrLen);
+                        final byte[] buf = reader.buf();
+                        int j = 0;
+                        while (j < cpStrLen && buf[cpStrStart + j] == utf8Str[j]) {
+                            j++;
+                        }
+                        if (j == cpStrLen) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1066,10 +1320,11 @@ class Classfile {
      *             Signals that an I/O exception has occurred.
      */
     private void readConstantPoolEntries(final LogNode log) throws IOException {
-        // Only record class dependency info if inter-class dependencies are enabled
+        // Only record class dependency info if inter-class dependencies are enabled (they were already recorded
+        // if the fields and methods of the class are being read after they were deferred)
         List<Integer> classNameCpIdxs = null;
         List<Integer> typeSignatureIdxs = null;
-        if (scanSpec.enableInterClassDependencies) {
+        if (scanSpec.enableInterClassDependencies && !readingLazyMembers) {
             classNameCpIdxs = new ArrayList<>();
             typeSignatureIdxs = new ArrayList<>();
         }
@@ -1077,10 +1332,19 @@ class Classfile {
         // Read size of constant pool
         cpCount = reader.readUnsignedShort();
 
-        // Allocate storage for constant pool
-        entryOffset = new int[cpCount];
-        entryTag = new int[cpCount];
-        indirectStringRefs = new int[cpCount];
+        // Allocate storage for constant pool, or reuse the recycled arrays (the tags of the unused slots after
+        // long and double entries are never written, so must be cleared)
+        if (parseBuffers != null) {
+            parseBuffers.ensureConstantPoolCapacity(cpCount);
+            entryOffset = parseBuffers.entryOffset;
+            entryTag = parseBuffers.entryTag;
+            indirectStringRefs = parseBuffers.indirectStringRefs;
+            Arrays.fill(entryTag, 0, cpCount, 0);
+        } else {
+            entryOffset = new int[cpCount];
+            entryTag = new int[cpCount];
+            indirectStringRefs = new int[cpCount];
+        }
         Arrays.fill(indirectStringRefs, 0, cpCount, -1);
 
         // Read constant pool entries
@@ -1255,11 +1519,10 @@ class Classfile {
         isAnnotation = (classModifiers & 0x2000) != 0;
 
         // The fully-qualified class name of this class, with slashes replaced with dots
-        final String classNamePath = getConstantPoolString(reader.readUnsignedShort());
-        if (classNamePath == null) {
+        className = getConstantPoolClassName(reader.readUnsignedShort());
+        if (className == null) {
             throw new ClassfileFormatException("Class name is null");
         }
-        className = classNamePath.replace('/', '.');
         if ("java.lang.Object".equals(className)) {
             // Don't process java.lang.Object (it has a null superclass), though you can still search for classes
             // that are subclasses of java.lang.Object (as an external class).
@@ -1282,8 +1545,14 @@ class Classfile {
             // Should not happen
             throw new SkipClassException("Classfile filename " + relativePath + " does not end in \".class\"");
         }
-        final int len = classNamePath.length();
-        if (relativePath.length() != len + 6 || !classNamePath.regionMatches(0, relativePath, 0, len)) {
+        final int len = className.length();
+        boolean classNameMatchesPath = relativePath.length() == len + 6;
+        for (int i = 0; i < len && classNameMatchesPath; i++) {
+            // Compare with the slashes of the path replaced with dots (the internal name cannot contain dots)
+            final char pathChar = relativePath.charAt(i);
+            classNameMatchesPath = pathChar != '.' && (pathChar == '/' ? '.' : pathChar) == className.charAt(i);
+        }
+        if (!classNameMatchesPath) {
             throw new SkipClassException(
                     "Relative path " + relativePath + " does not match class name " + className);
         }
@@ -1361,9 +1630,7 @@ class Classfile {
                 final int fieldTypeDescriptorCpIdx = reader.readUnsignedShort();
                 final char fieldTypeDescriptorFirstChar = (char) getConstantPoolStringFirstByte(
                         fieldTypeDescriptorCpIdx);
-                String fieldTypeDescriptor;
-                String fieldTypeSignatureStr = null;
-                fieldTypeDescriptor = getConstantPoolString(fieldTypeDescriptorCpIdx);
+                int fieldTypeSignatureCpIdx = 0;
 
                 Object fieldConstValue = null;
                 AnnotationInfoList fieldAnnotationInfo = null;
@@ -1386,7 +1653,7 @@ class Classfile {
                         fieldConstValue = getFieldConstantPoolValue(entryTag[cpIdx], fieldTypeDescriptorFirstChar,
                                 cpIdx);
                     } else if (fieldIsVisible && constantPoolStringEquals(attributeNameCpIdx, "Signature")) {
-                        fieldTypeSignatureStr = getConstantPoolString(reader.readUnsignedShort());
+                        fieldTypeSignatureCpIdx = reader.readUnsignedShort();
                     } else if (scanSpec.enableAnnotationInfo //
                             && (constantPoolStringEquals(attributeNameCpIdx, "RuntimeVisibleAnnotations")
                                     || (!scanSpec.disableRuntimeInvisibleAnnotations && constantPoolStringEquals(
@@ -1409,6 +1676,7 @@ class Classfile {
                         final int annotationCount = reader.readUnsignedShort();
                         if (annotationCount > 0) {
                             fieldTypeAnnotationDecorators = new ArrayList<>();
+                            hasTypeAnnotations = true;
                             for (int m = 0; m < annotationCount; m++) {
                                 final int targetType = reader.readUnsignedByte();
                                 if (targetType != 0x13) {
@@ -1438,9 +1706,14 @@ class Classfile {
                     if (fieldInfoList == null) {
                         fieldInfoList = new FieldInfoList();
                     }
-                    fieldInfoList.add(new FieldInfo(className, fieldName, fieldModifierFlags, fieldTypeDescriptor,
-                            fieldTypeSignatureStr, fieldConstValue, fieldAnnotationInfo,
-                            fieldTypeAnnotationDecorators));
+                    final FieldInfo fieldInfo = new FieldInfo(className, fieldName, fieldModifierFlags,
+                            /* typeDescriptorStr = */ null, /* typeSignatureStr = */ null, fieldConstValue,
+                            fieldAnnotationInfo, fieldTypeAnnotationDecorators);
+                    // Store the type descriptor and type signature in the scan-wide symbol table
+                    fieldInfo.setTypeSymbols(stringInterner.getSymbolTable(),
+                            getConstantPoolSymbol(fieldTypeDescriptorCpIdx), fieldTypeSignatureCpIdx == 0 ? -1
+                                    : getConstantPoolSymbol(fieldTypeSignatureCpIdx));
+                    fieldInfoList.add(fieldInfo);
                 }
             }
         }
@@ -1448,6 +1721,27 @@ class Classfile {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Skip over the class' fields or methods (field_info and method_info entries have the same layout).
+     *
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    private void skipFieldsOrMethods() throws IOException {
+        final int count = reader.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            reader.skip(6); // access_flags, name_index, descriptor_index
+            final int attributesCount = reader.readUnsignedShort();
+            for (int j = 0; j < attributesCount; j++) {
+                reader.skip(2); // attribute_name_index
+                final int attributeLength = reader.readInt();
+                reader.skip(attributeLength);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Read the class' methods.
      *
@@ -1470,15 +1764,14 @@ class Classfile {
             
             List<MethodTypeAnnotationDecorator> methodTypeAnnotationDecorators = null;
             String methodName = null;
-            String methodTypeDescriptor = null;
-            String methodTypeSignatureStr = null;
+            int methodTypeDescriptorCpIdx = 0;
+            int methodTypeSignatureCpIdx = 0;
             // Always enable MethodInfo for annotations (this is how annotation constants are defined)
             final boolean enableMethodInfo = scanSpec.enableMethodInfo || isAnnotation;
-            if (enableMethodInfo || isAnnotation) { // Annotations store defaults in method_info
+            if (includeMethod && enableMethodInfo) { // Annotations store defaults in method_info
                 final int methodNameCpIdx = reader.readUnsignedShort();
                 methodName = getConstantPoolString(methodNameCpIdx);
-                final int methodTypeDescriptorCpIdx = reader.readUnsignedShort();
-                methodTypeDescriptor = getConstantPoolString(methodTypeDescriptorCpIdx);
+                methodTypeDescriptorCpIdx = reader.readUnsignedShort();
             } else {
                 reader.skip(4); // name_index, descriptor_index
             }
@@ -1489,6 +1782,7 @@ class Classfile {
             AnnotationInfo[][] methodParameterAnnotations = null;
             AnnotationInfoList methodAnnotationInfo = null;
             boolean methodHasBody = false;
+            int[] calledMethodCpIdxs = null;
             int minLineNum = 0;
             int maxLineNum = 0;
             if (!includeMethod || (!enableMethodInfo && !isAnnotation)) {
@@ -1559,6 +1853,7 @@ class Classfile {
                         final int annotationCount = reader.readUnsignedShort();
                         if (annotationCount > 0) {
                             methodTypeAnnotationDecorators = new ArrayList<>(annotationCount);
+                            hasTypeAnnotations = true;
                             for (int m = 0; m < annotationCount; m++) {
                                 final int targetType = reader.readUnsignedByte();
                                 final int typeParameterIndex;
@@ -1733,7 +2028,7 @@ class Classfile {
                         }
                     } else if (constantPoolStringEquals(attributeNameCpIdx, "Signature")) {
                         // Add type params to method type signature
-                        methodTypeSignatureStr = getConstantPoolString(reader.readUnsignedShort());
+                        methodTypeSignatureCpIdx = reader.readUnsignedShort();
                     } else if (constantPoolStringEquals(attributeNameCpIdx, "AnnotationDefault")) {
                         if (annotationParamDefaultValues == null) {
                             annotationParamDefaultValues = new AnnotationParameterValueList();
@@ -1752,7 +2047,11 @@ class Classfile {
                         methodHasBody = true;
                         reader.skip(4); // max_stack, max_locals
                         final int codeLength = reader.readInt();
-                        reader.skip(codeLength);
+                        if (scanSpec.enableMethodCallGraph) {
+                            calledMethodCpIdxs = readCalledMethodCpIdxs(codeLength);
+                        } else {
+                            reader.skip(codeLength);
+                        }
                         final int exceptionTableLength = reader.readUnsignedShort();
                         reader.skip(8 * exceptionTableLength);
                         final int codeAttrCount = reader.readUnsignedShort();
@@ -1780,15 +2079,268 @@ class Classfile {
                     if (methodInfoList == null) {
                         methodInfoList = new MethodInfoList();
                     }
-                    methodInfoList.add(new MethodInfo(className, methodName, methodAnnotationInfo,
-                            methodModifierFlags, methodTypeDescriptor, methodTypeSignatureStr, methodParameterNames,
-                            methodParameterModifiers, methodParameterAnnotations, methodHasBody, minLineNum,
-                            maxLineNum, methodTypeAnnotationDecorators, thrownExceptionNames));
+                    final MethodInfo methodInfo = new MethodInfo(className, methodName, methodAnnotationInfo,
+                            methodModifierFlags, /* typeDescriptorStr = */ null, /* typeSignatureStr = */ null,
+                            methodParameterNames, methodParameterModifiers, methodParameterAnnotations,
+                            methodHasBody, minLineNum, maxLineNum, methodTypeAnnotationDecorators,
+                            thrownExceptionNames);
+                    // Store the type descriptor and type signature in the scan-wide symbol table
+                    methodInfo.setTypeSymbols(stringInterner.getSymbolTable(),
+                            getConstantPoolSymbol(methodTypeDescriptorCpIdx), methodTypeSignatureCpIdx == 0 ? -1
+                                    : getConstantPoolSymbol(methodTypeSignatureCpIdx));
+                    methodInfoList.add(methodInfo);
+                    if (calledMethodCpIdxs != null) {
+                        // Resolve the called methods once the BootstrapMethods attribute has been read
+                        if (callingMethods == null) {
+                            callingMethods = new ArrayList<>();
+                            callingMethodCpIdxs = new ArrayList<>();
+                        }
+                        callingMethods.add(methodInfo);
+                        callingMethodCpIdxs.add(calledMethodCpIdxs);
+                    }
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the length of a variable-length instruction (tableswitch, lookupswitch or wide).
+     *
+     * @param codeStart
+     *            the offset of the bytecode of the method in the classfile
+     * @param pc
+     *            the offset of the instruction within the bytecode
+     * @param opcode
+     *            the opcode of the instruction
+     * @return the length of the instruction, including the opcode
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the opcode is not defined.
+     */
+    private int getVariableInstructionLength(final int codeStart, final int pc, final int opcode)
+            throws IOException, ClassfileFormatException {
+        if (opcode == 0xaa || opcode == 0xab) {
+            // The operands of tableswitch and lookupswitch are aligned to a multiple of 4 bytes from the start of
+            // the bytecode, after 0-3 bytes of padding
+            final int operandsPc = (pc + 4) & ~3;
+            final long instructionLength;
+            if (opcode == 0xaa) {
+                // tableswitch: default, low, high, then (high - low + 1) jump offsets
+                final int low = reader.readInt(codeStart + operandsPc + 4);
+                final int high = reader.readInt(codeStart + operandsPc + 8);
+                instructionLength = operandsPc - pc + 12 + ((long) high - low + 1) * 4;
+            } else {
+                // lookupswitch: default, npairs, then npairs (match, offset) pairs
+                final int numPairs = reader.readInt(codeStart + operandsPc + 4);
+                instructionLength = operandsPc - pc + 8 + (long) numPairs * 8;
+            }
+            return (int) Math.max(0, Math.min(instructionLength, Integer.MAX_VALUE));
+        } else if (opcode == 0xc4) {
+            // wide: iinc has a 2-byte index and a 2-byte constant, other instructions just have a 2-byte index
+            return reader.readUnsignedByte(codeStart + pc + 1) == 0x84 ? 6 : 4;
+        } else {
+            throw new ClassfileFormatException("Class " + className + " has unknown opcode 0x"
+                    + Integer.toHexString(opcode) + " in the bytecode of a method, cannot continue reading class. "
+                    + "Please report this at https://github.com/classgraph/classgraph/issues");
+        }
+    }
+
+    /**
+     * Read the bytecode of a method, and find the constant pool entries that are referenced by the invoke
+     * instructions of the method (method refs, interface method refs and invoke dynamic entries).
+     *
+     * @param codeLength
+     *            the length of the bytecode
+     * @return the constant pool indices of the referenced entries, in the order they are first referenced, or
+     *         null if the method has no invoke instructions.
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the bytecode is incorrectly formatted.
+     */
+    private int[] readCalledMethodCpIdxs(final int codeLength) throws IOException, ClassfileFormatException {
+        final int codeStart = reader.currPos();
+        reader.bufferTo(codeStart + codeLength);
+        final byte[] code = reader.buf();
+        calledMethodStamp++;
+        int numCalledMethods = 0;
+        for (int pc = 0; pc < codeLength;) {
+            final int opcode = code[codeStart + pc] & 0xff;
+            int instructionLength = INSTRUCTION_LENGTH[opcode];
+            if (instructionLength == 0) {
+                instructionLength = getVariableInstructionLength(codeStart, pc, opcode);
+            }
+            if (instructionLength <= 0 || instructionLength > codeLength - pc) {
+                throw new ClassfileFormatException("Class " + className + " has an instruction that extends "
+                        + "past the end of the bytecode of a method, cannot continue reading class. "
+                        + "Please report this at https://github.com/classgraph/classgraph/issues");
+            }
+            if (opcode >= 0xb6 && opcode <= 0xba) {
+                // invokevirtual, invokespecial, invokestatic, invokeinterface or invokedynamic
+                final int cpIdx = reader.readUnsignedShort(codeStart + pc + 1);
+                if (cpIdx < 1 || cpIdx >= cpCount) {
+                    throw new ClassfileFormatException("Constant pool index " + cpIdx + ", should be in range [1, "
+                            + (cpCount - 1) + "] -- cannot continue reading class. "
+                            + "Please report this at https://github.com/classgraph/classgraph/issues");
+                }
+                if (calledMethodCpIdxStamp == null) {
+                    calledMethodCpIdxStamp = new int[cpCount];
+                }
+                if (calledMethodCpIdxStamp[cpIdx] != calledMethodStamp) {
+                    // Only add each called method once
+                    calledMethodCpIdxStamp[cpIdx] = calledMethodStamp;
+                    ensureCalledMethodBufCapacity(numCalledMethods + 1);
+                    calledMethodBuf[numCalledMethods++] = cpIdx;
+                }
+            }
+            pc += instructionLength;
+        }
+        reader.skip(codeLength);
+        return numCalledMethods == 0 ? null : Arrays.copyOf(calledMethodBuf, numCalledMethods);
+    }
+
+    /**
+     * Ensure {@link #calledMethodBuf} has at least the requested capacity.
+     *
+     * @param capacity
+     *            the required capacity
+     */
+    private void ensureCalledMethodBufCapacity(final int capacity) {
+        if (calledMethodBuf == null) {
+            calledMethodBuf = new int[Math.max(16, capacity)];
+        } else if (calledMethodBuf.length < capacity) {
+            calledMethodBuf = Arrays.copyOf(calledMethodBuf, Math.max(calledMethodBuf.length * 2, capacity));
+        }
+    }
+
+    /**
+     * Read the offset of each bootstrap method in the BootstrapMethods class attribute.
+     *
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    private void readBootstrapMethods() throws IOException {
+        final int numBootstrapMethods = reader.readUnsignedShort();
+        bootstrapMethodOffsets = new int[numBootstrapMethods];
+        for (int i = 0; i < numBootstrapMethods; i++) {
+            bootstrapMethodOffsets[i] = reader.currPos();
+            reader.skip(2); // bootstrap_method_ref
+            final int numBootstrapArguments = reader.readUnsignedShort();
+            reader.skip(2 * numBootstrapArguments);
+        }
+    }
+
+    /**
+     * Add the class name, method name and type descriptor of a method ref or interface method ref constant pool
+     * entry to {@link #calledMethodBuf} as symbols, unless the method was already added for the current method.
+     *
+     * @param methodRefCpIdx
+     *            the constant pool index of the method ref
+     * @param numSymbols
+     *            the number of symbols in {@link #calledMethodBuf}
+     * @return the new number of symbols in {@link #calledMethodBuf}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private int addCalledMethodSymbols(final int methodRefCpIdx, final int numSymbols)
+            throws IOException, ClassfileFormatException {
+        if (methodRefCpIdx < 1 || methodRefCpIdx >= cpCount
+                || (entryTag[methodRefCpIdx] != 10 && entryTag[methodRefCpIdx] != 11)) {
+            throw new ClassfileFormatException("Constant pool index " + methodRefCpIdx + " is not a method ref, "
+                    + "cannot continue reading class. "
+                    + "Please report this at https://github.com/classgraph/classgraph/issues");
+        }
+        if (calledMethodCpIdxStamp[methodRefCpIdx] == calledMethodStamp) {
+            return numSymbols;
+        }
+        calledMethodCpIdxStamp[methodRefCpIdx] = calledMethodStamp;
+        final int classCpIdx = reader.readUnsignedShort(entryOffset[methodRefCpIdx]);
+        final int nameAndTypeCpIdx = reader.readUnsignedShort(entryOffset[methodRefCpIdx] + 2);
+        final int classNameSymbol = getConstantPoolSymbol(classCpIdx, /* subFieldIdx = */ 0);
+        final int methodNameSymbol = getConstantPoolSymbol(nameAndTypeCpIdx, /* subFieldIdx = */ 0);
+        final int typeDescriptorSymbol = getConstantPoolSymbol(nameAndTypeCpIdx, /* subFieldIdx = */ 1);
+        if (classNameSymbol == -1 || methodNameSymbol == -1 || typeDescriptorSymbol == -1) {
+            return numSymbols;
+        }
+        ensureCalledMethodBufCapacity(numSymbols + 3);
+        calledMethodBuf[numSymbols] = classNameSymbol;
+        calledMethodBuf[numSymbols + 1] = methodNameSymbol;
+        calledMethodBuf[numSymbols + 2] = typeDescriptorSymbol;
+        return numSymbols + 3;
+    }
+
+    /**
+     * Resolve the constant pool entries referenced by the invoke instructions of each method to the methods that
+     * are called, and store the called methods in the {@link MethodInfo} object for the method. Invoke dynamic
+     * entries are resolved to the method handles that are passed as static arguments to their bootstrap method
+     * (e.g. the implementation method of a lambda expression), so the BootstrapMethods class attribute must have
+     * been read.
+     *
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void resolveCalledMethods() throws IOException, ClassfileFormatException {
+        if (callingMethods == null) {
+            return;
+        }
+        final SymbolTable symbolTable = stringInterner.getSymbolTable();
+        for (int i = 0; i < callingMethods.size(); i++) {
+            calledMethodStamp++;
+            int numSymbols = 0;
+            for (final int cpIdx : callingMethodCpIdxs.get(i)) {
+                final int tag = entryTag[cpIdx];
+                if (tag == 10 || tag == 11) {
+                    // Method ref or interface method ref
+                    numSymbols = addCalledMethodSymbols(cpIdx, numSymbols);
+                } else if (tag == 18) {
+                    // Invoke dynamic
+                    final int bootstrapMethodIdx = reader.readUnsignedShort(entryOffset[cpIdx]);
+                    if (bootstrapMethodOffsets == null || bootstrapMethodIdx >= bootstrapMethodOffsets.length) {
+                        continue;
+                    }
+                    final int bootstrapMethodOffset = bootstrapMethodOffsets[bootstrapMethodIdx];
+                    final int numBootstrapArguments = reader.readUnsignedShort(bootstrapMethodOffset + 2);
+                    for (int j = 0; j < numBootstrapArguments; j++) {
+                        final int argCpIdx = reader.readUnsignedShort(bootstrapMethodOffset + 4 + 2 * j);
+                        if (argCpIdx > 0 && argCpIdx < cpCount && entryTag[argCpIdx] == 15) {
+                            // Method handle -- reference kinds 5 to 9 refer to methods (REF_invokeVirtual,
+                            // REF_invokeStatic, REF_invokeSpecial, REF_newInvokeSpecial, REF_invokeInterface)
+                            final int referenceKind = reader.readUnsignedByte(entryOffset[argCpIdx]);
+                            if (referenceKind >= 5 && referenceKind <= 9) {
+                                numSymbols = addCalledMethodSymbols(
+                                        reader.readUnsignedShort(entryOffset[argCpIdx] + 1), numSymbols);
+                            }
+                        }
+                    }
+                } else {
+                    throw new ClassfileFormatException("Wrong tag number " + tag + " at constant pool index "
+                            + cpIdx + " referenced by an invoke instruction, cannot continue reading class. "
+                            + "Please report this at https://github.com/classgraph/classgraph/issues");
                 }
             }
+            if (numSymbols > 0) {
+                callingMethods.get(i).setCalledMethodSymbols(symbolTable,
+                        Arrays.copyOf(calledMethodBuf, numSymbols));
+            }
         }
     }
 
+    /** Release the state that is only needed while the methods called by each method are being found. */
+    private void releaseCallGraphParsingState() {
+        callingMethods = null;
+        callingMethodCpIdxs = null;
+        bootstrapMethodOffsets = null;
+        calledMethodBuf = null;
+        calledMethodCpIdxStamp = null;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1825,6 +2377,7 @@ class Classfile {
                 final int annotationCount = reader.readUnsignedShort();
                 if (annotationCount > 0) {
                     classTypeAnnotationDecorators = new ArrayList<>(annotationCount);
+                    hasTypeAnnotations = true;
                     for (int m = 0; m < annotationCount; m++) {
                         final int targetType = reader.readUnsignedByte();
                         final int typeParameterIndex;
@@ -1971,10 +2524,36 @@ class Classfile {
                 this.fullyQualifiedDefiningMethodName = innermostEnclosingClassName + "." + definingMethodName;
             } else if (constantPoolStringEquals(attributeNameCpIdx, "Module")) {
                 final int moduleNameCpIdx = reader.readUnsignedShort();
-                classpathElement.moduleNameFromModuleDescriptor = getConstantPoolString(moduleNameCpIdx);
+                moduleNameFromModuleDescriptor = getConstantPoolString(moduleNameCpIdx);
+                classpathElement.moduleNameFromModuleDescriptor = moduleNameFromModuleDescriptor;
                 // (Future work): parse the rest of the module descriptor fields, and add to ModuleInfo:
                 // https://docs.oracle.com/javase/specs/jvms/se9/html/jvms-4.html#jvms-4.7.25
                 reader.skip(attributeLength - 2);
+            } else if (callingMethods != null && constantPoolStringEquals(attributeNameCpIdx, "BootstrapMethods")) {
+                readBootstrapMethods();
+            } else {
+                reader.skip(attributeLength);
+            }
+        }
+    }
+
+    /**
+     * Skip the class attributes other than the BootstrapMethods attribute, which is needed to resolve the methods
+     * called by the methods of the class, when the fields and methods of the class are read after they were
+     * deferred.
+     *
+     * @throws IOException
+     *             if an I/O exception occurs.
+     * @throws ClassfileFormatException
+     *             if the classfile is incorrectly formatted.
+     */
+    private void readBootstrapMethodsClassAttribute() throws IOException, ClassfileFormatException {
+        final int attributesCount = reader.readUnsignedShort();
+        for (int i = 0; i < attributesCount; i++) {
+            final int attributeNameCpIdx = reader.readUnsignedShort();
+            final int attributeLength = reader.readInt();
+            if (constantPoolStringEquals(attributeNameCpIdx, "BootstrapMethods")) {
+                readBootstrapMethods();
             } else {
                 reader.skip(attributeLength);
             }
@@ -2004,10 +2583,17 @@ class Classfile {
      *            the classfile resource
      * @param isExternalClass
      *            if this is an external class
-     * @param stringInternMap
-     *            the string intern map
+     * @param applyClassReferencePrefilter
+     *            if true, skip the class if it is not an external class, and its constant pool does not reference
+     *            any of the classes in {@link ScanSpec#classReferencePrefilter}
+     * @param stringInterner
+     *            the string intern table
+     * @param parseBuffers
+     *            the recycled buffers to parse the classfile with, or null to allocate new buffers. The buffers
+     *            are no longer used by this {@link Classfile} once the constructor returns.
      * @param workQueue
-     *            the work queue
+     *            the work queue, or null to defer extending scanning upwards to external classes until
+     *            {@link #extendScanningUpwardsDeferred()} is called
      * @param scanSpec
      *            the scan spec
      * @param log
@@ -2023,8 +2609,9 @@ class Classfile {
     Classfile(final ClasspathElement classpathElement, final List<ClasspathElement> classpathOrder,
             final Set<String> acceptedClassNamesFound, final Set<String> classNamesScheduledForExtendedScanning,
             final String relativePath, final Resource classfileResource, final boolean isExternalClass,
-            final ConcurrentHashMap<String, String> stringInternMap,
-            final WorkQueue<ClassfileScanWorkUnit> workQueue, final ScanSpec scanSpec, final LogNode log)
+            final boolean applyClassReferencePrefilter, final ByteStringInterner stringInterner,
+            final ClassfileParseBuffers parseBuffers, final WorkQueue<ClassfileScanWorkUnit> workQueue,
+            final ScanSpec scanSpec, final LogNode log)
             throws IOException, ClassfileFormatException, SkipClassException {
         this.classpathElement = classpathElement;
         this.classpathOrder = classpathOrder;
@@ -2033,11 +2620,13 @@ class Classfile {
         this.classNamesScheduledForExtendedScanning = classNamesScheduledForExtendedScanning;
         this.classfileResource = classfileResource;
         this.isExternalClass = isExternalClass;
-        this.stringInternMap = stringInternMap;
+        this.stringInterner = stringInterner;
+        this.parseBuffers = parseBuffers;
         this.scanSpec = scanSpec;
 
         // Open a BufferedSequentialReader for the classfile
-        try (ClassfileReader classfileReader = classfileResource.openClassfile()) {
+        try (ClassfileReader classfileReader = classfileResource
+                .openClassfile(parseBuffers == null ? null : parseBuffers.readBuf)) {
             reader = classfileReader;
 
             // Check magic number
@@ -2052,22 +2641,58 @@ class Classfile {
             // Read the constant pool
             readConstantPoolEntries(log);
 
+            if (applyClassReferencePrefilter && !isExternalClass && scanSpec.classReferencePrefilter != null
+                    && !constantPoolContainsAny(scanSpec.getClassReferencePrefilterUTF8())) {
+                // The class cannot carry any of the annotations (or extend or implement any of the classes) that
+                // the scan is looking for, since it does not reference them -- skip the rest of the classfile
+                throw new PrefilteredClassException();
+            }
+
             // Read basic class info (
             readBasicClassInfo();
 
             // Read interfaces
             readInterfaces();
 
-            // Read fields
-            readFields();
+            if (scanSpec.enableLazyMemberInfo && !isAnnotation
+                    && (scanSpec.enableFieldInfo || scanSpec.enableMethodInfo)) {
+                // Defer parsing fields and methods until they are first accessed (annotations are excluded,
+                // since their methods define the annotation parameter default values)
+                skipFieldsOrMethods();
+                skipFieldsOrMethods();
+                hasLazyMembers = true;
+            } else {
+                // Read fields
+                readFields();
 
-            // Read methods
-            readMethods();
+                // Read methods
+                readMethods();
+            }
 
             // Read class attributes
             readClassAttributes();
 
+            // Resolve the methods called by each method, now that any bootstrap methods have been read
+            resolveCalledMethods();
+
+            // Hand the read buffer back for the next classfile, in case it grew (if parsing fails, the
+            // buffer that was passed in is still held by parseBuffers, and can be reused)
+            if (parseBuffers != null) {
+                final byte[] readBuf = reader.getReusableBuffer();
+                if (readBuf != null) {
+                    parseBuffers.readBuf = readBuf;
+                }
+            }
+
+            // Release parsing state, since Classfile objects may be retained after parsing
+            // (until linking, or until the next call to ScanResult#rescan())
             reader = null;
+            this.stringInterner = null;
+            this.parseBuffers = null;
+            entryOffset = null;
+            entryTag = null;
+            indirectStringRefs = null;
+            releaseCallGraphParsingState();
         }
 
         // Write class info to log 
@@ -2114,15 +2739,517 @@ class Classfile {
             }
         }
 
-        // Check if any superclasses, interfaces or annotations are external (non-accepted) classes
-        // that need to be scheduled for scanning, so that all of the "upwards" direction of the class
-        // graph is scanned for any accepted class, even if the superclasses / interfaces / annotations
-        // are not themselves accepted.
+        scheduleExtendedScanning(workQueue, subLog);
+    }
+
+    /**
+     * Create a {@link Classfile} from the parsed contents of a {@link Classfile} that was produced by a previous
+     * scan, for a classfile that has not changed since the previous scan. Used by {@link ScanResult#rescan()} to
+     * avoid re-reading and re-parsing unchanged classfiles.
+     *
+     * <p>
+     * The lists and sets that are handed over to {@link ClassInfo} during linking are copied, so that they are not
+     * shared between the {@link ClassInfo} objects of the two scans. The {@link FieldInfo}, {@link MethodInfo} and
+     * {@link AnnotationInfo} objects themselves are shared, and are rebound to the new {@link ScanResult} when it
+     * is created.
+     *
+     * @param previousClassfile
+     *            the {@link Classfile} produced by the previous scan
+     * @param classpathElement
+     *            the classpath element
+     * @param classpathOrder
+     *            the classpath order
+     * @param acceptedClassNamesFound
+     *            the names of accepted classes found in the classpath while scanning paths within classpath
+     *            elements.
+     * @param classNamesScheduledForExtendedScanning
+     *            the names of external (non-accepted) classes scheduled for extended scanning (where scanning is
+     *            extended upwards to superclasses, interfaces and annotations).
+     * @param classfileResource
+     *            the classfile resource
+     * @param isExternalClass
+     *            if this is an external class
+     * @param workQueue
+     *            the work queue, or null to defer extending scanning upwards to external classes until
+     *            {@link #extendScanningUpwardsDeferred()} is called
+     * @param scanSpec
+     *            the scan spec
+     * @param log
+     *            the log
+     */
+    Classfile(final Classfile previousClassfile, final ClasspathElement classpathElement,
+            final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
+            final Set<String> classNamesScheduledForExtendedScanning, final Resource classfileResource,
+            final boolean isExternalClass, final WorkQueue<ClassfileScanWorkUnit> workQueue,
+            final ScanSpec scanSpec, final LogNode log) {
+        this.classpathElement = classpathElement;
+        this.classpathOrder = classpathOrder;
+        this.relativePath = classfileResource.getPath();
+        this.acceptedClassNamesFound = acceptedClassNamesFound;
+        this.classNamesScheduledForExtendedScanning = classNamesScheduledForExtendedScanning;
+        this.classfileResource = classfileResource;
+        this.isExternalClass = isExternalClass;
+        this.scanSpec = scanSpec;
+
+        this.className = previousClassfile.className;
+        this.minorVersion = previousClassfile.minorVersion;
+        this.majorVersion = previousClassfile.majorVersion;
+        this.classModifiers = previousClassfile.classModifiers;
+        this.isInterface = previousClassfile.isInterface;
+        this.isRecord = previousClassfile.isRecord;
+        this.isAnnotation = previousClassfile.isAnnotation;
+        this.superclassName = previousClassfile.superclassName;
+        this.implementedInterfaces = previousClassfile.implementedInterfaces;
+        if (previousClassfile.classAnnotations != null) {
+            this.classAnnotations = new AnnotationInfoList(previousClassfile.classAnnotations);
+        }
+        this.fullyQualifiedDefiningMethodName = previousClassfile.fullyQualifiedDefiningMethodName;
+        this.classContainmentEntries = previousClassfile.classContainmentEntries;
+        if (previousClassfile.annotationParamDefaultValues != null) {
+            this.annotationParamDefaultValues = new AnnotationParameterValueList(
+                    previousClassfile.annotationParamDefaultValues);
+        }
+        if (previousClassfile.refdClassNames != null) {
+            this.refdClassNames = new HashSet<>(previousClassfile.refdClassNames);
+        }
+        if (previousClassfile.fieldInfoList != null) {
+            this.fieldInfoList = new FieldInfoList(previousClassfile.fieldInfoList);
+        }
+        if (previousClassfile.methodInfoList != null) {
+            this.methodInfoList = new MethodInfoList(previousClassfile.methodInfoList);
+        }
+        this.typeSignatureStr = previousClassfile.typeSignatureStr;
+        this.sourceFile = previousClassfile.sourceFile;
+        this.classTypeAnnotationDecorators = previousClassfile.classTypeAnnotationDecorators;
+        this.hasTypeAnnotations = previousClassfile.hasTypeAnnotations;
+        this.hasLazyMembers = previousClassfile.hasLazyMembers;
+        this.moduleNameFromModuleDescriptor = previousClassfile.moduleNameFromModuleDescriptor;
+        if (moduleNameFromModuleDescriptor != null) {
+            classpathElement.moduleNameFromModuleDescriptor = moduleNameFromModuleDescriptor;
+        }
+
+        scheduleExtendedScanning(workQueue, log == null ? null : log.log("Reusing unchanged class " + className));
+    }
+
+    /**
+     * Create a {@link Classfile} from the parsed contents of a classfile that were written by
+     * {@link #write(BinaryWriter)}, e.g. by an earlier scan in another JVM, so that the classfile does not need to
+     * be read and parsed again.
+     *
+     * @param contentsReader
+     *            the reader for the parsed contents of the classfile
+     * @param classpathElement
+     *            the classpath element
+     * @param classpathOrder
+     *            the classpath order
+     * @param acceptedClassNamesFound
+     *            the names of accepted classes found in the classpath while scanning paths within classpath
+     *            elements.
+     * @param classNamesScheduledForExtendedScanning
+     *            the names of external (non-accepted) classes scheduled for extended scanning (where scanning is
+     *            extended upwards to superclasses, interfaces and annotations).
+     * @param classfileResource
+     *            the classfile resource
+     * @param isExternalClass
+     *            if this is an external class
+     * @param workQueue
+     *            the work queue, or null to defer extending scanning upwards to external classes until
+     *            {@link #extendScanningUpwardsDeferred()} is called
+     * @param scanSpec
+     *            the scan spec
+     * @param log
+     *            the log
+     * @throws IOException
+     *             If the parsed contents could not be read.
+     * @throws SkipClassException
+     *             if the classfile was skipped when it was parsed (see {@link #writeSkipped(String,
+     *             BinaryWriter)})
+     */
+    Classfile(final BinaryReader contentsReader, final ClasspathElement classpathElement,
+            final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
+            final Set<String> classNamesScheduledForExtendedScanning, final Resource classfileResource,
+            final boolean isExternalClass, final WorkQueue<ClassfileScanWorkUnit> workQueue,
+            final ScanSpec scanSpec, final LogNode log) throws IOException, SkipClassException {
+        this.classpathElement = classpathElement;
+        this.classpathOrder = classpathOrder;
+        this.relativePath = classfileResource.getPath();
+        this.acceptedClassNamesFound = acceptedClassNamesFound;
+        this.classNamesScheduledForExtendedScanning = classNamesScheduledForExtendedScanning;
+        this.classfileResource = classfileResource;
+        this.isExternalClass = isExternalClass;
+        this.scanSpec = scanSpec;
+
+        if (contentsReader.readBoolean()) {
+            throw new SkipClassException(contentsReader.readString());
+        }
+        className = contentsReader.readString();
+        if (className == null) {
+            throw new ClassfileFormatException("Class name is null");
+        }
+        minorVersion = contentsReader.readVarInt();
+        majorVersion = contentsReader.readVarInt();
+        classModifiers = contentsReader.readVarInt();
+        isInterface = contentsReader.readBoolean();
+        isRecord = contentsReader.readBoolean();
+        isAnnotation = contentsReader.readBoolean();
+        superclassName = contentsReader.readString();
+        final int numInterfacesPlusOne = contentsReader.readCount();
+        if (numInterfacesPlusOne > 0) {
+            implementedInterfaces = new ArrayList<>(numInterfacesPlusOne - 1);
+            for (int i = 1; i < numInterfacesPlusOne; i++) {
+                implementedInterfaces.add(contentsReader.readString());
+            }
+        }
+        classAnnotations = AnnotationInfoList.read(contentsReader);
+        fullyQualifiedDefiningMethodName = contentsReader.readString();
+        final int numClassContainmentEntriesPlusOne = contentsReader.readCount();
+        if (numClassContainmentEntriesPlusOne > 0) {
+            classContainmentEntries = new ArrayList<>(numClassContainmentEntriesPlusOne - 1);
+            for (int i = 1; i < numClassContainmentEntriesPlusOne; i++) {
+                final String innerClassName = contentsReader.readString();
+                final int innerClassModifierBits = contentsReader.readVarInt();
+                final String outerClassName = contentsReader.readString();
+                classContainmentEntries
+                        .add(new ClassContainment(innerClassName, innerClassModifierBits, outerClassName));
+            }
+        }
+        annotationParamDefaultValues = AnnotationParameterValueList.read(contentsReader);
+        final int numRefdClassNamesPlusOne = contentsReader.readCount();
+        if (numRefdClassNamesPlusOne > 0) {
+            refdClassNames = new HashSet<>();
+            for (int i = 1; i < numRefdClassNamesPlusOne; i++) {
+                refdClassNames.add(contentsReader.readString());
+            }
+        }
+        final int numFieldsPlusOne = contentsReader.readCount();
+        if (numFieldsPlusOne > 0) {
+            fieldInfoList = new FieldInfoList(numFieldsPlusOne - 1);
+            for (int i = 1; i < numFieldsPlusOne; i++) {
+                fieldInfoList.add(FieldInfo.read(contentsReader));
+            }
+        }
+        final int numMethodsPlusOne = contentsReader.readCount();
+        if (numMethodsPlusOne > 0) {
+            methodInfoList = new MethodInfoList(numMethodsPlusOne - 1);
+            for (int i = 1; i < numMethodsPlusOne; i++) {
+                methodInfoList.add(MethodInfo.read(contentsReader));
+            }
+        }
+        typeSignatureStr = contentsReader.readString();
+        sourceFile = contentsReader.readString();
+        moduleNameFromModuleDescriptor = contentsReader.readString();
+        if (moduleNameFromModuleDescriptor != null) {
+            classpathElement.moduleNameFromModuleDescriptor = moduleNameFromModuleDescriptor;
+        }
+
+        scheduleExtendedScanning(workQueue, log == null ? null : log.log("Read cached class " + className));
+    }
+
+    /**
+     * Read the fields and methods of a classfile whose fields and methods were not parsed during the scan, because
+     * {@link ScanSpec#enableLazyMemberInfo} was true. The classfile is read again from its classpath element, and
+     * only the constant pool, the basic class info, the fields and the methods are parsed. Used by
+     * {@link ClassInfo#loadLazyMembers()}.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param classfileResource
+     *            the classfile resource
+     * @param scanSpec
+     *            the scan spec
+     * @throws IOException
+     *             If an IO exception occurs.
+     * @throws ClassfileFormatException
+     *             If a problem occurs while parsing the classfile.
+     * @throws SkipClassException
+     *             if the classfile no longer matches the class that was scanned.
+     */
+    Classfile(final ClasspathElement classpathElement, final Resource classfileResource, final ScanSpec scanSpec)
+            throws IOException, ClassfileFormatException, SkipClassException {
+        this.classpathElement = classpathElement;
+        this.classpathOrder = null;
+        this.relativePath = classfileResource.getPath();
+        this.acceptedClassNamesFound = null;
+        this.classNamesScheduledForExtendedScanning = null;
+        this.classfileResource = classfileResource;
+        this.isExternalClass = false;
+        this.stringInterner = new ByteStringInterner();
+        this.scanSpec = scanSpec;
+        this.readingLazyMembers = true;
+
+        try (ClassfileReader classfileReader = classfileResource.openClassfile(/* reusableBuf = */ null)) {
+            reader = classfileReader;
+            if (reader.readInt() != 0xCAFEBABE) {
+                throw new ClassfileFormatException("Classfile does not have correct magic number");
+            }
+            minorVersion = reader.readUnsignedShort();
+            majorVersion = reader.readUnsignedShort();
+            readConstantPoolEntries(/* log = */ null);
+            readBasicClassInfo();
+            readInterfaces();
+            readFields();
+            readMethods();
+            if (callingMethods != null) {
+                readBootstrapMethodsClassAttribute();
+                resolveCalledMethods();
+            }
+            reader = null;
+            this.stringInterner = null;
+            entryOffset = null;
+            entryTag = null;
+            indirectStringRefs = null;
+            releaseCallGraphParsingState();
+        }
+    }
+
+    /**
+     * Get the fields of the class.
+     *
+     * @return the fields of the class, or null if none were found, or parsing them was deferred.
+     */
+    FieldInfoList getFieldInfoList() {
+        return fieldInfoList;
+    }
+
+    /**
+     * Get the methods of the class.
+     *
+     * @return the methods of the class, or null if none were found, or parsing them was deferred.
+     */
+    MethodInfoList getMethodInfoList() {
+        return methodInfoList;
+    }
+
+    /**
+     * Check whether parsing the fields and methods of the class was deferred until they are first accessed. The
+     * parsed contents of such classfiles cannot be written by {@link #write(BinaryWriter)}.
+     *
+     * @return true if parsing the fields and methods of the class was deferred.
+     */
+    boolean hasLazyMembers() {
+        return hasLazyMembers;
+    }
+
+    /**
+     * Get the names of the superclass, interfaces and class annotations of the class.
+     *
+     * @param classNamesOut
+     *            the list to add the class names to
+     */
+    void getSuperclassInterfaceAndAnnotationNames(final List<String> classNamesOut) {
+        if (superclassName != null) {
+            classNamesOut.add(superclassName);
+        }
+        if (implementedInterfaces != null) {
+            classNamesOut.addAll(implementedInterfaces);
+        }
+        if (classAnnotations != null) {
+            for (final AnnotationInfo annotationInfo : classAnnotations) {
+                classNamesOut.add(annotationInfo.getName());
+            }
+        }
+    }
+
+    /**
+     * Check whether type annotations were found in the classfile. The parsed contents of classfiles with type
+     * annotations cannot be written by {@link #write(BinaryWriter)}.
+     *
+     * @return true if type annotations were found in the classfile.
+     */
+    boolean hasTypeAnnotations() {
+        return hasTypeAnnotations;
+    }
+
+    /**
+     * Remove any information that was parsed for another scan that was performed together with the scan of this
+     * classfile (see {@link ClassGraph#scanAll(ClassGraph...)}), but that is not requested by the scan spec of this
+     * classfile: fields and methods that are not visible or not enabled, class, field, method, parameter and type
+     * annotations if annotation info is not enabled, field constant initializer values and type signatures that
+     * are not enabled, and referenced class names if inter-class dependencies are not enabled. Fields and methods
+     * that are shared with the classfile of another scan are copied rather than modified.
+     *
+     * @return false if the class itself is not visible according to the scan spec of this classfile, in which case
+     *         the classfile should be skipped.
+     */
+    boolean removeInfoNotInScanSpec() {
+        final boolean isModule = (classModifiers & 0x8000) != 0;
+        final boolean isPackage = relativePath.regionMatches(relativePath.lastIndexOf('/') + 1,
+                "package-info.class", 0, 18);
+        if (!isModule && !isPackage && !scanSpec.ignoreClassVisibility && !Modifier.isPublic(classModifiers)
+                && !(isPackageVisible(classModifiers) && scanSpec.enableClassAccessibility)) {
+            return false;
+        }
+        if (fieldInfoList != null) {
+            if (!scanSpec.enableFieldInfo) {
+                fieldInfoList = null;
+            } else {
+                final boolean removeConstantInitializerValues = //
+                        !scanSpec.enableStaticFinalFieldConstantInitializerValues;
+                final FieldInfoList visibleFieldInfoList = new FieldInfoList(fieldInfoList.size());
+                for (final FieldInfo fieldInfo : fieldInfoList) {
+                    final int fieldModifiers = fieldInfo.getModifiers();
+                    if (memberIsIncluded(fieldModifiers, scanSpec.ignoreFieldVisibility,
+                            scanSpec.enableFieldAccessibility)) {
+                        // Type signatures are only read for visible fields, not for fields that are only accessible
+                        final boolean fieldIsVisible = Modifier.isPublic(fieldModifiers)
+                                || scanSpec.ignoreFieldVisibility;
+                        visibleFieldInfoList.add(fieldInfo.withInfoRemoved(
+                                /* removeAnnotationInfo = */ !scanSpec.enableAnnotationInfo,
+                                removeConstantInitializerValues, /* removeTypeSignature = */ !fieldIsVisible));
+                    }
+                }
+                fieldInfoList = visibleFieldInfoList;
+            }
+        }
+        if (methodInfoList != null) {
+            if (!scanSpec.enableMethodInfo && !isAnnotation) {
+                methodInfoList = null;
+            } else {
+                final MethodInfoList visibleMethodInfoList = new MethodInfoList(methodInfoList.size());
+                for (final MethodInfo methodInfo : methodInfoList) {
+                    if (memberIsIncluded(methodInfo.getModifiers(), scanSpec.ignoreMethodVisibility,
+                            scanSpec.enableMethodAccessibility)) {
+                        visibleMethodInfoList.add(
+                                scanSpec.enableAnnotationInfo ? methodInfo : methodInfo.withoutAnnotationInfo());
+                    }
+                }
+                methodInfoList = visibleMethodInfoList;
+            }
+        }
+        if (!scanSpec.enableAnnotationInfo) {
+            classAnnotations = null;
+            classTypeAnnotationDecorators = null;
+        }
+        if (!scanSpec.enableInterClassDependencies) {
+            refdClassNames = null;
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a field or method is included in the scan, according to its modifiers.
+     *
+     * @param memberModifiers
+     *            the modifiers of the field or method
+     * @param ignoreVisibility
+     *            true if the visibility of fields or methods is ignored
+     * @param enableAccessibility
+     *            true if protected and package-private fields or methods are included
+     * @return true if the field or method is included.
+     */
+    private boolean memberIsIncluded(final int memberModifiers, final boolean ignoreVisibility,
+            final boolean enableAccessibility) {
+        return Modifier.isPublic(memberModifiers) || ignoreVisibility || (enableAccessibility
+                && (Modifier.isProtected(memberModifiers) || isPackageVisible(memberModifiers)));
+    }
+
+    /**
+     * Write the parsed contents of this classfile in binary form, so that they can be read back by
+     * {@link #Classfile(BinaryReader, ClasspathElement, List, Set, Set, Resource, boolean, WorkQueue, ScanSpec,
+     * LogNode)}. Should only be called if {@link #hasTypeAnnotations()} is false, since type annotations are not
+     * written.
+     *
+     * @param writer
+     *            the writer
+     */
+    void write(final BinaryWriter writer) {
+        writer.writeBoolean(/* skipped = */ false);
+        writer.writeString(className);
+        writer.writeVarInt(minorVersion);
+        writer.writeVarInt(majorVersion);
+        writer.writeVarInt(classModifiers);
+        writer.writeBoolean(isInterface);
+        writer.writeBoolean(isRecord);
+        writer.writeBoolean(isAnnotation);
+        writer.writeString(superclassName);
+        if (implementedInterfaces == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(implementedInterfaces.size() + 1);
+            for (final String interfaceName : implementedInterfaces) {
+                writer.writeString(interfaceName);
+            }
+        }
+        AnnotationInfoList.write(classAnnotations, writer);
+        writer.writeString(fullyQualifiedDefiningMethodName);
+        if (classContainmentEntries == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(classContainmentEntries.size() + 1);
+            for (final ClassContainment classContainment : classContainmentEntries) {
+                writer.writeString(classContainment.innerClassName);
+                writer.writeVarInt(classContainment.innerClassModifierBits);
+                writer.writeString(classContainment.outerClassName);
+            }
+        }
+        AnnotationParameterValueList.write(annotationParamDefaultValues, writer);
+        if (refdClassNames == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(refdClassNames.size() + 1);
+            for (final String refdClassName : refdClassNames) {
+                writer.writeString(refdClassName);
+            }
+        }
+        if (fieldInfoList == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(fieldInfoList.size() + 1);
+            for (final FieldInfo fieldInfo : fieldInfoList) {
+                fieldInfo.write(writer);
+            }
+        }
+        if (methodInfoList == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(methodInfoList.size() + 1);
+            for (final MethodInfo methodInfo : methodInfoList) {
+                methodInfo.write(writer);
+            }
+        }
+        writer.writeString(typeSignatureStr);
+        writer.writeString(sourceFile);
+        writer.writeString(moduleNameFromModuleDescriptor);
+    }
+
+    /**
+     * Write a record of a classfile that was skipped when it was parsed, so that reading the record back with
+     * {@link #Classfile(BinaryReader, ClasspathElement, List, Set, Set, Resource, boolean, WorkQueue, ScanSpec,
+     * LogNode)} throws the same {@link SkipClassException}.
+     *
+     * @param reason
+     *            the reason the classfile was skipped
+     * @param writer
+     *            the writer
+     */
+    static void writeSkipped(final String reason, final BinaryWriter writer) {
+        writer.writeBoolean(/* skipped = */ true);
+        writer.writeString(reason);
+    }
+
+    /**
+     * Check if any superclasses, interfaces or annotations are external (non-accepted) classes that need to be
+     * scheduled for scanning, so that all of the "upwards" direction of the class graph is scanned for any
+     * accepted class, even if the superclasses / interfaces / annotations are not themselves accepted.
+     *
+     * @param workQueue
+     *            the work queue, or null to defer extending scanning upwards to external classes until
+     *            {@link #extendScanningUpwardsDeferred()} is called
+     * @param log
+     *            the log
+     */
+    private void scheduleExtendedScanning(final WorkQueue<ClassfileScanWorkUnit> workQueue, final LogNode log) {
         if (scanSpec.extendScanningUpwardsToExternalClasses) {
-            extendScanningUpwards(subLog);
-            // If any external classes were found, schedule them for scanning
-            if (additionalWorkUnits != null) {
-                workQueue.addWorkUnits(additionalWorkUnits);
+            if (workQueue == null) {
+                // Not all accepted classes have been found yet
+                extendScanningUpwardsDeferred = true;
+                extendScanningUpwardsLog = log;
+            } else {
+                extendScanningUpwards(log);
+                // If any external classes were found, schedule them for scanning
+                if (additionalWorkUnits != null) {
+                    workQueue.addWorkUnits(additionalWorkUnits);
+                }
             }
         }
     }
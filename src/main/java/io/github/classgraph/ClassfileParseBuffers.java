@@ -0,0 +1,88 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import nonapi.io.github.classgraph.recycler.Recycler;
+import nonapi.io.github.classgraph.recycler.Resettable;
+
+/**
+ * The buffers used while parsing a classfile, which are recycled by a {@link Recycler} so that they can be reused
+ * for the next classfile parsed by the same worker thread, rather than being reallocated for each classfile.
+ */
+class ClassfileParseBuffers implements Resettable {
+    /**
+     * The buffer to read the classfile into, or null if none has been allocated yet (see
+     * {@link nonapi.io.github.classgraph.fileslice.reader.ClassfileReader#getReusableBuffer()}).
+     */
+    byte[] readBuf;
+
+    /** The byte offset for the beginning of each entry in the constant pool. */
+    int[] entryOffset = new int[INITIAL_CONSTANT_POOL_CAPACITY];
+
+    /** The tag (type) for each entry in the constant pool. */
+    int[] entryTag = new int[INITIAL_CONSTANT_POOL_CAPACITY];
+
+    /** The indirection index for String/Class entries in the constant pool. */
+    int[] indirectStringRefs = new int[INITIAL_CONSTANT_POOL_CAPACITY];
+
+    /** The initial capacity of the constant pool arrays. */
+    private static final int INITIAL_CONSTANT_POOL_CAPACITY = 512;
+
+    /**
+     * The largest read buffer that is retained between classfiles. Classfiles are rarely larger than this, and a
+     * larger buffer is dropped so that one unusually large classfile does not pin a large buffer for the rest of
+     * the scan.
+     */
+    private static final int MAX_RETAINED_READ_BUF_SIZE = 1024 * 1024;
+
+    /**
+     * Grow the constant pool arrays, if needed, so that they can hold the given number of entries. The arrays may
+     * contain values left over from a previous classfile, and must be overwritten or cleared before use.
+     *
+     * @param cpCount
+     *            the number of constant pool entries plus one.
+     */
+    void ensureConstantPoolCapacity(final int cpCount) {
+        if (entryOffset.length < cpCount) {
+            // Constant pool counts are limited to 65535, so this cannot overflow
+            final int newCapacity = Math.max(cpCount, entryOffset.length * 2);
+            entryOffset = new int[newCapacity];
+            entryTag = new int[newCapacity];
+            indirectStringRefs = new int[newCapacity];
+        }
+    }
+
+    /** Drop the read buffer if it grew unusually large while reading the last classfile. */
+    @Override
+    public void reset() {
+        if (readBuf != null && readBuf.length > MAX_RETAINED_READ_BUF_SIZE) {
+            readBuf = null;
+        }
+    }
+}
@@ -236,11 +236,11 @@ class ClasspathElementDir extends ClasspathElement {
             }
 
             @Override
-            ClassfileReader openClassfile() throws IOException {
+            ClassfileReader openClassfile(final byte[] reusableBuf) throws IOException {
                 checkSkipState();
                 // Classfile won't be compressed, so wrap it in a new PathSlice and then open it
                 openAndCreateSlice();
-                return new ClassfileReader(pathSlice, this);
+                return new ClassfileReader(pathSlice, this, reusableBuf);
             }
 
             @Override
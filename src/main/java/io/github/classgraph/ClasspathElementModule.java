@@ -179,8 +179,8 @@ class ClasspathElementModule extends ClasspathElement {
             }
 
             @Override
-            ClassfileReader openClassfile() throws IOException {
-                return new ClassfileReader(open(), this);
+            ClassfileReader openClassfile(final byte[] reusableBuf) throws IOException {
+                return new ClassfileReader(open(), this, reusableBuf);
             }
 
             @Override
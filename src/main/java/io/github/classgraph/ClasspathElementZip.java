@@ -56,9 +56,11 @@ import nonapi.io.github.classgraph.fastzipfilereader.FastZipEntry;
 import nonapi.io.github.classgraph.fastzipfilereader.LogicalZipFile;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
 import nonapi.io.github.classgraph.fastzipfilereader.ZipFileSlice;
+import nonapi.io.github.classgraph.fileslice.Slice;
 import nonapi.io.github.classgraph.fileslice.reader.ClassfileReader;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.scanspec.ScanSpec.ScanSpecPathMatch;
+import nonapi.io.github.classgraph.utils.BinaryReader;
 import nonapi.io.github.classgraph.utils.FastPathResolver;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
@@ -90,6 +92,12 @@ class ClasspathElementZip extends ClasspathElement {
     String moduleNameFromManifestFile;
     /** The automatic module name, derived from the jarfile filename. */
     private String derivedAutomaticModuleName;
+    /**
+     * The parsed contents of the accepted classfiles that were found in the {@link JarIndex} of this jarfile, that
+     * have not changed since the index was written, and that have not been scanned yet, indexed by relative path.
+     */
+    private final ConcurrentHashMap<String, BinaryReader> relativePathToIndexedClassfile = //
+            new ConcurrentHashMap<>();
 
     /**
      * A jarfile classpath element.
@@ -295,6 +303,25 @@ class ClasspathElementZip extends ClasspathElement {
         }
     }
 
+    /**
+     * Get the {@link Slice} for the data of a zip entry, so that the zip entry can be read, counting the bytes of
+     * the zip entry in {@link NestedJarHandler#bytesStored} if the zip entry is stored (deflated zip entries are
+     * counted in {@link NestedJarHandler#bytesInflated} as they are inflated).
+     *
+     * @param zipEntry
+     *            the zip entry
+     * @return the slice
+     * @throws IOException
+     *             if the zip entry could not be read.
+     */
+    private Slice getSlice(final FastZipEntry zipEntry) throws IOException {
+        final Slice slice = zipEntry.getSlice();
+        if (!slice.isDeflatedZipEntry) {
+            nestedJarHandler.bytesStored.add(slice.sliceLength);
+        }
+        return slice;
+    }
+
     /**
      * Create a new {@link Resource} object for a resource or classfile discovered while scanning paths.
      *
@@ -318,6 +345,11 @@ class ClasspathElementZip extends ClasspathElement {
                 return pathRelativeToPackageRoot;
             }
 
+            @Override
+            long getPositionInClasspathElement() {
+                return zipEntry.getLocHeaderPos();
+            }
+
             @Override
             public String getPathRelativeToClasspathElement() {
                 if (zipEntry.entryName.startsWith(packageRootPrefix)) {
@@ -372,8 +404,8 @@ class ClasspathElementZip extends ClasspathElement {
             }
 
             @Override
-            ClassfileReader openClassfile() throws IOException {
-                return new ClassfileReader(open(), this);
+            ClassfileReader openClassfile(final byte[] reusableBuf) throws IOException {
+                return new ClassfileReader(open(), this, reusableBuf);
             }
 
             @Override
@@ -387,7 +419,7 @@ class ClasspathElementZip extends ClasspathElement {
                             "Resource is already open -- cannot open it again without first calling close()");
                 }
                 try {
-                    inputStream = zipEntry.getSlice().open(this);
+                    inputStream = getSlice(zipEntry).open(this);
                     length = zipEntry.uncompressedSize;
                     return inputStream;
 
@@ -408,7 +440,7 @@ class ClasspathElementZip extends ClasspathElement {
                             "Resource is already open -- cannot open it again without first calling close()");
                 }
                 try {
-                    byteBuffer = zipEntry.getSlice().read();
+                    byteBuffer = getSlice(zipEntry).read();
                     length = byteBuffer.remaining();
                     return byteBuffer;
                 } catch (final IOException e) {
@@ -428,7 +460,7 @@ class ClasspathElementZip extends ClasspathElement {
                             "Resource is already open -- cannot open it again without first calling close()");
                 }
                 try (Resource res = this) { // Close this after use
-                    final byte[] byteArray = zipEntry.getSlice().load();
+                    final byte[] byteArray = getSlice(zipEntry).load();
                     res.length = byteArray.length;
                     return byteArray;
                 }
@@ -503,6 +535,11 @@ class ClasspathElementZip extends ClasspathElement {
             }
         }
 
+        // Read the precomputed index of parsed classfiles, if the jarfile contains one
+        final JarIndex jarIndex = scanSpec.enableClassInfo && !scanSpec.disableJarIndex
+                ? JarIndex.read(logicalZipFile, scanSpec, subLog)
+                : null;
+
         Set<String> loggedNestedClasspathRootPrefixes = null;
         String prevParentRelativePath = null;
         ScanSpecPathMatch prevParentMatchStatus = null;
@@ -619,11 +656,13 @@ class ClasspathElementZip extends ClasspathElement {
                                 && scanSpec.classfileIsSpecificallyAccepted(relativePath))) {
                     // Resource is accepted
                     addAcceptedResource(resource, parentMatchStatus, /* isClassfileOnly = */ false, subLog);
+                    addIndexedClassfile(jarIndex, relativePath, zipEntry);
                 } else if (scanSpec.enableClassInfo && relativePath.equals("module-info.class")) {
                     // Add module descriptor as an accepted classfile resource, so that it is scanned,
                     // but don't add it to the list of resources in the ScanResult, since it is not
                     // in an accepted package (#352)
                     addAcceptedResource(resource, parentMatchStatus, /* isClassfileOnly = */ true, subLog);
+                    addIndexedClassfile(jarIndex, relativePath, zipEntry);
                 }
             }
         }
@@ -637,6 +676,50 @@ class ClasspathElementZip extends ClasspathElement {
         finishScanPaths(subLog);
     }
 
+    /**
+     * Record the parsed contents of an accepted classfile from the {@link JarIndex} of this jarfile, before the
+     * classfile resource can be scanned.
+     *
+     * @param jarIndex
+     *            the index of this jarfile, or null if the jarfile does not contain an index
+     * @param relativePath
+     *            the relative path of the accepted resource
+     * @param zipEntry
+     *            the zip entry of the accepted resource
+     */
+    private void addIndexedClassfile(final JarIndex jarIndex, final String relativePath,
+            final FastZipEntry zipEntry) {
+        if (jarIndex != null && FileUtils.isClassfile(relativePath)
+                && !scanSpec.classfilePathAcceptReject.isRejected(relativePath)) {
+            final BinaryReader indexedClassfile = jarIndex.getClassfile(relativePath, zipEntry);
+            if (indexedClassfile != null) {
+                relativePathToIndexedClassfile.put(relativePath, indexedClassfile);
+            }
+        }
+    }
+
+    /**
+     * Get the parsed contents of a classfile from the {@link JarIndex} of this jarfile, if the jarfile has an index
+     * containing the classfile, and the classfile has not changed since the index was written. Each classfile can
+     * only be read from the index once.
+     *
+     * @param classfileResource
+     *            the classfile resource
+     * @return a reader for the parsed contents of the classfile, or null if the classfile is not indexed.
+     */
+    BinaryReader getIndexedClassfile(final Resource classfileResource) {
+        return relativePathToIndexedClassfile.remove(classfileResource.getPath());
+    }
+
+    /**
+     * Release the parsed contents of any indexed classfiles that were not scanned (e.g. because they were masked
+     * by an earlier classpath element), once classfile scanning has finished, so that the index can be garbage
+     * collected.
+     */
+    void releaseIndexedClassfiles() {
+        relativePathToIndexedClassfile.clear();
+    }
+
     /**
      * Get module name from module descriptor, or get the automatic module name from the manifest file, or derive an
      * automatic module name from the jar name.
@@ -724,6 +807,31 @@ class ClasspathElementZip extends ClasspathElement {
         }
     }
 
+    /**
+     * Get the jarfile on disk that this classpath element was opened from, if this classpath element is a
+     * toplevel jarfile (not a nested jarfile, and not a jarfile that was downloaded from a URL).
+     *
+     * @return the jarfile, or null if this classpath element is not a toplevel jarfile on disk.
+     */
+    File getToplevelJarFile() {
+        if (logicalZipFile == null || logicalZipFile.getParentZipFileSlice() != null) {
+            return null;
+        }
+        final File physicalFile = logicalZipFile.getPhysicalFile();
+        if (physicalFile == null) {
+            return null;
+        }
+        // Make sure the jarfile was not downloaded or extracted to a temporary file
+        final int plingIdx = rawPath.indexOf('!');
+        final File rawFile = new File(FastPathResolver.resolve(FileUtils.currDirPath(),
+                plingIdx < 0 ? rawPath : rawPath.substring(0, plingIdx)));
+        try {
+            return rawFile.getCanonicalFile().equals(physicalFile.getCanonicalFile()) ? physicalFile : null;
+        } catch (final IOException | SecurityException e) {
+            return null;
+        }
+    }
+
     /**
      * Return the classpath element path.
      *
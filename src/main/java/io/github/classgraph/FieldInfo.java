@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -40,6 +41,8 @@ import io.github.classgraph.Classfile.TypeAnnotationDecorator;
 import nonapi.io.github.classgraph.types.ParseException;
 import nonapi.io.github.classgraph.types.TypeUtils;
 import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /**
@@ -97,6 +100,82 @@ public class FieldInfo extends ClassMemberInfo implements Comparable<FieldInfo>
         this.typeAnnotationDecorators = typeAnnotationDecorators;
     }
 
+    /**
+     * Get a copy of this field with some of the information that was parsed for it removed, for one of several
+     * scans that are performed together (see {@link ClassGraph#scanAll(ClassGraph...)}), where the information
+     * was only requested by another scan. This field is not modified, since it may be shared with another scan.
+     *
+     * @param removeAnnotationInfo
+     *            if true, remove the annotations and type annotations of the field
+     * @param removeConstantInitializerValue
+     *            if true, remove the constant initializer value of the field
+     * @param removeTypeSignature
+     *            if true, remove the type signature of the field
+     * @return this field, if it does not contain any of the information to remove, otherwise a copy of this field
+     *         with the information removed.
+     */
+    FieldInfo withInfoRemoved(final boolean removeAnnotationInfo, final boolean removeConstantInitializerValue,
+            final boolean removeTypeSignature) {
+        final boolean removesAnnotationInfo = removeAnnotationInfo
+                && (annotationInfo != null || typeAnnotationDecorators != null);
+        final boolean removesConstantInitializerValue = removeConstantInitializerValue
+                && constantInitializerValue != null;
+        final boolean removesTypeSignature = removeTypeSignature && hasTypeSignature();
+        if (!removesAnnotationInfo && !removesConstantInitializerValue && !removesTypeSignature) {
+            return this;
+        }
+        final FieldInfo fieldInfo = new FieldInfo(declaringClassName, name, modifiers,
+                /* typeDescriptorStr = */ null, /* typeSignatureStr = */ null,
+                removeConstantInitializerValue || constantInitializerValue == null ? null
+                        : constantInitializerValue.get(),
+                removeAnnotationInfo ? null : annotationInfo, removeAnnotationInfo ? null : typeAnnotationDecorators);
+        fieldInfo.copyTypeStrs(this, /* copyTypeSignature = */ !removeTypeSignature);
+        return fieldInfo;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this field in binary form. Type annotation decorators are not written.
+     *
+     * @param writer
+     *            the writer
+     */
+    void write(final BinaryWriter writer) {
+        writer.writeString(declaringClassName);
+        writer.writeString(name);
+        writer.writeVarInt(modifiers);
+        writer.writeString(getTypeDescriptorStr());
+        writer.writeString(getTypeSignatureStr());
+        ObjectTypedValueWrapper.writeValue(
+                constantInitializerValue == null ? null : constantInitializerValue.get(), writer);
+        AnnotationInfoList.write(annotationInfo, writer);
+    }
+
+    /**
+     * Read a field written by {@link #write(BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the field
+     * @throws IOException
+     *             if the field could not be read.
+     */
+    static FieldInfo read(final BinaryReader reader) throws IOException {
+        final String definingClassName = reader.readString();
+        final String fieldName = reader.readString();
+        final int modifiers = reader.readVarInt();
+        final String typeDescriptorStr = reader.readString();
+        final String typeSignatureStr = reader.readString();
+        final Object constantInitializerValue = ObjectTypedValueWrapper.readValue(reader);
+        final AnnotationInfoList annotationInfo = AnnotationInfoList.read(reader);
+        if (fieldName == null) {
+            throw new IOException("Field name is null");
+        }
+        return new FieldInfo(definingClassName, fieldName, modifiers, typeDescriptorStr, typeSignatureStr,
+                constantInitializerValue, annotationInfo, /* typeAnnotationDecorators = */ null);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -149,12 +228,13 @@ public class FieldInfo extends ClassMemberInfo implements Comparable<FieldInfo>
     @Override
     public TypeSignature getTypeDescriptor() {
         synchronized (this) {
-            if (typeDescriptorStr == null) {
-                return null;
-            }
             if (typeDescriptor == null) {
+                final String typeDescriptorString = getTypeDescriptorStr();
+                if (typeDescriptorString == null) {
+                    return null;
+                }
                 try {
-                    typeDescriptor = TypeSignature.parse(typeDescriptorStr, declaringClassName);
+                    typeDescriptor = TypeSignature.parse(typeDescriptorString, declaringClassName);
                     typeDescriptor.setScanResult(scanResult);
                     if (typeAnnotationDecorators != null) {
                         for (final TypeAnnotationDecorator decorator : typeAnnotationDecorators) {
@@ -183,12 +263,13 @@ public class FieldInfo extends ClassMemberInfo implements Comparable<FieldInfo>
     @Override
     public TypeSignature getTypeSignature() {
         synchronized (this) {
-            if (typeSignatureStr == null) {
-                return null;
-            }
             if (typeSignature == null) {
+                final String typeSignatureString = getTypeSignatureStr();
+                if (typeSignatureString == null) {
+                    return null;
+                }
                 try {
-                    typeSignature = TypeSignature.parse(typeSignatureStr, declaringClassName);
+                    typeSignature = TypeSignature.parse(typeSignatureString, declaringClassName);
                     typeSignature.setScanResult(scanResult);
                     if (typeAnnotationDecorators != null) {
                         for (final TypeAnnotationDecorator decorator : typeAnnotationDecorators) {
@@ -201,7 +282,7 @@ public class FieldInfo extends ClassMemberInfo implements Comparable<FieldInfo>
                                     + (getClassInfo() != null
                                             ? " in classpath element " + getClassInfo().getClasspathElementURI()
                                             : "")
-                                    + " : " + typeSignatureStr,
+                                    + " : " + typeSignatureString,
                             e);
                 }
             }
@@ -278,13 +359,15 @@ public class FieldInfo extends ClassMemberInfo implements Comparable<FieldInfo>
      *
      * @param allRepeatableAnnotationNames
      *            the names of all repeatable annotations
+     * @return true if the annotations of this field were modified.
      */
-    void handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames) {
+    boolean handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames) {
         if (annotationInfo != null) {
-            annotationInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames, getClassInfo(),
+            return annotationInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames, getClassInfo(),
                     RelType.FIELD_ANNOTATIONS, RelType.CLASSES_WITH_FIELD_ANNOTATION,
                     RelType.CLASSES_WITH_NONPRIVATE_FIELD_ANNOTATION);
         }
+        return false;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -281,7 +281,10 @@ final class GraphvizDotfileGenerator {
             }
         }
 
-        // Fields
+        // Fields (parse them first, if parsing them was deferred)
+        if (showFields || showMethods) {
+            ci.loadLazyMembers();
+        }
         final FieldInfoList fieldInfo = ci.fieldInfo;
         if (showFields && fieldInfo != null && !fieldInfo.isEmpty()) {
             final FieldInfoList fieldInfoSorted = new FieldInfoList(fieldInfo);
@@ -571,6 +574,9 @@ final class GraphvizDotfileGenerator {
                 }
             }
 
+            if (showFieldTypeDependencyEdges || showMethodTypeDependencyEdges) {
+                classNode.loadLazyMembers();
+            }
             if (showFieldTypeDependencyEdges && classNode.fieldInfo != null) {
                 for (final FieldInfo fi : classNode.fieldInfo) {
                     for (final ClassInfo referencedFieldType : fi.findReferencedClassInfo(/* log = */ null)) {
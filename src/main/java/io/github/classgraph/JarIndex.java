@@ -0,0 +1,445 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import nonapi.io.github.classgraph.fastzipfilereader.FastZipEntry;
+import nonapi.io.github.classgraph.fastzipfilereader.LogicalZipFile;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * A precomputed index of the parsed contents of the classfiles in a jarfile, stored within the jarfile itself at
+ * {@code META-INF/classgraph/index.bin}. The index is written at build time by
+ * {@link ClassGraph#writeJarIndex(File)}, or by running this class from the command line:
+ *
+ * <pre>
+ * java -cp classgraph.jar io.github.classgraph.JarIndex [-enableAllInfo] [-ignoreClassVisibility] ... jarfile...
+ * </pre>
+ *
+ * <p>
+ * where each option is the name of the corresponding {@link ClassGraph} method. When a jarfile containing an
+ * index is scanned with the same options that affect classfile parsing (e.g. {@link ClassGraph#enableMethodInfo()})
+ * as the options the index was written with, the parsed contents of each classfile are read from the index rather
+ * than by opening and parsing the classfile, as long as the CRC and size of the classfile's zip entry match the
+ * values recorded in the index. Classfiles that were added or changed after the index was written, or that are
+ * not in the index, are parsed as usual, and an index written with different options or by a different version
+ * of ClassGraph is ignored. Indexes can be ignored by calling {@link ClassGraph#disableJarIndex()}.
+ */
+public final class JarIndex {
+    /** The path of the index within the jarfile. */
+    static final String INDEX_PATH = "META-INF/classgraph/index.bin";
+
+    /** The magic number at the start of an index. */
+    private static final int MAGIC = 0x43474a49;
+
+    /** The index format version. Increment this when the binary format of parsed classfiles changes. */
+    private static final int FORMAT_VERSION = 2;
+
+    /** The contents of the index. */
+    private final byte[] buf;
+
+    /** The index entry for each classfile path. */
+    private final Map<String, IndexEntry> pathToIndexEntry;
+
+    /** The location of the parsed contents of a classfile within the index. */
+    private static class IndexEntry {
+        /** The CRC-32 of the classfile. */
+        private final long crc;
+
+        /** The size of the classfile. */
+        private final long size;
+
+        /** The offset of the parsed contents of the classfile within the index. */
+        private final int offset;
+
+        /** The length of the parsed contents of the classfile. */
+        private final int length;
+
+        /**
+         * Constructor.
+         *
+         * @param crc
+         *            the CRC-32 of the classfile
+         * @param size
+         *            the size of the classfile
+         * @param offset
+         *            the offset of the parsed contents of the classfile within the index
+         * @param length
+         *            the length of the parsed contents of the classfile
+         */
+        IndexEntry(final long crc, final long size, final int offset, final int length) {
+            this.crc = crc;
+            this.size = size;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param buf
+     *            the contents of the index
+     * @param pathToIndexEntry
+     *            the index entry for each classfile path
+     */
+    private JarIndex(final byte[] buf, final Map<String, IndexEntry> pathToIndexEntry) {
+        this.buf = buf;
+        this.pathToIndexEntry = pathToIndexEntry;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Read the index of a jarfile, if the jarfile contains an index that was written with the options of the
+     * {@link ScanSpec} that affect classfile parsing.
+     *
+     * @param logicalZipFile
+     *            the jarfile
+     * @param scanSpec
+     *            the scan spec
+     * @param log
+     *            the log
+     * @return the index, or null if the jarfile does not contain a usable index.
+     */
+    static JarIndex read(final LogicalZipFile logicalZipFile, final ScanSpec scanSpec, final LogNode log) {
+        FastZipEntry indexZipEntry = null;
+        for (final FastZipEntry zipEntry : logicalZipFile.entries) {
+            if (zipEntry.entryName.equals(INDEX_PATH)) {
+                indexZipEntry = zipEntry;
+                break;
+            }
+        }
+        if (indexZipEntry == null) {
+            return null;
+        }
+        try {
+            final byte[] buf = indexZipEntry.getSlice().load();
+            final BinaryReader reader = new BinaryReader(buf);
+            if (reader.readInt() != MAGIC || reader.readVarInt() != FORMAT_VERSION) {
+                if (log != null) {
+                    log.log("Ignoring jar index written by a different version of ClassGraph");
+                }
+                return null;
+            }
+            if (!PersistentScanCache.getScanSpecKey(scanSpec).equals(reader.readString())) {
+                if (log != null) {
+                    log.log("Ignoring jar index written with different classfile parsing options");
+                }
+                return null;
+            }
+            final int numClassfiles = reader.readCount();
+            final Map<String, IndexEntry> pathToIndexEntry = new HashMap<>(numClassfiles * 2);
+            for (int i = 0; i < numClassfiles; i++) {
+                final String relativePath = reader.readString();
+                final long crc = reader.readInt() & 0xffffffffL;
+                final long size = reader.readVarLong();
+                final int length = reader.readCount();
+                pathToIndexEntry.put(relativePath, new IndexEntry(crc, size, reader.getPosition(), length));
+                reader.skip(length);
+            }
+            if (log != null) {
+                log.log("Found jar index with " + numClassfiles + " parsed classfiles");
+            }
+            return new JarIndex(buf, pathToIndexEntry);
+        } catch (final IOException e) {
+            if (log != null) {
+                log.log("Could not read jar index: " + e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Get a reader for the parsed contents of a classfile, if the classfile is in the index and has not changed
+     * since the index was written.
+     *
+     * @param relativePath
+     *            the path of the classfile
+     * @param zipEntry
+     *            the zip entry of the classfile
+     * @return a reader for the parsed contents of the classfile, or null if the classfile is not in the index or
+     *         has changed since the index was written.
+     */
+    BinaryReader getClassfile(final String relativePath, final FastZipEntry zipEntry) {
+        final IndexEntry indexEntry = pathToIndexEntry.get(relativePath);
+        if (indexEntry == null || indexEntry.crc != zipEntry.crc || indexEntry.size != zipEntry.uncompressedSize) {
+            return null;
+        }
+        return new BinaryReader(buf, indexEntry.offset, indexEntry.length);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Parse the classfiles in a jarfile using the options of a {@link ScanSpec} that affect classfile parsing, and
+     * write the parsed classfiles into the jarfile as an index, replacing any existing index.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @param scanSpec
+     *            the scan spec
+     * @return the number of classfiles in the index.
+     * @throws IOException
+     *             if the jarfile could not be read or written.
+     */
+    static int write(final File jarFile, final ScanSpec scanSpec) throws IOException {
+        final Map<String, byte[]> pathToIndexEntryBytes = new TreeMap<>();
+        final Path cacheDir = Files.createTempDirectory("classgraph-jar-index");
+        try {
+            // Scan the jarfile with the persistent cache enabled, so that the parsed contents of each classfile
+            // are written in the same format that the persistent cache uses
+            final ClassGraph classGraph = new ClassGraph().overrideClasspath(jarFile.getPath()).enableClassInfo();
+            PersistentScanCache.copyScanSpecKeyOptions(scanSpec, classGraph.scanSpec);
+            classGraph.scanSpec.persistentCacheDir = cacheDir;
+            classGraph.scanSpec.disableJarIndex = true;
+            try (ScanResult scanResult = classGraph.scan()) {
+                final List<URI> classpathURIs = scanResult.getClasspathURIs();
+                if (classpathURIs.isEmpty()) {
+                    throw new IOException("Could not scan jarfile: " + jarFile);
+                }
+                final URI jarURI = classpathURIs.get(0);
+                Map<String, byte[]> classfiles = PersistentScanCache.readClassfiles(cacheDir, jarFile);
+                if (classfiles == null) {
+                    // No cache file is written for a jarfile that contains no classfiles
+                    classfiles = Collections.emptyMap();
+                }
+                final CRC32 crc = new CRC32();
+                for (final Entry<String, byte[]> ent : classfiles.entrySet()) {
+                    for (final Resource resource : scanResult.getResourcesWithPath(ent.getKey())) {
+                        if (resource.getClasspathElementURI().equals(jarURI)) {
+                            final byte[] classfileBytes;
+                            try {
+                                classfileBytes = resource.load();
+                            } finally {
+                                resource.close();
+                            }
+                            crc.reset();
+                            crc.update(classfileBytes);
+                            final byte[] parsedClassfileBytes = ent.getValue();
+                            final BinaryWriter writer = new BinaryWriter();
+                            writer.writeInt((int) crc.getValue());
+                            writer.writeVarLong(classfileBytes.length);
+                            writer.writeVarInt(parsedClassfileBytes.length);
+                            writer.writeBytes(parsedClassfileBytes, 0, parsedClassfileBytes.length);
+                            pathToIndexEntryBytes.put(ent.getKey(), writer.toByteArray());
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(cacheDir)) {
+                for (final Path path : dirStream) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            Files.deleteIfExists(cacheDir);
+        }
+
+        final BinaryWriter writer = new BinaryWriter();
+        writer.writeInt(MAGIC);
+        writer.writeVarInt(FORMAT_VERSION);
+        writer.writeString(PersistentScanCache.getScanSpecKey(scanSpec));
+        writer.writeVarInt(pathToIndexEntryBytes.size());
+        for (final Entry<String, byte[]> ent : pathToIndexEntryBytes.entrySet()) {
+            final byte[] indexEntryBytes = ent.getValue();
+            writer.writeString(ent.getKey());
+            writer.writeBytes(indexEntryBytes, 0, indexEntryBytes.length);
+        }
+        replaceIndex(jarFile, writer.toByteArray());
+        return pathToIndexEntryBytes.size();
+    }
+
+    /**
+     * Copy the entries of a jarfile other than any existing index to a new jarfile, followed by the new index, then
+     * replace the jarfile with the new jarfile. The uncompressed contents and CRC of each copied entry are
+     * unchanged, so the new index matches the new jarfile.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @param indexBytes
+     *            the contents of the new index
+     * @throws IOException
+     *             if the jarfile could not be read or written.
+     */
+    private static void replaceIndex(final File jarFile, final byte[] indexBytes) throws IOException {
+        final Path jarPath = jarFile.toPath().toAbsolutePath();
+        Path tempFile = Files.createTempFile(jarPath.getParent(), jarPath.getFileName().toString(), ".tmp");
+        try {
+            try (ZipFile zipFile = new ZipFile(jarFile);
+                    ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(tempFile))) {
+                final byte[] copyBuf = new byte[8192];
+                long lastModified = -1L;
+                for (final Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+                    final ZipEntry zipEntry = entries.nextElement();
+                    if (zipEntry.getName().equals(INDEX_PATH)) {
+                        continue;
+                    }
+                    final ZipEntry newZipEntry = new ZipEntry(zipEntry);
+                    if (newZipEntry.getMethod() == ZipEntry.DEFLATED) {
+                        // The entry is recompressed, so the compressed size may change
+                        newZipEntry.setCompressedSize(-1L);
+                    }
+                    zipOutputStream.putNextEntry(newZipEntry);
+                    try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+                        for (int bytesRead; (bytesRead = inputStream.read(copyBuf)) > 0;) {
+                            zipOutputStream.write(copyBuf, 0, bytesRead);
+                        }
+                    }
+                    zipOutputStream.closeEntry();
+                    lastModified = Math.max(lastModified, zipEntry.getTime());
+                }
+                final ZipEntry indexZipEntry = new ZipEntry(INDEX_PATH);
+                if (lastModified >= 0L) {
+                    // Use a timestamp from the jarfile rather than the current time, for reproducible builds
+                    indexZipEntry.setTime(lastModified);
+                }
+                zipOutputStream.putNextEntry(indexZipEntry);
+                zipOutputStream.write(indexBytes);
+                zipOutputStream.closeEntry();
+                if (zipFile.getComment() != null) {
+                    zipOutputStream.setComment(zipFile.getComment());
+                }
+            }
+            try {
+                Files.move(tempFile, jarPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, jarPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write an index into each of the jarfiles given on the command line.
+     *
+     * @param args
+     *            the names of {@link ClassGraph} methods that affect classfile parsing, each prefixed with
+     *            {@code "-"} (e.g. {@code -enableAllInfo}), followed by the paths of the jarfiles to index.
+     */
+    public static void main(final String[] args) {
+        final ClassGraph classGraph = new ClassGraph().enableClassInfo();
+        final List<File> jarFiles = new ArrayList<>();
+        for (final String arg : args) {
+            switch (arg) {
+            case "-enableAllInfo":
+                classGraph.enableAllInfo();
+                break;
+            case "-enableClassInfo":
+                classGraph.enableClassInfo();
+                break;
+            case "-enableFieldInfo":
+                classGraph.enableFieldInfo();
+                break;
+            case "-enableMethodInfo":
+                classGraph.enableMethodInfo();
+                break;
+            case "-enableAnnotationInfo":
+                classGraph.enableAnnotationInfo();
+                break;
+            case "-enableStaticFinalFieldConstantInitializerValues":
+                classGraph.enableStaticFinalFieldConstantInitializerValues();
+                break;
+            case "-enableInterClassDependencies":
+                classGraph.enableInterClassDependencies();
+                break;
+            case "-enableAcessibleInterClassDependencies":
+                classGraph.enableAcessibleInterClassDependencies();
+                break;
+            case "-enableMethodCallGraph":
+                classGraph.enableMethodCallGraph();
+                break;
+            case "-ignoreClassVisibility":
+                classGraph.ignoreClassVisibility();
+                break;
+            case "-ignoreFieldVisibility":
+                classGraph.ignoreFieldVisibility();
+                break;
+            case "-ignoreMethodVisibility":
+                classGraph.ignoreMethodVisibility();
+                break;
+            case "-disableRuntimeInvisibleAnnotations":
+                classGraph.disableRuntimeInvisibleAnnotations();
+                break;
+            default:
+                if (arg.startsWith("-")) {
+                    System.err.println("Unknown option: " + arg);
+                    System.exit(1);
+                }
+                jarFiles.add(new File(arg));
+                break;
+            }
+        }
+        if (jarFiles.isEmpty()) {
+            System.err.println("Usage: java " + JarIndex.class.getName() + " [-enableAllInfo | -enableFieldInfo | "
+                    + "-ignoreClassVisibility | ...] jarfile...");
+            System.exit(1);
+        }
+        for (final File jarFile : jarFiles) {
+            try {
+                final int numClassfiles = classGraph.writeJarIndex(jarFile);
+                System.out.println("Wrote index of " + numClassfiles + " classfiles to " + jarFile);
+            } catch (final IOException | IllegalArgumentException e) {
+                System.err.println("Could not write index to " + jarFile + " : " + e);
+                System.exit(1);
+            }
+        }
+    }
+}
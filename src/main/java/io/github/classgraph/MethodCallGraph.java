@@ -0,0 +1,301 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nonapi.io.github.classgraph.utils.CollectionUtils;
+
+/**
+ * An index from each method called by the methods of the scanned classes to the methods that call it, i.e. the
+ * reverse of the method call graph. Each called method is identified by an integer callee ID, and the callee IDs
+ * of the methods with the same name and type descriptor are consecutive, so that the called methods that may
+ * resolve to a given method can be found without scanning all called methods. The call edges are stored as lists
+ * of integer caller IDs, grouped by callee ID, so that the index does not need an object per edge.
+ */
+class MethodCallGraph {
+    /** The scan result. */
+    private final ScanResult scanResult;
+
+    /** The methods that call at least one method, indexed by caller ID. */
+    private final MethodInfo[] callers;
+
+    /** The name of the class named at the call site of each called method, indexed by callee ID. */
+    private final String[] calleeClassNames;
+
+    /** A map from the key of the method name and type descriptor of each called method to its member ID. */
+    private final Map<String, Integer> memberKeyToMemberId;
+
+    /**
+     * The first callee ID of the called methods with each member ID. The callee IDs of member ID {@code i} end at
+     * {@code calleeIdsStart[i + 1]}.
+     */
+    private final int[] calleeIdsStart;
+
+    /**
+     * The start index within {@link #callerIds} of the callers of each callee ID. The callers of callee ID
+     * {@code i} end at {@code callerIdsStart[i + 1]}.
+     */
+    private final int[] callerIdsStart;
+
+    /** The caller IDs of the callers of each called method, grouped by callee ID. */
+    private final int[] callerIds;
+
+    /**
+     * Build the method call graph index from the methods of the given classes.
+     *
+     * @param classInfos
+     *            the classes
+     * @param scanResult
+     *            the scan result
+     */
+    MethodCallGraph(final Collection<ClassInfo> classInfos, final ScanResult scanResult) {
+        this.scanResult = scanResult;
+
+        // Sort classes by name, so that the callers of each method are listed in a consistent order
+        final List<ClassInfo> classInfoSorted = new ArrayList<>(classInfos);
+        CollectionUtils.sortIfNotEmpty(classInfoSorted);
+
+        // Assign caller IDs, class IDs, member IDs and (unordered) callee IDs, and list the call edges in the order
+        // they are found
+        final List<MethodInfo> callerList = new ArrayList<>();
+        final Map<String, Integer> classNameToClassId = new HashMap<>();
+        final List<String> classNames = new ArrayList<>();
+        memberKeyToMemberId = new HashMap<>();
+        final Map<Long, Integer> classAndMemberIdToCalleeIdx = new HashMap<>();
+        int[] calleeIdxClassIds = new int[64];
+        int[] calleeIdxMemberIds = new int[64];
+        int numCallees = 0;
+        int[] edgeCalleeIdxs = new int[64];
+        int[] edgeCallerIds = new int[64];
+        int numEdges = 0;
+        for (final ClassInfo classInfo : classInfoSorted) {
+            if (classInfo.methodInfo == null) {
+                continue;
+            }
+            for (final MethodInfo methodInfo : classInfo.methodInfo) {
+                final String[] calledMethodStrs = methodInfo.getCalledMethodStrs();
+                if (calledMethodStrs == null || calledMethodStrs.length == 0) {
+                    continue;
+                }
+                final int callerId = callerList.size();
+                callerList.add(methodInfo);
+                for (int i = 0; i < calledMethodStrs.length; i += 3) {
+                    Integer classId = classNameToClassId.get(calledMethodStrs[i]);
+                    if (classId == null) {
+                        classId = classNames.size();
+                        classNameToClassId.put(calledMethodStrs[i], classId);
+                        classNames.add(calledMethodStrs[i]);
+                    }
+                    final String memberKey = getMemberKey(calledMethodStrs[i + 1], calledMethodStrs[i + 2]);
+                    Integer memberId = memberKeyToMemberId.get(memberKey);
+                    if (memberId == null) {
+                        memberId = memberKeyToMemberId.size();
+                        memberKeyToMemberId.put(memberKey, memberId);
+                    }
+                    final Long classAndMemberId = (long) classId << 32 | memberId;
+                    Integer calleeIdx = classAndMemberIdToCalleeIdx.get(classAndMemberId);
+                    if (calleeIdx == null) {
+                        calleeIdx = numCallees;
+                        classAndMemberIdToCalleeIdx.put(classAndMemberId, calleeIdx);
+                        if (numCallees == calleeIdxClassIds.length) {
+                            calleeIdxClassIds = Arrays.copyOf(calleeIdxClassIds, numCallees * 2);
+                            calleeIdxMemberIds = Arrays.copyOf(calleeIdxMemberIds, numCallees * 2);
+                        }
+                        calleeIdxClassIds[numCallees] = classId;
+                        calleeIdxMemberIds[numCallees] = memberId;
+                        numCallees++;
+                    }
+                    if (numEdges == edgeCalleeIdxs.length) {
+                        edgeCalleeIdxs = Arrays.copyOf(edgeCalleeIdxs, numEdges * 2);
+                        edgeCallerIds = Arrays.copyOf(edgeCallerIds, numEdges * 2);
+                    }
+                    edgeCalleeIdxs[numEdges] = calleeIdx;
+                    edgeCallerIds[numEdges] = callerId;
+                    numEdges++;
+                }
+            }
+        }
+        callers = callerList.toArray(new MethodInfo[0]);
+
+        // Assign the final callee IDs, grouped by member ID (a counting sort)
+        final int numMembers = memberKeyToMemberId.size();
+        calleeIdsStart = countingSortStarts(calleeIdxMemberIds, numCallees, numMembers);
+        final int[] calleeIdxToCalleeId = new int[numCallees];
+        calleeClassNames = new String[numCallees];
+        final int[] nextCalleeId = Arrays.copyOf(calleeIdsStart, numMembers);
+        for (int calleeIdx = 0; calleeIdx < numCallees; calleeIdx++) {
+            final int calleeId = nextCalleeId[calleeIdxMemberIds[calleeIdx]]++;
+            calleeIdxToCalleeId[calleeIdx] = calleeId;
+            calleeClassNames[calleeId] = classNames.get(calleeIdxClassIds[calleeIdx]);
+        }
+
+        // Group the caller IDs by callee ID (a counting sort, which keeps the callers of each method in order)
+        final int[] edgeCalleeIds = new int[numEdges];
+        for (int i = 0; i < numEdges; i++) {
+            edgeCalleeIds[i] = calleeIdxToCalleeId[edgeCalleeIdxs[i]];
+        }
+        callerIdsStart = countingSortStarts(edgeCalleeIds, numEdges, numCallees);
+        final int[] nextCallerIdIdx = Arrays.copyOf(callerIdsStart, numCallees);
+        callerIds = new int[numEdges];
+        for (int i = 0; i < numEdges; i++) {
+            callerIds[nextCallerIdIdx[edgeCalleeIds[i]]++] = edgeCallerIds[i];
+        }
+    }
+
+    /**
+     * Get the start index of each group of a counting sort.
+     *
+     * @param groupIds
+     *            the group ID of each element
+     * @param numElements
+     *            the number of elements
+     * @param numGroups
+     *            the number of groups
+     * @return the start index of the elements of each group, followed by the number of elements.
+     */
+    private static int[] countingSortStarts(final int[] groupIds, final int numElements, final int numGroups) {
+        final int[] starts = new int[numGroups + 1];
+        for (int i = 0; i < numElements; i++) {
+            starts[groupIds[i] + 1]++;
+        }
+        for (int i = 0; i < numGroups; i++) {
+            starts[i + 1] += starts[i];
+        }
+        return starts;
+    }
+
+    /**
+     * Get the key of a method name and type descriptor. Method names cannot contain {@code ';'}, so the key is
+     * unique.
+     *
+     * @param methodName
+     *            the method name
+     * @param typeDescriptorStr
+     *            the internal method type descriptor string
+     * @return the key
+     */
+    private static String getMemberKey(final String methodName, final String typeDescriptorStr) {
+        return methodName + ';' + typeDescriptorStr;
+    }
+
+    /**
+     * Add the callers of a called method to a list.
+     *
+     * @param calleeId
+     *            the callee ID
+     * @param callerMethods
+     *            the list to add the callers to
+     */
+    private void addCallers(final int calleeId, final MethodInfoList callerMethods) {
+        for (int i = callerIdsStart[calleeId], end = callerIdsStart[calleeId + 1]; i < end; i++) {
+            callerMethods.add(callers[callerIds[i]]);
+        }
+    }
+
+    /**
+     * Get the methods that call the method referenced by the given class name, method name and type descriptor.
+     *
+     * @param className
+     *            the name of the class that the method is referenced through at the call site
+     * @param methodName
+     *            the method name
+     * @param typeDescriptorStr
+     *            the internal method type descriptor string
+     * @return the calling methods
+     */
+    MethodInfoList getCallers(final String className, final String methodName, final String typeDescriptorStr) {
+        final Integer memberId = memberKeyToMemberId.get(getMemberKey(methodName, typeDescriptorStr));
+        if (memberId == null) {
+            return MethodInfoList.EMPTY_LIST;
+        }
+        final int calleeIdsEnd = calleeIdsStart[memberId + 1];
+        for (int calleeId = calleeIdsStart[memberId]; calleeId < calleeIdsEnd; calleeId++) {
+            if (calleeClassNames[calleeId].equals(className)) {
+                final MethodInfoList callerMethods = new MethodInfoList(
+                        callerIdsStart[calleeId + 1] - callerIdsStart[calleeId]);
+                addCallers(calleeId, callerMethods);
+                return callerMethods;
+            }
+        }
+        return MethodInfoList.EMPTY_LIST;
+    }
+
+    /**
+     * Get the methods that call the given method, either through the class that declares the method, or through
+     * another class that inherits the method. Only the called methods with the same name and type descriptor as
+     * the given method are resolved.
+     *
+     * @param methodInfo
+     *            the method
+     * @return the calling methods
+     */
+    MethodInfoList getCallers(final MethodInfo methodInfo) {
+        final String methodName = methodInfo.getName();
+        final String typeDescriptorStr = methodInfo.getTypeDescriptorStr();
+        final Integer memberId = memberKeyToMemberId.get(getMemberKey(methodName, typeDescriptorStr));
+        if (memberId == null) {
+            return MethodInfoList.EMPTY_LIST;
+        }
+        final String declaringClassName = methodInfo.getClassName();
+        final BitSet callerIdSet = new BitSet(callers.length);
+        final int calleeIdsEnd = calleeIdsStart[memberId + 1];
+        for (int calleeId = calleeIdsStart[memberId]; calleeId < calleeIdsEnd; calleeId++) {
+            boolean isCaller = calleeClassNames[calleeId].equals(declaringClassName);
+            if (!isCaller) {
+                // The method may be inherited by the class named at the call site
+                final MethodRef methodRef = new MethodRef(calleeClassNames[calleeId], methodName,
+                        typeDescriptorStr);
+                methodRef.setScanResult(scanResult);
+                isCaller = methodInfo.equals(methodRef.getMethodInfo());
+            }
+            if (isCaller) {
+                for (int i = callerIdsStart[calleeId], callerIdsEnd = callerIdsStart[calleeId + 1]; i < callerIdsEnd;
+                        i++) {
+                    callerIdSet.set(callerIds[i]);
+                }
+            }
+        }
+        if (callerIdSet.isEmpty()) {
+            return MethodInfoList.EMPTY_LIST;
+        }
+        final MethodInfoList callerMethods = new MethodInfoList(callerIdSet.cardinality());
+        for (int callerId = callerIdSet.nextSetBit(0); callerId >= 0; callerId = callerIdSet
+                .nextSetBit(callerId + 1)) {
+            callerMethods.add(callers[callerId]);
+        }
+        return callerMethods;
+    }
+}
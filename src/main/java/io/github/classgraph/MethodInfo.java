@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.Constructor;
@@ -35,6 +36,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -45,7 +47,10 @@ import nonapi.io.github.classgraph.types.ParseException;
 import nonapi.io.github.classgraph.types.TypeUtils;
 import nonapi.io.github.classgraph.types.TypeUtils.ModifierType;
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.SymbolTable;
 
 /**
  * Holds metadata about methods of a class encountered during a scan. All values are taken directly out of the
@@ -92,6 +97,25 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
 
     private transient ClassInfoList thrownExceptions;
 
+    /**
+     * The class name, method name and type descriptor of each method called by this method, flattened into
+     * consecutive triples, if the called methods were read from a serialized {@link ScanResult} or created by
+     * {@link #materializeTypeStrs()}, otherwise null.
+     */
+    private String[] calledMethodStrs;
+
+    /**
+     * The symbol table that holds the called methods, if they were stored as symbols when the classfile was
+     * parsed, otherwise null.
+     */
+    private transient SymbolTable calledMethodSymbolTable;
+
+    /**
+     * The symbol IDs of the internal class name, method name and type descriptor of each method called by this
+     * method, flattened into consecutive triples, if {@link #calledMethodSymbolTable} is not null.
+     */
+    private transient int[] calledMethodSymbols;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** Default constructor for deserialization. */
@@ -148,6 +172,231 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
         this.thrownExceptionNames = thrownExceptionNames;
     }
 
+    /**
+     * Get a copy of this method without the method, parameter and type annotations that were parsed for it, for
+     * one of several scans that are performed together (see {@link ClassGraph#scanAll(ClassGraph...)}), where
+     * annotation info was only enabled by another scan. This method is not modified, since it may be shared with
+     * another scan.
+     *
+     * @return this method, if it has no annotations, otherwise a copy of this method without annotations.
+     */
+    MethodInfo withoutAnnotationInfo() {
+        if (annotationInfo == null && parameterAnnotationInfo == null && typeAnnotationDecorators == null) {
+            return this;
+        }
+        final MethodInfo methodInfo = new MethodInfo(declaringClassName, name, /* methodAnnotationInfo = */ null,
+                modifiers, /* typeDescriptorStr = */ null, /* typeSignatureStr = */ null, parameterNames,
+                parameterModifiers, /* parameterAnnotationInfo = */ null, hasBody, minLineNum, maxLineNum,
+                /* methodTypeAnnotationDecorators = */ null, thrownExceptionNames);
+        methodInfo.copyTypeStrs(this, /* copyTypeSignature = */ true);
+        methodInfo.calledMethodStrs = calledMethodStrs;
+        methodInfo.calledMethodSymbolTable = calledMethodSymbolTable;
+        methodInfo.calledMethodSymbols = calledMethodSymbols;
+        return methodInfo;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write a string array in binary form.
+     *
+     * @param arr
+     *            the array, or null
+     * @param writer
+     *            the writer
+     */
+    private static void writeStringArray(final String[] arr, final BinaryWriter writer) {
+        if (arr == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(arr.length + 1);
+            for (final String str : arr) {
+                writer.writeString(str);
+            }
+        }
+    }
+
+    /**
+     * Read a string array written by {@link #writeStringArray(String[], BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the array, or null
+     * @throws IOException
+     *             if the array could not be read.
+     */
+    private static String[] readStringArray(final BinaryReader reader) throws IOException {
+        final int lengthPlusOne = reader.readCount();
+        if (lengthPlusOne == 0) {
+            return null;
+        }
+        final String[] arr = new String[lengthPlusOne - 1];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = reader.readString();
+        }
+        return arr;
+    }
+
+    /**
+     * Write this method in binary form. Type annotation decorators are not written.
+     *
+     * @param writer
+     *            the writer
+     */
+    void write(final BinaryWriter writer) {
+        writer.writeString(declaringClassName);
+        writer.writeString(name);
+        AnnotationInfoList.write(annotationInfo, writer);
+        writer.writeVarInt(modifiers);
+        writer.writeString(getTypeDescriptorStr());
+        writer.writeString(getTypeSignatureStr());
+        writeStringArray(parameterNames, writer);
+        if (parameterModifiers == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(parameterModifiers.length + 1);
+            for (final int paramModifiers : parameterModifiers) {
+                writer.writeVarInt(paramModifiers);
+            }
+        }
+        if (parameterAnnotationInfo == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(parameterAnnotationInfo.length + 1);
+            for (final AnnotationInfo[] paramAnnotationInfo : parameterAnnotationInfo) {
+                if (paramAnnotationInfo == null) {
+                    writer.writeVarInt(0);
+                } else {
+                    writer.writeVarInt(paramAnnotationInfo.length + 1);
+                    for (final AnnotationInfo annotationInfo : paramAnnotationInfo) {
+                        annotationInfo.write(writer);
+                    }
+                }
+            }
+        }
+        writer.writeBoolean(hasBody);
+        writer.writeVarInt(minLineNum);
+        writer.writeVarInt(maxLineNum);
+        writeStringArray(thrownExceptionNames, writer);
+        writeStringArray(getCalledMethodStrs(), writer);
+    }
+
+    /**
+     * Read a method written by {@link #write(BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the method
+     * @throws IOException
+     *             if the method could not be read.
+     */
+    static MethodInfo read(final BinaryReader reader) throws IOException {
+        final String definingClassName = reader.readString();
+        final String methodName = reader.readString();
+        final AnnotationInfoList methodAnnotationInfo = AnnotationInfoList.read(reader);
+        final int modifiers = reader.readVarInt();
+        final String typeDescriptorStr = reader.readString();
+        final String typeSignatureStr = reader.readString();
+        final String[] parameterNames = readStringArray(reader);
+        int[] parameterModifiers = null;
+        final int numParamModifiersPlusOne = reader.readCount();
+        if (numParamModifiersPlusOne > 0) {
+            parameterModifiers = new int[numParamModifiersPlusOne - 1];
+            for (int i = 0; i < parameterModifiers.length; i++) {
+                parameterModifiers[i] = reader.readVarInt();
+            }
+        }
+        AnnotationInfo[][] parameterAnnotationInfo = null;
+        final int numParamAnnotationInfoPlusOne = reader.readCount();
+        if (numParamAnnotationInfoPlusOne > 0) {
+            parameterAnnotationInfo = new AnnotationInfo[numParamAnnotationInfoPlusOne - 1][];
+            for (int i = 0; i < parameterAnnotationInfo.length; i++) {
+                final int numAnnotationsPlusOne = reader.readCount();
+                if (numAnnotationsPlusOne > 0) {
+                    parameterAnnotationInfo[i] = new AnnotationInfo[numAnnotationsPlusOne - 1];
+                    for (int j = 0; j < parameterAnnotationInfo[i].length; j++) {
+                        parameterAnnotationInfo[i][j] = AnnotationInfo.read(reader);
+                    }
+                }
+            }
+        }
+        final boolean hasBody = reader.readBoolean();
+        final int minLineNum = reader.readVarInt();
+        final int maxLineNum = reader.readVarInt();
+        final String[] thrownExceptionNames = readStringArray(reader);
+        final MethodInfo methodInfo = new MethodInfo(definingClassName, methodName, methodAnnotationInfo,
+                modifiers, typeDescriptorStr, typeSignatureStr, parameterNames, parameterModifiers,
+                parameterAnnotationInfo, hasBody, minLineNum, maxLineNum,
+                /* methodTypeAnnotationDecorators = */ null, thrownExceptionNames);
+        methodInfo.calledMethodStrs = readStringArray(reader);
+        return methodInfo;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Store the methods called by this method as symbols of a symbol table.
+     *
+     * @param symbolTable
+     *            the symbol table
+     * @param calledMethodSymbols
+     *            the symbol IDs of the internal class name, method name and type descriptor of each called method,
+     *            flattened into consecutive triples
+     */
+    void setCalledMethodSymbols(final SymbolTable symbolTable, final int[] calledMethodSymbols) {
+        this.calledMethodSymbolTable = symbolTable;
+        this.calledMethodSymbols = calledMethodSymbols;
+        this.calledMethodStrs = null;
+    }
+
+    /**
+     * Get the class name, method name and type descriptor of each method called by this method, flattened into
+     * consecutive triples.
+     *
+     * @return the called methods, or null if none.
+     */
+    String[] getCalledMethodStrs() {
+        final SymbolTable symbols = calledMethodSymbolTable;
+        if (symbols == null || calledMethodStrs != null) {
+            return calledMethodStrs;
+        }
+        final String[] strs = new String[calledMethodSymbols.length];
+        for (int i = 0; i < strs.length; i += 3) {
+            strs[i] = symbols.get(calledMethodSymbols[i]).replace('/', '.');
+            strs[i + 1] = symbols.get(calledMethodSymbols[i + 1]);
+            strs[i + 2] = symbols.get(calledMethodSymbols[i + 2]);
+        }
+        return strs;
+    }
+
+    /* (non-Javadoc)
+     * @see io.github.classgraph.ClassMemberInfo#materializeTypeStrs()
+     */
+    @Override
+    void materializeTypeStrs() {
+        super.materializeTypeStrs();
+        calledMethodStrs = getCalledMethodStrs();
+    }
+
+    /**
+     * Get the methods called by this method, without checking that the method call graph was enabled.
+     *
+     * @return the called methods (the list may be empty).
+     */
+    List<MethodRef> getCalledMethodRefs() {
+        final String[] strs = getCalledMethodStrs();
+        if (strs == null) {
+            return Collections.emptyList();
+        }
+        final List<MethodRef> calledMethods = new ArrayList<>(strs.length / 3);
+        for (int i = 0; i < strs.length; i += 3) {
+            final MethodRef methodRef = new MethodRef(strs[i], strs[i + 1], strs[i + 2]);
+            methodRef.setScanResult(scanResult);
+            calledMethods.add(methodRef);
+        }
+        return calledMethods;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -185,7 +434,7 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
         synchronized (this) {
             if (typeDescriptor == null) {
                 try {
-                    typeDescriptor = MethodTypeSignature.parse(typeDescriptorStr, declaringClassName);
+                    typeDescriptor = MethodTypeSignature.parse(getTypeDescriptorStr(), declaringClassName);
                     typeDescriptor.setScanResult(scanResult);
                     if (typeAnnotationDecorators != null) {
                         // It is possible that there are extra implicit params added at the beginning of the
@@ -254,9 +503,10 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
     @Override
     public MethodTypeSignature getTypeSignature() {
         synchronized (this) {
-            if (typeSignature == null && typeSignatureStr != null) {
+            final String typeSignatureString = typeSignature == null ? getTypeSignatureStr() : null;
+            if (typeSignatureString != null) {
                 try {
-                    typeSignature = MethodTypeSignature.parse(typeSignatureStr, declaringClassName);
+                    typeSignature = MethodTypeSignature.parse(typeSignatureString, declaringClassName);
                     typeSignature.setScanResult(scanResult);
                     if (typeAnnotationDecorators != null) {
                         for (final MethodTypeAnnotationDecorator decorator : typeAnnotationDecorators) {
@@ -269,7 +519,7 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
                                     + (getClassInfo() != null
                                             ? " in classpath element " + getClassInfo().getClasspathElementURI()
                                             : "")
-                                    + " : " + typeSignatureStr,
+                                    + " : " + typeSignatureString,
                             e);
                 }
             }
@@ -329,6 +579,38 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
         return thrownExceptionNames == null ? new String[0] : thrownExceptionNames;
     }
 
+    /**
+     * Returns the methods called by this method, in the order of their first call site in the bytecode of this
+     * method. Calls made by {@code invokevirtual}, {@code invokespecial}, {@code invokestatic} and
+     * {@code invokeinterface} instructions are included, as are the method handles passed to the bootstrap method
+     * of {@code invokedynamic} instructions (e.g. the implementation method of a lambda expression or method
+     * reference). The bootstrap methods themselves are not included. Each called method is listed once, and is
+     * identified by the class named at the call site, which may be a subclass of the class that declares the
+     * method (see {@link MethodRef#getMethodInfo()}).
+     *
+     * @return the methods called by this method (the list may be empty, e.g. if the method has no body).
+     * @throws IllegalArgumentException
+     *             if {@link ClassGraph#enableMethodCallGraph()} was not called prior to initiating the scan.
+     */
+    public List<MethodRef> getCalledMethods() {
+        if (!scanResult.scanSpec.enableMethodCallGraph) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableMethodCallGraph() before #scan()");
+        }
+        return getCalledMethodRefs();
+    }
+
+    /**
+     * Returns the methods that call this method, found in the classes that were scanned. Equivalent to calling
+     * {@link ScanResult#getCallers(MethodInfo)}.
+     *
+     * @return the methods that call this method (the list may be empty).
+     * @throws IllegalArgumentException
+     *             if {@link ClassGraph#enableMethodCallGraph()} was not called prior to initiating the scan.
+     */
+    public MethodInfoList getCallers() {
+        return scanResult.getCallers(this);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -734,10 +1016,12 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
      *
      * @param allRepeatableAnnotationNames
      *            the names of all repeatable annotations
+     * @return true if the annotations of this method or its parameters were modified.
      */
-    void handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames) {
+    boolean handleRepeatableAnnotations(final Set<String> allRepeatableAnnotationNames) {
+        boolean modified = false;
         if (annotationInfo != null) {
-            annotationInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames, getClassInfo(),
+            modified = annotationInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames, getClassInfo(),
                     RelType.METHOD_ANNOTATIONS, RelType.CLASSES_WITH_METHOD_ANNOTATION,
                     RelType.CLASSES_WITH_NONPRIVATE_METHOD_ANNOTATION);
         }
@@ -760,10 +1044,12 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
                                 RelType.CLASSES_WITH_METHOD_PARAMETER_ANNOTATION,
                                 RelType.CLASSES_WITH_NONPRIVATE_METHOD_PARAMETER_ANNOTATION);
                         parameterAnnotationInfo[i] = aiList.toArray(new AnnotationInfo[0]);
+                        modified = true;
                     }
                 }
             }
         }
+        return modified;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -808,6 +1094,16 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
         }
     }
 
+    /* (non-Javadoc)
+     * @see io.github.classgraph.ScanResultObject#clearCachedScanResultValues()
+     */
+    @Override
+    void clearCachedScanResultValues() {
+        super.clearCachedScanResultValues();
+        parameterInfo = null;
+        thrownExceptions = null;
+    }
+
     /**
      * Get {@link ClassInfo} objects for any classes referenced in the type descriptor or type signature.
      *
@@ -882,7 +1178,7 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
         }
         final MethodInfo other = (MethodInfo) obj;
         return declaringClassName.equals(other.declaringClassName)
-                && typeDescriptorStr.equals(other.typeDescriptorStr) && name.equals(other.name);
+                && typeDescriptorEquals(other) && name.equals(other.name);
     }
 
     /**
@@ -892,7 +1188,7 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
      */
     @Override
     public int hashCode() {
-        return name.hashCode() + typeDescriptorStr.hashCode() * 11 + declaringClassName.hashCode() * 57;
+        return name.hashCode() + typeDescriptorHashCode() * 11 + declaringClassName.hashCode() * 57;
     }
 
     /**
@@ -912,7 +1208,7 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
         if (diff1 != 0) {
             return diff1;
         }
-        return typeDescriptorStr.compareTo(other.typeDescriptorStr);
+        return typeDescriptorEquals(other) ? 0 : getTypeDescriptorStr().compareTo(other.getTypeDescriptorStr());
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,244 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import nonapi.io.github.classgraph.types.ParseException;
+
+/**
+ * A reference to a method that is called by the bytecode of another method, as found in the constant pool of the
+ * calling class. The referenced method may not have been encountered during the scan (e.g. if it is declared by a
+ * class in the JDK), and may be inherited by the referenced class rather than declared by it.
+ */
+public class MethodRef extends ScanResultObject implements Comparable<MethodRef> {
+    /** The name of the class that the method is referenced through. */
+    private String className;
+
+    /** The name of the method. */
+    private String name;
+
+    /** The internal method type descriptor string. */
+    private String typeDescriptorStr;
+
+    /** The parsed type descriptor. */
+    private transient MethodTypeSignature typeDescriptor;
+
+    /** Default constructor for deserialization. */
+    MethodRef() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param className
+     *            The name of the class that the method is referenced through.
+     * @param name
+     *            The name of the method.
+     * @param typeDescriptorStr
+     *            The internal method type descriptor string.
+     */
+    MethodRef(final String className, final String name, final String typeDescriptorStr) {
+        super();
+        this.className = className;
+        this.name = name;
+        this.typeDescriptorStr = typeDescriptorStr;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the name of the class that the method is referenced through. This is the class named at the call site,
+     * which may be a subclass of the class that declares the method. The class name of a method called on an array
+     * (e.g. {@code clone()}) is the array type descriptor, e.g. {@code "[Ljava.lang.String;"}.
+     *
+     * @return The name of the class that the method is referenced through.
+     */
+    @Override
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Get the name of the method. Constructors are named {@code "<init>"}.
+     *
+     * @return The name of the method.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the internal method type descriptor string, e.g. {@code "(Ljava/lang/String;)V"}.
+     *
+     * @return The internal method type descriptor string.
+     */
+    public String getTypeDescriptorStr() {
+        return typeDescriptorStr;
+    }
+
+    /**
+     * Get the parsed method type descriptor.
+     *
+     * @return The parsed method type descriptor.
+     * @throws IllegalArgumentException
+     *             if the type descriptor could not be parsed.
+     */
+    public MethodTypeSignature getTypeDescriptor() {
+        synchronized (this) {
+            if (typeDescriptor == null) {
+                try {
+                    typeDescriptor = MethodTypeSignature.parse(typeDescriptorStr, className);
+                    typeDescriptor.setScanResult(scanResult);
+                } catch (final ParseException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+            return typeDescriptor;
+        }
+    }
+
+    /**
+     * Get the {@link ClassInfo} object for the class that the method is referenced through.
+     *
+     * @return The {@link ClassInfo} object for the referenced class, or null if the class was not encountered
+     *         during the scan.
+     */
+    @Override
+    public ClassInfo getClassInfo() {
+        return super.getClassInfo();
+    }
+
+    /**
+     * Get the {@link MethodInfo} object for the referenced method, looking up the method in the referenced class,
+     * then in its superclasses, then in its interfaces.
+     *
+     * @return The {@link MethodInfo} object for the referenced method, or null if the method could not be found,
+     *         e.g. because the class that declares it was not encountered during the scan, or the method is not
+     *         visible.
+     */
+    public MethodInfo getMethodInfo() {
+        final ClassInfo classInfo = getClassInfo();
+        if (classInfo == null) {
+            return null;
+        }
+        MethodInfo methodInfo = getDeclaredMethodInfo(classInfo);
+        if (methodInfo == null && !"<init>".equals(name)) {
+            for (final ClassInfo superclass : classInfo.getSuperclasses()) {
+                methodInfo = getDeclaredMethodInfo(superclass);
+                if (methodInfo != null) {
+                    break;
+                }
+            }
+            if (methodInfo == null) {
+                for (final ClassInfo iface : classInfo.getInterfaces()) {
+                    methodInfo = getDeclaredMethodInfo(iface);
+                    if (methodInfo != null) {
+                        break;
+                    }
+                }
+            }
+        }
+        return methodInfo;
+    }
+
+    /**
+     * Get the {@link MethodInfo} object for the referenced method, if it is declared by the given class.
+     *
+     * @param classInfo
+     *            the class
+     * @return the {@link MethodInfo} object, or null if the class does not declare the referenced method.
+     */
+    private MethodInfo getDeclaredMethodInfo(final ClassInfo classInfo) {
+        for (final MethodInfo methodInfo : classInfo.getDeclaredMethodAndConstructorInfo()) {
+            if (methodInfo.getName().equals(name) && methodInfo.getTypeDescriptorStr().equals(typeDescriptorStr)) {
+                return methodInfo;
+            }
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /* (non-Javadoc)
+     * @see io.github.classgraph.ScanResultObject#setScanResult(io.github.classgraph.ScanResult)
+     */
+    @Override
+    void setScanResult(final ScanResult scanResult) {
+        super.setScanResult(scanResult);
+        if (this.typeDescriptor != null) {
+            this.typeDescriptor.setScanResult(scanResult);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(final MethodRef o) {
+        int diff = className.compareTo(o.className);
+        if (diff == 0) {
+            diff = name.compareTo(o.name);
+            if (diff == 0) {
+                diff = typeDescriptorStr.compareTo(o.typeDescriptorStr);
+            }
+        }
+        return diff;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (!(obj instanceof MethodRef)) {
+            return false;
+        }
+        final MethodRef other = (MethodRef) obj;
+        return className.equals(other.className) && name.equals(other.name)
+                && typeDescriptorStr.equals(other.typeDescriptorStr);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (className.hashCode() * 31 + name.hashCode()) * 31 + typeDescriptorStr.hashCode();
+    }
+
+    @Override
+    protected void toString(final boolean useSimpleNames, final StringBuilder buf) {
+        buf.append(useSimpleNames ? ClassInfo.getSimpleName(className) : className);
+        buf.append('.');
+        buf.append(name);
+        buf.append(typeDescriptorStr);
+    }
+}
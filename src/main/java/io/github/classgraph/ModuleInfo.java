@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.net.URI;
 import java.util.HashSet;
@@ -35,6 +36,8 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 
 /** Holds metadata about a package encountered during a scan. */
@@ -73,6 +76,16 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
         // Empty
     }
 
+    /**
+     * Construct a ModuleInfo object with only a name, for deserialization.
+     *
+     * @param name
+     *            the module name
+     */
+    ModuleInfo(final String name) {
+        this.name = name;
+    }
+
     /**
      * Construct a ModuleInfo object.
      *
@@ -131,7 +144,7 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
      * @param classInfo
      *            the {@link ClassInfo} object to add
      */
-    void addClassInfo(final ClassInfo classInfo) {
+    synchronized void addClassInfo(final ClassInfo classInfo) {
         if (classInfoSet == null) {
             classInfoSet = new HashSet<>();
         }
@@ -173,7 +186,7 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
      * @param packageInfo
      *            the {@link PackageInfo} object
      */
-    void addPackageInfo(final PackageInfo packageInfo) {
+    synchronized void addPackageInfo(final PackageInfo packageInfo) {
         if (packageInfoSet == null) {
             packageInfoSet = new HashSet<>();
         }
@@ -223,7 +236,7 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
      * @param moduleAnnotations
      *            the module annotations
      */
-    void addAnnotations(final AnnotationInfoList moduleAnnotations) {
+    synchronized void addAnnotations(final AnnotationInfoList moduleAnnotations) {
         // Currently only class annotations are used in the module-info.class file
         if (moduleAnnotations != null && !moduleAnnotations.isEmpty()) {
             if (annotationInfoSet == null) {
@@ -300,6 +313,54 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Add the {@link ClassInfo} and {@link PackageInfo} objects referenced by this module to an object table.
+     *
+     * @param objectTable
+     *            the object table
+     */
+    void addReferencedObjects(final ScanResultObjectTable objectTable) {
+        if (packageInfoSet != null) {
+            for (final PackageInfo packageInfo : packageInfoSet) {
+                objectTable.add(packageInfo);
+            }
+        }
+        objectTable.addAll(classInfoSet);
+    }
+
+    /**
+     * Write the contents of this module (other than the module name) in binary form.
+     *
+     * @param writer
+     *            the writer
+     * @param objectTable
+     *            the object table, for writing references to other objects
+     */
+    void write(final BinaryWriter writer, final ScanResultObjectTable objectTable) {
+        AnnotationInfoList.write(annotationInfoSet, writer);
+        objectTable.writePackageInfoRefs(packageInfoSet, writer);
+        objectTable.writeClassInfoRefs(classInfoSet, writer);
+    }
+
+    /**
+     * Read the contents of this module written by {@link #write(BinaryWriter, ScanResultObjectTable)}.
+     *
+     * @param reader
+     *            the reader
+     * @param objectTable
+     *            the object table, for reading references to other objects
+     * @throws IOException
+     *             if the contents could not be read.
+     */
+    void read(final BinaryReader reader, final ScanResultObjectTable objectTable) throws IOException {
+        final AnnotationInfoList annotations = AnnotationInfoList.read(reader);
+        annotationInfoSet = annotations == null ? null : new LinkedHashSet<>(annotations);
+        packageInfoSet = objectTable.readPackageInfoRefs(new HashSet<PackageInfo>(), reader);
+        classInfoSet = objectTable.readClassInfoRefs(new HashSet<ClassInfo>(), reader);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /* (non-Javadoc)
      * @see java.lang.Comparable#compareTo(java.lang.Object)
      */
@@ -28,12 +28,15 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /** A union type, used for typesafe serialization/deserialization to/from JSON. Only one field is ever set. */
@@ -188,6 +191,194 @@ class ObjectTypedValueWrapper extends ScanResultObject {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Write an annotation parameter value or a constant initializer value in binary form.
+     *
+     * @param value
+     *            the value, which may be null, or any of the types supported by
+     *            {@link #ObjectTypedValueWrapper(Object)}
+     * @param writer
+     *            the writer
+     */
+    static void writeValue(final Object value, final BinaryWriter writer) {
+        if (value == null) {
+            writer.writeByte(0);
+        } else if (value instanceof String) {
+            writer.writeByte('s');
+            writer.writeString((String) value);
+        } else if (value instanceof Integer) {
+            writer.writeByte('I');
+            writer.writeSignedVarInt((Integer) value);
+        } else if (value instanceof Long) {
+            writer.writeByte('J');
+            writer.writeSignedVarLong((Long) value);
+        } else if (value instanceof Short) {
+            writer.writeByte('S');
+            writer.writeSignedVarInt((Short) value);
+        } else if (value instanceof Byte) {
+            writer.writeByte('B');
+            writer.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            writer.writeByte('C');
+            writer.writeVarInt((Character) value);
+        } else if (value instanceof Boolean) {
+            writer.writeByte('Z');
+            writer.writeBoolean((Boolean) value);
+        } else if (value instanceof Float) {
+            writer.writeByte('F');
+            writer.writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Double) {
+            writer.writeByte('D');
+            writer.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof AnnotationEnumValue) {
+            writer.writeByte('e');
+            writer.writeString(((AnnotationEnumValue) value).getClassName());
+            writer.writeString(((AnnotationEnumValue) value).getValueName());
+        } else if (value instanceof AnnotationClassRef) {
+            writer.writeByte('c');
+            writer.writeString(((AnnotationClassRef) value).getTypeDescriptorStr());
+        } else if (value instanceof AnnotationInfo) {
+            writer.writeByte('@');
+            ((AnnotationInfo) value).write(writer);
+        } else if (value.getClass().isArray()) {
+            // Write the element type, then the elements (each of which is written with its own type tag)
+            final Class<?> componentType = value.getClass().getComponentType();
+            writer.writeByte('[');
+            writer.writeByte(componentType == String.class ? 's'
+                    : componentType.isPrimitive() ? getPrimitiveTypeTag(componentType) : 'L');
+            final int n = Array.getLength(value);
+            writer.writeVarInt(n);
+            for (int i = 0; i < n; i++) {
+                writeValue(Array.get(value, i), writer);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Get the type descriptor char for a primitive type.
+     *
+     * @param primitiveType
+     *            the primitive type
+     * @return the type descriptor char
+     */
+    private static char getPrimitiveTypeTag(final Class<?> primitiveType) {
+        if (primitiveType == int.class) {
+            return 'I';
+        } else if (primitiveType == long.class) {
+            return 'J';
+        } else if (primitiveType == short.class) {
+            return 'S';
+        } else if (primitiveType == byte.class) {
+            return 'B';
+        } else if (primitiveType == char.class) {
+            return 'C';
+        } else if (primitiveType == boolean.class) {
+            return 'Z';
+        } else if (primitiveType == float.class) {
+            return 'F';
+        } else if (primitiveType == double.class) {
+            return 'D';
+        } else {
+            throw new IllegalArgumentException("Unsupported array element type: " + primitiveType);
+        }
+    }
+
+    /**
+     * Read a value written by {@link #writeValue(Object, BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the value
+     * @throws IOException
+     *             if the value could not be read.
+     */
+    static Object readValue(final BinaryReader reader) throws IOException {
+        final int tag = reader.readUnsignedByte();
+        switch (tag) {
+        case 0:
+            return null;
+        case 's':
+            return reader.readString();
+        case 'I':
+            return reader.readSignedVarInt();
+        case 'J':
+            return reader.readSignedVarLong();
+        case 'S':
+            return (short) reader.readSignedVarInt();
+        case 'B':
+            return reader.readByte();
+        case 'C':
+            return (char) reader.readVarInt();
+        case 'Z':
+            return reader.readBoolean();
+        case 'F':
+            return Float.intBitsToFloat(reader.readInt());
+        case 'D':
+            return Double.longBitsToDouble(reader.readLong());
+        case 'e':
+            return new AnnotationEnumValue(reader.readString(), reader.readString());
+        case 'c':
+            return new AnnotationClassRef(reader.readString());
+        case '@':
+            return AnnotationInfo.read(reader);
+        case '[': {
+            final Class<?> componentType;
+            final int componentTag = reader.readUnsignedByte();
+            switch (componentTag) {
+            case 'L':
+                componentType = Object.class;
+                break;
+            case 's':
+                componentType = String.class;
+                break;
+            case 'I':
+                componentType = int.class;
+                break;
+            case 'J':
+                componentType = long.class;
+                break;
+            case 'S':
+                componentType = short.class;
+                break;
+            case 'B':
+                componentType = byte.class;
+                break;
+            case 'C':
+                componentType = char.class;
+                break;
+            case 'Z':
+                componentType = boolean.class;
+                break;
+            case 'F':
+                componentType = float.class;
+                break;
+            case 'D':
+                componentType = double.class;
+                break;
+            default:
+                throw new IOException("Unknown array element type tag " + componentTag);
+            }
+            final int n = reader.readCount();
+            final Object arr = Array.newInstance(componentType, n);
+            for (int i = 0; i < n; i++) {
+                final Object elt = readValue(reader);
+                if (elt != null || !componentType.isPrimitive()) {
+                    try {
+                        Array.set(arr, i, elt);
+                    } catch (final IllegalArgumentException e) {
+                        throw new IOException("Array element has wrong type", e);
+                    }
+                }
+            }
+            return arr;
+        }
+        default:
+            throw new IOException("Unknown value type tag " + tag);
+        }
+    }
+
     /**
      * Instantiate or get the wrapped value.
      *
@@ -28,16 +28,21 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 
 /** Holds metadata about a package encountered during a scan. */
@@ -98,7 +103,7 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
      * @param packageAnnotations
      *            the package annotations
      */
-    void addAnnotations(final AnnotationInfoList packageAnnotations) {
+    synchronized void addAnnotations(final AnnotationInfoList packageAnnotations) {
         // Add class annotations from the package-info.class file
         if (packageAnnotations != null && !packageAnnotations.isEmpty()) {
             if (annotationInfoSet == null) {
@@ -115,7 +120,7 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
      * @param classInfo
      *            the {@link ClassInfo} object to add to the package.
      */
-    void addClassInfo(final ClassInfo classInfo) {
+    synchronized void addClassInfo(final ClassInfo classInfo) {
         if (memberClassNameToClassInfo == null) {
             memberClassNameToClassInfo = new HashMap<>();
         }
@@ -292,7 +297,7 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
     /**
      * Get the {@link PackageInfo} object for the named package, creating it if it doesn't exist, and also creating
      * {@link PackageInfo} objects for any needed parent packages for which a {@link PackageInfo} has not yet been
-     * created.
+     * created. Threadsafe if packageNameToPackageInfo is a {@link ConcurrentMap}.
      *
      * @param packageName
      *            the package name
@@ -312,7 +317,18 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
         }
 
         // Create new PackageInfo for this package
-        packageNameToPackageInfo.put(packageName, packageInfo = new PackageInfo(packageName));
+        packageInfo = new PackageInfo(packageName);
+        if (packageNameToPackageInfo instanceof ConcurrentMap) {
+            final PackageInfo existingPackageInfo = ((ConcurrentMap<String, PackageInfo>) packageNameToPackageInfo)
+                    .putIfAbsent(packageName, packageInfo);
+            if (existingPackageInfo != null) {
+                // Another thread created the PackageInfo object first, and is responsible for linking it to its
+                // parent package
+                return existingPackageInfo;
+            }
+        } else {
+            packageNameToPackageInfo.put(packageName, packageInfo);
+        }
 
         // If this is not the root package ("")
         if (!packageName.isEmpty()) {
@@ -325,10 +341,12 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
                         packageNameToPackageInfo, scanSpec);
                 if (parentPackageInfo != null) {
                     // Link package to parent
-                    if (parentPackageInfo.children == null) {
-                        parentPackageInfo.children = new HashSet<>();
+                    synchronized (parentPackageInfo) {
+                        if (parentPackageInfo.children == null) {
+                            parentPackageInfo.children = new HashSet<>();
+                        }
+                        parentPackageInfo.children.add(packageInfo);
                     }
-                    parentPackageInfo.children.add(packageInfo);
                     packageInfo.parent = parentPackageInfo;
                 }
             }
@@ -340,6 +358,74 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Add the {@link ClassInfo} and {@link PackageInfo} objects referenced by this package to an object table.
+     *
+     * @param objectTable
+     *            the object table
+     */
+    void addReferencedObjects(final ScanResultObjectTable objectTable) {
+        objectTable.add(parent);
+        if (children != null) {
+            for (final PackageInfo child : children) {
+                objectTable.add(child);
+            }
+        }
+        if (memberClassNameToClassInfo != null) {
+            objectTable.addAll(memberClassNameToClassInfo.values());
+        }
+    }
+
+    /**
+     * Write the contents of this package (other than the package name) in binary form.
+     *
+     * @param writer
+     *            the writer
+     * @param objectTable
+     *            the object table, for writing references to other objects
+     */
+    void write(final BinaryWriter writer, final ScanResultObjectTable objectTable) {
+        AnnotationInfoList.write(annotationInfoSet, writer);
+        objectTable.writePackageInfoRef(parent, writer);
+        objectTable.writePackageInfoRefs(children, writer);
+        if (memberClassNameToClassInfo == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(memberClassNameToClassInfo.size() + 1);
+            for (final Entry<String, ClassInfo> ent : memberClassNameToClassInfo.entrySet()) {
+                writer.writeString(ent.getKey());
+                objectTable.writeClassInfoRef(ent.getValue(), writer);
+            }
+        }
+    }
+
+    /**
+     * Read the contents of this package written by {@link #write(BinaryWriter, ScanResultObjectTable)}.
+     *
+     * @param reader
+     *            the reader
+     * @param objectTable
+     *            the object table, for reading references to other objects
+     * @throws IOException
+     *             if the contents could not be read.
+     */
+    void read(final BinaryReader reader, final ScanResultObjectTable objectTable) throws IOException {
+        final AnnotationInfoList annotations = AnnotationInfoList.read(reader);
+        annotationInfoSet = annotations == null ? null : new LinkedHashSet<>(annotations);
+        parent = objectTable.readPackageInfoRef(reader);
+        children = objectTable.readPackageInfoRefs(new HashSet<PackageInfo>(), reader);
+        final int numMemberClassesPlusOne = reader.readCount();
+        if (numMemberClassesPlusOne > 0) {
+            memberClassNameToClassInfo = new HashMap<>();
+            for (int i = 1; i < numMemberClassesPlusOne; i++) {
+                final String className = reader.readString();
+                memberClassNameToClassInfo.put(className, objectTable.readClassInfoRef(reader));
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /* (non-Javadoc)
      * @see java.lang.Comparable#compareTo(java.lang.Object)
      */
@@ -0,0 +1,505 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nonapi.io.github.classgraph.fastzipfilereader.LogicalZipFile;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
+import nonapi.io.github.classgraph.utils.CollectionUtils;
+import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.StringUtils;
+import nonapi.io.github.classgraph.utils.VersionFinder;
+
+/**
+ * An on-disk cache of the parsed contents of the classfiles in toplevel jarfiles, which persists across JVM
+ * restarts. Enabled by {@link ClassGraph#enablePersistentCache(Path)}.
+ *
+ * <p>
+ * Each jarfile has its own cache file, which is keyed by the canonical path of the jarfile (and any package root
+ * within the jarfile), and by the {@link ScanSpec} options that affect how classfiles are parsed. A cache file is
+ * only used if the size, last modified time and End Of Central Directory CRC of the jarfile match the values
+ * recorded in the cache file. The End Of Central Directory record is read anyway when the jarfile is opened, so
+ * validating a cache file only adds a stat of the jarfile and a read of the cache file.
+ *
+ * <p>
+ * Classfiles that are not found in the cache are parsed as usual, and the cache file for the jarfile is rewritten
+ * at the end of the scan. Classfiles with type annotations are always parsed, since type annotations are not
+ * cached.
+ */
+class PersistentScanCache {
+    /** The magic number at the start of a cache file. */
+    private static final int MAGIC = 0x43475343;
+
+    /** The cache file format version. Increment this when the binary format of parsed classfiles changes. */
+    private static final int FORMAT_VERSION = 2;
+
+    /** The cache file extension. */
+    private static final String CACHE_FILE_EXTENSION = ".cgcache";
+
+    /** The cache directory. */
+    private final Path cacheDir;
+
+    /** The options of the {@link ScanSpec} that affect how classfiles are parsed. */
+    private final String scanSpecKey;
+
+    /** Map from classpath element to the cache for the classpath element. */
+    private final ConcurrentMap<ClasspathElement, JarCache> classpathEltToJarCache = new ConcurrentHashMap<>();
+
+    /** The cache for a jarfile. */
+    private static class JarCache {
+        /** True once {@link #load(ClasspathElementZip, LogNode)} has been called. */
+        private volatile boolean loaded;
+
+        /** The cache file, or null if the classpath element cannot be cached. */
+        private Path cacheFile;
+
+        /** The identity of the jarfile (its canonical path, and any package root). */
+        private String identity;
+
+        /** The scope of the cache file (the {@link ScanSpec} options and JRE version that affect parsing). */
+        private String scope;
+
+        /** The length of the jarfile. */
+        private long length;
+
+        /** The last modified time of the jarfile. */
+        private long lastModified;
+
+        /** The CRC of the End Of Central Directory record(s) of the jarfile. */
+        private long endOfCentralDirectoryCrc;
+
+        /** The parsed classfiles read from the cache file, indexed by classfile path. */
+        private Map<String, byte[]> cachedClassfiles = new HashMap<>();
+
+        /** The classfiles parsed by this scan that were not found in the cache file, indexed by classfile path. */
+        private final ConcurrentMap<String, byte[]> newClassfiles = new ConcurrentHashMap<>();
+
+        /**
+         * Find the cache file for a jarfile, and read the cache file if it is valid.
+         *
+         * @param classpathElement
+         *            the classpath element for the jarfile
+         * @param cacheDir
+         *            the cache directory
+         * @param scanSpecKey
+         *            the options of the {@link ScanSpec} that affect how classfiles are parsed
+         * @param log
+         *            the log
+         */
+        private void load(final ClasspathElementZip classpathElement, final Path cacheDir,
+                final String scanSpecKey, final LogNode log) {
+            final File jarFile = classpathElement.getToplevelJarFile();
+            if (jarFile == null) {
+                return;
+            }
+            final LogicalZipFile logicalZipFile = classpathElement.logicalZipFile;
+            try {
+                identity = jarFile.getCanonicalPath() + (classpathElement.packageRootPrefix.isEmpty() ? ""
+                        : "!/" + classpathElement.packageRootPrefix);
+            } catch (final IOException | SecurityException e) {
+                return;
+            }
+            // The classfile chosen for each path in a multi-release jar depends on the JRE version
+            scope = scanSpecKey + (logicalZipFile.isMultiReleaseJar() ? ";jre=" + VersionFinder.JAVA_MAJOR_VERSION
+                    : "");
+            length = jarFile.length();
+            lastModified = jarFile.lastModified();
+            endOfCentralDirectoryCrc = logicalZipFile.endOfCentralDirectoryCrc;
+            cacheFile = cacheDir.resolve(getCacheFileName(identity + "\n" + scope));
+
+            final byte[] cacheFileBytes;
+            try {
+                cacheFileBytes = Files.readAllBytes(cacheFile);
+            } catch (final NoSuchFileException e) {
+                return;
+            } catch (final IOException | SecurityException | OutOfMemoryError e) {
+                if (log != null) {
+                    log.log("Could not read persistent cache file " + cacheFile + " : " + e);
+                }
+                return;
+            }
+            try {
+                final BinaryReader reader = new BinaryReader(cacheFileBytes);
+                if (reader.readInt() != MAGIC || reader.readVarInt() != FORMAT_VERSION
+                        || !identity.equals(reader.readString()) || !scope.equals(reader.readString())
+                        || reader.readVarLong() != length || reader.readLong() != lastModified
+                        || reader.readVarLong() != endOfCentralDirectoryCrc) {
+                    if (log != null) {
+                        log.log("Persistent cache file " + cacheFile + " is stale");
+                    }
+                    return;
+                }
+                cachedClassfiles = readClassfiles(reader);
+                if (log != null) {
+                    log.log("Read " + cachedClassfiles.size() + " parsed classfiles from persistent cache file "
+                            + cacheFile);
+                }
+            } catch (final IOException e) {
+                if (log != null) {
+                    log.log("Persistent cache file " + cacheFile + " is corrupt: " + e);
+                }
+            }
+        }
+
+        /**
+         * Write the cache file, if any classfiles were parsed that were not found in the cache file.
+         *
+         * @param cacheDir
+         *            the cache directory
+         * @param log
+         *            the log
+         */
+        private void write(final Path cacheDir, final LogNode log) {
+            if (cacheFile == null || newClassfiles.isEmpty()) {
+                return;
+            }
+            final Map<String, byte[]> classfiles = new HashMap<>(cachedClassfiles);
+            classfiles.putAll(newClassfiles);
+            final BinaryWriter writer = new BinaryWriter();
+            writer.writeInt(MAGIC);
+            writer.writeVarInt(FORMAT_VERSION);
+            writer.writeString(identity);
+            writer.writeString(scope);
+            writer.writeVarLong(length);
+            writer.writeLong(lastModified);
+            writer.writeVarLong(endOfCentralDirectoryCrc);
+            writer.writeVarInt(classfiles.size());
+            for (final Entry<String, byte[]> ent : classfiles.entrySet()) {
+                final byte[] classfileBytes = ent.getValue();
+                writer.writeString(ent.getKey());
+                writer.writeVarInt(classfileBytes.length);
+                writer.writeBytes(classfileBytes, 0, classfileBytes.length);
+            }
+            Path tempFile = null;
+            try {
+                // Write to a temporary file, then move it into place, so that other JVMs sharing the cache
+                // directory never see a partially-written cache file
+                Files.createDirectories(cacheDir);
+                tempFile = Files.createTempFile(cacheDir, cacheFile.getFileName().toString(), ".tmp");
+                try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                    writer.writeTo(outputStream);
+                }
+                try {
+                    Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                tempFile = null;
+                if (log != null) {
+                    log.log("Wrote " + classfiles.size() + " parsed classfiles for " + identity
+                            + " to persistent cache file " + cacheFile);
+                }
+            } catch (final IOException | SecurityException | IllegalArgumentException e) {
+                if (log != null) {
+                    log.log("Could not write persistent cache file " + cacheFile + " : " + e);
+                }
+            } finally {
+                if (tempFile != null) {
+                    try {
+                        Files.deleteIfExists(tempFile);
+                    } catch (final IOException | SecurityException e) {
+                        // Ignore
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the parsed classfiles that follow the header of a cache file.
+     *
+     * @param reader
+     *            the reader, positioned after the header
+     * @return the parsed classfiles, indexed by classfile path
+     * @throws IOException
+     *             if the cache file is corrupt
+     */
+    private static Map<String, byte[]> readClassfiles(final BinaryReader reader) throws IOException {
+        final int numClassfiles = reader.readCount();
+        final Map<String, byte[]> classfiles = new HashMap<>(numClassfiles * 2);
+        for (int i = 0; i < numClassfiles; i++) {
+            final String relativePath = reader.readString();
+            classfiles.put(relativePath, reader.readBytes(reader.readCount()));
+        }
+        return classfiles;
+    }
+
+    /**
+     * Read the parsed classfiles from the cache file of a toplevel jarfile in a cache directory, without checking
+     * whether the cache file is stale. Used by {@link JarIndex} to collect the parsed classfiles of a jarfile that
+     * was just scanned with the cache enabled.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @param jarFile
+     *            the jarfile
+     * @return the parsed classfiles, indexed by classfile path, or null if there is no cache file for the jarfile.
+     * @throws IOException
+     *             if the cache directory or a cache file could not be read
+     */
+    static Map<String, byte[]> readClassfiles(final Path cacheDir, final File jarFile) throws IOException {
+        final String identity = jarFile.getCanonicalPath();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(cacheDir, "*" + CACHE_FILE_EXTENSION)) {
+            for (final Path cacheFile : dirStream) {
+                final BinaryReader reader = new BinaryReader(Files.readAllBytes(cacheFile));
+                if (reader.readInt() == MAGIC && reader.readVarInt() == FORMAT_VERSION
+                        && identity.equals(reader.readString())) {
+                    // Skip scope, length, last modified time and End Of Central Directory CRC
+                    reader.readString();
+                    reader.readVarLong();
+                    reader.readLong();
+                    reader.readVarLong();
+                    return readClassfiles(reader);
+                }
+            }
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @param scanSpec
+     *            the scan spec
+     */
+    PersistentScanCache(final Path cacheDir, final ScanSpec scanSpec) {
+        this.cacheDir = cacheDir;
+        this.scanSpecKey = getScanSpecKey(scanSpec);
+    }
+
+    /**
+     * Get a string representing the options of the {@link ScanSpec} that affect how classfiles are parsed, and
+     * therefore the parsed contents of classfiles.
+     *
+     * @param scanSpec
+     *            the scan spec
+     * @return the string
+     */
+    static String getScanSpecKey(final ScanSpec scanSpec) {
+        final boolean[] options = { scanSpec.enableFieldInfo, scanSpec.enableMethodInfo,
+                scanSpec.enableAnnotationInfo, scanSpec.enableStaticFinalFieldConstantInitializerValues,
+                scanSpec.enableInterClassDependencies, scanSpec.ignoreClassVisibility,
+                scanSpec.ignoreFieldVisibility, scanSpec.ignoreMethodVisibility, scanSpec.enableClassAccessibility,
+                scanSpec.enableFieldAccessibility, scanSpec.enableMethodAccessibility,
+                scanSpec.disableRuntimeInvisibleAnnotations, scanSpec.enableMethodCallGraph };
+        final StringBuilder buf = new StringBuilder(options.length);
+        for (final boolean option : options) {
+            buf.append(option ? '1' : '0');
+        }
+        if (scanSpec.classReferencePrefilter != null) {
+            // The class reference prefilter determines which classfiles are parsed, and therefore cached
+            final List<String> classReferencePrefilter = new ArrayList<>(scanSpec.classReferencePrefilter);
+            CollectionUtils.sortIfNotEmpty(classReferencePrefilter);
+            buf.append(':').append(StringUtils.join(",", classReferencePrefilter));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Copy the options of a {@link ScanSpec} that affect how classfiles are parsed (the options that make up the
+     * key returned by {@link #getScanSpecKey(ScanSpec)}) to another {@link ScanSpec}.
+     *
+     * @param from
+     *            the scan spec to copy the options from
+     * @param to
+     *            the scan spec to copy the options to
+     */
+    static void copyScanSpecKeyOptions(final ScanSpec from, final ScanSpec to) {
+        to.enableFieldInfo = from.enableFieldInfo;
+        to.enableMethodInfo = from.enableMethodInfo;
+        to.enableAnnotationInfo = from.enableAnnotationInfo;
+        to.enableStaticFinalFieldConstantInitializerValues = from.enableStaticFinalFieldConstantInitializerValues;
+        to.enableInterClassDependencies = from.enableInterClassDependencies;
+        to.enableMethodCallGraph = from.enableMethodCallGraph;
+        to.ignoreClassVisibility = from.ignoreClassVisibility;
+        to.ignoreFieldVisibility = from.ignoreFieldVisibility;
+        to.ignoreMethodVisibility = from.ignoreMethodVisibility;
+        to.enableClassAccessibility = from.enableClassAccessibility;
+        to.enableFieldAccessibility = from.enableFieldAccessibility;
+        to.enableMethodAccessibility = from.enableMethodAccessibility;
+        to.disableRuntimeInvisibleAnnotations = from.disableRuntimeInvisibleAnnotations;
+        to.classReferencePrefilter = from.classReferencePrefilter;
+    }
+
+    /**
+     * Get the name of the cache file for a cache key.
+     *
+     * @param key
+     *            the cache key
+     * @return the cache file name
+     */
+    private static String getCacheFileName(final String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder buf = new StringBuilder(40 + CACHE_FILE_EXTENSION.length());
+            for (int i = 0; i < 20; i++) {
+                buf.append(Character.forDigit((digest[i] >> 4) & 0xf, 16));
+                buf.append(Character.forDigit(digest[i] & 0xf, 16));
+            }
+            return buf.append(CACHE_FILE_EXTENSION).toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // Should not happen, SHA-256 is required to be supported by all JREs
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Get the cache for a classpath element, reading the cache file for the classpath element the first time this
+     * is called for the classpath element.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param log
+     *            the log
+     * @return the cache, or null if the classpath element cannot be cached.
+     */
+    private JarCache getJarCache(final ClasspathElement classpathElement, final LogNode log) {
+        if (!(classpathElement instanceof ClasspathElementZip)) {
+            return null;
+        }
+        JarCache jarCache = classpathEltToJarCache.get(classpathElement);
+        if (jarCache == null) {
+            final JarCache newJarCache = new JarCache();
+            jarCache = classpathEltToJarCache.putIfAbsent(classpathElement, newJarCache);
+            if (jarCache == null) {
+                jarCache = newJarCache;
+            }
+        }
+        if (!jarCache.loaded) {
+            synchronized (jarCache) {
+                if (!jarCache.loaded) {
+                    jarCache.load((ClasspathElementZip) classpathElement, cacheDir, scanSpecKey, log);
+                    jarCache.loaded = true;
+                }
+            }
+        }
+        return jarCache.cacheFile == null ? null : jarCache;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get a reader for the parsed contents of a classfile, if they are in the cache.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param classfileResource
+     *            the classfile resource
+     * @param log
+     *            the log
+     * @return a reader for the parsed contents of the classfile, or null if the classfile is not in the cache.
+     */
+    BinaryReader getClassfile(final ClasspathElement classpathElement, final Resource classfileResource,
+            final LogNode log) {
+        final JarCache jarCache = getJarCache(classpathElement, log);
+        if (jarCache == null) {
+            return null;
+        }
+        final byte[] classfileBytes = jarCache.cachedClassfiles.get(classfileResource.getPath());
+        return classfileBytes == null ? null : new BinaryReader(classfileBytes);
+    }
+
+    /**
+     * Add the parsed contents of a classfile to the cache.
+     *
+     * @param classfile
+     *            the classfile
+     */
+    void addClassfile(final Classfile classfile) {
+        if (classfile.hasTypeAnnotations() || classfile.hasLazyMembers()) {
+            // Type annotations cannot be cached, and classfiles whose fields and methods have not been parsed
+            // yet should not be cached
+            return;
+        }
+        final JarCache jarCache = getJarCache(classfile.getClasspathElement(), /* log = */ null);
+        if (jarCache != null) {
+            final BinaryWriter writer = new BinaryWriter();
+            classfile.write(writer);
+            jarCache.newClassfiles.put(classfile.getClassfileResource().getPath(), writer.toByteArray());
+        }
+    }
+
+    /**
+     * Record in the cache that a classfile was skipped when it was parsed.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param classfileResource
+     *            the classfile resource
+     * @param reason
+     *            the reason the classfile was skipped
+     */
+    void addSkippedClassfile(final ClasspathElement classpathElement, final Resource classfileResource,
+            final String reason) {
+        final JarCache jarCache = getJarCache(classpathElement, /* log = */ null);
+        if (jarCache != null) {
+            final BinaryWriter writer = new BinaryWriter();
+            Classfile.writeSkipped(reason, writer);
+            jarCache.newClassfiles.put(classfileResource.getPath(), writer.toByteArray());
+        }
+    }
+
+    /**
+     * Write the cache files of any jarfiles that contained classfiles that were not found in the cache.
+     *
+     * @param log
+     *            the log
+     */
+    void write(final LogNode log) {
+        for (final JarCache jarCache : classpathEltToJarCache.values()) {
+            jarCache.write(cacheDir, log);
+        }
+    }
+}
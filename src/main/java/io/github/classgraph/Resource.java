@@ -301,11 +301,13 @@ public abstract class Resource implements Closeable, Comparable<Resource> {
     /**
      * Open a {@link ClassfileReader} on the resource (for reading classfiles).
      *
+     * @param reusableBuf
+     *            a buffer to read the classfile into if possible, rather than allocating a new buffer, or null.
      * @return the {@link ClassfileReader}.
      * @throws IOException
      *             if an I/O exception occurs.
      */
-    abstract ClassfileReader openClassfile() throws IOException;
+    abstract ClassfileReader openClassfile(byte[] reusableBuf) throws IOException;
 
     /**
      * Get the length of the resource.
@@ -319,6 +321,17 @@ public abstract class Resource implements Closeable, Comparable<Resource> {
         return length;
     }
 
+    /**
+     * Get the position of the resource within its classpath element, for reading the resources of a classpath
+     * element in storage order.
+     *
+     * @return the position of the resource within its classpath element, or -1L if the resources of the classpath
+     *         element are not stored in a single file.
+     */
+    long getPositionInClasspathElement() {
+        return -1L;
+    }
+
     /**
      * Get the last modified time for the resource, in milliseconds since the epoch. This time is obtained from the
      * directory entry, if this resource is a file on disk, or from the zipfile central directory, if this resource
@@ -0,0 +1,219 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link Classfile} objects produced by a scan, indexed by classpath element and classfile path, so that
+ * {@link ScanResult#rescan()} can reuse the parsed contents of classfiles that have not changed since the scan.
+ *
+ * <p>
+ * A classfile in a jarfile or other non-directory classpath element can only be reused if the size and last
+ * modified time of the classpath element file are unchanged. A classfile in a directory classpath element can
+ * only be reused if the size and last modified time of the classfile itself are unchanged.
+ */
+class ReusableClassfiles {
+    /** The fingerprint of each classpath element of the scan. */
+    private final Map<ClasspathElement, String> classpathEltToFingerprint = new ConcurrentHashMap<>();
+
+    /** Map from classpath element to the classfiles found in the classpath element. */
+    private final ConcurrentMap<String, ClasspathElementClassfiles> classpathEltToClassfiles = //
+            new ConcurrentHashMap<>();
+
+    /** The classfiles found in a classpath element. */
+    private static class ClasspathElementClassfiles {
+        /** The fingerprint of the classpath element at the time of the scan. */
+        private final String fingerprint;
+
+        /** Map from classfile path to the {@link Classfile} for the path. */
+        private final ConcurrentMap<String, ReusableClassfile> pathToClassfile = new ConcurrentHashMap<>();
+
+        /**
+         * Constructor.
+         *
+         * @param fingerprint
+         *            the fingerprint of the classpath element
+         */
+        ClasspathElementClassfiles(final String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /** A {@link Classfile}, along with the size and last modified time of its resource at the time of the scan. */
+    private static class ReusableClassfile {
+        /** The classfile. */
+        private final Classfile classfile;
+
+        /** The length of the classfile resource. */
+        private final long length;
+
+        /** The last modified time of the classfile resource. */
+        private final long lastModified;
+
+        /**
+         * Constructor.
+         *
+         * @param classfile
+         *            the classfile
+         */
+        ReusableClassfile(final Classfile classfile) {
+            this.classfile = classfile;
+            this.length = classfile.getClassfileResource().getLength();
+            this.lastModified = classfile.getClassfileResource().getLastModified();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor.
+     *
+     * @param classpathOrder
+     *            the classpath elements of the scan
+     */
+    ReusableClassfiles(final List<ClasspathElement> classpathOrder) {
+        for (final ClasspathElement classpathElement : classpathOrder) {
+            classpathEltToFingerprint.put(classpathElement, getFingerprint(classpathElement));
+        }
+    }
+
+    /**
+     * Get the fingerprint of a classpath element. Directory classpath elements have an empty fingerprint, since
+     * each classfile within a directory is checked individually. Other classpath elements are fingerprinted
+     * using the size and last modified time of the classpath element file.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @return the fingerprint
+     */
+    private static String getFingerprint(final ClasspathElement classpathElement) {
+        if (classpathElement instanceof ClasspathElementDir) {
+            return "";
+        }
+        final File file = classpathElement.getFile();
+        return file == null ? "" : file.length() + ":" + file.lastModified();
+    }
+
+    /**
+     * Add a {@link Classfile} that was produced by the scan.
+     *
+     * @param classfile
+     *            the classfile
+     */
+    void add(final Classfile classfile) {
+        final ClasspathElement classpathElement = classfile.getClasspathElement();
+        final String classpathEltKey = classpathElement.toString();
+        ClasspathElementClassfiles classpathElementClassfiles = classpathEltToClassfiles.get(classpathEltKey);
+        if (classpathElementClassfiles == null) {
+            String fingerprint = classpathEltToFingerprint.get(classpathElement);
+            if (fingerprint == null) {
+                fingerprint = getFingerprint(classpathElement);
+            }
+            final ClasspathElementClassfiles newClasspathElementClassfiles = new ClasspathElementClassfiles(
+                    fingerprint);
+            classpathElementClassfiles = classpathEltToClassfiles.putIfAbsent(classpathEltKey,
+                    newClasspathElementClassfiles);
+            if (classpathElementClassfiles == null) {
+                classpathElementClassfiles = newClasspathElementClassfiles;
+            }
+        }
+        classpathElementClassfiles.pathToClassfile.put(classfile.getClassfileResource().getPath(),
+                new ReusableClassfile(classfile));
+    }
+
+    /**
+     * Get the {@link Classfile} produced by this scan for a classfile resource found by a later scan, if the
+     * classfile has not changed since this scan.
+     *
+     * @param newReusableClassfiles
+     *            the {@link ReusableClassfiles} of the later scan, which holds the current fingerprint of the
+     *            classpath element
+     * @param classpathElement
+     *            the classpath element of the later scan
+     * @param classfileResource
+     *            the classfile resource found by the later scan
+     * @return the {@link Classfile} produced by this scan, or null if the classfile was not scanned by this scan
+     *         or has changed since this scan.
+     */
+    Classfile get(final ReusableClassfiles newReusableClassfiles, final ClasspathElement classpathElement,
+            final Resource classfileResource) {
+        final ClasspathElementClassfiles classpathElementClassfiles = classpathEltToClassfiles
+                .get(classpathElement.toString());
+        if (classpathElementClassfiles == null) {
+            return null;
+        }
+        final String currFingerprint = newReusableClassfiles.classpathEltToFingerprint.get(classpathElement);
+        if (currFingerprint == null || !currFingerprint.equals(classpathElementClassfiles.fingerprint)) {
+            return null;
+        }
+        final ReusableClassfile reusableClassfile = classpathElementClassfiles.pathToClassfile
+                .get(classfileResource.getPath());
+        if (reusableClassfile == null || reusableClassfile.length != classfileResource.getLength()
+                || reusableClassfile.lastModified != classfileResource.getLastModified()) {
+            return null;
+        }
+        return reusableClassfile.classfile;
+    }
+
+    /**
+     * Remove classfiles that cannot be reused, because their parsed contents were modified after linking.
+     *
+     * @param classNames
+     *            the names of the classes to remove
+     */
+    void removeClasses(final Set<String> classNames) {
+        for (final ClasspathElementClassfiles classpathElementClassfiles : classpathEltToClassfiles.values()) {
+            for (final ReusableClassfile reusableClassfile : classpathElementClassfiles.pathToClassfile
+                    .values()) {
+                if (classNames.contains(reusableClassfile.classfile.getClassName())) {
+                    classpathElementClassfiles.pathToClassfile.values().remove(reusableClassfile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of reusable classfiles.
+     *
+     * @return the number of reusable classfiles
+     */
+    int size() {
+        int size = 0;
+        for (final ClasspathElementClassfiles classpathElementClassfiles : classpathEltToClassfiles.values()) {
+            size += classpathElementClassfiles.pathToClassfile.size();
+        }
+        return size;
+    }
+}
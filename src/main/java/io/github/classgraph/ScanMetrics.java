@@ -0,0 +1,378 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+
+/**
+ * The timings of each phase of a scan, and the I/O and classfile counters recorded while performing the scan,
+ * obtained by calling {@link ScanResult#getScanMetrics()}.
+ *
+ * <p>
+ * The wall time of a phase is the time from when the first work in the phase started to when the last work in
+ * the phase finished, so when phases overlap (e.g. path scanning, classfile masking and classfile parsing, when
+ * {@link ClassGraph#enablePipelinedScan()} has been called), the sum of the wall times of the phases is greater
+ * than the total wall time of the scan. The CPU time of a phase is the sum of the CPU time used by all threads
+ * while working on the phase. The tail time of a phase is the time during which some worker threads were idle,
+ * waiting for the other worker threads to finish the last work units of the phase.
+ */
+public final class ScanMetrics {
+    /** The phases of a scan. */
+    public enum Phase {
+        /** Finding the classpath and modules, and opening modules. */
+        CLASSPATH_DISCOVERY,
+
+        /** Opening classpath elements, including reading the central directory of jarfiles. */
+        OPEN_CLASSPATH_ELEMENTS,
+
+        /** Scanning the paths within classpath elements, and matching them against accept/reject criteria. */
+        SCAN_PATHS,
+
+        /** Masking classfiles that are shadowed by a classfile with the same path earlier in the classpath. */
+        MASK_CLASSFILES,
+
+        /** Reading and parsing classfiles (or reading their parsed contents from an index or cache). */
+        PARSE_CLASSFILES,
+
+        /** Linking parsed classfiles to produce {@link ClassInfo} objects. */
+        LINK_CLASSFILES,
+
+        /** Indexing the linked {@link ClassInfo} objects when creating the {@link ScanResult}. */
+        INDEX_CLASSES
+    }
+
+    /** The wall time of each phase, in nanoseconds, indexed by phase ordinal. */
+    private final long[] wallTimeNanos;
+
+    /** The CPU time of each phase, in nanoseconds, or -1 if not available, indexed by phase ordinal. */
+    private final long[] cpuTimeNanos;
+
+    /** The tail time of each phase, in nanoseconds, indexed by phase ordinal. */
+    private final long[] tailTimeNanos;
+
+    /** The number of worker threads used for each phase, indexed by phase ordinal. */
+    private final int[] numWorkerThreads;
+
+    /** The number of items of work reported to the adaptive concurrency controller, indexed by phase ordinal. */
+    private final long[] adaptiveConcurrencyWorkItems;
+
+    /**
+     * The total estimated cost of the work reported to the adaptive concurrency controller, or -1 if unknown,
+     * indexed by phase ordinal.
+     */
+    private final long[] adaptiveConcurrencyCost;
+
+    /** The total wall time of the scan, in nanoseconds. */
+    private final long totalWallTimeNanos;
+
+    /** The number of jarfiles opened. */
+    private final long numJarsOpened;
+
+    /** The number of bytes of central directory records read from jarfiles. */
+    private final long centralDirectoryBytesRead;
+
+    /** The number of bytes produced by inflating deflated zip entries. */
+    private final long bytesInflated;
+
+    /** The number of bytes of stored zip entries that were opened. */
+    private final long bytesStored;
+
+    /** The number of classfiles that were parsed. */
+    private final long numClassfilesParsed;
+
+    /** The number of classfiles whose parsed contents were reused rather than parsed. */
+    private final long numClassfilesReused;
+
+    /** The number of classfiles that were skipped. */
+    private final long numClassfilesSkipped;
+
+    /** The number of classfiles that were skipped because parsing threw a SkipClassException. */
+    private final long numSkipClassExceptions;
+
+    /** The number of temporary files created. */
+    private final long numTempFilesCreated;
+
+    /** The number of bytes of files that were memory mapped. */
+    private final long memoryMappedBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param scanMetricsRecorder
+     *            the phase timings and classfile counters recorded during the scan
+     * @param nestedJarHandler
+     *            the {@link NestedJarHandler} holding the I/O counters
+     * @param totalWallTimeNanos
+     *            the total wall time of the scan, in nanoseconds
+     */
+    ScanMetrics(final ScanMetricsRecorder scanMetricsRecorder, final NestedJarHandler nestedJarHandler,
+            final long totalWallTimeNanos) {
+        final Phase[] phases = Phase.values();
+        this.wallTimeNanos = new long[phases.length];
+        this.cpuTimeNanos = new long[phases.length];
+        this.tailTimeNanos = new long[phases.length];
+        this.numWorkerThreads = new int[phases.length];
+        this.adaptiveConcurrencyWorkItems = new long[phases.length];
+        this.adaptiveConcurrencyCost = new long[phases.length];
+        for (final Phase phase : phases) {
+            wallTimeNanos[phase.ordinal()] = scanMetricsRecorder.getWallTimeNanos(phase);
+            cpuTimeNanos[phase.ordinal()] = scanMetricsRecorder.getCpuTimeNanos(phase);
+            tailTimeNanos[phase.ordinal()] = scanMetricsRecorder.getTailTimeNanos(phase);
+            numWorkerThreads[phase.ordinal()] = scanMetricsRecorder.getNumWorkerThreads(phase);
+            adaptiveConcurrencyWorkItems[phase.ordinal()] = scanMetricsRecorder
+                    .getAdaptiveConcurrencyWorkItems(phase);
+            adaptiveConcurrencyCost[phase.ordinal()] = scanMetricsRecorder.getAdaptiveConcurrencyCost(phase);
+        }
+        this.totalWallTimeNanos = totalWallTimeNanos;
+        this.numJarsOpened = nestedJarHandler.numJarsOpened.sum();
+        this.centralDirectoryBytesRead = nestedJarHandler.centralDirectoryBytesRead.sum();
+        this.bytesInflated = nestedJarHandler.bytesInflated.sum();
+        this.bytesStored = nestedJarHandler.bytesStored.sum();
+        this.numTempFilesCreated = nestedJarHandler.numTempFilesCreated.sum();
+        this.memoryMappedBytes = nestedJarHandler.memoryMappedBytes.sum();
+        this.numClassfilesParsed = scanMetricsRecorder.numClassfilesParsed.sum();
+        this.numClassfilesReused = scanMetricsRecorder.numClassfilesScanned.sum() - numClassfilesParsed;
+        this.numClassfilesSkipped = scanMetricsRecorder.numClassfilesSkipped.sum();
+        this.numSkipClassExceptions = scanMetricsRecorder.numSkipClassExceptions.sum();
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the wall time of a phase of the scan.
+     *
+     * @param phase
+     *            the phase
+     * @return the wall time of the phase in nanoseconds, or 0 if the phase was not performed.
+     */
+    public long getWallTimeNanos(final Phase phase) {
+        return wallTimeNanos[phase.ordinal()];
+    }
+
+    /**
+     * Get the CPU time used by all threads while working on a phase of the scan.
+     *
+     * @param phase
+     *            the phase
+     * @return the CPU time of the phase in nanoseconds, or -1 if the JVM does not support measuring the CPU time
+     *         of the threads that worked on the phase (e.g. if the scan was run on virtual threads).
+     */
+    public long getCpuTimeNanos(final Phase phase) {
+        return cpuTimeNanos[phase.ordinal()];
+    }
+
+    /**
+     * Get the tail time of a phase of the scan, i.e. the time from when the first worker thread ran out of work
+     * in the phase until the last work unit of the phase was completed. A long tail time relative to the wall time
+     * of the phase means that the phase ended waiting on a few expensive work units, such as a very large jarfile.
+     *
+     * @param phase
+     *            the phase
+     * @return the tail time of the phase in nanoseconds, or 0 if the phase was not performed by parallel worker
+     *         threads.
+     */
+    public long getTailTimeNanos(final Phase phase) {
+        return tailTimeNanos[phase.ordinal()];
+    }
+
+    /**
+     * Get the number of worker threads used for a phase of the scan. If {@link ClassGraph#enableAdaptiveConcurrency()}
+     * was called, this is the number of active workers chosen by the end of the phase, otherwise it is the number
+     * of parallel tasks used for the phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the number of worker threads, or 0 if the phase was not performed by parallel worker threads.
+     */
+    public int getNumWorkerThreads(final Phase phase) {
+        return numWorkerThreads[phase.ordinal()];
+    }
+
+    /**
+     * Get the number of items of work in a phase of the scan whose throughput was measured to adjust the number of
+     * worker threads, if {@link ClassGraph#enableAdaptiveConcurrency()} was called. For
+     * {@link Phase#PARSE_CLASSFILES}, this is the number of classfiles, even when classfiles are scanned in
+     * batches (see {@link ClassGraph#setClassfileBatchSize(int)}).
+     *
+     * @param phase
+     *            the phase
+     * @return the number of items of work, or 0 if the number of worker threads was not adjusted for the phase.
+     */
+    public long getAdaptiveConcurrencyWorkItems(final Phase phase) {
+        return adaptiveConcurrencyWorkItems[phase.ordinal()];
+    }
+
+    /**
+     * Get the total estimated cost of the work in a phase of the scan whose throughput was measured to adjust the
+     * number of worker threads, if {@link ClassGraph#enableAdaptiveConcurrency()} was called. For
+     * {@link Phase#PARSE_CLASSFILES}, this is the total number of bytes in the classfiles.
+     *
+     * @param phase
+     *            the phase
+     * @return the total estimated cost, -1 if the cost of some of the work could not be estimated, or 0 if the
+     *         number of worker threads was not adjusted for the phase.
+     */
+    public long getAdaptiveConcurrencyCost(final Phase phase) {
+        return adaptiveConcurrencyCost[phase.ordinal()];
+    }
+
+    /**
+     * Get the total wall time of the scan.
+     *
+     * @return the total wall time of the scan in nanoseconds.
+     */
+    public long getTotalWallTimeNanos() {
+        return totalWallTimeNanos;
+    }
+
+    /**
+     * Get the number of jarfiles opened, including nested jarfiles.
+     *
+     * @return the number of jarfiles whose central directory was read.
+     */
+    public long getNumJarsOpened() {
+        return numJarsOpened;
+    }
+
+    /**
+     * Get the number of bytes of central directory records read from jarfiles.
+     *
+     * @return the number of central directory bytes read.
+     */
+    public long getCentralDirectoryBytesRead() {
+        return centralDirectoryBytesRead;
+    }
+
+    /**
+     * Get the number of bytes produced by inflating deflated zip entries, including deflated nested jarfiles.
+     *
+     * @return the number of bytes inflated.
+     */
+    public long getBytesInflated() {
+        return bytesInflated;
+    }
+
+    /**
+     * Get the number of bytes of stored (uncompressed) zip entries that were opened during the scan.
+     *
+     * @return the number of bytes stored.
+     */
+    public long getBytesStored() {
+        return bytesStored;
+    }
+
+    /**
+     * Get the number of classfiles that were read and parsed.
+     *
+     * @return the number of classfiles parsed.
+     */
+    public long getNumClassfilesParsed() {
+        return numClassfilesParsed;
+    }
+
+    /**
+     * Get the number of classfiles whose parsed contents were reused from a previous scan (see
+     * {@link ScanResult#rescan()}), or read from a jar index or the persistent cache, rather than being parsed.
+     *
+     * @return the number of classfiles reused.
+     */
+    public long getNumClassfilesReused() {
+        return numClassfilesReused;
+    }
+
+    /**
+     * Get the number of classfiles that were skipped, because they were invalid, could not be read, or did not
+     * need to be scanned.
+     *
+     * @return the number of classfiles skipped.
+     */
+    public long getNumClassfilesSkipped() {
+        return numClassfilesSkipped;
+    }
+
+    /**
+     * Get the number of classfiles that were skipped because they did not need to be scanned, e.g. non-public
+     * classes when {@link ClassGraph#ignoreClassVisibility()} was not called, or classfiles whose path does not
+     * match their class name. This is a subset of the classfiles counted by {@link #getNumClassfilesSkipped()}.
+     *
+     * @return the number of classfiles skipped because they did not need to be scanned.
+     */
+    public long getNumSkipClassExceptions() {
+        return numSkipClassExceptions;
+    }
+
+    /**
+     * Get the number of temporary files created, e.g. when a deflated nested jarfile was too large to inflate to
+     * RAM, or a jarfile was downloaded from a URL.
+     *
+     * @return the number of temporary files created.
+     */
+    public long getNumTempFilesCreated() {
+        return numTempFilesCreated;
+    }
+
+    /**
+     * Get the number of bytes of files that were memory mapped (see {@link ClassGraph#enableMemoryMapping()}).
+     *
+     * @return the number of bytes memory mapped.
+     */
+    public long getMemoryMappedBytes() {
+        return memoryMappedBytes;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("totalWallTimeNanos=").append(totalWallTimeNanos);
+        for (final Phase phase : Phase.values()) {
+            buf.append(", ").append(phase).append("={wallTimeNanos=").append(wallTimeNanos[phase.ordinal()])
+                    .append(", cpuTimeNanos=").append(cpuTimeNanos[phase.ordinal()]).append(", tailTimeNanos=")
+                    .append(tailTimeNanos[phase.ordinal()]).append(", numWorkerThreads=")
+                    .append(numWorkerThreads[phase.ordinal()]).append(", adaptiveConcurrencyWorkItems=")
+                    .append(adaptiveConcurrencyWorkItems[phase.ordinal()]).append(", adaptiveConcurrencyCost=")
+                    .append(adaptiveConcurrencyCost[phase.ordinal()]).append('}');
+        }
+        buf.append(", numJarsOpened=").append(numJarsOpened);
+        buf.append(", centralDirectoryBytesRead=").append(centralDirectoryBytesRead);
+        buf.append(", bytesInflated=").append(bytesInflated);
+        buf.append(", bytesStored=").append(bytesStored);
+        buf.append(", numClassfilesParsed=").append(numClassfilesParsed);
+        buf.append(", numClassfilesReused=").append(numClassfilesReused);
+        buf.append(", numClassfilesSkipped=").append(numClassfilesSkipped);
+        buf.append(", numSkipClassExceptions=").append(numSkipClassExceptions);
+        buf.append(", numTempFilesCreated=").append(numTempFilesCreated);
+        buf.append(", memoryMappedBytes=").append(memoryMappedBytes);
+        return buf.toString();
+    }
+}
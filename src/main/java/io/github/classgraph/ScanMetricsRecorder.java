@@ -0,0 +1,332 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.github.classgraph.ScanMetrics.Phase;
+import nonapi.io.github.classgraph.concurrency.StripedCounter;
+import nonapi.io.github.classgraph.concurrency.WorkQueue;
+import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * Records the wall time and CPU time of each {@link Phase} of a scan, and counts the classfiles scanned, while
+ * the scan is running. Threadsafe, and cheap enough to always be enabled.
+ */
+class ScanMetricsRecorder {
+    /** The earliest start time of any work in each phase, in nanoseconds, indexed by phase ordinal. */
+    private final AtomicLongArray phaseStartNanos;
+
+    /** The latest end time of any work in each phase, in nanoseconds, indexed by phase ordinal. */
+    private final AtomicLongArray phaseEndNanos;
+
+    /** The CPU time of each phase, in nanoseconds, indexed by phase ordinal. */
+    private final StripedCounter[] phaseCpuTimeNanos;
+
+    /** Nonzero for each phase for which the CPU time of some of the work could not be measured. */
+    private final AtomicIntegerArray phaseCpuTimeUnavailable;
+
+    /** The tail time of each phase, in nanoseconds, indexed by phase ordinal. */
+    private final AtomicLongArray phaseTailTimeNanos;
+
+    /** The number of worker threads used for each phase, indexed by phase ordinal. */
+    private final AtomicIntegerArray phaseNumWorkerThreads;
+
+    /**
+     * The number of items of work reported to the adaptive concurrency controller in each phase, indexed by phase
+     * ordinal.
+     */
+    private final AtomicLongArray phaseAdaptiveConcurrencyWorkItems;
+
+    /**
+     * The total estimated cost of the work reported to the adaptive concurrency controller in each phase, or -1 if
+     * the cost of some of the work was unknown, indexed by phase ordinal.
+     */
+    private final AtomicLongArray phaseAdaptiveConcurrencyCost;
+
+    /** The number of classfiles that were successfully scanned, whether parsed or reused. */
+    final StripedCounter numClassfilesScanned = new StripedCounter();
+
+    /** The number of classfiles that were parsed. */
+    final StripedCounter numClassfilesParsed = new StripedCounter();
+
+    /** The number of classfiles that were skipped. */
+    final StripedCounter numClassfilesSkipped = new StripedCounter();
+
+    /** The number of classfiles that were skipped because parsing threw a SkipClassException. */
+    final StripedCounter numSkipClassExceptions = new StripedCounter();
+
+    /** True if the JVM supports measuring the CPU time of the current thread. */
+    private static final boolean CPU_TIME_SUPPORTED = isCpuTimeSupported();
+
+    /**
+     * Holder for the {@link ThreadMXBean}, so that the {@code java.lang.management} classes are only loaded when
+     * they are needed (they are not available on Android).
+     */
+    private static class ThreadMXBeanHolder {
+        /** The {@link ThreadMXBean}. */
+        private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    }
+
+    /** Constructor. */
+    ScanMetricsRecorder() {
+        final int numPhases = Phase.values().length;
+        phaseStartNanos = new AtomicLongArray(numPhases);
+        phaseEndNanos = new AtomicLongArray(numPhases);
+        phaseCpuTimeNanos = new StripedCounter[numPhases];
+        phaseCpuTimeUnavailable = new AtomicIntegerArray(numPhases);
+        phaseTailTimeNanos = new AtomicLongArray(numPhases);
+        phaseNumWorkerThreads = new AtomicIntegerArray(numPhases);
+        phaseAdaptiveConcurrencyWorkItems = new AtomicLongArray(numPhases);
+        phaseAdaptiveConcurrencyCost = new AtomicLongArray(numPhases);
+        for (int i = 0; i < numPhases; i++) {
+            phaseStartNanos.set(i, Long.MAX_VALUE);
+            phaseEndNanos.set(i, Long.MIN_VALUE);
+            phaseCpuTimeNanos[i] = new StripedCounter();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Check whether the JVM supports measuring the CPU time of the current thread.
+     *
+     * @return true if CPU time can be measured.
+     */
+    private static boolean isCpuTimeSupported() {
+        try {
+            return ThreadMXBeanHolder.THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+        } catch (final LinkageError | SecurityException e) {
+            // java.lang.management is not available
+            return false;
+        }
+    }
+
+    /**
+     * Get the CPU time used by the current thread.
+     *
+     * @return the CPU time of the current thread in nanoseconds, or -1 if not available.
+     */
+    static long currentThreadCpuTimeNanos() {
+        if (!CPU_TIME_SUPPORTED) {
+            return -1L;
+        }
+        try {
+            return ThreadMXBeanHolder.THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        } catch (final UnsupportedOperationException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Record that the current thread has finished some work in a phase.
+     *
+     * @param phase
+     *            the phase
+     * @param startNanos
+     *            the value of {@link System#nanoTime()} when the work started
+     * @param startCpuTimeNanos
+     *            the value of {@link #currentThreadCpuTimeNanos()} when the work started
+     */
+    void record(final Phase phase, final long startNanos, final long startCpuTimeNanos) {
+        final long endNanos = System.nanoTime();
+        final long endCpuTimeNanos = currentThreadCpuTimeNanos();
+        final int idx = phase.ordinal();
+        for (long curr; startNanos < (curr = phaseStartNanos.get(idx))
+                && !phaseStartNanos.compareAndSet(idx, curr, startNanos);) {
+            // Retry until the earliest start time has been recorded
+        }
+        for (long curr; endNanos > (curr = phaseEndNanos.get(idx))
+                && !phaseEndNanos.compareAndSet(idx, curr, endNanos);) {
+            // Retry until the latest end time has been recorded
+        }
+        if (startCpuTimeNanos >= 0L && endCpuTimeNanos >= 0L) {
+            phaseCpuTimeNanos[idx].add(endCpuTimeNanos - startCpuTimeNanos);
+        } else if (phaseCpuTimeUnavailable.get(idx) == 0) {
+            phaseCpuTimeUnavailable.set(idx, 1);
+        }
+    }
+
+    /**
+     * Record the tail time of a run of the work queue in a phase, i.e. the time from when the first worker ran out
+     * of work units until all work units had been completed. If a phase runs the work queue more than once, the
+     * tail times are summed.
+     *
+     * @param phase
+     *            the phase
+     * @param tailTimeNanos
+     *            the tail time in nanoseconds
+     */
+    void recordTailTime(final Phase phase, final long tailTimeNanos) {
+        phaseTailTimeNanos.addAndGet(phase.ordinal(), tailTimeNanos);
+    }
+
+    /**
+     * Record the number of worker threads used by a run of the work queue in a phase (for adaptive concurrency,
+     * the worker limit at the end of the run). If a phase runs the work queue more than once, the maximum is kept.
+     *
+     * @param phase
+     *            the phase
+     * @param numWorkerThreads
+     *            the number of worker threads
+     */
+    void recordNumWorkerThreads(final Phase phase, final int numWorkerThreads) {
+        final int idx = phase.ordinal();
+        for (int curr; numWorkerThreads > (curr = phaseNumWorkerThreads.get(idx))
+                && !phaseNumWorkerThreads.compareAndSet(idx, curr, numWorkerThreads);) {
+            // Retry until the maximum has been recorded
+        }
+    }
+
+    /**
+     * Record the number of items of work and their total estimated cost that were reported to the adaptive
+     * concurrency controller by a run of the work queue in a phase. If a phase runs the work queue more than once,
+     * the numbers of items and the costs are summed.
+     *
+     * @param phase
+     *            the phase
+     * @param numWorkItems
+     *            the number of items of work
+     * @param cost
+     *            the total estimated cost of the work, or -1 if the cost of some of the work was unknown
+     */
+    void recordAdaptiveConcurrencyWork(final Phase phase, final long numWorkItems, final long cost) {
+        final int idx = phase.ordinal();
+        phaseAdaptiveConcurrencyWorkItems.addAndGet(idx, numWorkItems);
+        for (long curr; (curr = phaseAdaptiveConcurrencyCost.get(idx)) >= 0L && !phaseAdaptiveConcurrencyCost
+                .compareAndSet(idx, curr, cost < 0L ? -1L : curr + cost);) {
+            // Retry until the cost has been added (or marked as unknown)
+        }
+    }
+
+    /**
+     * Wrap a {@link WorkUnitProcessor} so that the time spent processing each work unit is recorded for a phase.
+     *
+     * @param <W>
+     *            the work unit type
+     * @param phase
+     *            the phase
+     * @param workUnitProcessor
+     *            the work unit processor to wrap
+     * @return the wrapped work unit processor
+     */
+    <W> WorkUnitProcessor<W> timed(final Phase phase, final WorkUnitProcessor<W> workUnitProcessor) {
+        return new WorkUnitProcessor<W>() {
+            @Override
+            public void processWorkUnit(final W workUnit, final WorkQueue<W> workQueue, final LogNode log)
+                    throws InterruptedException {
+                final long startNanos = System.nanoTime();
+                final long startCpuTimeNanos = currentThreadCpuTimeNanos();
+                try {
+                    workUnitProcessor.processWorkUnit(workUnit, workQueue, log);
+                } finally {
+                    record(phase, startNanos, startCpuTimeNanos);
+                }
+            }
+        };
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the wall time of a phase, from when the first work in the phase started to when the last work in the
+     * phase finished.
+     *
+     * @param phase
+     *            the phase
+     * @return the wall time in nanoseconds, or 0 if no work was recorded for the phase.
+     */
+    long getWallTimeNanos(final Phase phase) {
+        final long startNanos = phaseStartNanos.get(phase.ordinal());
+        final long endNanos = phaseEndNanos.get(phase.ordinal());
+        return startNanos == Long.MAX_VALUE || endNanos == Long.MIN_VALUE ? 0L : endNanos - startNanos;
+    }
+
+    /**
+     * Get the CPU time of a phase, summed across all threads that worked on the phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the CPU time in nanoseconds, or -1 if the CPU time of some of the work in the phase could not be
+     *         measured.
+     */
+    long getCpuTimeNanos(final Phase phase) {
+        return phaseCpuTimeUnavailable.get(phase.ordinal()) != 0 ? -1L
+                : phaseCpuTimeNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * Get the tail time of a phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the tail time in nanoseconds, or 0 if the phase was not run using the work queue.
+     */
+    long getTailTimeNanos(final Phase phase) {
+        return phaseTailTimeNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Get the number of worker threads used for a phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the number of worker threads, or 0 if the phase was not run using the work queue.
+     */
+    int getNumWorkerThreads(final Phase phase) {
+        return phaseNumWorkerThreads.get(phase.ordinal());
+    }
+
+    /**
+     * Get the number of items of work reported to the adaptive concurrency controller in a phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the number of items of work, or 0 if adaptive concurrency was not used for the phase.
+     */
+    long getAdaptiveConcurrencyWorkItems(final Phase phase) {
+        return phaseAdaptiveConcurrencyWorkItems.get(phase.ordinal());
+    }
+
+    /**
+     * Get the total estimated cost of the work reported to the adaptive concurrency controller in a phase.
+     *
+     * @param phase
+     *            the phase
+     * @return the total estimated cost, -1 if the cost of some of the work was unknown, or 0 if adaptive
+     *         concurrency was not used for the phase.
+     */
+    long getAdaptiveConcurrencyCost(final Phase phase) {
+        return phaseAdaptiveConcurrencyCost.get(phase.ordinal());
+    }
+}
@@ -29,8 +29,13 @@
 package io.github.classgraph;
 
 import java.io.Closeable;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Repeatable;
 import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -45,7 +50,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
@@ -53,6 +60,7 @@ import java.util.regex.Pattern;
 
 import nonapi.io.github.classgraph.classpath.ClasspathFinder;
 import nonapi.io.github.classgraph.concurrency.AutoCloseableExecutorService;
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
 import nonapi.io.github.classgraph.json.JSONDeserializer;
 import nonapi.io.github.classgraph.json.JSONSerializer;
@@ -60,6 +68,8 @@ import nonapi.io.github.classgraph.reflection.ReflectionUtils;
 import nonapi.io.github.classgraph.scanspec.AcceptReject;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.utils.Assert;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
@@ -108,7 +118,8 @@ public final class ScanResult implements Closeable {
     private Map<File, Long> fileToLastModified;
 
     /**
-     * If true, this {@link ScanResult} was produced by {@link ScanResult#fromJSON(String)}.
+     * If true, this {@link ScanResult} was produced by {@link ScanResult#fromJSON(String)} or
+     * {@link ScanResult#readFrom(InputStream)}.
      */
     private boolean isObtainedFromDeserialization;
 
@@ -121,9 +132,55 @@ public final class ScanResult implements Closeable {
     /** The nested jar handler instance. */
     private NestedJarHandler nestedJarHandler;
 
+    /**
+     * The number of open {@link ScanResult} instances that share {@link #nestedJarHandler}, or null if
+     * {@link #nestedJarHandler} is not shared (see {@link ClassGraph#scanAll(ClassGraph...)}).
+     */
+    private AtomicInteger nestedJarHandlerRefCount;
+
+    /**
+     * If true, the accepted resources of each classpath element are filtered by the accept/reject criteria of
+     * {@link #scanSpec}, since the classpath elements were scanned together with those of other scans.
+     */
+    private boolean filterAcceptedResources;
+
     /** The scan spec. */
     ScanSpec scanSpec;
 
+    /**
+     * The classfiles retained for reuse by {@link #rescan()}, or null if
+     * {@link ClassGraph#enableIncrementalRescan()} was not called.
+     */
+    private ReusableClassfiles reusableClassfiles;
+
+    /** The metrics recorded while performing the scan, or null if not available. */
+    private ScanMetrics scanMetrics;
+
+    /**
+     * The classpath elements that were not fully scanned because the scan deadline passed, or null if the scan was
+     * completed.
+     */
+    private List<String> unscannedClasspathElements;
+
+    /**
+     * The names of classes whose field or method annotations were modified in place when handling
+     * {@link Repeatable} annotations, or null if none.
+     */
+    private Set<String> classNamesWithModifiedMemberAnnotations;
+
+    /**
+     * The names of all {@link Repeatable} annotations, or null if none. Used to handle {@link Repeatable}
+     * annotations on fields and methods that are parsed after the scan (see
+     * {@link ClassGraph#enableLazyMemberInfo()}).
+     */
+    Set<String> allRepeatableAnnotationNames;
+
+    /** Set to true once the fields and methods of all classes have been parsed, if parsing them was deferred. */
+    private volatile boolean allLazyMembersLoaded;
+
+    /** The index of the callers of each called method, built on first use by {@link #getCallers(MethodInfo)}. */
+    private MethodCallGraph methodCallGraph;
+
     /** If true, this ScanResult has already been closed. */
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -152,6 +209,12 @@ public final class ScanResult implements Closeable {
     /** The current serialization format. */
     private static final String CURRENT_SERIALIZATION_FORMAT = "10";
 
+    /** The magic number at the start of the binary serialization format ("CGSR"). */
+    private static final int BINARY_SERIALIZATION_MAGIC = 0x43475352;
+
+    /** The current binary serialization format. */
+    private static final int CURRENT_BINARY_SERIALIZATION_FORMAT = 2;
+
     /**
      * A class to hold a serialized ScanResult along with the ScanSpec that was used to scan.
      */
@@ -306,8 +369,14 @@ public final class ScanResult implements Closeable {
                 }
             }
             if (!allRepeatableAnnotationNames.isEmpty()) {
+                this.allRepeatableAnnotationNames = allRepeatableAnnotationNames;
                 for (final ClassInfo classInfo : classNameToClassInfo.values()) {
-                    classInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames);
+                    if (classInfo.handleRepeatableAnnotations(allRepeatableAnnotationNames)) {
+                        if (classNamesWithModifiedMemberAnnotations == null) {
+                            classNamesWithModifiedMemberAnnotations = new HashSet<>();
+                        }
+                        classNamesWithModifiedMemberAnnotations.add(classInfo.getName());
+                    }
                 }
             }
         }
@@ -486,7 +555,7 @@ public final class ScanResult implements Closeable {
                 // Index Resource objects by path
                 final ResourceList acceptedResourcesList = new ResourceList();
                 for (final ClasspathElement classpathElt : classpathOrder) {
-                    acceptedResourcesList.addAll(classpathElt.acceptedResources);
+                    acceptedResourcesList.addAll(getAcceptedResources(classpathElt));
                 }
                 // Set atomically for thread safety
                 allAcceptedResourcesCached = acceptedResourcesList;
@@ -495,6 +564,26 @@ public final class ScanResult implements Closeable {
         }
     }
 
+    /**
+     * Get the resources of a classpath element that are accepted by the scan spec of this {@link ScanResult}.
+     *
+     * @param classpathElt
+     *            the classpath element
+     * @return the accepted resources.
+     */
+    private List<Resource> getAcceptedResources(final ClasspathElement classpathElt) {
+        if (!filterAcceptedResources) {
+            return classpathElt.acceptedResources;
+        }
+        final List<Resource> acceptedResources = new ArrayList<>();
+        for (final Resource res : classpathElt.acceptedResources) {
+            if (scanSpec.resourcePathIsAccepted(res.getPath())) {
+                acceptedResources.add(res);
+            }
+        }
+        return acceptedResources;
+    }
+
     /**
      * Get a map from resource path to {@link Resource} for all resources (including classfiles and non-classfiles)
      * found in accepted packages.
@@ -544,7 +633,7 @@ public final class ScanResult implements Closeable {
             // If just a few calls are made, directly search for resource with the requested
             // path
             for (final ClasspathElement classpathElt : classpathOrder) {
-                for (final Resource res : classpathElt.acceptedResources) {
+                for (final Resource res : getAcceptedResources(classpathElt)) {
                     if (res.getPath().equals(path)) {
                         if (matchingResources == null) {
                             matchingResources = new ResourceList();
@@ -741,9 +830,10 @@ public final class ScanResult implements Closeable {
     }
 
     /**
-     * Get all modules found during the scan.
+     * Get all modules found during the scan, sorted by name. The order does not depend on the number of threads
+     * used for scanning.
      *
-     * @return A list of all modules found during the scan, or the empty list if none.
+     * @return A list of all modules found during the scan, sorted by name, or the empty list if none.
      */
     public ModuleInfoList getModuleInfo() {
         if (closed.get()) {
@@ -752,7 +842,9 @@ public final class ScanResult implements Closeable {
         if (!scanSpec.enableClassInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
         }
-        return new ModuleInfoList(moduleNameToModuleInfo.values());
+        final ModuleInfoList moduleInfoList = new ModuleInfoList(moduleNameToModuleInfo.values());
+        CollectionUtils.sortIfNotEmpty(moduleInfoList);
+        return moduleInfoList;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -777,9 +869,10 @@ public final class ScanResult implements Closeable {
     }
 
     /**
-     * Get all packages found during the scan.
+     * Get all packages found during the scan, sorted by name. The order does not depend on the number of threads
+     * used for scanning.
      *
-     * @return A list of all packages found during the scan, or the empty list if none.
+     * @return A list of all packages found during the scan, sorted by name, or the empty list if none.
      */
     public PackageInfoList getPackageInfo() {
         if (closed.get()) {
@@ -788,7 +881,9 @@ public final class ScanResult implements Closeable {
         if (!scanSpec.enableClassInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
         }
-        return new PackageInfoList(packageNameToPackageInfo.values());
+        final PackageInfoList packageInfoList = new PackageInfoList(packageNameToPackageInfo.values());
+        CollectionUtils.sortIfNotEmpty(packageInfoList);
+        return packageInfoList;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -844,6 +939,69 @@ public final class ScanResult implements Closeable {
         return revMapList;
     }
 
+    // -------------------------------------------------------------------------------------------------------------
+    // Method call graph
+
+    /**
+     * Get the method call graph index, building it on first use.
+     *
+     * @return the method call graph index.
+     */
+    private MethodCallGraph getMethodCallGraph() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (!scanSpec.enableMethodCallGraph) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableMethodCallGraph() before #scan()");
+        }
+        synchronized (this) {
+            if (methodCallGraph == null) {
+                loadAllLazyMembers();
+                methodCallGraph = new MethodCallGraph(classNameToClassInfo.values(), this);
+            }
+            return methodCallGraph;
+        }
+    }
+
+    /**
+     * Get the methods of the scanned classes that call the given method, either through the class that declares
+     * the method, or through a class that inherits the method. The index of callers is built the first time this
+     * method (or {@link #getCallers(String, String, String)}) is called. Note that you need to call
+     * {@link ClassGraph#enableMethodCallGraph()} before {@link ClassGraph#scan()} for this method to work. Calls
+     * from methods that are not visible (see {@link ClassGraph#ignoreMethodVisibility()}) are not found.
+     *
+     * @param methodInfo
+     *            the called method.
+     * @return A list of the methods that call the method, ordered by class name, or the empty list if none.
+     * @throws IllegalArgumentException
+     *             if {@link ClassGraph#enableMethodCallGraph()} was not called prior to initiating the scan.
+     */
+    public MethodInfoList getCallers(final MethodInfo methodInfo) {
+        return getMethodCallGraph().getCallers(methodInfo);
+    }
+
+    /**
+     * Get the methods of the scanned classes that call the named method, through the named class (i.e. the class
+     * named at the call site, as returned by {@link MethodRef#getClassName()}). The named method does not need to
+     * have been found during the scan, so this can be used to find callers of methods in the JDK or in
+     * non-accepted libraries. Note that you need to call {@link ClassGraph#enableMethodCallGraph()} before
+     * {@link ClassGraph#scan()} for this method to work.
+     *
+     * @param className
+     *            the name of the class that the method is called through.
+     * @param methodName
+     *            the name of the method, or {@code "<init>"} for a constructor.
+     * @param typeDescriptorStr
+     *            the internal method type descriptor string, e.g. {@code "(Ljava/lang/String;)V"}.
+     * @return A list of the methods that call the method, ordered by class name, or the empty list if none.
+     * @throws IllegalArgumentException
+     *             if {@link ClassGraph#enableMethodCallGraph()} was not called prior to initiating the scan.
+     */
+    public MethodInfoList getCallers(final String className, final String methodName,
+            final String typeDescriptorStr) {
+        return getMethodCallGraph().getCallers(className, methodName, typeDescriptorStr);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Classes
 
@@ -1032,6 +1190,7 @@ public final class ScanResult implements Closeable {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo(), #enableMethodInfo(), "
                     + "and #enableAnnotationInfo() before #scan()");
         }
+        loadAllLazyMembers();
         final ClassInfo classInfo = classNameToClassInfo.get(methodAnnotationName);
         return classInfo == null ? ClassInfoList.EMPTY_LIST : classInfo.getClassesWithMethodAnnotation();
     }
@@ -1066,6 +1225,7 @@ public final class ScanResult implements Closeable {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo(), #enableMethodInfo(), "
                     + "and #enableAnnotationInfo() before #scan()");
         }
+        loadAllLazyMembers();
         final ClassInfo classInfo = classNameToClassInfo.get(methodParameterAnnotationName);
         return classInfo == null ? ClassInfoList.EMPTY_LIST : classInfo.getClassesWithMethodParameterAnnotation();
     }
@@ -1097,6 +1257,7 @@ public final class ScanResult implements Closeable {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo(), #enableFieldInfo(), "
                     + "and #enableAnnotationInfo() before #scan()");
         }
+        loadAllLazyMembers();
         final ClassInfo classInfo = classNameToClassInfo.get(fieldAnnotationName);
         return classInfo == null ? ClassInfoList.EMPTY_LIST : classInfo.getClassesWithFieldAnnotation();
     }
@@ -1412,6 +1573,162 @@ public final class ScanResult implements Closeable {
         return maxLastModifiedTime;
     }
 
+    /**
+     * Set the classfiles retained for reuse by {@link #rescan()}.
+     *
+     * @param reusableClassfiles
+     *            the reusable classfiles
+     */
+    void setReusableClassfiles(final ReusableClassfiles reusableClassfiles) {
+        if (classNamesWithModifiedMemberAnnotations != null) {
+            // The field and method annotations of these classes no longer match the classfile, so they can't
+            // be reused
+            reusableClassfiles.removeClasses(classNamesWithModifiedMemberAnnotations);
+        }
+        this.reusableClassfiles = reusableClassfiles;
+    }
+
+    /**
+     * Scan the classpath again with the same configuration as this scan, then close this {@link ScanResult}. If
+     * {@link ClassGraph#enableIncrementalRescan()} was called before this scan, only the classfiles that have
+     * changed since this scan are read and parsed, and the parsed contents of unchanged classfiles are reused.
+     * Classpath elements are always re-opened and their paths re-scanned, so that added and removed classfiles
+     * and classpath elements are detected. You should assign the returned {@link ScanResult} in a
+     * try-with-resources statement, or manually close it when you are finished with it.
+     * 
+     * <p>
+     * Field, method and annotation info objects of unchanged classes are shared with the new {@link ScanResult},
+     * so this {@link ScanResult} is closed once the new scan has completed, and objects obtained from it should
+     * not be used after calling this method.
+     *
+     * @param numThreads
+     *            The number of worker threads to start up.
+     * @return a new {@link ScanResult} object representing the result of the scan.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
+     */
+    public ScanResult rescan(final int numThreads) {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (isObtainedFromDeserialization) {
+            throw new IllegalArgumentException("Cannot rescan a ScanResult that was obtained by deserialization");
+        }
+        final ScanResult newScanResult;
+        try (AutoCloseableExecutorService executorService = ClassGraph.newExecutorService(scanSpec, numThreads)) {
+            newScanResult = executorService.submit(new Scanner(/* performScan = */ true, scanSpec,
+                    executorService, numThreads, /* scanResultProcessor = */ null, /* failureHandler = */ null,
+                    /* classInfoConsumer = */ null, reusableClassfiles, reflectionUtils, topLevelLog)).get();
+        } catch (final InterruptedException | CancellationException e) {
+            throw new ClassGraphException("Scan interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new ClassGraphException("Uncaught exception during scan", InterruptionChecker.getCause(e));
+        }
+        close();
+        return newScanResult;
+    }
+
+    /**
+     * Scan the classpath again with the same configuration as this scan, then close this {@link ScanResult}. See
+     * {@link #rescan(int)} for details.
+     *
+     * @return a new {@link ScanResult} object representing the result of the scan.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
+     */
+    public ScanResult rescan() {
+        return rescan(ClassGraph.DEFAULT_NUM_WORKER_THREADS);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+    // Scans performed together
+
+    /**
+     * Share the {@link NestedJarHandler} of this {@link ScanResult} with the other {@link ScanResult} instances
+     * produced by {@link ClassGraph#scanAll(ClassGraph...)}. The {@link NestedJarHandler} is closed when the last
+     * of these {@link ScanResult} instances is closed.
+     *
+     * @param nestedJarHandlerRefCount
+     *            the number of {@link ScanResult} instances that share the {@link NestedJarHandler}
+     * @param filterAcceptedResources
+     *            if true, filter the accepted resources of each classpath element by the accept/reject criteria
+     *            of the scan spec of this {@link ScanResult}
+     */
+    void shareNestedJarHandler(final AtomicInteger nestedJarHandlerRefCount,
+            final boolean filterAcceptedResources) {
+        this.nestedJarHandlerRefCount = nestedJarHandlerRefCount;
+        this.filterAcceptedResources = filterAcceptedResources;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+    // Metrics and partial scans
+
+    /**
+     * Set the metrics recorded while performing the scan.
+     *
+     * @param scanMetrics
+     *            the scan metrics
+     */
+    void setScanMetrics(final ScanMetrics scanMetrics) {
+        this.scanMetrics = scanMetrics;
+    }
+
+    /**
+     * Get the timings of each phase of the scan, and the I/O and classfile counters recorded while performing the
+     * scan. Unlike the log, the metrics are always recorded, so they can be monitored in production.
+     *
+     * @return the {@link ScanMetrics} for the scan that produced this {@link ScanResult}, or null if this
+     *         {@link ScanResult} was obtained by deserialization.
+     */
+    public ScanMetrics getScanMetrics() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        return scanMetrics;
+    }
+
+    /**
+     * Set the classpath elements that were not fully scanned because the scan deadline passed.
+     *
+     * @param unscannedClasspathElements
+     *            the classpath elements that were not fully scanned
+     */
+    void setUnscannedClasspathElements(final List<String> unscannedClasspathElements) {
+        this.unscannedClasspathElements = unscannedClasspathElements;
+    }
+
+    /**
+     * Check whether the scan deadline set by {@link ClassGraph#setScanDeadline(long, java.util.concurrent.TimeUnit)}
+     * passed before all classpath elements had been scanned. If so, classes in the classpath elements listed by
+     * {@link #getUnscannedClasspathElements()} may be missing from this {@link ScanResult}. A {@link ScanResult}
+     * obtained by deserialization is never partial.
+     *
+     * @return true if some classpath elements were not fully scanned.
+     */
+    public boolean isPartial() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        return unscannedClasspathElements != null;
+    }
+
+    /**
+     * Get the classpath elements that were not fully scanned because the scan deadline set by
+     * {@link ClassGraph#setScanDeadline(long, java.util.concurrent.TimeUnit)} passed. Classpath entries that were
+     * not opened are listed first, followed by classpath elements whose paths or classfiles were not all scanned,
+     * in classpath order.
+     *
+     * @return the paths or URLs of the classpath elements that were not fully scanned, or the empty list if the
+     *         scan was complete.
+     */
+    public List<String> getUnscannedClasspathElements() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        return unscannedClasspathElements == null ? Collections.<String> emptyList()
+                : Collections.unmodifiableList(unscannedClasspathElements);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Classloading
 
@@ -1559,22 +1876,8 @@ public final class ScanResult implements Closeable {
             throw new IllegalArgumentException("JSON was serialized by newer version of ClassGraph");
         }
 
-        // Perform a new "scan" with performScan set to false, which resolves all the
-        // ClasspathElement objects
-        // and scans classpath element paths (needed for classloading), but does not
-        // scan the actual classfiles
-        final ClassGraph classGraph = new ClassGraph();
-        classGraph.scanSpec = deserialized.scanSpec;
-        final ScanResult scanResult;
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
-                ClassGraph.DEFAULT_NUM_WORKER_THREADS)) {
-            scanResult = classGraph.getClasspathScanResult(executorService);
-        }
-        scanResult.rawClasspathEltOrderStrs = deserialized.classpath;
-
-        // Set the fields related to ClassInfo in the new ScanResult, based on the
-        // deserialized JSON
-        scanResult.scanSpec = deserialized.scanSpec;
+        // Set the fields related to ClassInfo in a new ScanResult, based on the deserialized JSON
+        final ScanResult scanResult = newDeserializedScanResult(deserialized.scanSpec, deserialized.classpath);
         scanResult.classNameToClassInfo = new HashMap<>();
         if (deserialized.classInfo != null) {
             for (final ClassInfo ci : deserialized.classInfo) {
@@ -1602,6 +1905,142 @@ public final class ScanResult implements Closeable {
         return scanResult;
     }
 
+    /**
+     * Create a {@link ScanResult} for deserialization, by performing a new "scan" with performScan set to false,
+     * which resolves all the {@link ClasspathElement} objects and scans classpath element paths (needed for
+     * classloading), but does not scan the actual classfiles.
+     *
+     * @param scanSpec
+     *            the deserialized scan spec
+     * @param classpath
+     *            the deserialized classpath, as a list of URL strings
+     * @return the {@link ScanResult}, without any {@link ClassInfo}, {@link PackageInfo} or {@link ModuleInfo}
+     *         objects.
+     */
+    private static ScanResult newDeserializedScanResult(final ScanSpec scanSpec, final List<String> classpath) {
+        final ClassGraph classGraph = new ClassGraph();
+        classGraph.scanSpec = scanSpec;
+        final ScanResult scanResult;
+        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
+                ClassGraph.DEFAULT_NUM_WORKER_THREADS)) {
+            scanResult = classGraph.getClasspathScanResult(executorService);
+        }
+        scanResult.rawClasspathEltOrderStrs = classpath;
+        scanResult.scanSpec = scanSpec;
+        // The metrics of the classpath scan are not the metrics of the scan that was serialized
+        scanResult.scanMetrics = null;
+        scanResult.unscannedClasspathElements = null;
+        return scanResult;
+    }
+
+    /**
+     * Deserialize a ScanResult from the binary format written by {@link #writeTo(OutputStream)}. Much faster than
+     * {@link #fromJSON(String)}, since class relationships are read directly rather than being reconstructed. The
+     * {@link InputStream} is not closed.
+     *
+     * <p>
+     * Type annotations (e.g. {@code @NonNull} in {@code List<@NonNull String>}) are not serialized by
+     * {@link #writeTo(OutputStream)}, so the type signatures of the classes, fields and methods of the deserialized
+     * {@link ScanResult} have no type annotations.
+     *
+     * @param inputStream
+     *            The {@link InputStream} to read the serialized {@link ScanResult} from.
+     * @return The deserialized {@link ScanResult}.
+     * @throws IOException
+     *             If the {@link InputStream} could not be read, or does not contain a serialized
+     *             {@link ScanResult}.
+     * @throws IllegalArgumentException
+     *             If the {@link ScanResult} was serialized by a different version of ClassGraph.
+     */
+    public static ScanResult readFrom(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(65536);
+        final byte[] buf = new byte[8192];
+        for (int bytesRead; (bytesRead = inputStream.read(buf)) > 0;) {
+            byteArrayOutputStream.write(buf, 0, bytesRead);
+        }
+        final BinaryReader reader = new BinaryReader(byteArrayOutputStream.toByteArray());
+        if (reader.readInt() != BINARY_SERIALIZATION_MAGIC) {
+            throw new IOException("Not a serialized ScanResult");
+        }
+        if (reader.readVarInt() != CURRENT_BINARY_SERIALIZATION_FORMAT) {
+            throw new IllegalArgumentException(
+                    "ScanResult was serialized in a different format from the format used by the current version "
+                            + "of ClassGraph -- please serialize and deserialize your ScanResult using "
+                            + "the same version of ClassGraph");
+        }
+
+        // The scan spec is small, and contains accept/reject criteria that are only ever read from JSON
+        final ScanSpec scanSpec;
+        try {
+            scanSpec = JSONDeserializer.deserializeObject(ScanSpec.class, reader.readString());
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Could not read ScanSpec", e);
+        }
+        List<String> classpath = null;
+        final int classpathSizePlusOne = reader.readCount();
+        if (classpathSizePlusOne > 0) {
+            classpath = new ArrayList<>(classpathSizePlusOne - 1);
+            for (int i = 1; i < classpathSizePlusOne; i++) {
+                classpath.add(reader.readString());
+            }
+        }
+        final ScanResultObjectTable objectTable = ScanResultObjectTable.read(reader);
+
+        // Set the fields related to ClassInfo in a new ScanResult. Referenced classes were serialized, so there
+        // is no need to call indexResourcesAndClassInfo, which would find referenced classes again.
+        final ScanResult scanResult = newDeserializedScanResult(scanSpec, classpath);
+        scanResult.classNameToClassInfo = objectTable.classNameToClassInfo;
+        scanResult.packageNameToPackageInfo = objectTable.packageNameToPackageInfo;
+        scanResult.moduleNameToModuleInfo = objectTable.moduleNameToModuleInfo;
+        for (final ClassInfo classInfo : scanResult.classNameToClassInfo.values()) {
+            classInfo.setScanResult(scanResult);
+        }
+        scanResult.isObtainedFromDeserialization = true;
+        return scanResult;
+    }
+
+    /**
+     * Serialize a ScanResult in a compact binary format, which can be read by {@link #readFrom(InputStream)}. Class
+     * relationships are written as integer ids, and strings are only written once. The {@link OutputStream} is not
+     * closed.
+     *
+     * <p>
+     * As with {@link #toJSON()}, type annotations (e.g. {@code @NonNull} in {@code List<@NonNull String>}) are not
+     * serialized, so they are missing from the type signatures of the classes, fields and methods of the
+     * {@link ScanResult} returned by {@link #readFrom(InputStream)}. Annotations on classes, fields, methods and
+     * method parameters are serialized. The binary format is versioned, and can only be read by the same version of
+     * ClassGraph that wrote it.
+     *
+     * @param outputStream
+     *            The {@link OutputStream} to write the serialized {@link ScanResult} to.
+     * @throws IOException
+     *             If the {@link OutputStream} could not be written to.
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (!scanSpec.enableClassInfo) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
+        }
+        loadAllLazyMembers();
+        final BinaryWriter writer = new BinaryWriter();
+        writer.writeInt(BINARY_SERIALIZATION_MAGIC);
+        writer.writeVarInt(CURRENT_BINARY_SERIALIZATION_FORMAT);
+        writer.writeString(JSONSerializer.serializeObject(scanSpec));
+        if (rawClasspathEltOrderStrs == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(rawClasspathEltOrderStrs.size() + 1);
+            for (final String classpathElt : rawClasspathEltOrderStrs) {
+                writer.writeString(classpathElt);
+            }
+        }
+        ScanResultObjectTable.write(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo,
+                writer);
+        writer.writeTo(outputStream);
+    }
+
     /**
      * Serialize a ScanResult to JSON.
      * 
@@ -1616,8 +2055,12 @@ public final class ScanResult implements Closeable {
         if (!scanSpec.enableClassInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
         }
+        loadAllLazyMembers();
         final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
         CollectionUtils.sortIfNotEmpty(allClassInfo);
+        for (final ClassInfo classInfo : allClassInfo) {
+            classInfo.materializeMemberTypeStrs();
+        }
         final List<PackageInfo> allPackageInfo = new ArrayList<>(packageNameToPackageInfo.values());
         CollectionUtils.sortIfNotEmpty(allPackageInfo);
         final List<ModuleInfo> allModuleInfo = new ArrayList<>(moduleNameToModuleInfo.values());
@@ -1636,10 +2079,10 @@ public final class ScanResult implements Closeable {
     }
 
     /**
-     * Checks if this {@link ScanResult} was obtained from JSON by deserialization, by calling
-     * {@link #fromJSON(String)}.
+     * Checks if this {@link ScanResult} was obtained by deserialization, by calling {@link #fromJSON(String)} or
+     * {@link #readFrom(InputStream)}.
      *
-     * @return True if this {@link ScanResult} was obtained from JSON by deserialization.
+     * @return True if this {@link ScanResult} was obtained by deserialization.
      */
     public boolean isObtainedFromDeserialization() {
         return isObtainedFromDeserialization;
@@ -1647,6 +2090,31 @@ public final class ScanResult implements Closeable {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Parse the fields and methods of all classes whose fields and methods were not parsed during the scan,
+     * because {@link ClassGraph#enableLazyMemberInfo()} was called. Needed before finding classes by the
+     * annotations on their fields or methods, and before serializing this {@link ScanResult}.
+     */
+    void loadAllLazyMembers() {
+        if (scanSpec.enableLazyMemberInfo && !allLazyMembersLoaded && classNameToClassInfo != null) {
+            for (final ClassInfo classInfo : new ArrayList<>(classNameToClassInfo.values())) {
+                classInfo.loadLazyMembers();
+            }
+            allLazyMembersLoaded = true;
+        }
+    }
+
+    /**
+     * Check whether this {@link ScanResult} has been closed.
+     *
+     * @return true if {@link #close()} has been called.
+     */
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Free any temporary files created by extracting jars or files from within jars. Without calling this method,
      * the temporary files created by extracting the inner jars will be removed in a finalizer, called by the
@@ -1693,12 +2161,16 @@ public final class ScanResult implements Closeable {
                 fileToLastModified.clear();
                 fileToLastModified = null;
             }
+            reusableClassfiles = null;
+            methodCallGraph = null;
             // nestedJarHandler should be closed last, since it needs to have all
             // MappedByteBuffer refs
             // dropped before it tries to delete any temporary files that were written to
             // disk
             if (nestedJarHandler != null) {
-                nestedJarHandler.close(topLevelLog);
+                if (nestedJarHandlerRefCount == null || nestedJarHandlerRefCount.decrementAndGet() == 0) {
+                    nestedJarHandler.close(topLevelLog);
+                }
                 nestedJarHandler = null;
             }
             classGraphClassLoader = null;
@@ -56,9 +56,23 @@ abstract class ScanResultObject {
      *            the scan result
      */
     void setScanResult(final ScanResult scanResult) {
+        if (this.scanResult != null && this.scanResult != scanResult) {
+            // This object is being reused by a new ScanResult (see ScanResult#rescan())
+            clearCachedScanResultValues();
+        }
         this.scanResult = scanResult;
     }
 
+    /**
+     * Clear any values that were cached from a previous {@link ScanResult}, when this object is reused by a new
+     * {@link ScanResult}. Subclasses that cache values obtained from the {@link ScanResult} should override this
+     * method, and call the superclass method.
+     */
+    void clearCachedScanResultValues() {
+        classInfo = null;
+        classRef = null;
+    }
+
     /**
      * Get {@link ClassInfo} objects for any classes referenced by this object.
      *
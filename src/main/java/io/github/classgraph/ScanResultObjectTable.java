@@ -0,0 +1,502 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
+
+/**
+ * Assigns integer ids to the {@link ClassInfo}, {@link PackageInfo} and {@link ModuleInfo} objects of a
+ * {@link ScanResult}, so that the references between them can be written and read in the binary format of
+ * {@link ScanResult#writeTo(java.io.OutputStream)} and {@link ScanResult#readFrom(java.io.InputStream)}.
+ *
+ * <p>
+ * The names of all objects are written first, so that all objects can be created before their contents are read,
+ * then the contents of each object are written, with references to other objects written as ids.
+ */
+class ScanResultObjectTable {
+    /** The {@link ClassInfo} objects, indexed by id. */
+    private final List<ClassInfo> classInfoList = new ArrayList<>();
+
+    /** The {@link PackageInfo} objects, indexed by id. */
+    private final List<PackageInfo> packageInfoList = new ArrayList<>();
+
+    /** The {@link ModuleInfo} objects, indexed by id. */
+    private final List<ModuleInfo> moduleInfoList = new ArrayList<>();
+
+    /** Map from {@link ClassInfo} object to id, when writing. */
+    private final Map<ClassInfo, Integer> classInfoToId = new IdentityHashMap<>();
+
+    /** Map from {@link PackageInfo} object to id, when writing. */
+    private final Map<PackageInfo, Integer> packageInfoToId = new IdentityHashMap<>();
+
+    /** Map from {@link ModuleInfo} object to id, when writing. */
+    private final Map<ModuleInfo, Integer> moduleInfoToId = new IdentityHashMap<>();
+
+    /** Map from class name to {@link ClassInfo} object. */
+    Map<String, ClassInfo> classNameToClassInfo;
+
+    /** Map from package name to {@link PackageInfo} object. */
+    Map<String, PackageInfo> packageNameToPackageInfo;
+
+    /** Map from module name to {@link ModuleInfo} object. */
+    Map<String, ModuleInfo> moduleNameToModuleInfo;
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Add an object to the table, if it is not already in the table.
+     *
+     * @param <T>
+     *            the object type
+     * @param obj
+     *            the object
+     * @param objList
+     *            the objects, indexed by id
+     * @param objToId
+     *            the map from object to id
+     */
+    private static <T> void add(final T obj, final List<T> objList, final Map<T, Integer> objToId) {
+        if (obj != null && !objToId.containsKey(obj)) {
+            objToId.put(obj, objList.size());
+            objList.add(obj);
+        }
+    }
+
+    /**
+     * Add a {@link ClassInfo} object to the table, if it is not already in the table.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object, or null
+     */
+    void add(final ClassInfo classInfo) {
+        add(classInfo, classInfoList, classInfoToId);
+    }
+
+    /**
+     * Add {@link ClassInfo} objects to the table, if they are not already in the table.
+     *
+     * @param classInfos
+     *            the {@link ClassInfo} objects, or null
+     */
+    void addAll(final Collection<ClassInfo> classInfos) {
+        if (classInfos != null) {
+            for (final ClassInfo classInfo : classInfos) {
+                add(classInfo, classInfoList, classInfoToId);
+            }
+        }
+    }
+
+    /**
+     * Add a {@link PackageInfo} object to the table, if it is not already in the table.
+     *
+     * @param packageInfo
+     *            the {@link PackageInfo} object, or null
+     */
+    void add(final PackageInfo packageInfo) {
+        add(packageInfo, packageInfoList, packageInfoToId);
+    }
+
+    /**
+     * Add a {@link ModuleInfo} object to the table, if it is not already in the table.
+     *
+     * @param moduleInfo
+     *            the {@link ModuleInfo} object, or null
+     */
+    void add(final ModuleInfo moduleInfo) {
+        add(moduleInfo, moduleInfoList, moduleInfoToId);
+    }
+
+    /**
+     * Write the {@link ClassInfo}, {@link PackageInfo} and {@link ModuleInfo} objects of a scan result.
+     *
+     * @param classNameToClassInfo
+     *            the map from class name to {@link ClassInfo} object
+     * @param packageNameToPackageInfo
+     *            the map from package name to {@link PackageInfo} object
+     * @param moduleNameToModuleInfo
+     *            the map from module name to {@link ModuleInfo} object
+     * @param writer
+     *            the writer
+     */
+    static void write(final Map<String, ClassInfo> classNameToClassInfo,
+            final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo, final BinaryWriter writer) {
+        final ScanResultObjectTable table = new ScanResultObjectTable();
+        table.addAll(classNameToClassInfo.values());
+        for (final PackageInfo packageInfo : packageNameToPackageInfo.values()) {
+            table.add(packageInfo);
+        }
+        for (final ModuleInfo moduleInfo : moduleNameToModuleInfo.values()) {
+            table.add(moduleInfo);
+        }
+        // Add any objects that are referenced by other objects but are not in the maps (should not happen)
+        for (int classIdx = 0, packageIdx = 0, moduleIdx = 0; classIdx < table.classInfoList.size()
+                || packageIdx < table.packageInfoList.size() || moduleIdx < table.moduleInfoList.size();) {
+            if (classIdx < table.classInfoList.size()) {
+                table.classInfoList.get(classIdx++).addReferencedObjects(table);
+            } else if (packageIdx < table.packageInfoList.size()) {
+                table.packageInfoList.get(packageIdx++).addReferencedObjects(table);
+            } else {
+                table.moduleInfoList.get(moduleIdx++).addReferencedObjects(table);
+            }
+        }
+
+        writer.writeVarInt(table.classInfoList.size());
+        for (final ClassInfo classInfo : table.classInfoList) {
+            writer.writeBoolean(classInfo instanceof ArrayClassInfo);
+            writer.writeString(classInfo.getName());
+        }
+        writer.writeVarInt(table.packageInfoList.size());
+        for (final PackageInfo packageInfo : table.packageInfoList) {
+            writer.writeString(packageInfo.getName());
+        }
+        writer.writeVarInt(table.moduleInfoList.size());
+        for (final ModuleInfo moduleInfo : table.moduleInfoList) {
+            writer.writeString(moduleInfo.getName());
+        }
+
+        for (final ClassInfo classInfo : table.classInfoList) {
+            classInfo.write(writer, table);
+        }
+        for (final PackageInfo packageInfo : table.packageInfoList) {
+            packageInfo.write(writer, table);
+        }
+        for (final ModuleInfo moduleInfo : table.moduleInfoList) {
+            moduleInfo.write(writer, table);
+        }
+
+        writer.writeVarInt(classNameToClassInfo.size());
+        for (final Entry<String, ClassInfo> ent : classNameToClassInfo.entrySet()) {
+            writer.writeString(ent.getKey());
+            table.writeClassInfoRef(ent.getValue(), writer);
+        }
+        writer.writeVarInt(packageNameToPackageInfo.size());
+        for (final Entry<String, PackageInfo> ent : packageNameToPackageInfo.entrySet()) {
+            writer.writeString(ent.getKey());
+            table.writePackageInfoRef(ent.getValue(), writer);
+        }
+        writer.writeVarInt(moduleNameToModuleInfo.size());
+        for (final Entry<String, ModuleInfo> ent : moduleNameToModuleInfo.entrySet()) {
+            writer.writeString(ent.getKey());
+            table.writeModuleInfoRef(ent.getValue(), writer);
+        }
+    }
+
+    /**
+     * Read the {@link ClassInfo}, {@link PackageInfo} and {@link ModuleInfo} objects written by
+     * {@link #write(Map, Map, Map, BinaryWriter)}.
+     *
+     * @param reader
+     *            the reader
+     * @return the table, with the maps from name to object set.
+     * @throws IOException
+     *             if the objects could not be read.
+     */
+    static ScanResultObjectTable read(final BinaryReader reader) throws IOException {
+        final ScanResultObjectTable table = new ScanResultObjectTable();
+        final int numClasses = reader.readCount();
+        final Map<String, ClassInfo> arrayClassNameToClassInfo = new HashMap<>();
+        for (int i = 0; i < numClasses; i++) {
+            final boolean isArrayClass = reader.readBoolean();
+            final String name = reader.readString();
+            if (name == null) {
+                throw new IOException("Class name is null");
+            }
+            table.classInfoList.add(isArrayClass ? ClassInfo.getOrCreateClassInfo(name, arrayClassNameToClassInfo)
+                    : new ClassInfo(name, /* classModifiers = */ 0, /* classfileResource = */ null));
+        }
+        final int numPackages = reader.readCount();
+        for (int i = 0; i < numPackages; i++) {
+            table.packageInfoList.add(new PackageInfo(reader.readString()));
+        }
+        final int numModules = reader.readCount();
+        for (int i = 0; i < numModules; i++) {
+            table.moduleInfoList.add(new ModuleInfo(reader.readString()));
+        }
+
+        for (final ClassInfo classInfo : table.classInfoList) {
+            classInfo.read(reader, table);
+        }
+        for (final PackageInfo packageInfo : table.packageInfoList) {
+            packageInfo.read(reader, table);
+        }
+        for (final ModuleInfo moduleInfo : table.moduleInfoList) {
+            moduleInfo.read(reader, table);
+        }
+
+        final int numClassNames = reader.readCount();
+        // (classNameToClassInfo is a ConcurrentHashMap because it can be modified by
+        // ArrayTypeSignature.getArrayClassInfo() after deserialization)
+        table.classNameToClassInfo = new ConcurrentHashMap<>(numClassNames * 2);
+        for (int i = 0; i < numClassNames; i++) {
+            final String className = reader.readString();
+            table.classNameToClassInfo.put(className, table.readClassInfoRef(reader));
+        }
+        final int numPackageNames = reader.readCount();
+        table.packageNameToPackageInfo = new HashMap<>(numPackageNames * 2);
+        for (int i = 0; i < numPackageNames; i++) {
+            final String packageName = reader.readString();
+            table.packageNameToPackageInfo.put(packageName, table.readPackageInfoRef(reader));
+        }
+        final int numModuleNames = reader.readCount();
+        table.moduleNameToModuleInfo = new HashMap<>(numModuleNames * 2);
+        for (int i = 0; i < numModuleNames; i++) {
+            final String moduleName = reader.readString();
+            table.moduleNameToModuleInfo.put(moduleName, table.readModuleInfoRef(reader));
+        }
+        return table;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write a reference to an object.
+     *
+     * @param <T>
+     *            the object type
+     * @param obj
+     *            the object, or null
+     * @param objToId
+     *            the map from object to id
+     * @param writer
+     *            the writer
+     */
+    private static <T> void writeRef(final T obj, final Map<T, Integer> objToId, final BinaryWriter writer) {
+        if (obj == null) {
+            writer.writeVarInt(0);
+        } else {
+            final Integer id = objToId.get(obj);
+            if (id == null) {
+                throw new IllegalArgumentException("Object is not in table: " + obj);
+            }
+            writer.writeVarInt(id + 1);
+        }
+    }
+
+    /**
+     * Read a reference to an object.
+     *
+     * @param <T>
+     *            the object type
+     * @param objList
+     *            the objects, indexed by id
+     * @param reader
+     *            the reader
+     * @return the object, or null
+     * @throws IOException
+     *             if the reference could not be read, or is out of range.
+     */
+    private static <T> T readRef(final List<T> objList, final BinaryReader reader) throws IOException {
+        final int idPlusOne = reader.readVarInt();
+        if (idPlusOne == 0) {
+            return null;
+        } else if (idPlusOne < 0 || idPlusOne > objList.size()) {
+            throw new IOException("Object id out of range: " + (idPlusOne - 1));
+        }
+        return objList.get(idPlusOne - 1);
+    }
+
+    /**
+     * Write a reference to a {@link ClassInfo} object.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object, or null
+     * @param writer
+     *            the writer
+     */
+    void writeClassInfoRef(final ClassInfo classInfo, final BinaryWriter writer) {
+        writeRef(classInfo, classInfoToId, writer);
+    }
+
+    /**
+     * Read a reference to a {@link ClassInfo} object.
+     *
+     * @param reader
+     *            the reader
+     * @return the {@link ClassInfo} object, or null
+     * @throws IOException
+     *             if the reference could not be read.
+     */
+    ClassInfo readClassInfoRef(final BinaryReader reader) throws IOException {
+        return readRef(classInfoList, reader);
+    }
+
+    /**
+     * Write a reference to a {@link PackageInfo} object.
+     *
+     * @param packageInfo
+     *            the {@link PackageInfo} object, or null
+     * @param writer
+     *            the writer
+     */
+    void writePackageInfoRef(final PackageInfo packageInfo, final BinaryWriter writer) {
+        writeRef(packageInfo, packageInfoToId, writer);
+    }
+
+    /**
+     * Read a reference to a {@link PackageInfo} object.
+     *
+     * @param reader
+     *            the reader
+     * @return the {@link PackageInfo} object, or null
+     * @throws IOException
+     *             if the reference could not be read.
+     */
+    PackageInfo readPackageInfoRef(final BinaryReader reader) throws IOException {
+        return readRef(packageInfoList, reader);
+    }
+
+    /**
+     * Write a reference to a {@link ModuleInfo} object.
+     *
+     * @param moduleInfo
+     *            the {@link ModuleInfo} object, or null
+     * @param writer
+     *            the writer
+     */
+    void writeModuleInfoRef(final ModuleInfo moduleInfo, final BinaryWriter writer) {
+        writeRef(moduleInfo, moduleInfoToId, writer);
+    }
+
+    /**
+     * Read a reference to a {@link ModuleInfo} object.
+     *
+     * @param reader
+     *            the reader
+     * @return the {@link ModuleInfo} object, or null
+     * @throws IOException
+     *             if the reference could not be read.
+     */
+    ModuleInfo readModuleInfoRef(final BinaryReader reader) throws IOException {
+        return readRef(moduleInfoList, reader);
+    }
+
+    /**
+     * Write references to a collection of {@link ClassInfo} objects, preceded by the size of the collection plus
+     * one, or zero if the collection is null.
+     *
+     * @param classInfos
+     *            the {@link ClassInfo} objects, or null
+     * @param writer
+     *            the writer
+     */
+    void writeClassInfoRefs(final Collection<ClassInfo> classInfos, final BinaryWriter writer) {
+        if (classInfos == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(classInfos.size() + 1);
+            for (final ClassInfo classInfo : classInfos) {
+                writeClassInfoRef(classInfo, writer);
+            }
+        }
+    }
+
+    /**
+     * Read references to {@link ClassInfo} objects written by {@link #writeClassInfoRefs(Collection,
+     * BinaryWriter)}, adding them to a collection.
+     *
+     * @param <C>
+     *            the collection type
+     * @param collection
+     *            the collection to add the {@link ClassInfo} objects to
+     * @param reader
+     *            the reader
+     * @return the collection, or null if a null collection was written.
+     * @throws IOException
+     *             if the references could not be read.
+     */
+    <C extends Collection<ClassInfo>> C readClassInfoRefs(final C collection, final BinaryReader reader)
+            throws IOException {
+        final int sizePlusOne = reader.readCount();
+        if (sizePlusOne == 0) {
+            return null;
+        }
+        for (int i = 1; i < sizePlusOne; i++) {
+            collection.add(readClassInfoRef(reader));
+        }
+        return collection;
+    }
+
+    /**
+     * Write references to a collection of {@link PackageInfo} objects, preceded by the size of the collection plus
+     * one, or zero if the collection is null.
+     *
+     * @param packageInfos
+     *            the {@link PackageInfo} objects, or null
+     * @param writer
+     *            the writer
+     */
+    void writePackageInfoRefs(final Collection<PackageInfo> packageInfos, final BinaryWriter writer) {
+        if (packageInfos == null) {
+            writer.writeVarInt(0);
+        } else {
+            writer.writeVarInt(packageInfos.size() + 1);
+            for (final PackageInfo packageInfo : packageInfos) {
+                writePackageInfoRef(packageInfo, writer);
+            }
+        }
+    }
+
+    /**
+     * Read references to {@link PackageInfo} objects written by {@link #writePackageInfoRefs(Collection,
+     * BinaryWriter)}, adding them to a collection.
+     *
+     * @param <C>
+     *            the collection type
+     * @param collection
+     *            the collection to add the {@link PackageInfo} objects to
+     * @param reader
+     *            the reader
+     * @return the collection, or null if a null collection was written.
+     * @throws IOException
+     *             if the references could not be read.
+     */
+    <C extends Collection<PackageInfo>> C readPackageInfoRefs(final C collection, final BinaryReader reader)
+            throws IOException {
+        final int sizePlusOne = reader.readCount();
+        if (sizePlusOne == 0) {
+            return null;
+        }
+        for (int i = 1; i < sizePlusOne; i++) {
+            collection.add(readPackageInfoRef(reader));
+        }
+        return collection;
+    }
+}
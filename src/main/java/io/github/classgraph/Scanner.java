@@ -41,12 +41,14 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -57,27 +59,42 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.github.classgraph.ClassGraph.ClassInfoConsumer;
 import io.github.classgraph.ClassGraph.FailureHandler;
 import io.github.classgraph.ClassGraph.ScanResultProcessor;
+import io.github.classgraph.ClassInfoList.ClassInfoFilter;
 import io.github.classgraph.Classfile.ClassfileFormatException;
+import io.github.classgraph.Classfile.PrefilteredClassException;
 import io.github.classgraph.Classfile.SkipClassException;
+import io.github.classgraph.ScanMetrics.Phase;
 import nonapi.io.github.classgraph.classpath.ClasspathFinder;
 import nonapi.io.github.classgraph.classpath.ClasspathOrder.ClasspathEntry;
 import nonapi.io.github.classgraph.classpath.ModuleFinder;
+import nonapi.io.github.classgraph.concurrency.AdaptiveConcurrencyController;
 import nonapi.io.github.classgraph.concurrency.AutoCloseableExecutorService;
 import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
 import nonapi.io.github.classgraph.concurrency.SingletonMap;
 import nonapi.io.github.classgraph.concurrency.SingletonMap.NewInstanceFactory;
 import nonapi.io.github.classgraph.concurrency.WorkQueue;
+import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitCostEstimator;
 import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
+import nonapi.io.github.classgraph.fastzipfilereader.LogicalZipFile;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+import nonapi.io.github.classgraph.recycler.RecycleOnClose;
+import nonapi.io.github.classgraph.recycler.Recycler;
 import nonapi.io.github.classgraph.reflection.ReflectionUtils;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.scanspec.UnionScanSpec;
+import nonapi.io.github.classgraph.utils.BinaryReader;
+import nonapi.io.github.classgraph.utils.BinaryWriter;
+import nonapi.io.github.classgraph.utils.ByteStringInterner;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 import nonapi.io.github.classgraph.utils.FastPathResolver;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
+import nonapi.io.github.classgraph.utils.JfrEventType;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /** The classpath scanner. */
@@ -101,21 +118,77 @@ class Scanner implements Callable<ScanResult> {
     /** The number of parallel tasks. */
     private final int numParallelTasks;
 
+    /**
+     * The number of parallel tasks for the I/O-bound stages of the scan (opening classpath elements and scanning
+     * their paths). This is larger than {@link #numParallelTasks} when running on virtual threads.
+     */
+    private final int numIOParallelTasks;
+
+    /**
+     * The initial number of active workers for each stage of the scan if
+     * {@link ScanSpec#enableAdaptiveConcurrency} is true (the number of available CPUs), otherwise 0.
+     */
+    private final int adaptiveInitialWorkerLimit;
+
     /** The scan result processor. */
     private final ScanResultProcessor scanResultProcessor;
 
     /** The failure handler. */
     private final FailureHandler failureHandler;
 
+    /** The {@link ClassInfoConsumer} for a streaming scan, or null if this is not a streaming scan. */
+    private final ClassInfoConsumer classInfoConsumer;
+
+    /** The classfiles retained by a previous scan that can be reused by this scan, or null if none. */
+    private final ReusableClassfiles previousClassfiles;
+
+    /**
+     * The classfiles produced by this scan, retained for reuse by {@link ScanResult#rescan()}, or null if
+     * {@link ScanSpec#enableIncrementalRescan} is false.
+     */
+    private ReusableClassfiles reusableClassfiles;
+
+    /**
+     * The on-disk cache of parsed classfiles, or null if {@link ScanSpec#persistentCacheDir} is null.
+     */
+    private PersistentScanCache persistentScanCache;
+
     /** The toplevel log. */
     private final LogNode topLevelLog;
 
+    /**
+     * The classpath entries that were not opened because the scan deadline passed (see
+     * {@link ScanSpec#scanDeadlineNanos}). Only accessed by the thread that calls {@link #call()}.
+     */
+    private final List<String> unopenedClasspathEntries = new ArrayList<>();
+
+    /**
+     * The classpath elements whose paths or classfiles were not all scanned because the scan deadline passed. Only
+     * accessed by the thread that calls {@link #call()}.
+     */
+    private final Set<ClasspathElement> unscannedClasspathElements = new HashSet<>();
+
+    /** Records the timings of each phase of the scan, and the number of classfiles scanned. */
+    private final ScanMetricsRecorder scanMetricsRecorder = new ScanMetricsRecorder();
+
     /** The classpath finder. */
     private final ClasspathFinder classpathFinder;
 
     /** The module order. */
     private final List<ClasspathElementModule> moduleOrder;
 
+    /**
+     * The {@link ScanResult} of each of the scans performed together, if {@link #scanSpec} is a
+     * {@link UnionScanSpec}, otherwise null.
+     */
+    private List<ScanResult> multiScanResults;
+
+    /** The minimum number of classfiles for which linking is performed in parallel. */
+    private static final int MIN_CLASSFILES_FOR_PARALLEL_LINKING = 1000;
+
+    /** The maximum number of classfiles to link per link work unit. */
+    private static final int LINK_BATCH_SIZE = 256;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -133,6 +206,12 @@ class Scanner implements Callable<ScanResult> {
      *            the scan result processor
      * @param failureHandler
      *            the failure handler
+     * @param classInfoConsumer
+     *            the {@link ClassInfoConsumer} for a streaming scan, or null if this is not a streaming scan
+     * @param previousClassfiles
+     *            the classfiles retained by a previous scan that can be reused by this scan, or null if none
+     * @param reflectionUtils
+     *            the reflection utils
      * @param topLevelLog
      *            the log
      *
@@ -141,8 +220,9 @@ class Scanner implements Callable<ScanResult> {
      */
     Scanner(final boolean performScan, final ScanSpec scanSpec, final ExecutorService executorService,
             final int numParallelTasks, final ScanResultProcessor scanResultProcessor,
-            final FailureHandler failureHandler, final ReflectionUtils reflectionUtils, final LogNode topLevelLog)
-            throws InterruptedException {
+            final FailureHandler failureHandler, final ClassInfoConsumer classInfoConsumer,
+            final ReusableClassfiles previousClassfiles, final ReflectionUtils reflectionUtils,
+            final LogNode topLevelLog) throws InterruptedException {
         this.scanSpec = scanSpec;
         this.performScan = performScan;
         scanSpec.sortPrefixes();
@@ -154,18 +234,43 @@ class Scanner implements Callable<ScanResult> {
                         + "anything will have the same effect of causing all packages to be scanned");
             }
             topLevelLog.log("Number of worker threads: " + numParallelTasks);
+            if (executorService instanceof AutoCloseableExecutorService
+                    && ((AutoCloseableExecutorService) executorService).usesVirtualThreads()) {
+                topLevelLog.log("Using virtual threads");
+            }
         }
 
         this.executorService = executorService;
         this.interruptionChecker = executorService instanceof AutoCloseableExecutorService
                 ? ((AutoCloseableExecutorService) executorService).interruptionChecker
                 : new InterruptionChecker();
+        if (scanSpec.scanDeadlineNanos > 0L) {
+            // The deadline includes classpath discovery
+            interruptionChecker.setDeadline(System.nanoTime() + scanSpec.scanDeadlineNanos);
+        }
         this.nestedJarHandler = new NestedJarHandler(scanSpec, interruptionChecker, reflectionUtils);
         this.numParallelTasks = numParallelTasks;
+        this.numIOParallelTasks = executorService instanceof AutoCloseableExecutorService
+                && ((AutoCloseableExecutorService) executorService).usesVirtualThreads()
+                        ? Math.max(numParallelTasks,
+                                ((AutoCloseableExecutorService) executorService).getMaximumPoolSize())
+                        : numParallelTasks;
+        this.adaptiveInitialWorkerLimit = scanSpec.enableAdaptiveConcurrency
+                ? AdaptiveConcurrencyController.getNumAvailableCPUs()
+                : 0;
+        if (topLevelLog != null && scanSpec.enableAdaptiveConcurrency) {
+            topLevelLog.log("Adaptive concurrency: initial number of active workers per stage: "
+                    + adaptiveInitialWorkerLimit);
+        }
         this.scanResultProcessor = scanResultProcessor;
         this.failureHandler = failureHandler;
+        this.classInfoConsumer = classInfoConsumer;
+        this.previousClassfiles = previousClassfiles;
         this.topLevelLog = topLevelLog;
 
+        final long discoveryStartNanos = System.nanoTime();
+        final long discoveryStartCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+        final Object discoveryEvent = JfrEventType.SCAN_PHASE.begin();
         final LogNode classpathFinderLog = topLevelLog == null ? null : topLevelLog.log("Finding classpath");
         this.classpathFinder = new ClasspathFinder(scanSpec, reflectionUtils, classpathFinderLog);
 
@@ -235,6 +340,8 @@ class Scanner implements Callable<ScanResult> {
                     }
                 }
             }
+            scanMetricsRecorder.record(Phase.CLASSPATH_DISCOVERY, discoveryStartNanos, discoveryStartCpuTimeNanos);
+            JfrEventType.SCAN_PHASE.commit(discoveryEvent, Phase.CLASSPATH_DISCOVERY.name());
         } catch (final InterruptedException e) {
             nestedJarHandler.close(/* log = */ null);
             throw e;
@@ -298,30 +405,68 @@ class Scanner implements Callable<ScanResult> {
     // -------------------------------------------------------------------------------------------------------------
 
     /**
-     * Process work units.
+     * Process work units with the requested number of parallel tasks, starting the most expensive work units
+     * first if a cost estimator is given, and recording the tail time of the work queue and the number of workers
+     * used for a phase. If adaptive concurrency is enabled, the number of active workers is adjusted while the
+     * work units are processed.
      *
      * @param <W>
      *            the work unit type
      * @param workUnits
      *            the work units
+     * @param numTasks
+     *            the number of parallel tasks
      * @param log
      *            the log entry text to group work units under
+     * @param phase
+     *            the phase to record the tail time of the work queue for
+     * @param workUnitCostEstimator
+     *            the work unit cost estimator, or null to process work units in order
+     * @param stopAtDeadline
+     *            if true, and a scan deadline was set, stop starting new work units once the deadline has passed
      * @param workUnitProcessor
      *            the work unit processor
+     * @return the work units that were not processed because the scan deadline passed (empty if the deadline
+     *         has not passed, or stopAtDeadline is false).
      * @throws InterruptedException
      *             if a worker was interrupted.
      * @throws ExecutionException
      *             If a worker threw an uncaught exception.
      */
-    private <W> void processWorkUnits(final Collection<W> workUnits, final LogNode log,
-            final WorkUnitProcessor<W> workUnitProcessor) throws InterruptedException, ExecutionException {
-        WorkQueue.runWorkQueue(workUnits, executorService, interruptionChecker, numParallelTasks, log,
+    private <W> List<W> processWorkUnits(final Collection<W> workUnits, final int numTasks, final LogNode log,
+            final Phase phase, final WorkUnitCostEstimator<? super W> workUnitCostEstimator,
+            final boolean stopAtDeadline, final WorkUnitProcessor<W> workUnitProcessor)
+            throws InterruptedException, ExecutionException {
+        final List<W> unprocessedWorkUnits = stopAtDeadline && scanSpec.scanDeadlineNanos > 0L
+                ? new ArrayList<W>()
+                : null;
+        final AdaptiveConcurrencyController concurrencyController = scanSpec.enableAdaptiveConcurrency
+                && numTasks > 1 ? new AdaptiveConcurrencyController(adaptiveInitialWorkerLimit, numTasks, log)
+                        : null;
+        final long tailTimeNanos = WorkQueue.runWorkQueue(workUnits, executorService, interruptionChecker,
+                numTasks, log, workUnitCostEstimator, concurrencyController, unprocessedWorkUnits,
                 workUnitProcessor);
+        scanMetricsRecorder.recordTailTime(phase, tailTimeNanos);
+        if (!workUnits.isEmpty()) {
+            scanMetricsRecorder.recordNumWorkerThreads(phase,
+                    concurrencyController == null ? numTasks : concurrencyController.getWorkerLimit());
+            if (concurrencyController != null) {
+                scanMetricsRecorder.recordAdaptiveConcurrencyWork(phase,
+                        concurrencyController.getNumWorkItemsCompleted(), concurrencyController.getCostCompleted());
+            }
+        }
         if (log != null) {
             log.addElapsedTime();
         }
         // Throw InterruptedException if any of the workers failed
         interruptionChecker.check();
+        if (unprocessedWorkUnits == null) {
+            return Collections.emptyList();
+        }
+        if (log != null && !unprocessedWorkUnits.isEmpty()) {
+            log.log("Scan deadline passed -- skipped " + unprocessedWorkUnits.size() + " work units");
+        }
+        return unprocessedWorkUnits;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -343,6 +488,9 @@ class Scanner implements Callable<ScanResult> {
         /** The package root prefix (e.g. "BOOT-INF/classes/"). */
         final String packageRootPrefix;
 
+        /** The estimated cost of opening the classpath entry, or -1 if not yet estimated. */
+        private long estimatedCost = -1L;
+
         /**
          * Constructor.
          *
@@ -366,8 +514,57 @@ class Scanner implements Callable<ScanResult> {
             this.classpathElementIdxWithinParent = classpathElementIdxWithinParent;
             this.packageRootPrefix = packageRootPrefix;
         }
+
+        /**
+         * Estimate the cost of opening the classpath entry from the size of the file that contains it (usually a
+         * jarfile), multiplied by the nesting depth plus one, since each level of jar nesting may require a nested
+         * jarfile to be inflated. Remote URLs have to be downloaded, and directories have to be scanned
+         * recursively, so both are assumed to be expensive. The estimate is only computed once, since the work
+         * queue may estimate the cost of a work unit both when scheduling it and when processing it, and the
+         * classpath entry object is normalized when the work unit is processed.
+         *
+         * @return the estimated cost
+         */
+        long getEstimatedCost() {
+            if (estimatedCost < 0L) {
+                final String pathStr = FastPathResolver.resolve(classpathEntryObj.toString());
+                if (pathStr.contains("://")) {
+                    estimatedCost = Long.MAX_VALUE;
+                } else {
+                    final int bangIdx = pathStr.indexOf('!');
+                    int nestingDepth = 0;
+                    for (int i = bangIdx; i >= 0; i = pathStr.indexOf('!', i + 1)) {
+                        nestingDepth++;
+                    }
+                    try {
+                        final File file = new File(bangIdx < 0 ? pathStr : pathStr.substring(0, bangIdx));
+                        estimatedCost = file.isDirectory() ? Long.MAX_VALUE : file.length() * (nestingDepth + 1);
+                    } catch (final SecurityException e) {
+                        estimatedCost = 0L;
+                    }
+                }
+            }
+            return estimatedCost;
+        }
     }
 
+    /**
+     * Estimates the cost of opening a classpath entry (see {@link ClasspathEntryWorkUnit#getEstimatedCost()}).
+     * Directories are assumed to be expensive, consistent with {@link #CLASSPATH_ELEMENT_COST_ESTIMATOR}.
+     */
+    private static final WorkUnitCostEstimator<ClasspathEntryWorkUnit> CLASSPATH_ENTRY_COST_ESTIMATOR = //
+            new WorkUnitCostEstimator<ClasspathEntryWorkUnit>() {
+                @Override
+                public long estimateCost(final ClasspathEntryWorkUnit workUnit) {
+                    return workUnit.getEstimatedCost();
+                }
+
+                @Override
+                public int getNumItems(final ClasspathEntryWorkUnit workUnit) {
+                    return 1;
+                }
+            };
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -597,7 +794,11 @@ class Scanner implements Callable<ScanResult> {
                                     // jars as LogicalZipFile instances. Read manifest files for jarfiles to look
                                     // for Class-Path manifest entries. Adds extra classpath elements to the work
                                     // queue if they are found.
+                                    final Object openEvent = JfrEventType.CLASSPATH_ELEMENT_OPEN.begin();
                                     classpathElement.open(workQueue, subLog);
+                                    if (openEvent != null) {
+                                        commitClasspathElementOpenEvent(openEvent, classpathElement);
+                                    }
 
                                     if (workUnit.parentClasspathElement != null) {
                                         // Link classpath element to its parent, if it is not a toplevel element
@@ -621,6 +822,28 @@ class Scanner implements Callable<ScanResult> {
         };
     }
 
+    /**
+     * Commit a {@link JfrEventType#CLASSPATH_ELEMENT_OPEN} event.
+     *
+     * @param openEvent
+     *            the event
+     * @param classpathElement
+     *            the classpath element that was opened
+     */
+    private static void commitClasspathElementOpenEvent(final Object openEvent,
+            final ClasspathElement classpathElement) {
+        long size = -1L;
+        int numEntries = -1;
+        if (classpathElement instanceof ClasspathElementZip) {
+            final LogicalZipFile logicalZipFile = ((ClasspathElementZip) classpathElement).logicalZipFile;
+            if (logicalZipFile != null) {
+                size = logicalZipFile.slice.sliceLength;
+                numEntries = logicalZipFile.entries.size();
+            }
+        }
+        JfrEventType.CLASSPATH_ELEMENT_OPEN.commit(openEvent, classpathElement.toString(), size, numEntries);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** Used to enqueue classfiles for scanning. */
@@ -635,6 +858,25 @@ class Scanner implements Callable<ScanResult> {
         /** True if this is an external class. */
         private final boolean isExternalClass;
 
+        /**
+         * The position of the classfile in classpath order (the classpath element index in the high 32 bits, and
+         * the index of the classfile within the classpath element in the low 32 bits), or
+         * {@link Long#MAX_VALUE} for external classes.
+         */
+        private final long classpathOrderIdx;
+
+        /**
+         * True if the classfile should be scanned even if it does not reference any of the classes in
+         * {@link ScanSpec#classReferencePrefilter}.
+         */
+        private boolean skipClassReferencePrefilter;
+
+        /**
+         * The work units for the classfiles that are scanned by the same worker right after this classfile, in the
+         * order of their local headers within the jarfile, or null if this work unit is not the first of a batch.
+         */
+        private List<ClassfileScanWorkUnit> batchedWorkUnits;
+
         /**
          * Constructor.
          *
@@ -647,12 +889,147 @@ class Scanner implements Callable<ScanResult> {
          */
         ClassfileScanWorkUnit(final ClasspathElement classpathElement, final Resource classfileResource,
                 final boolean isExternalClass) {
+            this(classpathElement, classfileResource, isExternalClass, Long.MAX_VALUE);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param classpathElement
+         *            the classpath element
+         * @param classfileResource
+         *            the classfile resource
+         * @param isExternalClass
+         *            the is external class
+         * @param classpathOrderIdx
+         *            the position of the classfile in classpath order
+         */
+        ClassfileScanWorkUnit(final ClasspathElement classpathElement, final Resource classfileResource,
+                final boolean isExternalClass, final long classpathOrderIdx) {
             this.classpathElement = classpathElement;
             this.classfileResource = classfileResource;
             this.isExternalClass = isExternalClass;
+            this.classpathOrderIdx = classpathOrderIdx;
+        }
+    }
+
+    /**
+     * A {@link ClassInfoConsumer} for a streaming scan that finds the first class in classpath order that matches
+     * a {@link ClassInfoFilter}. Once a match has been found, classfiles that come later in classpath order are
+     * skipped rather than scanned.
+     */
+    static class FirstMatchFinder implements ClassInfoConsumer {
+        /** The filter. */
+        private final ClassInfoFilter filter;
+
+        /** The first match found so far in classpath order, or null if none. Guarded by this. */
+        private ClassInfo match;
+
+        /** The position in classpath order of the match, or {@link Long#MAX_VALUE} if there is no match. */
+        private volatile long matchClasspathOrderIdx = Long.MAX_VALUE;
+
+        /**
+         * Constructor.
+         *
+         * @param filter
+         *            the filter
+         */
+        FirstMatchFinder(final ClassInfoFilter filter) {
+            this.filter = filter;
+        }
+
+        /**
+         * Check whether a classfile can be skipped, because it comes after the match in classpath order.
+         *
+         * @param classpathOrderIdx
+         *            the position of the classfile in classpath order
+         * @return true if the classfile can be skipped.
+         */
+        boolean canSkip(final long classpathOrderIdx) {
+            return classpathOrderIdx > matchClasspathOrderIdx;
+        }
+
+        /**
+         * Test a scanned class against the filter.
+         *
+         * @param classInfo
+         *            the {@link ClassInfo} of the scanned class
+         * @param classpathOrderIdx
+         *            the position of the classfile in classpath order
+         */
+        void accept(final ClassInfo classInfo, final long classpathOrderIdx) {
+            if (!canSkip(classpathOrderIdx) && filter.accept(classInfo)) {
+                synchronized (this) {
+                    if (match == null || classpathOrderIdx < matchClasspathOrderIdx) {
+                        match = classInfo;
+                        matchClasspathOrderIdx = classpathOrderIdx;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void accept(final ClassInfo classInfo) {
+            accept(classInfo, Long.MAX_VALUE);
+        }
+
+        /**
+         * Get the match.
+         *
+         * @return the first class in classpath order that matched the filter, or null if none matched.
+         */
+        synchronized ClassInfo getMatch() {
+            return match;
         }
     }
 
+    /**
+     * Estimates the cost of scanning a classfile from the length of the classfile, if known (the length of
+     * classfiles in jarfiles is known from the central directory).
+     */
+    private static final WorkUnitCostEstimator<ClassfileScanWorkUnit> CLASSFILE_COST_ESTIMATOR = //
+            new WorkUnitCostEstimator<ClassfileScanWorkUnit>() {
+                @Override
+                public long estimateCost(final ClassfileScanWorkUnit workUnit) {
+                    // Read the length field directly, since getLength() may need to stat the file
+                    long cost = workUnit.classfileResource.length;
+                    if (workUnit.batchedWorkUnits != null) {
+                        for (final ClassfileScanWorkUnit batchedWorkUnit : workUnit.batchedWorkUnits) {
+                            cost += batchedWorkUnit.classfileResource.length;
+                        }
+                    }
+                    return cost;
+                }
+
+                @Override
+                public int getNumItems(final ClassfileScanWorkUnit workUnit) {
+                    return workUnit.batchedWorkUnits == null ? 1 : 1 + workUnit.batchedWorkUnits.size();
+                }
+            };
+
+    /**
+     * Estimates the cost of scanning the paths within a classpath element from the number of entries in a
+     * jarfile. The number of files in a directory or module is not known until it is scanned, and scanning a
+     * directory is relatively expensive, since every subdirectory has to be listed, so directories and modules are
+     * assumed to be expensive.
+     */
+    private static final WorkUnitCostEstimator<ClasspathElement> CLASSPATH_ELEMENT_COST_ESTIMATOR = //
+            new WorkUnitCostEstimator<ClasspathElement>() {
+                @Override
+                public long estimateCost(final ClasspathElement classpathElement) {
+                    if (classpathElement instanceof ClasspathElementZip) {
+                        final LogicalZipFile logicalZipFile = ((ClasspathElementZip) classpathElement).logicalZipFile;
+                        return logicalZipFile == null ? 0L : logicalZipFile.entries.size();
+                    }
+                    return Long.MAX_VALUE;
+                }
+
+                @Override
+                public int getNumItems(final ClasspathElement classpathElement) {
+                    return 1;
+                }
+            };
+
     /** WorkUnitProcessor for scanning classfiles. */
     private static class ClassfileScannerWorkUnitProcessor implements WorkUnitProcessor<ClassfileScanWorkUnit> {
         /** The scan spec. */
@@ -673,11 +1050,53 @@ class Scanner implements Callable<ScanResult> {
         private final Set<String> classNamesScheduledForExtendedScanning = Collections
                 .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
-        /** The valid {@link Classfile} objects created by scanning classfiles. */
+        /**
+         * The valid {@link Classfile} objects created by scanning classfiles, or null if this is a streaming
+         * scan.
+         */
         private final Queue<Classfile> scannedClassfiles;
 
-        /** The string intern map. */
-        private final ConcurrentHashMap<String, String> stringInternMap = new ConcurrentHashMap<>();
+        /** The {@link ClassInfoConsumer} for a streaming scan, or null if this is not a streaming scan. */
+        private final ClassInfoConsumer classInfoConsumer;
+
+        /** The {@link ScanResult} for a streaming scan, or null if this is not a streaming scan. */
+        private final ScanResult streamingScanResult;
+
+        /** The {@link FirstMatchFinder} if the streaming scan is finding the first matching class, or null. */
+        private final FirstMatchFinder firstMatchFinder;
+
+        /** The classfiles retained by a previous scan that can be reused by this scan, or null if none. */
+        private final ReusableClassfiles previousClassfiles;
+
+        /**
+         * The work units of the classfiles that were skipped by the class reference prefilter, indexed by class
+         * name, or null if there is no prefilter, or this is a streaming scan.
+         */
+        private final Map<String, ClassfileScanWorkUnit> prefilteredClassfiles;
+
+        /** The classfiles produced by this scan, retained for reuse by a later scan, or null if none. */
+        private final ReusableClassfiles reusableClassfiles;
+
+        /** The on-disk cache of parsed classfiles, or null if none. */
+        private final PersistentScanCache persistentScanCache;
+
+        /** The string intern table. */
+        private final ByteStringInterner stringInterner = new ByteStringInterner();
+
+        /**
+         * The recycler for classfile parse buffers, so that each worker thread reuses the same buffers for each
+         * classfile it parses.
+         */
+        private final Recycler<ClassfileParseBuffers, RuntimeException> parseBuffersRecycler = //
+                new Recycler<ClassfileParseBuffers, RuntimeException>() {
+                    @Override
+                    public ClassfileParseBuffers newInstance() {
+                        return new ClassfileParseBuffers();
+                    }
+                };
+
+        /** Records the time spent parsing classfiles, and the number of classfiles scanned. */
+        private final ScanMetricsRecorder scanMetricsRecorder;
 
         /**
          * Constructor.
@@ -691,14 +1110,73 @@ class Scanner implements Callable<ScanResult> {
          *            elements.
          * @param scannedClassfiles
          *            the {@link Classfile} objects created by scanning classfiles
+         * @param previousClassfiles
+         *            the classfiles retained by a previous scan that can be reused by this scan, or null if none
+         * @param reusableClassfiles
+         *            the classfiles produced by this scan, retained for reuse by a later scan, or null if none
+         * @param persistentScanCache
+         *            the on-disk cache of parsed classfiles, or null if none
+         * @param scanMetricsRecorder
+         *            the recorder for the time spent parsing classfiles, and the number of classfiles scanned
          */
         public ClassfileScannerWorkUnitProcessor(final ScanSpec scanSpec,
                 final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
-                final Queue<Classfile> scannedClassfiles) {
+                final Queue<Classfile> scannedClassfiles, final ReusableClassfiles previousClassfiles,
+                final ReusableClassfiles reusableClassfiles, final PersistentScanCache persistentScanCache,
+                final ScanMetricsRecorder scanMetricsRecorder) {
             this.scanSpec = scanSpec;
             this.classpathOrder = classpathOrder;
             this.acceptedClassNamesFound = acceptedClassNamesFound;
             this.scannedClassfiles = scannedClassfiles;
+            this.classInfoConsumer = null;
+            this.streamingScanResult = null;
+            this.firstMatchFinder = null;
+            this.prefilteredClassfiles = scanSpec.classReferencePrefilter == null ? null
+                    : new ConcurrentHashMap<String, ClassfileScanWorkUnit>();
+            this.previousClassfiles = previousClassfiles;
+            this.reusableClassfiles = reusableClassfiles;
+            this.persistentScanCache = persistentScanCache;
+            this.scanMetricsRecorder = scanMetricsRecorder;
+        }
+
+        /**
+         * Constructor for a streaming scan, where each {@link Classfile} is linked on its own as soon as it has
+         * been scanned, and the resulting {@link ClassInfo} is passed to a {@link ClassInfoConsumer}.
+         *
+         * @param scanSpec
+         *            the scan spec
+         * @param classpathOrder
+         *            the classpath order
+         * @param acceptedClassNamesFound
+         *            the names of accepted classes found in the classpath while scanning paths within classpath
+         *            elements.
+         * @param classInfoConsumer
+         *            the {@link ClassInfoConsumer}
+         * @param streamingScanResult
+         *            the {@link ScanResult} to attach streamed {@link ClassInfo} objects to
+         * @param persistentScanCache
+         *            the on-disk cache of parsed classfiles, or null if none
+         * @param scanMetricsRecorder
+         *            the recorder for the time spent parsing classfiles, and the number of classfiles scanned
+         */
+        public ClassfileScannerWorkUnitProcessor(final ScanSpec scanSpec,
+                final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
+                final ClassInfoConsumer classInfoConsumer, final ScanResult streamingScanResult,
+                final PersistentScanCache persistentScanCache, final ScanMetricsRecorder scanMetricsRecorder) {
+            this.scanSpec = scanSpec;
+            this.classpathOrder = classpathOrder;
+            this.acceptedClassNamesFound = acceptedClassNamesFound;
+            this.scannedClassfiles = null;
+            this.classInfoConsumer = classInfoConsumer;
+            this.streamingScanResult = streamingScanResult;
+            this.firstMatchFinder = classInfoConsumer instanceof FirstMatchFinder
+                    ? (FirstMatchFinder) classInfoConsumer
+                    : null;
+            this.prefilteredClassfiles = null;
+            this.previousClassfiles = null;
+            this.reusableClassfiles = null;
+            this.persistentScanCache = persistentScanCache;
+            this.scanMetricsRecorder = scanMetricsRecorder;
         }
 
         /**
@@ -720,6 +1198,54 @@ class Scanner implements Callable<ScanResult> {
         @Override
         public void processWorkUnit(final ClassfileScanWorkUnit workUnit,
                 final WorkQueue<ClassfileScanWorkUnit> workQueue, final LogNode log) throws InterruptedException {
+            scanClassfileBatch(workUnit, workQueue);
+        }
+
+        /**
+         * Scan the classfile of a work unit, followed by the classfiles of any work units batched with it.
+         *
+         * @param workUnit
+         *            the work unit
+         * @param workQueue
+         *            the work queue to add work units to for any external classes that scanning is extended
+         *            upwards to, or null if extending scanning upwards should be deferred until
+         *            {@link Classfile#extendScanningUpwardsDeferred()} is called.
+         * @throws InterruptedException
+         *             if the thread was interrupted
+         */
+        void scanClassfileBatch(final ClassfileScanWorkUnit workUnit,
+                final WorkQueue<ClassfileScanWorkUnit> workQueue) throws InterruptedException {
+            // Detach the batch, so that the batched classfiles are not scanned again if the first work unit is
+            // rescheduled (e.g. after being skipped by the class reference prefilter)
+            final List<ClassfileScanWorkUnit> batchedWorkUnits = workUnit.batchedWorkUnits;
+            workUnit.batchedWorkUnits = null;
+            scanClassfile(workUnit, workQueue);
+            if (batchedWorkUnits != null) {
+                for (final ClassfileScanWorkUnit batchedWorkUnit : batchedWorkUnits) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException();
+                    }
+                    scanClassfile(batchedWorkUnit, workQueue);
+                }
+            }
+        }
+
+        /**
+         * Scan a classfile.
+         *
+         * @param workUnit
+         *            the work unit
+         * @param workQueue
+         *            the work queue to add work units to for any external classes that scanning is extended
+         *            upwards to, or null if extending scanning upwards should be deferred until
+         *            {@link Classfile#extendScanningUpwardsDeferred()} is called.
+         */
+        void scanClassfile(final ClassfileScanWorkUnit workUnit, final WorkQueue<ClassfileScanWorkUnit> workQueue) {
+            if (firstMatchFinder != null && firstMatchFinder.canSkip(workUnit.classpathOrderIdx)) {
+                // A class earlier in classpath order has already matched -- skip the classfile
+                return;
+            }
+
             // Classfile scan log entries are listed inline below the entry that was added to the log
             // when the path of the corresponding resource was found, by using the LogNode stored in
             // Resource#scanLog. This allows the path scanning and classfile scanning logs to be
@@ -728,20 +1254,59 @@ class Scanner implements Callable<ScanResult> {
                     : workUnit.classfileResource.scanLog.log(workUnit.classfileResource.getPath(),
                             "Parsing classfile");
 
+            final long startNanos = System.nanoTime();
+            final long startCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+            final Object parseEvent = JfrEventType.CLASSFILE_PARSE.begin();
+            Classfile classfile = null;
             try {
-                // Parse classfile binary format, creating a Classfile object
-                final Classfile classfile = new Classfile(workUnit.classpathElement, classpathOrder,
-                        acceptedClassNamesFound, classNamesScheduledForExtendedScanning,
-                        workUnit.classfileResource.getPath(), workUnit.classfileResource, workUnit.isExternalClass,
-                        stringInternMap, workQueue, scanSpec, subLog);
+                final Classfile previousClassfile = previousClassfiles == null || reusableClassfiles == null ? null
+                        : previousClassfiles.get(reusableClassfiles, workUnit.classpathElement,
+                                workUnit.classfileResource);
+                if (previousClassfile != null) {
+                    // Classfile has not changed since the previous scan -- reuse its parsed contents
+                    classfile = new Classfile(previousClassfile, workUnit.classpathElement, classpathOrder,
+                            acceptedClassNamesFound, classNamesScheduledForExtendedScanning,
+                            workUnit.classfileResource, workUnit.isExternalClass, workQueue, scanSpec, subLog);
+                } else {
+                    // Read the parsed contents of the classfile from the jarfile's precomputed index, if present
+                    classfile = readIndexedClassfile(workUnit, workQueue, subLog);
+                    if (classfile == null) {
+                        if (persistentScanCache != null) {
+                            classfile = readOrParseClassfile(workUnit, workQueue, subLog);
+                        } else {
+                            // Parse classfile binary format, creating a Classfile object
+                            classfile = parseClassfile(workUnit, workQueue, subLog);
+                        }
+                    }
+                }
+
+                if (reusableClassfiles != null) {
+                    // Retain the classfile for reuse by ScanResult#rescan()
+                    reusableClassfiles.add(classfile);
+                }
 
-                // Enqueue the classfile for linking
-                scannedClassfiles.add(classfile);
+                if (scannedClassfiles != null) {
+                    // Enqueue the classfile for linking
+                    scannedClassfiles.add(classfile);
+                }
 
+                scanMetricsRecorder.numClassfilesScanned.increment();
+                if (subLog != null) {
+                    subLog.addElapsedTime();
+                }
+            } catch (final PrefilteredClassException e) {
+                scanMetricsRecorder.numSkipClassExceptions.increment();
+                if (prefilteredClassfiles != null) {
+                    // Keep the work unit, in case the class is referenced by a scanned class
+                    prefilteredClassfiles.put(
+                            JarUtils.classfilePathToClassName(workUnit.classfileResource.getPath()), workUnit);
+                }
                 if (subLog != null) {
+                    subLog.log(workUnit.classfileResource.getPath(), "Skipping classfile: " + e.getMessage());
                     subLog.addElapsedTime();
                 }
             } catch (final SkipClassException e) {
+                scanMetricsRecorder.numSkipClassExceptions.increment();
                 if (subLog != null) {
                     subLog.log(workUnit.classfileResource.getPath(), "Skipping classfile: " + e.getMessage());
                     subLog.addElapsedTime();
@@ -762,34 +1327,201 @@ class Scanner implements Callable<ScanResult> {
                     subLog.addElapsedTime();
                 }
             }
+            if (classfile == null) {
+                scanMetricsRecorder.numClassfilesSkipped.increment();
+            }
+            scanMetricsRecorder.record(Phase.PARSE_CLASSFILES, startNanos, startCpuTimeNanos);
+            if (parseEvent != null) {
+                JfrEventType.CLASSFILE_PARSE.commit(parseEvent, workUnit.classfileResource.getPath(),
+                        workUnit.classfileResource.getLength());
+            }
+            if (classInfoConsumer != null && classfile != null) {
+                // Streaming scan -- pass the ClassInfo to the consumer outside the try block above, so that
+                // any exception thrown by the consumer is not swallowed
+                streamClassInfo(classfile, workUnit.classpathOrderIdx);
+            }
         }
-    }
 
-    // -------------------------------------------------------------------------------------------------------------
+        /**
+         * Parse a classfile.
+         *
+         * @param workUnit
+         *            the work unit
+         * @param workQueue
+         *            the work queue, or null if extending scanning upwards should be deferred
+         * @param subLog
+         *            the log
+         * @return the {@link Classfile}
+         * @throws IOException
+         *             if the classfile could not be read
+         * @throws ClassfileFormatException
+         *             if the classfile is invalid
+         * @throws SkipClassException
+         *             if the classfile should be skipped
+         */
+        private Classfile parseClassfile(final ClassfileScanWorkUnit workUnit,
+                final WorkQueue<ClassfileScanWorkUnit> workQueue, final LogNode subLog)
+                throws IOException, ClassfileFormatException, SkipClassException {
+            try (RecycleOnClose<ClassfileParseBuffers, RuntimeException> parseBuffersRecycleOnClose //
+                    = parseBuffersRecycler.acquireRecycleOnClose()) {
+                final Classfile classfile = new Classfile(workUnit.classpathElement, classpathOrder,
+                        acceptedClassNamesFound, classNamesScheduledForExtendedScanning,
+                        workUnit.classfileResource.getPath(), workUnit.classfileResource, workUnit.isExternalClass,
+                        !workUnit.skipClassReferencePrefilter, stringInterner, parseBuffersRecycleOnClose.get(),
+                        workQueue, scanSpec, subLog);
+                scanMetricsRecorder.numClassfilesParsed.increment();
+                return classfile;
+            }
+        }
 
-    /**
-     * Find classpath elements whose path is a prefix of another classpath element, and record the nesting.
-     *
-     * @param classpathElts
-     *            the classpath elements
-     * @param log
-     *            the log
-     */
-    private void findNestedClasspathElements(final List<SimpleEntry<String, ClasspathElement>> classpathElts,
-            final LogNode log) {
-        // Sort classpath elements into lexicographic order
-        CollectionUtils.sortIfNotEmpty(classpathElts, new Comparator<SimpleEntry<String, ClasspathElement>>() {
-            @Override
-            public int compare(final SimpleEntry<String, ClasspathElement> o1,
-                    final SimpleEntry<String, ClasspathElement> o2) {
-                return o1.getKey().compareTo(o2.getKey());
+        /**
+         * Read the parsed contents of a classfile from the {@link JarIndex} of the jarfile containing the
+         * classfile, if the jarfile has an index containing the classfile.
+         *
+         * @param workUnit
+         *            the work unit
+         * @param workQueue
+         *            the work queue, or null if extending scanning upwards should be deferred
+         * @param subLog
+         *            the log
+         * @return the {@link Classfile}, or null if the classfile is not indexed, or could not be read from the
+         *         index.
+         * @throws SkipClassException
+         *             if the classfile should be skipped
+         */
+        private Classfile readIndexedClassfile(final ClassfileScanWorkUnit workUnit,
+                final WorkQueue<ClassfileScanWorkUnit> workQueue, final LogNode subLog) throws SkipClassException {
+            if (!(workUnit.classpathElement instanceof ClasspathElementZip)) {
+                return null;
             }
-        });
-        // Find any nesting of elements within other elements
-        for (int i = 0; i < classpathElts.size(); i++) {
-            // See if each classpath element is a prefix of any others (if so, they will immediately follow
-            // in lexicographic order)
-            final SimpleEntry<String, ClasspathElement> ei = classpathElts.get(i);
+            final BinaryReader indexedContents = ((ClasspathElementZip) workUnit.classpathElement)
+                    .getIndexedClassfile(workUnit.classfileResource);
+            if (indexedContents == null) {
+                return null;
+            }
+            try {
+                return new Classfile(indexedContents, workUnit.classpathElement, classpathOrder,
+                        acceptedClassNamesFound, classNamesScheduledForExtendedScanning, workUnit.classfileResource,
+                        workUnit.isExternalClass, workQueue, scanSpec, subLog);
+            } catch (final SkipClassException e) {
+                throw e;
+            } catch (final IOException e) {
+                // Index entry is corrupt -- fall back to parsing the classfile instead
+                if (subLog != null) {
+                    subLog.log("Could not read indexed classfile, parsing classfile instead: " + e);
+                }
+                return null;
+            }
+        }
+
+        /**
+         * Read the parsed contents of a classfile from the persistent cache, or if the classfile is not in the
+         * cache, parse the classfile and add its parsed contents to the cache.
+         *
+         * @param workUnit
+         *            the work unit
+         * @param workQueue
+         *            the work queue, or null if extending scanning upwards should be deferred
+         * @param subLog
+         *            the log
+         * @return the {@link Classfile}
+         * @throws IOException
+         *             if the classfile could not be read
+         * @throws ClassfileFormatException
+         *             if the classfile is invalid
+         * @throws SkipClassException
+         *             if the classfile should be skipped
+         */
+        private Classfile readOrParseClassfile(final ClassfileScanWorkUnit workUnit,
+                final WorkQueue<ClassfileScanWorkUnit> workQueue, final LogNode subLog)
+                throws IOException, ClassfileFormatException, SkipClassException {
+            final BinaryReader cachedContents = persistentScanCache.getClassfile(workUnit.classpathElement,
+                    workUnit.classfileResource, subLog);
+            if (cachedContents != null) {
+                try {
+                    return new Classfile(cachedContents, workUnit.classpathElement, classpathOrder,
+                            acceptedClassNamesFound, classNamesScheduledForExtendedScanning,
+                            workUnit.classfileResource, workUnit.isExternalClass, workQueue, scanSpec, subLog);
+                } catch (final SkipClassException e) {
+                    throw e;
+                } catch (final IOException e) {
+                    // Cache entry is corrupt -- fall through and parse the classfile instead
+                    if (subLog != null) {
+                        subLog.log("Could not read cached classfile, parsing classfile instead: " + e);
+                    }
+                }
+            }
+            final Classfile classfile;
+            try {
+                classfile = parseClassfile(workUnit, workQueue, subLog);
+            } catch (final PrefilteredClassException e) {
+                // Don't cache prefiltered classfiles as skipped, since they may need to be scanned after all
+                // if another class references them (see scanReferencedPrefilteredClassfiles)
+                throw e;
+            } catch (final SkipClassException e) {
+                persistentScanCache.addSkippedClassfile(workUnit.classpathElement, workUnit.classfileResource,
+                        e.getMessage());
+                throw e;
+            }
+            persistentScanCache.addClassfile(classfile);
+            return classfile;
+        }
+
+        /**
+         * Link a {@link Classfile} on its own, without linking it to any other classfiles, and pass the resulting
+         * {@link ClassInfo} to the {@link ClassInfoConsumer}. Superclasses, interfaces, annotations etc. are
+         * represented by placeholder {@link ClassInfo} objects that only have a name.
+         *
+         * @param classfile
+         *            the classfile
+         * @param classpathOrderIdx
+         *            the position of the classfile in classpath order
+         */
+        private void streamClassInfo(final Classfile classfile, final long classpathOrderIdx) {
+            final Map<String, ClassInfo> classNameToClassInfo = new HashMap<>();
+            classfile.link(classNameToClassInfo, new HashMap<String, PackageInfo>(),
+                    new HashMap<String, ModuleInfo>());
+            final ClassInfo classInfo = classNameToClassInfo.get(classfile.getClassName());
+            // Only pass external classes to the consumer if they would be returned in a ScanResult
+            // (classInfo is null for module-info and package-info classfiles)
+            if (classInfo != null && (!classInfo.isExternalClass() || scanSpec.enableExternalClasses)) {
+                for (final ClassInfo ci : classNameToClassInfo.values()) {
+                    ci.setScanResult(streamingScanResult);
+                }
+                if (firstMatchFinder != null) {
+                    firstMatchFinder.accept(classInfo, classpathOrderIdx);
+                } else {
+                    classInfoConsumer.accept(classInfo);
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Find classpath elements whose path is a prefix of another classpath element, and record the nesting.
+     *
+     * @param classpathElts
+     *            the classpath elements
+     * @param log
+     *            the log
+     */
+    private void findNestedClasspathElements(final List<SimpleEntry<String, ClasspathElement>> classpathElts,
+            final LogNode log) {
+        // Sort classpath elements into lexicographic order
+        CollectionUtils.sortIfNotEmpty(classpathElts, new Comparator<SimpleEntry<String, ClasspathElement>>() {
+            @Override
+            public int compare(final SimpleEntry<String, ClasspathElement> o1,
+                    final SimpleEntry<String, ClasspathElement> o2) {
+                return o1.getKey().compareTo(o2.getKey());
+            }
+        });
+        // Find any nesting of elements within other elements
+        for (int i = 0; i < classpathElts.size(); i++) {
+            // See if each classpath element is a prefix of any others (if so, they will immediately follow
+            // in lexicographic order)
+            final SimpleEntry<String, ClasspathElement> ei = classpathElts.get(i);
             final String basePath = ei.getKey();
             final int basePathLen = basePath.length();
             for (int j = i + 1; j < classpathElts.size(); j++) {
@@ -897,11 +1629,16 @@ class Scanner implements Callable<ScanResult> {
      *            the mask log
      */
     private void maskClassfiles(final List<ClasspathElement> classpathElementOrder, final LogNode maskLog) {
+        final long startNanos = System.nanoTime();
+        final long startCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+        final Object maskEvent = JfrEventType.SCAN_PHASE.begin();
         final Set<String> acceptedClasspathRelativePathsFound = new HashSet<>();
         for (int classpathIdx = 0; classpathIdx < classpathElementOrder.size(); classpathIdx++) {
             final ClasspathElement classpathElement = classpathElementOrder.get(classpathIdx);
             classpathElement.maskClassfiles(classpathIdx, acceptedClasspathRelativePathsFound, maskLog);
         }
+        scanMetricsRecorder.record(Phase.MASK_CLASSFILES, startNanos, startCpuTimeNanos);
+        JfrEventType.SCAN_PHASE.commit(maskEvent, Phase.MASK_CLASSFILES.name());
         if (maskLog != null) {
             maskLog.addElapsedTime();
         }
@@ -909,6 +1646,484 @@ class Scanner implements Callable<ScanResult> {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Link {@link Classfile} objects to produce {@link ClassInfo}, {@link PackageInfo} and {@link ModuleInfo}
+     * objects. Linking is performed in parallel, since {@link Classfile#link(Map, Map, Map)} is threadsafe when
+     * the provided maps are {@link ConcurrentHashMap} instances. Every relationship is added in both directions
+     * regardless of link order, and relationships are returned sorted by name by the {@link ScanResult} API, so
+     * the result is the same as for single-threaded linking.
+     *
+     * @param scannedClassfiles
+     *            the {@link Classfile} objects to link
+     * @param classNameToClassInfo
+     *            the map from class name to class info
+     * @param packageNameToPackageInfo
+     *            the map from package name to package info
+     * @param moduleNameToModuleInfo
+     *            the map from module name to module info
+     * @throws InterruptedException
+     *             if a worker was interrupted.
+     * @throws ExecutionException
+     *             If a worker threw an uncaught exception.
+     */
+    private void linkClassfiles(final Collection<Classfile> scannedClassfiles,
+            final Map<String, ClassInfo> classNameToClassInfo,
+            final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo)
+            throws InterruptedException, ExecutionException {
+        if (numParallelTasks <= 1 || scannedClassfiles.size() < MIN_CLASSFILES_FOR_PARALLEL_LINKING) {
+            // Not worth starting worker threads to link a small number of classfiles
+            final long startNanos = System.nanoTime();
+            final long startCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+            for (final Classfile classfile : scannedClassfiles) {
+                classfile.link(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo);
+            }
+            scanMetricsRecorder.record(Phase.LINK_CLASSFILES, startNanos, startCpuTimeNanos);
+        } else {
+            // Link groups of classfiles per work unit, to amortize work queue overhead
+            final List<Classfile> classfiles = new ArrayList<>(scannedClassfiles);
+            final List<List<Classfile>> linkWorkUnits = new ArrayList<>();
+            final int batchSize = Math.max(1, Math.min(LINK_BATCH_SIZE, classfiles.size() / (numParallelTasks * 4)));
+            for (int i = 0; i < classfiles.size(); i += batchSize) {
+                linkWorkUnits.add(classfiles.subList(i, Math.min(i + batchSize, classfiles.size())));
+            }
+            // Linking is not stopped at the scan deadline, so that all scanned classfiles are linked
+            processWorkUnits(linkWorkUnits, numParallelTasks, /* log = */ null, Phase.LINK_CLASSFILES,
+                    /* workUnitCostEstimator = */ null, /* stopAtDeadline = */ false,
+                    scanMetricsRecorder.timed(Phase.LINK_CLASSFILES, new WorkUnitProcessor<List<Classfile>>() {
+                        @Override
+                        public void processWorkUnit(final List<Classfile> workUnit,
+                                final WorkQueue<List<Classfile>> workQueueIgnored, final LogNode logIgnored)
+                                throws InterruptedException {
+                            for (final Classfile classfile : workUnit) {
+                                classfile.link(classNameToClassInfo, packageNameToPackageInfo,
+                                        moduleNameToModuleInfo);
+                            }
+                        }
+                    }));
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Add a {@link ClassfileScanWorkUnit} for each of the accepted classfile resources of a classpath element. Must
+     * be called after classfile masking has been applied to the classpath element, and must be called for
+     * classpath elements in classpath order. The work units of a jarfile are sorted into the order of their local
+     * headers and grouped into batches (see {@link #batchClassfileScanWorkUnits(List, int, List)}).
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param acceptedClassNamesFound
+     *            the names of accepted classes found so far (added to by this method)
+     * @param classfileBatchSize
+     *            the maximum number of classfiles per batch
+     * @param classfileScanWorkItems
+     *            the list to add work units to
+     */
+    private static void addClassfileScanWorkUnits(final ClasspathElement classpathElement,
+            final Set<String> acceptedClassNamesFound, final int classfileBatchSize,
+            final List<ClassfileScanWorkUnit> classfileScanWorkItems) {
+        final boolean batchWorkUnits = classfileBatchSize > 1 && classpathElement instanceof ClasspathElementZip
+                && classpathElement.acceptedClassfileResources.size() > 1;
+        final List<ClassfileScanWorkUnit> workUnitsOut = batchWorkUnits ? new ArrayList<ClassfileScanWorkUnit>()
+                : classfileScanWorkItems;
+        int classfileIdx = 0;
+        for (final Resource resource : classpathElement.acceptedClassfileResources) {
+            // Create a set of names of all accepted classes found in classpath element paths,
+            // and double-check that a class is not going to be scanned twice
+            final String className = JarUtils.classfilePathToClassName(resource.getPath());
+            if (!acceptedClassNamesFound.add(className) && !className.equals("module-info")
+                    && !className.equals("package-info") && !className.endsWith(".package-info")) {
+                // The class should not be scheduled more than once for scanning, since classpath
+                // masking was already applied
+                throw new IllegalArgumentException("Class " + className
+                        + " should not have been scheduled more than once for scanning due to classpath"
+                        + " masking -- please report this bug at:"
+                        + " https://github.com/classgraph/classgraph/issues");
+            }
+            // Schedule class for scanning
+            workUnitsOut.add(new ClassfileScanWorkUnit(classpathElement, resource, /* isExternal = */ false,
+                    ((long) classpathElement.classpathElementIdx << 32) | classfileIdx++));
+        }
+        if (batchWorkUnits) {
+            batchClassfileScanWorkUnits(workUnitsOut, classfileBatchSize, classfileScanWorkItems);
+        }
+    }
+
+    /**
+     * Sort the work units of a jarfile into the order of the local headers of their classfiles, then group them
+     * into batches, so that a worker reads a region of the jarfile roughly sequentially, and idle workers steal
+     * work one batch at a time. The first work unit of each batch is added to the output list, and the rest of the
+     * batch is attached to it. The classpath order of the work units is not changed.
+     *
+     * @param workUnits
+     *            the work units for the classfiles of a jarfile
+     * @param classfileBatchSize
+     *            the maximum number of classfiles per batch
+     * @param classfileScanWorkItems
+     *            the list to add the first work unit of each batch to
+     */
+    private static void batchClassfileScanWorkUnits(final List<ClassfileScanWorkUnit> workUnits,
+            final int classfileBatchSize, final List<ClassfileScanWorkUnit> classfileScanWorkItems) {
+        CollectionUtils.sortIfNotEmpty(workUnits, new Comparator<ClassfileScanWorkUnit>() {
+            @Override
+            public int compare(final ClassfileScanWorkUnit o1, final ClassfileScanWorkUnit o2) {
+                return Long.compare(o1.classfileResource.getPositionInClasspathElement(),
+                        o2.classfileResource.getPositionInClasspathElement());
+            }
+        });
+        for (int i = 0; i < workUnits.size(); i += classfileBatchSize) {
+            final ClassfileScanWorkUnit firstWorkUnit = workUnits.get(i);
+            final int batchEnd = Math.min(i + classfileBatchSize, workUnits.size());
+            if (batchEnd > i + 1) {
+                firstWorkUnit.batchedWorkUnits = new ArrayList<>(workUnits.subList(i + 1, batchEnd));
+            }
+            classfileScanWorkItems.add(firstWorkUnit);
+        }
+    }
+
+    /**
+     * Mask classfiles, then scan the accepted classfiles in parallel.
+     *
+     * @param finalClasspathEltOrder
+     *            the final classpath elt order
+     * @param streamingScanResult
+     *            for a streaming scan, the {@link ScanResult} to attach streamed {@link ClassInfo} objects to,
+     *            otherwise null
+     * @return the valid {@link Classfile} objects created by scanning classfiles (empty for a streaming scan)
+     * @throws InterruptedException
+     *             if the scan was interrupted
+     * @throws ExecutionException
+     *             if the scan threw an uncaught exception
+     */
+    private Queue<Classfile> scanClassfiles(final List<ClasspathElement> finalClasspathEltOrder,
+            final ScanResult streamingScanResult) throws InterruptedException, ExecutionException {
+        // Mask classfiles (remove any classfile resources that are shadowed by an earlier definition
+        // of the same class)
+        maskClassfiles(finalClasspathEltOrder, topLevelLog == null ? null : topLevelLog.log("Masking classfiles"));
+
+        // Get accepted classfile order
+        final List<ClassfileScanWorkUnit> classfileScanWorkItems = new ArrayList<>();
+        final Set<String> acceptedClassNamesFound = new HashSet<>();
+        for (final ClasspathElement classpathElement : finalClasspathEltOrder) {
+            // Get classfile scan order across all classpath elements
+            addClassfileScanWorkUnits(classpathElement, acceptedClassNamesFound, scanSpec.classfileBatchSize,
+                    classfileScanWorkItems);
+        }
+
+        // Scan classfiles in parallel
+        final Queue<Classfile> scannedClassfiles = new ConcurrentLinkedQueue<>();
+        final ClassfileScannerWorkUnitProcessor classfileWorkUnitProcessor = streamingScanResult == null
+                ? new ClassfileScannerWorkUnitProcessor(scanSpec, finalClasspathEltOrder,
+                        Collections.unmodifiableSet(acceptedClassNamesFound), scannedClassfiles, previousClassfiles,
+                        reusableClassfiles, persistentScanCache, scanMetricsRecorder)
+                : new ClassfileScannerWorkUnitProcessor(scanSpec, finalClasspathEltOrder,
+                        Collections.unmodifiableSet(acceptedClassNamesFound), classInfoConsumer,
+                        streamingScanResult, persistentScanCache, scanMetricsRecorder);
+        final Object parseEvent = JfrEventType.SCAN_PHASE.begin();
+        final List<ClassfileScanWorkUnit> unscannedClassfiles = processWorkUnits(classfileScanWorkItems,
+                numParallelTasks, topLevelLog == null ? null : topLevelLog.log("Scanning classfiles"),
+                Phase.PARSE_CLASSFILES, CLASSFILE_COST_ESTIMATOR, /* stopAtDeadline = */ true,
+                classfileWorkUnitProcessor);
+        for (final ClassfileScanWorkUnit workUnit : unscannedClassfiles) {
+            unscannedClasspathElements.add(workUnit.classpathElement);
+        }
+        scanReferencedPrefilteredClassfiles(scannedClassfiles, classfileWorkUnitProcessor);
+        releaseIndexedClassfiles(finalClasspathEltOrder);
+        JfrEventType.SCAN_PHASE.commit(parseEvent, Phase.PARSE_CLASSFILES.name());
+        return scannedClassfiles;
+    }
+
+    /**
+     * Release the parsed contents of the classfiles in the jar indexes of jarfile classpath elements that were not
+     * scanned, once classfile scanning has finished.
+     *
+     * @param classpathElts
+     *            the classpath elements
+     */
+    private static void releaseIndexedClassfiles(final List<ClasspathElement> classpathElts) {
+        for (final ClasspathElement classpathElt : classpathElts) {
+            if (classpathElt instanceof ClasspathElementZip) {
+                ((ClasspathElementZip) classpathElt).releaseIndexedClassfiles();
+            }
+        }
+    }
+
+    /**
+     * Scan the classfiles that were skipped by the class reference prefilter (see
+     * {@link ScanSpec#classReferencePrefilter}), but that are the superclass, an interface or a class annotation
+     * of a scanned class, so that the superclasses, interfaces and meta-annotations of the scanned classes are
+     * complete. Repeated until no more skipped classfiles are referenced by scanned classes.
+     *
+     * @param scannedClassfiles
+     *            the {@link Classfile} objects created by scanning classfiles (added to by this method)
+     * @param classfileWorkUnitProcessor
+     *            the classfile work unit processor
+     * @throws InterruptedException
+     *             if the scan was interrupted
+     * @throws ExecutionException
+     *             if the scan threw an uncaught exception
+     */
+    private void scanReferencedPrefilteredClassfiles(final Queue<Classfile> scannedClassfiles,
+            final ClassfileScannerWorkUnitProcessor classfileWorkUnitProcessor)
+            throws InterruptedException, ExecutionException {
+        final Map<String, ClassfileScanWorkUnit> prefilteredClassfiles = //
+                classfileWorkUnitProcessor.prefilteredClassfiles;
+        if (prefilteredClassfiles == null) {
+            return;
+        }
+        final List<String> refdClassNames = new ArrayList<>();
+        for (;;) {
+            final List<ClassfileScanWorkUnit> workUnits = new ArrayList<>();
+            for (final Classfile classfile : scannedClassfiles) {
+                refdClassNames.clear();
+                classfile.getSuperclassInterfaceAndAnnotationNames(refdClassNames);
+                for (final String refdClassName : refdClassNames) {
+                    final ClassfileScanWorkUnit workUnit = prefilteredClassfiles.remove(refdClassName);
+                    if (workUnit != null) {
+                        workUnit.skipClassReferencePrefilter = true;
+                        workUnits.add(workUnit);
+                    }
+                }
+            }
+            if (workUnits.isEmpty()) {
+                break;
+            }
+            final List<ClassfileScanWorkUnit> unscannedClassfiles = processWorkUnits(workUnits, numParallelTasks,
+                    topLevelLog == null ? null : topLevelLog.log("Scanning referenced prefiltered classfiles"),
+                    Phase.PARSE_CLASSFILES, CLASSFILE_COST_ESTIMATOR, /* stopAtDeadline = */ true,
+                    classfileWorkUnitProcessor);
+            for (final ClassfileScanWorkUnit workUnit : unscannedClassfiles) {
+                unscannedClasspathElements.add(workUnit.classpathElement);
+            }
+        }
+    }
+
+    /**
+     * {@link WorkUnitProcessor} for the pipelined scan, which scans the paths within classpath elements and
+     * classfiles in a single stage. Work units are either {@link ClasspathElement} objects, whose paths are
+     * scanned, or {@link ClassfileScanWorkUnit} objects, whose classfiles are parsed. When the paths of the
+     * classpath element at the head of the classpath order have been scanned, classfile masking is applied to
+     * that classpath element, and its accepted classfiles are scheduled for parsing, so that classfiles can be
+     * parsed while paths are still being scanned in later classpath elements. Classfile masking is applied to
+     * classpath elements strictly in classpath order, so masking has the same result as for
+     * {@link Scanner#maskClassfiles(List, LogNode)}.
+     */
+    private class PipelinedScanWorkUnitProcessor implements WorkUnitProcessor<Object> {
+        /** The classpath elements, in classpath order. */
+        private final List<ClasspathElement> classpathEltOrder;
+
+        /**
+         * The classpath elements that contain required accepted paths (all classpath elements, if there are no
+         * required paths), in classpath order. Added to as classpath elements are masked.
+         */
+        private final List<ClasspathElement> classpathEltOrderFiltered;
+
+        /** True for each classpath element whose paths have been scanned. */
+        private final boolean[] pathsScanned;
+
+        /** The index of the next classpath element in classpath order to mask. */
+        private int maskIdx;
+
+        /** The classfile relative paths found in masked classpath elements. */
+        private final Set<String> acceptedClasspathRelativePathsFound = new HashSet<>();
+
+        /** The names of accepted classes found in masked classpath elements. */
+        private final Set<String> acceptedClassNamesFound = new HashSet<>();
+
+        /** The classfile work unit processor. */
+        private final ClassfileScannerWorkUnitProcessor classfileWorkUnitProcessor;
+
+        /** The log for masking. */
+        private final LogNode maskLog;
+
+        /**
+         * Constructor.
+         *
+         * @param classpathEltOrder
+         *            the classpath elements, in classpath order
+         * @param scannedClassfiles
+         *            the {@link Classfile} objects created by scanning classfiles
+         */
+        PipelinedScanWorkUnitProcessor(final List<ClasspathElement> classpathEltOrder,
+                final Queue<Classfile> scannedClassfiles) {
+            this.classpathEltOrder = classpathEltOrder;
+            this.classpathEltOrderFiltered = new ArrayList<>(classpathEltOrder.size());
+            this.pathsScanned = new boolean[classpathEltOrder.size()];
+            this.classfileWorkUnitProcessor = new ClassfileScannerWorkUnitProcessor(scanSpec,
+                    classpathEltOrderFiltered, Collections.unmodifiableSet(acceptedClassNamesFound),
+                    scannedClassfiles, previousClassfiles, reusableClassfiles, persistentScanCache,
+                    scanMetricsRecorder);
+            this.maskLog = topLevelLog == null ? null : topLevelLog.log("Masking classfiles");
+        }
+
+        /**
+         * Process a work unit.
+         *
+         * @param workUnit
+         *            the work unit
+         * @param workQueue
+         *            the work queue
+         * @param log
+         *            the log
+         * @throws InterruptedException
+         *             if the thread was interrupted
+         */
+        @Override
+        public void processWorkUnit(final Object workUnit, final WorkQueue<Object> workQueue, final LogNode log)
+                throws InterruptedException {
+            if (workUnit instanceof ClassfileScanWorkUnit) {
+                // Parse the classfile, deferring extending scanning upwards until all accepted classes are known
+                classfileWorkUnitProcessor.scanClassfileBatch((ClassfileScanWorkUnit) workUnit,
+                        /* workQueue = */ null);
+            } else {
+                // Scan the paths within the classpath element
+                final ClasspathElement classpathElement = (ClasspathElement) workUnit;
+                final long startNanos = System.nanoTime();
+                final long startCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+                classpathElement.scanPaths(log);
+                scanMetricsRecorder.record(Phase.SCAN_PATHS, startNanos, startCpuTimeNanos);
+                final List<ClassfileScanWorkUnit> classfileScanWorkItems = maskClasspathElements(classpathElement);
+                if (!classfileScanWorkItems.isEmpty()) {
+                    workQueue.addWorkUnits(new ArrayList<Object>(classfileScanWorkItems));
+                }
+            }
+        }
+
+        /**
+         * Record that the paths of a classpath element have been scanned, then mask all classpath elements at the
+         * head of the classpath order whose paths have been scanned.
+         *
+         * @param classpathElementPathsScanned
+         *            the classpath element whose paths have been scanned
+         * @return the work units for the accepted classfiles of the classpath elements that were masked
+         */
+        private synchronized List<ClassfileScanWorkUnit> maskClasspathElements(
+                final ClasspathElement classpathElementPathsScanned) {
+            final long startNanos = System.nanoTime();
+            final long startCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+            pathsScanned[classpathElementPathsScanned.classpathElementIdx] = true;
+            final List<ClassfileScanWorkUnit> classfileScanWorkItems = new ArrayList<>();
+            final boolean filterClasspathElts = !scanSpec.classpathElementResourcePathAcceptReject.acceptIsEmpty();
+            for (; maskIdx < pathsScanned.length && pathsScanned[maskIdx]; maskIdx++) {
+                final ClasspathElement classpathElement = classpathEltOrder.get(maskIdx);
+                // Filter out classpath elements that do not contain required accepted paths
+                if (!filterClasspathElts
+                        || classpathElement.containsSpecificallyAcceptedClasspathElementResourcePath) {
+                    classpathElement.maskClassfiles(classpathEltOrderFiltered.size(),
+                            acceptedClasspathRelativePathsFound, maskLog);
+                    classpathEltOrderFiltered.add(classpathElement);
+                    addClassfileScanWorkUnits(classpathElement, acceptedClassNamesFound,
+                            scanSpec.classfileBatchSize, classfileScanWorkItems);
+                }
+            }
+            scanMetricsRecorder.record(Phase.MASK_CLASSFILES, startNanos, startCpuTimeNanos);
+            return classfileScanWorkItems;
+        }
+
+        /**
+         * Add the classpath elements that were not masked, and that would not have been filtered out, to a set.
+         * Called after the work queue has completed, if the scan deadline passed.
+         *
+         * @param classpathElementsOut
+         *            the set to add the classpath elements to
+         */
+        private synchronized void addUnmaskedClasspathElements(final Set<ClasspathElement> classpathElementsOut) {
+            final boolean filterClasspathElts = !scanSpec.classpathElementResourcePathAcceptReject.acceptIsEmpty();
+            for (int i = maskIdx; i < pathsScanned.length; i++) {
+                final ClasspathElement classpathElement = classpathEltOrder.get(i);
+                if (!pathsScanned[i] || !filterClasspathElts
+                        || classpathElement.containsSpecificallyAcceptedClasspathElementResourcePath) {
+                    classpathElementsOut.add(classpathElement);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scan paths within classpath elements, mask classfiles and scan classfiles as a single pipelined stage, so
+     * that the classfiles in a classpath element can be parsed while paths are still being scanned in other
+     * classpath elements.
+     *
+     * @param finalClasspathEltOrder
+     *            the final classpath element order
+     * @param scannedClassfiles
+     *            the queue to add the {@link Classfile} objects created by scanning classfiles to
+     * @return the classpath elements that contain required accepted paths (all classpath elements, if there are
+     *         no required paths), in classpath order
+     * @throws InterruptedException
+     *             if the scan was interrupted
+     * @throws ExecutionException
+     *             if the scan threw an uncaught exception
+     */
+    private List<ClasspathElement> scanPathsAndClassfilesPipelined(
+            final List<ClasspathElement> finalClasspathEltOrder, final Queue<Classfile> scannedClassfiles)
+            throws InterruptedException, ExecutionException {
+        final PipelinedScanWorkUnitProcessor pipelinedWorkUnitProcessor = new PipelinedScanWorkUnitProcessor(
+                finalClasspathEltOrder, scannedClassfiles);
+
+        // Each worker processes the work units it was initially given in last-in, first-out order, so add the
+        // classpath elements in reverse order, to scan the paths of earlier classpath elements first (masking
+        // and classfile scanning can't start for a classpath element until all earlier elements are scanned)
+        final List<Object> workUnits = new ArrayList<Object>(finalClasspathEltOrder);
+        Collections.reverse(workUnits);
+        // Path scanning, masking and classfile parsing overlap, so record a phase event for each of them that
+        // spans the whole pipelined stage
+        final Object scanPathsEvent = JfrEventType.SCAN_PHASE.begin();
+        final Object maskEvent = JfrEventType.SCAN_PHASE.begin();
+        final Object parseEvent = JfrEventType.SCAN_PHASE.begin();
+        // (The classpath elements are not reordered by cost, since masking has to proceed in classpath order)
+        final List<Object> unprocessedWorkUnits = processWorkUnits(workUnits, numIOParallelTasks,
+                topLevelLog == null ? null : topLevelLog.log("Scanning classpath elements and classfiles"),
+                Phase.PARSE_CLASSFILES, /* workUnitCostEstimator = */ null, /* stopAtDeadline = */ true,
+                pipelinedWorkUnitProcessor);
+        if (!unprocessedWorkUnits.isEmpty()) {
+            // The scan deadline passed -- the classpath elements that were not masked were not scanned (classpath
+            // elements whose paths were not scanned block masking of all later classpath elements)
+            pipelinedWorkUnitProcessor.addUnmaskedClasspathElements(unscannedClasspathElements);
+            for (final Object workUnit : unprocessedWorkUnits) {
+                if (workUnit instanceof ClassfileScanWorkUnit) {
+                    unscannedClasspathElements.add(((ClassfileScanWorkUnit) workUnit).classpathElement);
+                }
+            }
+        }
+        JfrEventType.SCAN_PHASE.commit(scanPathsEvent, Phase.SCAN_PATHS.name());
+        JfrEventType.SCAN_PHASE.commit(maskEvent, Phase.MASK_CLASSFILES.name());
+        if (pipelinedWorkUnitProcessor.maskLog != null) {
+            pipelinedWorkUnitProcessor.maskLog.addElapsedTime();
+        }
+
+        // All accepted classes have now been found, so extend scanning upwards to any external superclasses,
+        // interfaces and annotations of the scanned classfiles
+        final List<ClassfileScanWorkUnit> externalClassfileScanWorkItems = new ArrayList<>();
+        for (final Classfile classfile : scannedClassfiles) {
+            final List<ClassfileScanWorkUnit> additionalWorkUnits = classfile.extendScanningUpwardsDeferred();
+            if (additionalWorkUnits != null) {
+                externalClassfileScanWorkItems.addAll(additionalWorkUnits);
+            }
+        }
+        final List<ClassfileScanWorkUnit> unscannedExternalClassfiles = processWorkUnits(
+                externalClassfileScanWorkItems, numParallelTasks,
+                topLevelLog == null ? null : topLevelLog.log("Scanning external classfiles"),
+                Phase.PARSE_CLASSFILES, CLASSFILE_COST_ESTIMATOR, /* stopAtDeadline = */ true,
+                pipelinedWorkUnitProcessor.classfileWorkUnitProcessor);
+        for (final ClassfileScanWorkUnit workUnit : unscannedExternalClassfiles) {
+            unscannedClasspathElements.add(workUnit.classpathElement);
+        }
+        scanReferencedPrefilteredClassfiles(scannedClassfiles, pipelinedWorkUnitProcessor.classfileWorkUnitProcessor);
+        releaseIndexedClassfiles(finalClasspathEltOrder);
+        JfrEventType.SCAN_PHASE.commit(parseEvent, Phase.PARSE_CLASSFILES.name());
+        return pipelinedWorkUnitProcessor.classpathEltOrderFiltered;
+    }
+
+    /** Write any newly parsed classfiles to the persistent cache, if the persistent cache is enabled. */
+    private void writePersistentScanCache() {
+        if (persistentScanCache != null) {
+            persistentScanCache.write(topLevelLog == null ? null : topLevelLog.log("Writing persistent cache"));
+        }
+    }
+
     /**
      * Scan the classpath and/or visible modules.
      *
@@ -918,6 +2133,9 @@ class Scanner implements Callable<ScanResult> {
      *            the final classpath elt order strs
      * @param classpathFinder
      *            the {@link ClasspathFinder}
+     * @param pipelinedScannedClassfiles
+     *            the {@link Classfile} objects created by a pipelined scan, or null if classfiles have not been
+     *            masked and scanned yet
      * @return the scan result
      * @throws InterruptedException
      *             if the scan was interrupted
@@ -925,67 +2143,57 @@ class Scanner implements Callable<ScanResult> {
      *             if the scan threw an uncaught exception
      */
     private ScanResult performScan(final List<ClasspathElement> finalClasspathEltOrder,
-            final List<String> finalClasspathEltOrderStrs, final ClasspathFinder classpathFinder)
-            throws InterruptedException, ExecutionException {
-        // Mask classfiles (remove any classfile resources that are shadowed by an earlier definition
-        // of the same class)
-        if (scanSpec.enableClassInfo) {
-            maskClassfiles(finalClasspathEltOrder,
-                    topLevelLog == null ? null : topLevelLog.log("Masking classfiles"));
-        }
-
+            final List<String> finalClasspathEltOrderStrs, final ClasspathFinder classpathFinder,
+            final Queue<Classfile> pipelinedScannedClassfiles) throws InterruptedException, ExecutionException {
         // Merge the file-to-timestamp maps across all classpath elements
         final Map<File, Long> fileToLastModified = new HashMap<>();
         for (final ClasspathElement classpathElement : finalClasspathEltOrder) {
             fileToLastModified.putAll(classpathElement.fileToLastModified);
         }
 
+        if (scanSpec instanceof UnionScanSpec) {
+            // Several scans are being performed together
+            return performMultiScan((UnionScanSpec) scanSpec, finalClasspathEltOrder, finalClasspathEltOrderStrs,
+                    classpathFinder, fileToLastModified, pipelinedScannedClassfiles);
+        }
+
         // Scan classfiles, if scanSpec.enableClassInfo is true.
         // (classNameToClassInfo is a ConcurrentHashMap because it can be modified by
         // ArrayTypeSignature.getArrayClassInfo() after scanning is complete)
+        // (packageNameToPackageInfo and moduleNameToModuleInfo are ConcurrentHashMaps because classfiles
+        // are linked in parallel)
         final Map<String, ClassInfo> classNameToClassInfo = new ConcurrentHashMap<>();
-        final Map<String, PackageInfo> packageNameToPackageInfo = new HashMap<>();
-        final Map<String, ModuleInfo> moduleNameToModuleInfo = new HashMap<>();
-        if (scanSpec.enableClassInfo) {
-            // Get accepted classfile order
-            final List<ClassfileScanWorkUnit> classfileScanWorkItems = new ArrayList<>();
-            final Set<String> acceptedClassNamesFound = new HashSet<>();
-            for (final ClasspathElement classpathElement : finalClasspathEltOrder) {
-                // Get classfile scan order across all classpath elements
-                for (final Resource resource : classpathElement.acceptedClassfileResources) {
-                    // Create a set of names of all accepted classes found in classpath element paths,
-                    // and double-check that a class is not going to be scanned twice
-                    final String className = JarUtils.classfilePathToClassName(resource.getPath());
-                    if (!acceptedClassNamesFound.add(className) && !className.equals("module-info")
-                            && !className.equals("package-info") && !className.endsWith(".package-info")) {
-                        // The class should not be scheduled more than once for scanning, since classpath
-                        // masking was already applied
-                        throw new IllegalArgumentException("Class " + className
-                                + " should not have been scheduled more than once for scanning due to classpath"
-                                + " masking -- please report this bug at:"
-                                + " https://github.com/classgraph/classgraph/issues");
-                    }
-                    // Schedule class for scanning
-                    classfileScanWorkItems
-                            .add(new ClassfileScanWorkUnit(classpathElement, resource, /* isExternal = */ false));
-                }
+        final Map<String, PackageInfo> packageNameToPackageInfo = new ConcurrentHashMap<>();
+        final Map<String, ModuleInfo> moduleNameToModuleInfo = new ConcurrentHashMap<>();
+        if (classInfoConsumer != null && scanSpec.enableClassInfo) {
+            // Streaming scan -- create a ScanResult with no classes first, so that it can be attached to streamed
+            // ClassInfo objects, then pass each ClassInfo object to the ClassInfoConsumer as soon as it has been
+            // scanned (the ClassInfo objects are not kept, so they can be garbage collected once consumed)
+            final ScanResult streamingScanResult = new ScanResult(scanSpec, finalClasspathEltOrder,
+                    finalClasspathEltOrderStrs, classpathFinder, classNameToClassInfo, packageNameToPackageInfo,
+                    moduleNameToModuleInfo, fileToLastModified, nestedJarHandler, topLevelLog);
+            try {
+                scanClassfiles(finalClasspathEltOrder, streamingScanResult);
+                writePersistentScanCache();
+            } catch (InterruptedException | ExecutionException | RuntimeException | Error e) {
+                streamingScanResult.close();
+                throw e;
             }
+            return streamingScanResult;
 
-            // Scan classfiles in parallel
-            final Queue<Classfile> scannedClassfiles = new ConcurrentLinkedQueue<>();
-            final ClassfileScannerWorkUnitProcessor classfileWorkUnitProcessor = //
-                    new ClassfileScannerWorkUnitProcessor(scanSpec, finalClasspathEltOrder,
-                            Collections.unmodifiableSet(acceptedClassNamesFound), scannedClassfiles);
-            processWorkUnits(classfileScanWorkItems,
-                    topLevelLog == null ? null : topLevelLog.log("Scanning classfiles"),
-                    classfileWorkUnitProcessor);
+        } else if (scanSpec.enableClassInfo) {
+            // Mask and scan classfiles, unless this was already done by a pipelined scan
+            final Queue<Classfile> scannedClassfiles = pipelinedScannedClassfiles != null
+                    ? pipelinedScannedClassfiles
+                    : scanClassfiles(finalClasspathEltOrder, /* streamingScanResult = */ null);
+            writePersistentScanCache();
 
-            // Link the Classfile objects to produce ClassInfo objects. This needs to be done from a single thread.
+            // Link the Classfile objects to produce ClassInfo objects, in parallel
             final LogNode linkLog = topLevelLog == null ? null : topLevelLog.log("Linking related classfiles");
-            while (!scannedClassfiles.isEmpty()) {
-                final Classfile c = scannedClassfiles.remove();
-                c.link(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo);
-            }
+            final Object linkEvent = JfrEventType.SCAN_PHASE.begin();
+            linkClassfiles(scannedClassfiles, classNameToClassInfo, packageNameToPackageInfo,
+                    moduleNameToModuleInfo);
+            JfrEventType.SCAN_PHASE.commit(linkEvent, Phase.LINK_CLASSFILES.name());
 
             // Uncomment the following code to create placeholder external classes for any classes
             // referenced in type descriptors or type signatures, so that a ClassInfo object can be
@@ -1019,9 +2227,257 @@ class Scanner implements Callable<ScanResult> {
         }
 
         // Return a new ScanResult
-        return new ScanResult(scanSpec, finalClasspathEltOrder, finalClasspathEltOrderStrs, classpathFinder,
-                classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo, fileToLastModified,
-                nestedJarHandler, topLevelLog);
+        final long indexStartNanos = System.nanoTime();
+        final long indexStartCpuTimeNanos = ScanMetricsRecorder.currentThreadCpuTimeNanos();
+        final Object indexEvent = scanSpec.enableClassInfo ? JfrEventType.SCAN_PHASE.begin() : null;
+        final ScanResult scanResult = new ScanResult(scanSpec, finalClasspathEltOrder, finalClasspathEltOrderStrs,
+                classpathFinder, classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo,
+                fileToLastModified, nestedJarHandler, topLevelLog);
+        if (scanSpec.enableClassInfo) {
+            scanMetricsRecorder.record(Phase.INDEX_CLASSES, indexStartNanos, indexStartCpuTimeNanos);
+            JfrEventType.SCAN_PHASE.commit(indexEvent, Phase.INDEX_CLASSES.name());
+        }
+        if (reusableClassfiles != null) {
+            scanResult.setReusableClassfiles(reusableClassfiles);
+            if (topLevelLog != null) {
+                topLevelLog.log("Retained " + reusableClassfiles.size() + " classfiles for reuse by rescan()");
+            }
+        }
+        return scanResult;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Copies the {@link Classfile} objects produced by scanning with a {@link UnionScanSpec} for each of the scans
+     * that are performed together, so that the classfiles can be linked separately for each scan. The first copy
+     * of a classfile shares the field, method and annotation info objects of the classfile (the classfile itself
+     * is never linked). Later copies are deserialized from the serialized form of the classfile (see
+     * {@link Classfile#write(BinaryWriter)}), or if the classfile cannot be serialized, it is parsed again.
+     */
+    private static class UnionClassfileCopier {
+        /** The classfiles that have been copied at least once. */
+        private final Set<Classfile> copiedClassfiles = Collections
+                .newSetFromMap(new IdentityHashMap<Classfile, Boolean>());
+
+        /** The serialized form of the classfiles that have been copied more than once. */
+        private final Map<Classfile, byte[]> classfileContents = new IdentityHashMap<>();
+
+        /** The string intern table for classfiles that are parsed again. */
+        private final ByteStringInterner stringInterner = new ByteStringInterner();
+
+        /**
+         * Copy a classfile for one of the scans that are performed together.
+         *
+         * @param unionClassfile
+         *            the classfile produced by scanning with the {@link UnionScanSpec}
+         * @param isExternalClass
+         *            true if the class is an external class for the scan
+         * @param scanSpec
+         *            the scan spec of the scan
+         * @param classpathOrder
+         *            the classpath order of the scan
+         * @param acceptedClassNamesFound
+         *            the names of the classes accepted by the scan
+         * @param classNamesScheduledForExtendedScanning
+         *            the names of the external classes scheduled for extended scanning by the scan
+         * @param log
+         *            the log
+         * @return the copy of the classfile, or null if the class is not visible according to the scan spec of
+         *         the scan.
+         */
+        Classfile copy(final Classfile unionClassfile, final boolean isExternalClass, final ScanSpec scanSpec,
+                final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
+                final Set<String> classNamesScheduledForExtendedScanning, final LogNode log) {
+            final ClasspathElement classpathElement = unionClassfile.getClasspathElement();
+            final Resource classfileResource = unionClassfile.getClassfileResource();
+            final Classfile classfile;
+            try {
+                if (copiedClassfiles.add(unionClassfile)) {
+                    classfile = new Classfile(unionClassfile, classpathElement, classpathOrder,
+                            acceptedClassNamesFound, classNamesScheduledForExtendedScanning, classfileResource,
+                            isExternalClass, /* workQueue = */ null, scanSpec, /* log = */ null);
+                } else if (unionClassfile.hasTypeAnnotations() || unionClassfile.hasLazyMembers()) {
+                    // Type annotations and lazily-parsed members are not serialized -- parse the classfile again
+                    classfile = new Classfile(classpathElement, classpathOrder, acceptedClassNamesFound,
+                            classNamesScheduledForExtendedScanning, classfileResource.getPath(),
+                            classfileResource, isExternalClass, /* applyClassReferencePrefilter = */ false,
+                            stringInterner, /* parseBuffers = */ null, /* workQueue = */ null, scanSpec,
+                            /* log = */ null);
+                } else {
+                    byte[] contents = classfileContents.get(unionClassfile);
+                    if (contents == null) {
+                        final BinaryWriter writer = new BinaryWriter();
+                        unionClassfile.write(writer);
+                        contents = writer.toByteArray();
+                        classfileContents.put(unionClassfile, contents);
+                    }
+                    classfile = new Classfile(new BinaryReader(contents), classpathElement, classpathOrder,
+                            acceptedClassNamesFound, classNamesScheduledForExtendedScanning, classfileResource,
+                            isExternalClass, /* workQueue = */ null, scanSpec, /* log = */ null);
+                }
+            } catch (final SkipClassException e) {
+                return null;
+            } catch (final IOException e) {
+                if (log != null) {
+                    log.log("Could not copy classfile " + classfileResource.getPath() + " : " + e);
+                }
+                return null;
+            }
+            return classfile.removeInfoNotInScanSpec() ? classfile : null;
+        }
+    }
+
+    /**
+     * Perform several scans together, by scanning the classfiles accepted by any of the scans once, using the
+     * union of the scan specs of the scans, then copying and linking the classfiles accepted by each scan.
+     *
+     * @param unionScanSpec
+     *            the union of the scan specs of the scans
+     * @param finalClasspathEltOrder
+     *            the final classpath elt order
+     * @param finalClasspathEltOrderStrs
+     *            the final classpath elt order strs
+     * @param classpathFinder
+     *            the {@link ClasspathFinder}
+     * @param fileToLastModified
+     *            the map from file to last modified time
+     * @param pipelinedScannedClassfiles
+     *            the {@link Classfile} objects created by a pipelined scan, or null if classfiles have not been
+     *            masked and scanned yet
+     * @return a {@link ScanResult} that contains no classes, and that shares the resources of the
+     *         {@link ScanResult} of each scan, which can be obtained from {@link #getMultiScanResults()}.
+     * @throws InterruptedException
+     *             if the scan was interrupted
+     * @throws ExecutionException
+     *             if the scan threw an uncaught exception
+     */
+    private ScanResult performMultiScan(final UnionScanSpec unionScanSpec,
+            final List<ClasspathElement> finalClasspathEltOrder, final List<String> finalClasspathEltOrderStrs,
+            final ClasspathFinder classpathFinder, final Map<File, Long> fileToLastModified,
+            final Queue<Classfile> pipelinedScannedClassfiles) throws InterruptedException, ExecutionException {
+        // Scan the classfiles accepted by any of the scans, once
+        final Collection<Classfile> unionClassfiles;
+        if (unionScanSpec.enableClassInfo) {
+            unionClassfiles = pipelinedScannedClassfiles != null ? pipelinedScannedClassfiles
+                    : scanClassfiles(finalClasspathEltOrder, /* streamingScanResult = */ null);
+            writePersistentScanCache();
+        } else {
+            unionClassfiles = Collections.emptyList();
+        }
+        final Map<String, Classfile> classNameToUnionClassfile = new HashMap<>();
+        for (final Classfile unionClassfile : unionClassfiles) {
+            if (!classNameToUnionClassfile.containsKey(unionClassfile.getClassName())) {
+                classNameToUnionClassfile.put(unionClassfile.getClassName(), unionClassfile);
+            }
+        }
+
+        // Copy the classfiles accepted by each scan, and extend each scan upwards to external classes. All copies
+        // are made before any classfile is linked, since the first copy of a classfile shares its field, method
+        // and annotation info objects.
+        final List<ScanSpec> scanSpecs = unionScanSpec.getScanSpecs();
+        final UnionClassfileCopier copier = new UnionClassfileCopier();
+        final List<List<ClasspathElement>> classpathOrders = new ArrayList<>(scanSpecs.size());
+        final List<List<Classfile>> classfilesPerScan = new ArrayList<>(scanSpecs.size());
+        final LogNode copyLog = topLevelLog == null ? null
+                : topLevelLog.log("Copying classfiles for " + scanSpecs.size() + " scans");
+        for (final ScanSpec individualScanSpec : scanSpecs) {
+            final List<ClasspathElement> classpathOrder = new ArrayList<>(finalClasspathEltOrder);
+            final List<Classfile> classfiles = new ArrayList<>();
+            if (individualScanSpec.enableClassInfo) {
+                final List<Classfile> acceptedUnionClassfiles = new ArrayList<>();
+                final Set<String> acceptedClassNamesFound = new HashSet<>();
+                for (final Classfile unionClassfile : unionClassfiles) {
+                    final String path = unionClassfile.getClassfileResource().getPath();
+                    if (!unionClassfile.isExternalClass() && (path.equals("module-info.class")
+                            || (individualScanSpec.resourcePathIsAccepted(path)
+                                    && !individualScanSpec.classfilePathAcceptReject.isRejected(path)))) {
+                        acceptedUnionClassfiles.add(unionClassfile);
+                        acceptedClassNamesFound.add(unionClassfile.getClassName());
+                    }
+                }
+                final Set<String> classNamesScheduledForExtendedScanning = new HashSet<>();
+                for (final Classfile unionClassfile : acceptedUnionClassfiles) {
+                    final Classfile classfile = copier.copy(unionClassfile, /* isExternalClass = */ false,
+                            individualScanSpec, classpathOrder, acceptedClassNamesFound,
+                            classNamesScheduledForExtendedScanning, copyLog);
+                    if (classfile != null) {
+                        classfiles.add(classfile);
+                    }
+                }
+                // Extend scanning upwards to external classes, which were scanned by the union of the scans
+                final ArrayDeque<Classfile> classfilesToExtend = new ArrayDeque<>(classfiles);
+                while (!classfilesToExtend.isEmpty()) {
+                    final List<ClassfileScanWorkUnit> additionalWorkUnits = classfilesToExtend.remove()
+                            .extendScanningUpwardsDeferred();
+                    if (additionalWorkUnits != null) {
+                        for (final ClassfileScanWorkUnit workUnit : additionalWorkUnits) {
+                            // Don't extend scanning upwards to classes that are rejected by this scan (classfiles
+                            // in rejected paths are skipped when scanning paths, unless another scan accepts them)
+                            final String path = workUnit.classfileResource.getPath();
+                            final Classfile unionClassfile = individualScanSpec.resourcePathIsRejected(path) ? null
+                                    : classNameToUnionClassfile.get(JarUtils.classfilePathToClassName(path));
+                            if (unionClassfile != null) {
+                                final Classfile classfile = copier.copy(unionClassfile,
+                                        /* isExternalClass = */ true, individualScanSpec, classpathOrder,
+                                        acceptedClassNamesFound, classNamesScheduledForExtendedScanning, copyLog);
+                                if (classfile != null) {
+                                    classfiles.add(classfile);
+                                    classfilesToExtend.add(classfile);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            classpathOrders.add(classpathOrder);
+            classfilesPerScan.add(classfiles);
+        }
+
+        // Link the classfiles of each scan separately, and create a ScanResult for each scan. The scans share
+        // the NestedJarHandler, which is closed when the ScanResult of each scan and the returned ScanResult
+        // have all been closed.
+        final AtomicInteger nestedJarHandlerRefCount = new AtomicInteger(scanSpecs.size() + 1);
+        final List<ScanResult> scanResults = new ArrayList<>(scanSpecs.size());
+        try {
+            for (int i = 0; i < scanSpecs.size(); i++) {
+                final Map<String, ClassInfo> classNameToClassInfo = new ConcurrentHashMap<>();
+                final Map<String, PackageInfo> packageNameToPackageInfo = new ConcurrentHashMap<>();
+                final Map<String, ModuleInfo> moduleNameToModuleInfo = new ConcurrentHashMap<>();
+                linkClassfiles(classfilesPerScan.get(i), classNameToClassInfo, packageNameToPackageInfo,
+                        moduleNameToModuleInfo);
+                final ScanResult scanResult = new ScanResult(scanSpecs.get(i), classpathOrders.get(i),
+                        new ArrayList<>(finalClasspathEltOrderStrs), classpathFinder, classNameToClassInfo,
+                        packageNameToPackageInfo, moduleNameToModuleInfo, new HashMap<>(fileToLastModified),
+                        nestedJarHandler, topLevelLog);
+                scanResult.shareNestedJarHandler(nestedJarHandlerRefCount, /* filterAcceptedResources = */ true);
+                scanResults.add(scanResult);
+            }
+        } catch (InterruptedException | ExecutionException | RuntimeException | Error e) {
+            for (final ScanResult scanResult : scanResults) {
+                scanResult.close();
+            }
+            throw e;
+        }
+        multiScanResults = scanResults;
+
+        final ScanResult unionScanResult = new ScanResult(unionScanSpec, finalClasspathEltOrder,
+                finalClasspathEltOrderStrs, classpathFinder, new ConcurrentHashMap<String, ClassInfo>(),
+                new ConcurrentHashMap<String, PackageInfo>(), new ConcurrentHashMap<String, ModuleInfo>(),
+                fileToLastModified, nestedJarHandler, topLevelLog);
+        unionScanResult.shareNestedJarHandler(nestedJarHandlerRefCount, /* filterAcceptedResources = */ false);
+        return unionScanResult;
+    }
+
+    /**
+     * Get the {@link ScanResult} of each of the scans performed together, if the scan spec is a
+     * {@link UnionScanSpec}.
+     *
+     * @return the {@link ScanResult} of each scan, in the order of {@link UnionScanSpec#getScanSpecs()}, or null
+     *         if the scan spec is not a {@link UnionScanSpec}, or the scans have not been performed.
+     */
+    List<ScanResult> getMultiScanResults() {
+        return multiScanResults;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -1057,9 +2513,16 @@ class Scanner implements Callable<ScanResult> {
                 .newSetFromMap(new ConcurrentHashMap<ClasspathElement, Boolean>());
         final Set<ClasspathElement> toplevelClasspathElts = Collections
                 .newSetFromMap(new ConcurrentHashMap<ClasspathElement, Boolean>());
-        processWorkUnits(rawClasspathEntryWorkUnits,
-                topLevelLog == null ? null : topLevelLog.log("Opening classpath elements"),
-                newClasspathEntryWorkUnitProcessor(allClasspathElts, toplevelClasspathElts));
+        final Object openEvent = JfrEventType.SCAN_PHASE.begin();
+        final List<ClasspathEntryWorkUnit> unopenedWorkUnits = processWorkUnits(rawClasspathEntryWorkUnits,
+                numIOParallelTasks, topLevelLog == null ? null : topLevelLog.log("Opening classpath elements"),
+                Phase.OPEN_CLASSPATH_ELEMENTS, CLASSPATH_ENTRY_COST_ESTIMATOR, /* stopAtDeadline = */ true,
+                scanMetricsRecorder.timed(Phase.OPEN_CLASSPATH_ELEMENTS,
+                        newClasspathEntryWorkUnitProcessor(allClasspathElts, toplevelClasspathElts)));
+        for (final ClasspathEntryWorkUnit workUnit : unopenedWorkUnits) {
+            unopenedClasspathEntries.add(workUnit.classpathEntryObj.toString());
+        }
+        JfrEventType.SCAN_PHASE.commit(openEvent, Phase.OPEN_CLASSPATH_ELEMENTS.name());
 
         // Determine total ordering of classpath elements, inserting jars referenced in manifest Class-Path
         // entries in-place into the ordering, if they haven't been listed earlier in the classpath already.
@@ -1095,10 +2558,32 @@ class Scanner implements Callable<ScanResult> {
             }
         }
 
+        if (performScan && scanSpec.enableClassInfo && scanSpec.enableIncrementalRescan
+                && classInfoConsumer == null) {
+            // Retain classfiles for reuse by ScanResult#rescan()
+            reusableClassfiles = new ReusableClassfiles(finalClasspathEltOrder);
+        }
+
+        if (performScan && scanSpec.enableClassInfo && scanSpec.persistentCacheDir != null) {
+            // Read and write parsed classfiles from/to the persistent on-disk cache
+            persistentScanCache = new PersistentScanCache(scanSpec.persistentCacheDir, scanSpec);
+        }
+
+        if (performScan && scanSpec.enableClassInfo && scanSpec.enablePipelinedScan && classInfoConsumer == null) {
+            // Scan paths within classpath elements and scan classfiles in a single pipelined stage
+            final Queue<Classfile> scannedClassfiles = new ConcurrentLinkedQueue<>();
+            final List<ClasspathElement> finalClasspathEltOrderFiltered = scanPathsAndClassfilesPipelined(
+                    finalClasspathEltOrder, scannedClassfiles);
+            return performScan(finalClasspathEltOrderFiltered, finalClasspathEltOrderStrs, classpathFinder,
+                    scannedClassfiles);
+        }
+
         // In parallel, scan paths within each classpath element, comparing them against accept/reject
-        processWorkUnits(finalClasspathEltOrder,
-                topLevelLog == null ? null : topLevelLog.log("Scanning classpath elements"),
-                new WorkUnitProcessor<ClasspathElement>() {
+        final Object scanPathsEvent = JfrEventType.SCAN_PHASE.begin();
+        final List<ClasspathElement> unscannedWorkUnits = processWorkUnits(finalClasspathEltOrder,
+                numIOParallelTasks, topLevelLog == null ? null : topLevelLog.log("Scanning classpath elements"),
+                Phase.SCAN_PATHS, CLASSPATH_ELEMENT_COST_ESTIMATOR, /* stopAtDeadline = */ true,
+                scanMetricsRecorder.timed(Phase.SCAN_PATHS, new WorkUnitProcessor<ClasspathElement>() {
                     @Override
                     public void processWorkUnit(final ClasspathElement classpathElement,
                             final WorkQueue<ClasspathElement> workQueueIgnored, final LogNode pathScanLog)
@@ -1106,14 +2591,21 @@ class Scanner implements Callable<ScanResult> {
                         // Scan the paths within the classpath element
                         classpathElement.scanPaths(pathScanLog);
                     }
-                });
+                }));
+        JfrEventType.SCAN_PHASE.commit(scanPathsEvent, Phase.SCAN_PATHS.name());
+
+        unscannedClasspathElements.addAll(unscannedWorkUnits);
 
-        // Filter out classpath elements that do not contain required accepted paths.
+        // Filter out classpath elements that do not contain required accepted paths, and classpath elements
+        // whose paths were not scanned because the scan deadline passed.
         List<ClasspathElement> finalClasspathEltOrderFiltered = finalClasspathEltOrder;
-        if (!scanSpec.classpathElementResourcePathAcceptReject.acceptIsEmpty()) {
+        final boolean filterClasspathElts = !scanSpec.classpathElementResourcePathAcceptReject.acceptIsEmpty();
+        if (filterClasspathElts || !unscannedWorkUnits.isEmpty()) {
             finalClasspathEltOrderFiltered = new ArrayList<>(finalClasspathEltOrder.size());
             for (final ClasspathElement classpathElement : finalClasspathEltOrder) {
-                if (classpathElement.containsSpecificallyAcceptedClasspathElementResourcePath) {
+                if ((!filterClasspathElts
+                        || classpathElement.containsSpecificallyAcceptedClasspathElementResourcePath)
+                        && !unscannedClasspathElements.contains(classpathElement)) {
                     finalClasspathEltOrderFiltered.add(classpathElement);
                 }
             }
@@ -1121,7 +2613,8 @@ class Scanner implements Callable<ScanResult> {
 
         if (performScan) {
             // Scan classpath / modules, producing a ScanResult.
-            return performScan(finalClasspathEltOrderFiltered, finalClasspathEltOrderStrs, classpathFinder);
+            return performScan(finalClasspathEltOrderFiltered, finalClasspathEltOrderStrs, classpathFinder,
+                    /* pipelinedScannedClassfiles = */ null);
         } else {
             // Only getting classpath -- return a placeholder ScanResult to hold classpath elements
             if (topLevelLog != null) {
@@ -1134,6 +2627,34 @@ class Scanner implements Callable<ScanResult> {
         }
     }
 
+    /**
+     * Get the classpath entries that were not opened, followed by the classpath elements that were not fully
+     * scanned, in classpath order, because the scan deadline passed.
+     *
+     * @return the classpath entries and classpath elements that were not fully scanned
+     */
+    private List<String> getUnscannedClasspathElements() {
+        final List<ClasspathElement> unscannedClasspathEltOrder = new ArrayList<>(unscannedClasspathElements);
+        CollectionUtils.sortIfNotEmpty(unscannedClasspathEltOrder, new Comparator<ClasspathElement>() {
+            @Override
+            public int compare(final ClasspathElement o1, final ClasspathElement o2) {
+                return Integer.compare(o1.classpathElementIdx, o2.classpathElementIdx);
+            }
+        });
+        final List<String> unscanned = new ArrayList<>(unopenedClasspathEntries);
+        for (final ClasspathElement classpathElement : unscannedClasspathEltOrder) {
+            unscanned.add(classpathElement.toString());
+        }
+        if (topLevelLog != null) {
+            final LogNode partialLog = topLevelLog.log("Scan deadline passed -- the following classpath elements "
+                    + "were not fully scanned:");
+            for (final String classpathElementStr : unscanned) {
+                partialLog.log(classpathElementStr);
+            }
+        }
+        return unscanned;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1152,11 +2673,32 @@ class Scanner implements Callable<ScanResult> {
     public ScanResult call() throws InterruptedException, CancellationException, ExecutionException {
         ScanResult scanResult = null;
         final long scanStart = System.currentTimeMillis();
+        final long scanStartNanos = System.nanoTime();
         boolean removeTemporaryFilesAfterScan = scanSpec.removeTemporaryFilesAfterScan;
         try {
             // Perform the scan
             scanResult = openClasspathElementsThenScan();
 
+            // Record the scan metrics (the total wall time includes classpath discovery, which was performed
+            // when this Scanner was constructed)
+            scanResult.setScanMetrics(new ScanMetrics(scanMetricsRecorder, nestedJarHandler,
+                    scanMetricsRecorder.getWallTimeNanos(Phase.CLASSPATH_DISCOVERY) + System.nanoTime()
+                            - scanStartNanos));
+
+            if (!unopenedClasspathEntries.isEmpty() || !unscannedClasspathElements.isEmpty()) {
+                // The scan deadline passed -- mark the scan result as partial
+                scanResult.setUnscannedClasspathElements(getUnscannedClasspathElements());
+            }
+            if (multiScanResults != null) {
+                // Several scans were performed together -- the metrics cover all of the scans
+                for (final ScanResult multiScanResult : multiScanResults) {
+                    multiScanResult.setScanMetrics(scanResult.getScanMetrics());
+                    if (!unopenedClasspathEntries.isEmpty() || !unscannedClasspathElements.isEmpty()) {
+                        multiScanResult.setUnscannedClasspathElements(getUnscannedClasspathElements());
+                    }
+                }
+            }
+
             // Log total time after scan completes, and flush log
             if (topLevelLog != null) {
                 topLevelLog.log("~",
@@ -0,0 +1,370 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.concurrency;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nonapi.io.github.classgraph.utils.LogNode;
+import nonapi.io.github.classgraph.utils.VersionFinder;
+import nonapi.io.github.classgraph.utils.VersionFinder.OperatingSystem;
+
+/**
+ * Limits the number of workers of a {@link WorkQueue} that may process work units at the same time, and adjusts
+ * the limit while the work queue is running by hill climbing: the throughput of the work queue is sampled at
+ * regular intervals, and the worker limit is moved one step at a time in whichever direction increases the
+ * throughput. Throughput is measured in items of work per second (e.g. classfiles per second, where a work unit
+ * may be a batch of classfiles) and, when the cost of every completed work unit was estimated by a
+ * {@link WorkQueue.WorkUnitCostEstimator} (e.g. the number of bytes in the classfiles), in cost units per second.
+ *
+ * <p>
+ * The initial worker limit is usually the number of CPUs available to the JVM, taking any cgroup CPU quota into
+ * account (see {@link #getNumAvailableCPUs()}). Adding workers beyond this can still increase throughput when the
+ * workers are blocked on I/O, and removing workers can increase throughput when the CPU is oversubscribed.
+ */
+public final class AdaptiveConcurrencyController {
+    /** The minimum time between throughput samples. */
+    private static final long SAMPLE_INTERVAL_NANOS = 20L * 1000L * 1000L;
+
+    /** The minimum number of items of work that must be completed between samples to measure throughput. */
+    private static final int MIN_WORK_ITEMS_PER_SAMPLE = 16;
+
+    /** The relative change in throughput that is considered significant (smaller changes are noise). */
+    private static final double SIGNIFICANT_THROUGHPUT_CHANGE = 0.05;
+
+    /** The number of available CPUs, or 0 if not yet determined. */
+    private static volatile int numAvailableCPUs;
+
+    /** The maximum worker limit. */
+    private final int maxWorkers;
+
+    /** The current worker limit. */
+    private volatile int workerLimit;
+
+    /** The number of workers that are currently processing a work unit. */
+    private final AtomicInteger numActiveWorkers = new AtomicInteger();
+
+    /** The number of items of work completed. */
+    private final StripedCounter numWorkItemsCompleted = new StripedCounter();
+
+    /** The total estimated cost of the work units completed. */
+    private final StripedCounter costCompleted = new StripedCounter();
+
+    /** True if the cost of some completed work unit was unknown. */
+    private volatile boolean costUnknown;
+
+    /** The {@link System#nanoTime()} value after which the next throughput sample should be taken. */
+    private volatile long nextSampleNanos;
+
+    /** The time of the previous throughput sample (guarded by this). */
+    private long prevSampleNanos;
+
+    /** The number of items of work completed at the time of the previous sample (guarded by this). */
+    private long prevNumWorkItemsCompleted;
+
+    /** The cost of the work units completed at the time of the previous sample (guarded by this). */
+    private long prevCostCompleted;
+
+    /** The throughput measured by the previous sample, or -1 if none (guarded by this). */
+    private double prevThroughput = -1.0;
+
+    /** True if the previous throughput was measured in cost units per second (guarded by this). */
+    private boolean prevThroughputWasCost;
+
+    /** The direction of the next change in the worker limit, +1 or -1 (guarded by this). */
+    private int direction = 1;
+
+    /** The log, or null. */
+    private final LogNode log;
+
+    /**
+     * Constructor.
+     *
+     * @param initialWorkerLimit
+     *            the initial worker limit
+     * @param maxWorkers
+     *            the maximum worker limit, usually the number of workers in the work queue
+     * @param log
+     *            the log to record changes in the worker limit to, or null
+     */
+    public AdaptiveConcurrencyController(final int initialWorkerLimit, final int maxWorkers, final LogNode log) {
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.workerLimit = Math.max(1, Math.min(this.maxWorkers, initialWorkerLimit));
+        this.log = log;
+        this.prevSampleNanos = System.nanoTime();
+        this.nextSampleNanos = prevSampleNanos + SAMPLE_INTERVAL_NANOS;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the number of CPUs available to the JVM: the smaller of {@link Runtime#availableProcessors()} and the
+     * CPU quota of the JVM's cgroup (rounded up), if the JVM is running on Linux in a cgroup with a CPU quota.
+     * Older JVMs, and JVMs run with {@code -XX:-UseContainerSupport}, do not take the CPU quota into account in
+     * {@link Runtime#availableProcessors()}.
+     *
+     * @return the number of available CPUs (at least 1).
+     */
+    public static int getNumAvailableCPUs() {
+        if (numAvailableCPUs == 0) {
+            int numCPUs = Runtime.getRuntime().availableProcessors();
+            final double cpuQuota = getCgroupCPUQuota();
+            if (cpuQuota > 0.0) {
+                numCPUs = Math.min(numCPUs, (int) Math.ceil(cpuQuota));
+            }
+            numAvailableCPUs = Math.max(1, numCPUs);
+        }
+        return numAvailableCPUs;
+    }
+
+    /**
+     * Get the CPU quota of the JVM's cgroup, for cgroups v2 ({@code cpu.max}) or cgroups v1
+     * ({@code cpu.cfs_quota_us} and {@code cpu.cfs_period_us}).
+     *
+     * @return the CPU quota as a number of CPUs, or 0 if there is no CPU quota or it could not be read.
+     */
+    static double getCgroupCPUQuota() {
+        if (VersionFinder.OS != OperatingSystem.Linux) {
+            return 0.0;
+        }
+        try {
+            final Path cgroupRoot = Paths.get("/sys/fs/cgroup");
+            if (Files.exists(cgroupRoot.resolve("cgroup.controllers"))) {
+                // cgroups v2 -- find the JVM's cgroup from the "0::<path>" line of /proc/self/cgroup, then walk up
+                // to the root, since any ancestor cgroup may have a lower quota
+                String cgroupPath = "";
+                for (final String line : readLines(Paths.get("/proc/self/cgroup"))) {
+                    if (line.startsWith("0::")) {
+                        cgroupPath = line.substring(3).replaceAll("^/+", "");
+                    }
+                }
+                double minCPUQuota = 0.0;
+                for (Path dir = cgroupRoot.resolve(cgroupPath).normalize(); dir != null
+                        && dir.startsWith(cgroupRoot); dir = dir.getParent()) {
+                    // "<quota> <period>", or "max <period>" for no quota
+                    final List<String> cpuMax = readLines(dir.resolve("cpu.max"));
+                    final String[] parts = cpuMax.isEmpty() ? new String[0] : cpuMax.get(0).trim().split("\\s+");
+                    if (parts.length == 2 && !parts[0].equals("max")) {
+                        final double cpuQuota = cpuQuota(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                        if (cpuQuota > 0.0 && (minCPUQuota == 0.0 || cpuQuota < minCPUQuota)) {
+                            minCPUQuota = cpuQuota;
+                        }
+                    }
+                }
+                return minCPUQuota;
+            }
+            // cgroups v1 -- quota is -1 for no quota
+            for (final String cpuDir : new String[] { "/sys/fs/cgroup/cpu", "/sys/fs/cgroup/cpu,cpuacct" }) {
+                final List<String> quota = readLines(Paths.get(cpuDir, "cpu.cfs_quota_us"));
+                final List<String> period = readLines(Paths.get(cpuDir, "cpu.cfs_period_us"));
+                if (!quota.isEmpty() && !period.isEmpty()) {
+                    return cpuQuota(Long.parseLong(quota.get(0).trim()), Long.parseLong(period.get(0).trim()));
+                }
+            }
+        } catch (final NumberFormatException | InvalidPathException | SecurityException e) {
+            // Fall through
+        }
+        return 0.0;
+    }
+
+    /**
+     * Convert a CPU quota and period to a number of CPUs.
+     *
+     * @param quota
+     *            the quota, or a negative number for no quota
+     * @param period
+     *            the period
+     * @return the number of CPUs, or 0 if there is no quota.
+     */
+    private static double cpuQuota(final long quota, final long period) {
+        return quota > 0L && period > 0L ? (double) quota / period : 0.0;
+    }
+
+    /**
+     * Read the lines of a file.
+     *
+     * @param path
+     *            the path of the file
+     * @return the lines of the file, or the empty list if the file could not be read.
+     */
+    private static List<String> readLines(final Path path) {
+        try {
+            return Files.isReadable(path) ? Files.readAllLines(path, StandardCharsets.UTF_8)
+                    : Collections.<String> emptyList();
+        } catch (final IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Try to acquire a worker slot, before taking a work unit from the work queue.
+     *
+     * @return true if a worker slot was acquired, false if the worker limit has been reached.
+     */
+    boolean tryAcquireWorkerSlot() {
+        for (;;) {
+            final int numActive = numActiveWorkers.get();
+            if (numActive >= workerLimit) {
+                return false;
+            }
+            if (numActiveWorkers.compareAndSet(numActive, numActive + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Release a worker slot without completing a work unit (e.g. if there were no work units to take). */
+    void releaseWorkerSlot() {
+        numActiveWorkers.decrementAndGet();
+    }
+
+    /**
+     * Check whether a worker slot is available.
+     *
+     * @return true if fewer workers are active than the worker limit.
+     */
+    boolean hasFreeWorkerSlot() {
+        return numActiveWorkers.get() < workerLimit;
+    }
+
+    /**
+     * Release a worker slot after completing a work unit, and adjust the worker limit if it is time to take a
+     * throughput sample.
+     *
+     * @param cost
+     *            the estimated cost of the work unit, or -1 (or {@link Long#MAX_VALUE}) if unknown
+     * @param numItems
+     *            the number of items of work in the work unit
+     * @return true if the worker limit was increased, so idle workers should be woken.
+     */
+    boolean workUnitCompleted(final long cost, final int numItems) {
+        numActiveWorkers.decrementAndGet();
+        numWorkItemsCompleted.add(numItems);
+        if (cost < 0L || cost == Long.MAX_VALUE) {
+            if (!costUnknown) {
+                costUnknown = true;
+            }
+        } else {
+            costCompleted.add(cost);
+        }
+        final long now = System.nanoTime();
+        return now - nextSampleNanos >= 0L && sample(now);
+    }
+
+    /**
+     * Sample the throughput since the previous sample, and move the worker limit by one step: in the same
+     * direction as the previous step if the throughput increased significantly, in the opposite direction if the
+     * throughput decreased significantly, or not at all if the throughput did not change significantly.
+     *
+     * @param now
+     *            the current {@link System#nanoTime()} value
+     * @return true if the worker limit was increased.
+     */
+    private synchronized boolean sample(final long now) {
+        if (now - nextSampleNanos < 0L) {
+            // Another thread took the sample
+            return false;
+        }
+        nextSampleNanos = now + SAMPLE_INTERVAL_NANOS;
+        final long numCompleted = numWorkItemsCompleted.sum();
+        if (numCompleted - prevNumWorkItemsCompleted < MIN_WORK_ITEMS_PER_SAMPLE) {
+            // Too few items of work were completed to measure throughput -- extend the sample interval
+            return false;
+        }
+        final long cost = costCompleted.sum();
+        final boolean throughputIsCost = !costUnknown;
+        final double throughput = (throughputIsCost ? cost - prevCostCompleted
+                : numCompleted - prevNumWorkItemsCompleted) * 1.0e9 / (now - prevSampleNanos);
+        final int prevWorkerLimit = workerLimit;
+        int newWorkerLimit = prevWorkerLimit;
+        if (prevThroughput < 0.0 || throughputIsCost != prevThroughputWasCost
+                || throughput > prevThroughput * (1.0 + SIGNIFICANT_THROUGHPUT_CHANGE)) {
+            // First sample, or the previous step increased throughput -- take another step in the same direction
+            newWorkerLimit += direction;
+        } else if (throughput < prevThroughput * (1.0 - SIGNIFICANT_THROUGHPUT_CHANGE)) {
+            // The previous step (or a change in the workload) decreased throughput -- reverse direction
+            direction = -direction;
+            newWorkerLimit += direction;
+        }
+        if (newWorkerLimit < 1 || newWorkerLimit > maxWorkers) {
+            // Reached a bound -- try the other direction next time
+            direction = -direction;
+            newWorkerLimit = prevWorkerLimit;
+        }
+        workerLimit = newWorkerLimit;
+        if (log != null && newWorkerLimit != prevWorkerLimit) {
+            log.log(String.format("Worker limit %d -> %d (%.0f work items/s%s)", prevWorkerLimit, newWorkerLimit,
+                    (numCompleted - prevNumWorkItemsCompleted) * 1.0e9 / (now - prevSampleNanos),
+                    throughputIsCost ? String.format(", %.0f cost units/s", throughput) : ""));
+        }
+        prevSampleNanos = now;
+        prevNumWorkItemsCompleted = numCompleted;
+        prevCostCompleted = cost;
+        prevThroughput = throughput;
+        prevThroughputWasCost = throughputIsCost;
+        return newWorkerLimit > prevWorkerLimit;
+    }
+
+    /**
+     * Get the current worker limit.
+     *
+     * @return the worker limit.
+     */
+    public int getWorkerLimit() {
+        return workerLimit;
+    }
+
+    /**
+     * Get the number of items of work completed.
+     *
+     * @return the number of items of work in the work units completed so far.
+     */
+    public long getNumWorkItemsCompleted() {
+        return numWorkItemsCompleted.sum();
+    }
+
+    /**
+     * Get the total estimated cost of the work units completed.
+     *
+     * @return the total estimated cost of the work units completed so far, or -1 if the cost of some completed
+     *         work unit was unknown.
+     */
+    public long getCostCompleted() {
+        return costUnknown ? -1L : costCompleted.sum();
+    }
+}
@@ -32,6 +32,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -40,6 +41,9 @@ public class AutoCloseableExecutorService extends ThreadPoolExecutor implements
     /** The {@link InterruptionChecker}. */
     public final InterruptionChecker interruptionChecker = new InterruptionChecker();
 
+    /** True if the worker threads are virtual threads. */
+    private final boolean virtualThreads;
+
     /**
      * A ThreadPoolExecutor that can be used in a try-with-resources block.
      * 
@@ -49,6 +53,34 @@ public class AutoCloseableExecutorService extends ThreadPoolExecutor implements
     public AutoCloseableExecutorService(final int numThreads) {
         super(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
                 new SimpleThreadFactory("ClassGraph-worker-", true));
+        this.virtualThreads = false;
+    }
+
+    /**
+     * A ThreadPoolExecutor that can be used in a try-with-resources block, and that runs tasks on the threads
+     * created by the given {@link ThreadFactory}.
+     * 
+     * @param numThreads
+     *            The number of threads to allocate.
+     * @param threadFactory
+     *            The thread factory.
+     * @param virtualThreads
+     *            True if the thread factory creates virtual threads.
+     */
+    public AutoCloseableExecutorService(final int numThreads, final ThreadFactory threadFactory,
+            final boolean virtualThreads) {
+        super(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                threadFactory);
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Check whether the worker threads are virtual threads.
+     *
+     * @return true if the worker threads are virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
     }
 
     /**
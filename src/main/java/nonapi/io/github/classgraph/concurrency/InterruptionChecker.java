@@ -40,6 +40,15 @@ public class InterruptionChecker {
     /** Set to true when a thread is interrupted. */
     private final AtomicBoolean interrupted = new AtomicBoolean(false);
 
+    /** True if a deadline has been set. */
+    private volatile boolean hasDeadline;
+
+    /** The deadline, as a {@link System#nanoTime()} value. */
+    private volatile long deadlineNanos;
+
+    /** Set to true once the deadline has passed. */
+    private volatile boolean deadlinePassed;
+
     /** The first {@link ExecutionException} that was thrown. */
     private final AtomicReference<ExecutionException> thrownExecutionException = //
             new AtomicReference<>();
@@ -50,6 +59,35 @@ public class InterruptionChecker {
         Thread.currentThread().interrupt();
     }
 
+    /**
+     * Set a deadline, after which {@link #isDeadlinePassed()} returns true. Unlike interruption, passing the
+     * deadline does not cause {@link #check()} to throw an exception: work that is already in progress is allowed
+     * to finish, and it is up to the callers of {@link #isDeadlinePassed()} to stop starting new work.
+     *
+     * @param deadlineNanos
+     *            the deadline, as a {@link System#nanoTime()} value
+     */
+    public void setDeadline(final long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Check whether the deadline set by {@link #setDeadline(long)} has passed.
+     *
+     * @return true if a deadline was set and it has passed.
+     */
+    public boolean isDeadlinePassed() {
+        if (deadlinePassed) {
+            return true;
+        }
+        if (hasDeadline && System.nanoTime() - deadlineNanos >= 0L) {
+            deadlinePassed = true;
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Set the {@link ExecutionException} that was thrown by a worker.
      *
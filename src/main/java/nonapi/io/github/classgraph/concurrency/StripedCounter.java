@@ -0,0 +1,105 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.concurrency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that can be incremented concurrently by many threads with little contention. Works like
+ * {@code java.util.concurrent.atomic.LongAdder}, except that it also works on JDK 7: the count is split across a
+ * fixed number of stripes, each on its own cache line, and each thread adds to the stripe selected by its thread
+ * id. The total is only computed when {@link #sum()} is called.
+ */
+public final class StripedCounter {
+    /** The number of longs per stripe, so that each stripe occupies its own 64-byte cache line. */
+    private static final int PADDING = 8;
+
+    /** The maximum number of stripes. */
+    private static final int MAX_STRIPES = 64;
+
+    /** The number of stripes, a power of two. */
+    private static final int NUM_STRIPES = numStripes();
+
+    /** The stripes, with only every {@link #PADDING}th element used. */
+    private final AtomicLongArray stripes = new AtomicLongArray(NUM_STRIPES * PADDING);
+
+    /**
+     * Get the number of stripes to use: the smallest power of two that is at least twice the number of
+     * processors, up to {@link #MAX_STRIPES}.
+     *
+     * @return the number of stripes
+     */
+    private static int numStripes() {
+        final int minStripes = Math.min(MAX_STRIPES, 2 * Runtime.getRuntime().availableProcessors());
+        int numStripes = 1;
+        while (numStripes < minStripes) {
+            numStripes <<= 1;
+        }
+        return numStripes;
+    }
+
+    /**
+     * Add to the counter.
+     *
+     * @param delta
+     *            the amount to add
+     */
+    public void add(final long delta) {
+        if (delta != 0L) {
+            stripes.getAndAdd(((int) Thread.currentThread().getId() & (NUM_STRIPES - 1)) * PADDING, delta);
+        }
+    }
+
+    /** Increment the counter. */
+    public void increment() {
+        add(1L);
+    }
+
+    /**
+     * Get the current total of the counter. Not an atomic snapshot if other threads are adding to the counter
+     * concurrently.
+     *
+     * @return the total
+     */
+    public long sum() {
+        long sum = 0L;
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            sum += stripes.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.concurrency;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads (JDK 21+). Virtual threads are created through reflection, so that this class can be
+ * loaded on any JDK version.
+ */
+public final class VirtualThreads {
+    /** The {@code Thread.Builder.OfVirtual} instance, or null if virtual threads are not supported. */
+    private static final Object VIRTUAL_THREAD_BUILDER;
+
+    /** The {@code Thread.Builder#factory()} method, or null if virtual threads are not supported. */
+    private static final Method FACTORY_METHOD;
+
+    static {
+        Object virtualThreadBuilder = null;
+        Method factoryMethod = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(Thread.class.getMethod("ofVirtual").invoke(null), "ClassGraph-virtual-worker-", 0L);
+            // Virtual threads are a preview feature in JDK 19 and 20 -- check that a thread can be created
+            // (this throws UnsupportedOperationException if preview features are not enabled)
+            factoryMethod = builderClass.getMethod("factory");
+            ((ThreadFactory) factoryMethod.invoke(builder)).newThread(new Runnable() {
+                @Override
+                public void run() {
+                    // Not started
+                }
+            });
+            virtualThreadBuilder = builder;
+        } catch (final Throwable t) {
+            // Virtual threads are not supported by this JDK
+            factoryMethod = null;
+        }
+        VIRTUAL_THREAD_BUILDER = virtualThreadBuilder;
+        FACTORY_METHOD = factoryMethod;
+    }
+
+    /** Constructor. */
+    private VirtualThreads() {
+        // Cannot be constructed
+    }
+
+    /**
+     * Check whether virtual threads are supported by the running JDK.
+     *
+     * @return true if virtual threads are supported.
+     */
+    public static boolean isSupported() {
+        return VIRTUAL_THREAD_BUILDER != null;
+    }
+
+    /**
+     * Get a {@link ThreadFactory} that creates virtual threads.
+     *
+     * @return a {@link ThreadFactory} that creates virtual threads, or null if virtual threads are not supported by
+     *         the running JDK.
+     */
+    public static ThreadFactory newThreadFactory() {
+        if (VIRTUAL_THREAD_BUILDER == null) {
+            return null;
+        }
+        try {
+            return (ThreadFactory) FACTORY_METHOD.invoke(VIRTUAL_THREAD_BUILDER);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
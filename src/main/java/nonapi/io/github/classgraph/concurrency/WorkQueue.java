@@ -28,31 +28,71 @@
  */
 package nonapi.io.github.classgraph.concurrency;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.BlockingQueue;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /**
- * A parallel work queue.
+ * A parallel work queue with work stealing.
+ * 
+ * <p>
+ * Each worker owns a lock-free deque of work units. A worker takes work units from the tail of its own deque, so
+ * that work units it adds while processing another work unit (e.g. superclasses discovered while scanning a
+ * classfile) are processed next by the same thread. When its own deque is empty, a worker steals from the head of
+ * the other workers' deques. This avoids funnelling every work unit through a single shared queue, which becomes
+ * a contention point when there are a very large number of small work units.
  *
  * @param <T>
  *            The work unit type.
  */
 public class WorkQueue<T> implements AutoCloseable {
+    /**
+     * The maximum time in milliseconds that an idle worker waits before checking the other workers' deques again
+     * (idle workers are also woken when work units are added or all work is complete).
+     */
+    private static final long IDLE_WAIT_MILLIS = 10L;
+
+    /** The value of {@link #firstIdleNanos} before any worker has run out of work units. */
+    private static final long NOT_IDLE = Long.MIN_VALUE;
+
     /** The work unit processor. */
     private final WorkUnitProcessor<T> workUnitProcessor;
 
-    /** The queue of work units. */
-    private final BlockingQueue<WorkUnitWrapper<T>> workUnits = new LinkedBlockingQueue<>();
+    /** The work unit cost estimator, or null. */
+    private final WorkUnitCostEstimator<? super T> workUnitCostEstimator;
+
+    /** The concurrency controller that limits the number of active workers, or null for no limit. */
+    private final AdaptiveConcurrencyController concurrencyController;
+
+    /**
+     * If non-null, workers stop taking work units once the deadline of the {@link InterruptionChecker} has passed,
+     * and the work units that were not processed are added to this collection when the work queue is closed.
+     */
+    private final Collection<? super T> unprocessedWorkUnitsOut;
+
+    /** The work unit deque for each worker. */
+    private final List<ConcurrentLinkedDeque<T>> workerDeques;
+
+    /** The work unit deque owned by the current thread, or null if the current thread is not a worker. */
+    private final ThreadLocal<ConcurrentLinkedDeque<T>> ownDeque = new ThreadLocal<>();
+
+    /** The index of the deque to assign to the next worker that starts its work loop. */
+    private final AtomicInteger nextWorkerIdx = new AtomicInteger();
+
+    /** The index of the deque to add the next work unit to, when work units are added by a non-worker thread. */
+    private final AtomicInteger nextExternalDequeIdx = new AtomicInteger();
 
     /** The number of workers. */
     private final int numWorkers;
@@ -63,6 +103,18 @@ public class WorkQueue<T> implements AutoCloseable {
      */
     private final AtomicInteger numIncompleteWorkUnits = new AtomicInteger();
 
+    /** The number of workers that are waiting for work units to be added. */
+    private final AtomicInteger numIdleWorkers = new AtomicInteger();
+
+    /** The monitor that idle workers wait on. */
+    private final Object idleMonitor = new Object();
+
+    /** The {@link System#nanoTime()} value when a worker first found no work units to process. */
+    private final AtomicLong firstIdleNanos = new AtomicLong(NOT_IDLE);
+
+    /** Set to true if a worker was interrupted or threw an exception, so that all workers should stop. */
+    private volatile boolean aborted;
+
     /** The Future object added for each worker, used to detect worker completion. */
     private final ConcurrentLinkedQueue<Future<?>> workerFutures = new ConcurrentLinkedQueue<>();
 
@@ -75,28 +127,6 @@ public class WorkQueue<T> implements AutoCloseable {
     /** The log node. */
     private final LogNode log;
 
-    /**
-     * A wrapper for work units (needed to send a poison pill as a null value, since BlockingQueue does not accept
-     * null values).
-     *
-     * @param <T>
-     *            the generic type
-     */
-    private static class WorkUnitWrapper<T> {
-        /** The work unit. */
-        final T workUnit;
-
-        /**
-         * Constructor.
-         * 
-         * @param workUnit
-         *            the work unit, or null to represent a poison pill.
-         */
-        public WorkUnitWrapper(final T workUnit) {
-            this.workUnit = workUnit;
-        }
-    }
-
     /**
      * A work unit processor.
      * 
@@ -119,6 +149,34 @@ public class WorkQueue<T> implements AutoCloseable {
         void processWorkUnit(T workUnit, WorkQueue<T> workQueue, LogNode log) throws InterruptedException;
     }
 
+    /**
+     * Estimates the relative cost of processing a work unit, so that the most expensive initial work units can be
+     * started first.
+     * 
+     * @param <T>
+     *            The type of work unit.
+     */
+    public interface WorkUnitCostEstimator<T> {
+        /**
+         * Estimate the cost of processing a work unit. Only the relative order of the estimates matters.
+         *
+         * @param workUnit
+         *            The work unit.
+         * @return The estimated cost, or {@link Long#MAX_VALUE} if the cost is unknown but potentially large.
+         *         Negative estimates are treated as zero.
+         */
+        long estimateCost(T workUnit);
+
+        /**
+         * Get the number of items of work in a work unit, e.g. the number of classfiles in a batch of classfiles.
+         *
+         * @param workUnit
+         *            The work unit.
+         * @return The number of items of work in the work unit (at least 1).
+         */
+        int getNumItems(T workUnit);
+    }
+
     /**
      * Start a work queue on the elements in the provided collection, blocking until all work units have been
      * completed.
@@ -145,21 +203,77 @@ public class WorkQueue<T> implements AutoCloseable {
     public static <U> void runWorkQueue(final Collection<U> elements, final ExecutorService executorService,
             final InterruptionChecker interruptionChecker, final int numParallelTasks, final LogNode log,
             final WorkUnitProcessor<U> workUnitProcessor) throws InterruptedException, ExecutionException {
+        runWorkQueue(elements, executorService, interruptionChecker, numParallelTasks, log,
+                /* workUnitCostEstimator = */ null, /* concurrencyController = */ null,
+                /* unprocessedWorkUnitsOut = */ null, workUnitProcessor);
+    }
+
+    /**
+     * Start a work queue on the elements in the provided collection, blocking until all work units have been
+     * completed. If a {@link WorkUnitCostEstimator} is provided, the initial work units are scheduled
+     * largest-first (longest processing time first): each worker starts with the most expensive work units it was
+     * dealt, and the cheapest work units are left at the end to fill in the gaps, so that the scan is less likely
+     * to end waiting on a single worker that started an expensive work unit late. If an
+     * {@link AdaptiveConcurrencyController} is provided, it limits how many of the workers may process work units
+     * at the same time. If a collection for unprocessed work units is provided, the workers stop taking work units
+     * once the deadline of the {@link InterruptionChecker} has passed (see
+     * {@link InterruptionChecker#setDeadline(long)}), work units that are already being processed are completed,
+     * and the remaining work units are added to the collection.
+     *
+     * @param <U>
+     *            The type of the work queue units.
+     * @param elements
+     *            The work queue units to process.
+     * @param executorService
+     *            The {@link ExecutorService}.
+     * @param interruptionChecker
+     *            the interruption checker
+     * @param numParallelTasks
+     *            The number of parallel tasks.
+     * @param log
+     *            The log.
+     * @param workUnitCostEstimator
+     *            The {@link WorkUnitCostEstimator} for the initial work units, or null to process the initial work
+     *            units in roughly the order of the collection.
+     * @param concurrencyController
+     *            The {@link AdaptiveConcurrencyController}, or null to allow all workers to process work units at
+     *            the same time.
+     * @param unprocessedWorkUnitsOut
+     *            If non-null, the collection to add the work units that were not processed because the deadline
+     *            passed to. If null, the deadline is ignored.
+     * @param workUnitProcessor
+     *            The {@link WorkUnitProcessor}.
+     * @return The tail time in nanoseconds, i.e. the time from when the first worker ran out of work units until
+     *         all work units had been completed.
+     * @throws InterruptedException
+     *             If the work was interrupted.
+     * @throws ExecutionException
+     *             If a worker throws an uncaught exception.
+     */
+    public static <U> long runWorkQueue(final Collection<U> elements, final ExecutorService executorService,
+            final InterruptionChecker interruptionChecker, final int numParallelTasks, final LogNode log,
+            final WorkUnitCostEstimator<? super U> workUnitCostEstimator,
+            final AdaptiveConcurrencyController concurrencyController,
+            final Collection<? super U> unprocessedWorkUnitsOut, final WorkUnitProcessor<U> workUnitProcessor)
+            throws InterruptedException, ExecutionException {
         if (elements.isEmpty()) {
             // Nothing to do
-            return;
+            return 0L;
         }
+        final long firstIdleNanos;
         // WorkQueue#close() is called when this try-with-resources block terminates, initiating a barrier wait
         // while all worker threads complete.
-        try (WorkQueue<U> workQueue = new WorkQueue<>(elements, workUnitProcessor, numParallelTasks,
-                interruptionChecker, log)) {
+        try (WorkQueue<U> workQueue = new WorkQueue<>(elements, workUnitCostEstimator, concurrencyController,
+                unprocessedWorkUnitsOut, workUnitProcessor, numParallelTasks, interruptionChecker, log)) {
             // Start (numParallelTasks - 1) worker threads (may start zero threads if numParallelTasks == 1)
             workQueue.startWorkers(executorService, numParallelTasks - 1);
             // Use the current thread to do work too, in case there is only one thread available in the
             // ExecutorService, or in case numParallelTasks is greater than the number of available threads in the
             // ExecutorService.
             workQueue.runWorkLoop();
+            firstIdleNanos = workQueue.firstIdleNanos.get();
         }
+        return firstIdleNanos == NOT_IDLE ? 0L : Math.max(0L, System.nanoTime() - firstIdleNanos);
     }
 
     /**
@@ -167,6 +281,12 @@ public class WorkQueue<T> implements AutoCloseable {
      *
      * @param initialWorkUnits
      *            the initial work units
+     * @param workUnitCostEstimator
+     *            the cost estimator for the initial work units, or null
+     * @param concurrencyController
+     *            the concurrency controller, or null
+     * @param unprocessedWorkUnitsOut
+     *            the collection to add work units that were not processed before the deadline to, or null
      * @param workUnitProcessor
      *            the work unit processor
      * @param numWorkers
@@ -176,13 +296,66 @@ public class WorkQueue<T> implements AutoCloseable {
      * @param log
      *            the log
      */
-    private WorkQueue(final Collection<T> initialWorkUnits, final WorkUnitProcessor<T> workUnitProcessor,
+    private WorkQueue(final Collection<T> initialWorkUnits,
+            final WorkUnitCostEstimator<? super T> workUnitCostEstimator,
+            final AdaptiveConcurrencyController concurrencyController,
+            final Collection<? super T> unprocessedWorkUnitsOut, final WorkUnitProcessor<T> workUnitProcessor,
             final int numWorkers, final InterruptionChecker interruptionChecker, final LogNode log) {
         this.workUnitProcessor = workUnitProcessor;
-        this.numWorkers = numWorkers;
+        this.workUnitCostEstimator = workUnitCostEstimator;
+        this.concurrencyController = concurrencyController;
+        this.unprocessedWorkUnitsOut = unprocessedWorkUnitsOut;
+        this.numWorkers = Math.max(1, numWorkers);
         this.interruptionChecker = interruptionChecker;
         this.log = log;
-        addWorkUnits(initialWorkUnits);
+        this.workerDeques = new ArrayList<>(this.numWorkers);
+        for (int i = 0; i < this.numWorkers; i++) {
+            workerDeques.add(new ConcurrentLinkedDeque<T>());
+        }
+        if (workUnitCostEstimator == null || this.numWorkers == 1 || initialWorkUnits.size() == 1) {
+            addWorkUnits(initialWorkUnits);
+        } else {
+            addWorkUnitsLargestFirst(initialWorkUnits, workUnitCostEstimator);
+        }
+    }
+
+    /**
+     * Add the initial work units in order of decreasing estimated cost. The work units are dealt round-robin to
+     * the worker deques in order of decreasing cost, so that each worker starts with a share of the most expensive
+     * work units. Each deque is filled so that its tail (where its owner takes work units from) holds its most
+     * expensive work unit and its head (where other workers steal from) holds its cheapest work unit.
+     *
+     * @param workUnits
+     *            the work units
+     * @param workUnitCostEstimator
+     *            the work unit cost estimator
+     * @throws NullPointerException
+     *             if any of the work units are null.
+     */
+    private void addWorkUnitsLargestFirst(final Collection<T> workUnits,
+            final WorkUnitCostEstimator<? super T> workUnitCostEstimator) {
+        final List<T> workUnitList = new ArrayList<>(workUnits);
+        final int numWorkUnits = workUnitList.size();
+        // Pack the estimated cost (clamped to an int) into the high 32 bits of each sort key and the inverted
+        // index into the low 32 bits, so that sorting the keys in descending order gives the work units in order
+        // of decreasing cost, with ties broken by the original order
+        final long[] sortKeys = new long[numWorkUnits];
+        for (int i = 0; i < numWorkUnits; i++) {
+            final T workUnit = workUnitList.get(i);
+            if (workUnit == null) {
+                throw new NullPointerException("workUnit cannot be null");
+            }
+            final long cost = Math.max(0L, Math.min(Integer.MAX_VALUE, workUnitCostEstimator.estimateCost(workUnit)));
+            sortKeys[i] = cost << 32 | (numWorkUnits - 1 - i);
+        }
+        Arrays.sort(sortKeys);
+        numIncompleteWorkUnits.addAndGet(numWorkUnits);
+        for (int rank = 0; rank < numWorkUnits; rank++) {
+            final long sortKey = sortKeys[numWorkUnits - 1 - rank];
+            final int workUnitIdx = numWorkUnits - 1 - (int) (sortKey & 0xffffffffL);
+            workerDeques.get(rank % numWorkers).addFirst(workUnitList.get(workUnitIdx));
+        }
+        wakeIdleWorkers(/* all = */ true);
     }
 
     /**
@@ -206,12 +379,97 @@ public class WorkQueue<T> implements AutoCloseable {
     }
 
     /**
-     * Send poison pills to workers.
+     * Wake up idle workers, if there are any.
+     *
+     * @param all
+     *            if true, wake up all idle workers, otherwise wake up one idle worker.
+     */
+    private void wakeIdleWorkers(final boolean all) {
+        if (numIdleWorkers.get() > 0) {
+            synchronized (idleMonitor) {
+                if (all) {
+                    idleMonitor.notifyAll();
+                } else {
+                    idleMonitor.notify();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop all workers after a worker was interrupted or threw an exception, discarding any remaining work units.
+     */
+    private void abort() {
+        aborted = true;
+        for (final ConcurrentLinkedDeque<T> deque : workerDeques) {
+            deque.clear();
+        }
+        numIncompleteWorkUnits.set(0);
+        wakeIdleWorkers(/* all = */ true);
+    }
+
+    /**
+     * Steal a work unit from the head of another worker's deque. If the number of active workers is limited by a
+     * concurrency controller, some deques may have no active owner, so work units are stolen from the tail
+     * instead, to preserve the largest-first order of the initial work units.
+     *
+     * @param workerIdx
+     *            the index of the current worker
+     * @return the stolen work unit, or null if all other deques are empty.
+     */
+    private T steal(final int workerIdx) {
+        for (int i = 1; i < numWorkers; i++) {
+            final ConcurrentLinkedDeque<T> deque = workerDeques.get((workerIdx + i) % numWorkers);
+            final T workUnit = concurrencyController == null ? deque.pollFirst() : deque.pollLast();
+            if (workUnit != null) {
+                return workUnit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait for work units to be added, or for all work to be completed.
+     *
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting
+     */
+    private void awaitWork() throws InterruptedException {
+        numIdleWorkers.incrementAndGet();
+        try {
+            synchronized (idleMonitor) {
+                // Re-check for work after registering as idle, so that a work unit added concurrently is not
+                // missed (addWorkUnit adds the work unit before checking for idle workers)
+                if (!aborted && numIncompleteWorkUnits.get() > 0) {
+                    for (final ConcurrentLinkedDeque<T> deque : workerDeques) {
+                        if (!deque.isEmpty()) {
+                            return;
+                        }
+                    }
+                    idleMonitor.wait(IDLE_WAIT_MILLIS);
+                }
+            }
+        } finally {
+            numIdleWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wait for the concurrency controller to allow another worker to be active, or for all work to be completed.
+     *
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting
      */
-    @SuppressWarnings("null")
-    private void sendPoisonPills() {
-        for (int i = 0; i < numWorkers; i++) {
-            workUnits.add(new WorkUnitWrapper<T>(null));
+    private void awaitWorkerSlot() throws InterruptedException {
+        numIdleWorkers.incrementAndGet();
+        try {
+            synchronized (idleMonitor) {
+                if (!aborted && numIncompleteWorkUnits.get() > 0 && !concurrencyController.hasFreeWorkerSlot()) {
+                    idleMonitor.wait(IDLE_WAIT_MILLIS);
+                }
+            }
+        } finally {
+            numIdleWorkers.decrementAndGet();
         }
     }
 
@@ -227,48 +485,93 @@ public class WorkQueue<T> implements AutoCloseable {
      *             if a worker thread throws an uncaught exception
      */
     private void runWorkLoop() throws InterruptedException, ExecutionException {
-        // Get next work unit from queue
-        for (;;) {
-            // Process the work unit
-            try {
-                // Check for interruption
-                interruptionChecker.check();
+        // If there are fewer worker threads than deques, the unowned deques are drained by stealing
+        final int workerIdx = nextWorkerIdx.getAndIncrement() % numWorkers;
+        final ConcurrentLinkedDeque<T> deque = workerDeques.get(workerIdx);
+        ownDeque.set(deque);
+        try {
+            for (;;) {
+                try {
+                    // Check for interruption
+                    interruptionChecker.check();
 
-                // Get next work unit
-                final WorkUnitWrapper<T> workUnitWrapper = workUnits.take();
+                    if (unprocessedWorkUnitsOut != null && interruptionChecker.isDeadlinePassed()) {
+                        // Stop taking work units (the remaining work units are collected by close())
+                        break;
+                    }
 
-                if (workUnitWrapper.workUnit == null) {
-                    // Received poison pill
-                    break;
-                }
+                    if (concurrencyController != null && !concurrencyController.tryAcquireWorkerSlot()) {
+                        if (aborted || numIncompleteWorkUnits.get() <= 0) {
+                            // All work is complete, or another worker failed
+                            break;
+                        }
+                        // The maximum number of workers are already active
+                        awaitWorkerSlot();
+                        continue;
+                    }
 
-                // Process the work unit (may throw InterruptedException) 
-                workUnitProcessor.processWorkUnit(workUnitWrapper.workUnit, this, log);
+                    // Get next work unit from the tail of this worker's own deque, or steal one from another worker
+                    T workUnit = deque.pollLast();
+                    if (workUnit == null) {
+                        workUnit = steal(workerIdx);
+                    }
+                    if (workUnit == null) {
+                        if (concurrencyController != null) {
+                            concurrencyController.releaseWorkerSlot();
+                        }
+                        if (firstIdleNanos.get() == NOT_IDLE) {
+                            // Record the start of the tail, where this worker has run out of work units
+                            firstIdleNanos.compareAndSet(NOT_IDLE, System.nanoTime());
+                        }
+                        if (aborted || numIncompleteWorkUnits.get() <= 0) {
+                            // All work is complete, or another worker failed
+                            break;
+                        }
+                        // Other workers are still processing work units, and may add more work units
+                        awaitWork();
+                        continue;
+                    }
 
-            } catch (InterruptedException | Error e) {
-                // On InterruptedException or OutOfMemoryError, drain work queue, send poison pills, and re-throw
-                workUnits.clear();
-                numIncompleteWorkUnits.set(0);
-                sendPoisonPills();
-                throw e;
+                    // Estimate the cost of the work unit before processing it, since processing may change the work
+                    // unit (e.g. by detaching a batch of classfiles from it)
+                    long cost = -1L;
+                    int numItems = 1;
+                    if (concurrencyController != null && workUnitCostEstimator != null) {
+                        cost = workUnitCostEstimator.estimateCost(workUnit);
+                        numItems = workUnitCostEstimator.getNumItems(workUnit);
+                    }
 
-            } catch (final RuntimeException e) {
-                // On unchecked exception, drain work queue, send poison pills, and throw ExecutionException
-                workUnits.clear();
-                numIncompleteWorkUnits.set(0);
-                sendPoisonPills();
-                throw new ExecutionException("Worker thread threw unchecked exception", e);
+                    // Process the work unit (may throw InterruptedException) 
+                    workUnitProcessor.processWorkUnit(workUnit, this, log);
 
+                    if (concurrencyController != null && concurrencyController.workUnitCompleted(cost, numItems)) {
+                        // The worker limit was increased
+                        wakeIdleWorkers(/* all = */ true);
+                    }
+
+                } catch (InterruptedException | Error e) {
+                    // On InterruptedException or OutOfMemoryError, drain work queue, stop workers, and re-throw
+                    abort();
+                    throw e;
+
+                } catch (final RuntimeException e) {
+                    // On unchecked exception, drain work queue, stop workers, and throw ExecutionException
+                    abort();
+                    throw new ExecutionException("Worker thread threw unchecked exception", e);
+
+                }
+                if (numIncompleteWorkUnits.decrementAndGet() == 0) {
+                    // No more work units -- wake up idle workers so that they can exit
+                    wakeIdleWorkers(/* all = */ true);
+                }
             }
-            if (numIncompleteWorkUnits.decrementAndGet() == 0) {
-                // No more work units -- send poison pills
-                sendPoisonPills();
-            }
+        } finally {
+            ownDeque.remove();
         }
     }
 
     /**
-     * Add a unit of work. May be called by workers to add more work units to the tail of the queue.
+     * Add a unit of work. May be called by workers to add more work units to the tail of their own deque.
      *
      * @param workUnit
      *            the work unit
@@ -280,26 +583,47 @@ public class WorkQueue<T> implements AutoCloseable {
             throw new NullPointerException("workUnit cannot be null");
         }
         numIncompleteWorkUnits.incrementAndGet();
-        workUnits.add(new WorkUnitWrapper<>(workUnit));
+        ConcurrentLinkedDeque<T> deque = ownDeque.get();
+        if (deque == null) {
+            // Not called from a worker -- pick a deque round-robin
+            deque = workerDeques.get((nextExternalDequeIdx.getAndIncrement() & Integer.MAX_VALUE) % numWorkers);
+        }
+        deque.addLast(workUnit);
+        wakeIdleWorkers(/* all = */ false);
     }
 
     /**
-     * Add multiple units of work. May be called by workers to add more work units to the tail of the queue.
+     * Add multiple units of work. May be called by workers to add more work units to the tail of their own deque.
+     * If not called by a worker, the work units are split into contiguous runs, one per worker deque.
      * 
      * @param workUnits
-     *            The work units to add to the tail of the queue.
+     *            The work units to add.
      * @throws NullPointerException
      *             if any of the work units are null.
      */
     public void addWorkUnits(final Collection<T> workUnits) {
+        final ConcurrentLinkedDeque<T> deque = ownDeque.get();
+        final int numWorkUnits = workUnits.size();
+        int workUnitIdx = 0;
         for (final T workUnit : workUnits) {
-            addWorkUnit(workUnit);
+            if (workUnit == null) {
+                throw new NullPointerException("workUnit cannot be null");
+            }
+            numIncompleteWorkUnits.incrementAndGet();
+            if (deque != null) {
+                deque.addLast(workUnit);
+            } else {
+                workerDeques.get(Math.min(numWorkers - 1, (int) ((long) workUnitIdx++ * numWorkers / numWorkUnits)))
+                        .addLast(workUnit);
+            }
         }
+        wakeIdleWorkers(/* all = */ true);
     }
 
     /**
      * Completion barrier for work queue. This should be called after runWorkLoop() exits on the main thread (e.g.
-     * using try-with-resources).
+     * using try-with-resources). If the workers stopped because the deadline passed, the remaining work units are
+     * added to the collection of unprocessed work units.
      *
      * @throws ExecutionException
      *             If a worker threw an uncaught exception.
@@ -325,5 +649,12 @@ public class WorkQueue<T> implements AutoCloseable {
                 interruptionChecker.interrupt();
             }
         }
+        if (unprocessedWorkUnitsOut != null && !aborted) {
+            for (final ConcurrentLinkedDeque<T> deque : workerDeques) {
+                for (T workUnit; (workUnit = deque.pollFirst()) != null;) {
+                    unprocessedWorkUnitsOut.add(workUnit);
+                }
+            }
+        }
     }
 }
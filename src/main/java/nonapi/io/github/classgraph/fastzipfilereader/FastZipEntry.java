@@ -56,6 +56,9 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
     /** The uncompressed size of the zip entry, in bytes. */
     public final long uncompressedSize;
 
+    /** The CRC-32 of the uncompressed zip entry data, from the central directory. */
+    public final long crc;
+
     /** The last modified millis since the epoch, or 0L if it is unknown */
     private long lastModifiedTimeMillis;
 
@@ -98,6 +101,8 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
      *            The compressed size of the entry.
      * @param uncompressedSize
      *            The uncompressed size of the entry.
+     * @param crc
+     *            The CRC-32 of the uncompressed entry data.
      * @param lastModifiedTimeMillis
      *            The last modified date/time in millis since the epoch, or 0L if unknown (in which case, the MSDOS
      *            time and date fields will be provided).
@@ -109,7 +114,7 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
      *            The POSIX file attribute bits from the zip entry.
      */
     FastZipEntry(final LogicalZipFile parentLogicalZipFile, final long locHeaderPos, final String entryName,
-            final boolean isDeflated, final long compressedSize, final long uncompressedSize,
+            final boolean isDeflated, final long compressedSize, final long uncompressedSize, final long crc,
             final long lastModifiedTimeMillis, final int lastModifiedTimeMSDOS, final int lastModifiedDateMSDOS,
             final int fileAttributes, final boolean enableMultiReleaseVersions) {
         this.parentLogicalZipFile = parentLogicalZipFile;
@@ -118,6 +123,7 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
         this.isDeflated = isDeflated;
         this.compressedSize = compressedSize;
         this.uncompressedSize = !isDeflated && uncompressedSize < 0 ? compressedSize : uncompressedSize;
+        this.crc = crc;
         this.lastModifiedTimeMillis = lastModifiedTimeMillis;
         this.lastModifiedTimeMSDOS = lastModifiedTimeMSDOS;
         this.lastModifiedDateMSDOS = lastModifiedDateMSDOS;
@@ -218,6 +224,16 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
         return parentLogicalZipFile.getPath() + "!/" + entryName;
     }
 
+    /**
+     * Get the offset of the entry's local header within the parent logical zipfile. Reading entries in order of
+     * increasing local header offset reads the zipfile sequentially.
+     *
+     * @return the offset of the entry's local header
+     */
+    public long getLocHeaderPos() {
+        return locHeaderPos;
+    }
+
     /**
      * Get the last modified time in Epoch millis, or 0L if unknown.
      *
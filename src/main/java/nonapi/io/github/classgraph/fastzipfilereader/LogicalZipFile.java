@@ -43,9 +43,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 import nonapi.io.github.classgraph.fileslice.ArraySlice;
 import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+import nonapi.io.github.classgraph.utils.ByteScanUtils;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
@@ -83,6 +85,12 @@ public class LogicalZipFile extends ZipFileSlice {
     /** If true, this is a JRE jar. */
     public boolean isJREJar;
 
+    /**
+     * The CRC32 of the End Of Central Directory record(s), which cover the number of entries and the size and
+     * offset of the central directory.
+     */
+    public long endOfCentralDirectoryCrc;
+
     /** If true, multi-release versions should not be stripped in resource names. */
     private final boolean enableMultiReleaseVersions;
 
@@ -127,14 +135,6 @@ public class LogicalZipFile extends ZipFileSlice {
     /** The {@code "Automatic-Module-Name"} manifest key. */
     private static final byte[] AUTOMATIC_MODULE_NAME_KEY = manifestKeyToBytes("Automatic-Module-Name");
 
-    /** For quickly converting ASCII characters to lower case. */
-    private static byte[] toLowerCase = new byte[256];
-    static {
-        for (int i = 32; i < 127; i++) {
-            toLowerCase[i] = (byte) Character.toLowerCase((char) i);
-        }
-    }
-
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -182,6 +182,10 @@ public class LogicalZipFile extends ZipFileSlice {
         final int firstNonSpaceIdx = curr;
         boolean isMultiLine = false;
         for (; curr < len && !isMultiLine; curr++) {
+            curr = ByteScanUtils.indexOfLineEnd(manifest, curr, len);
+            if (curr == len) {
+                break;
+            }
             final byte b = manifest[curr];
             if (b == (byte) '\r' && curr < len - 1 && manifest[curr + 1] == (byte) '\n') {
                 if (curr < len - 2 && manifest[curr + 2] == (byte) ' ') {
@@ -264,13 +268,8 @@ public class LogicalZipFile extends ZipFileSlice {
         if (pos + key.length + 1 > manifest.length || manifest[pos + key.length] != ':') {
             return false;
         }
-        for (int i = 0; i < key.length; i++) {
-            // Manifest keys are case insensitive
-            if (toLowerCase[manifest[i + pos]] != key[i]) {
-                return false;
-            }
-        }
-        return true;
+        // Manifest keys are case insensitive
+        return ByteScanUtils.regionMatchesIgnoreCase(manifest, pos, key);
     }
 
     /**
@@ -406,6 +405,11 @@ public class LogicalZipFile extends ZipFileSlice {
             if (skip) {
                 // Field key didn't match -- skip to next key (after next newline that is not followed by a space)
                 for (; i < manifest.length - 2; i++) {
+                    // Skip quickly to the next line ending
+                    i = ByteScanUtils.indexOfLineEnd(manifest, i, manifest.length - 2);
+                    if (i == manifest.length - 2) {
+                        break;
+                    }
                     if (manifest[i] == (byte) '\r' && manifest[i + 1] == (byte) '\n'
                             && manifest[i + 2] != (byte) ' ') {
                         i += 2;
@@ -425,6 +429,53 @@ public class LogicalZipFile extends ZipFileSlice {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Update a CRC with a range of bytes of the zipfile.
+     *
+     * @param reader
+     *            the reader
+     * @param pos
+     *            the start position of the range
+     * @param len
+     *            the length of the range
+     * @param crc
+     *            the CRC to update
+     * @throws IOException
+     *             If an I/O exception occurs.
+     */
+    private static void updateCrc(final RandomAccessReader reader, final long pos, final int len, final CRC32 crc)
+            throws IOException {
+        final byte[] buf = new byte[len];
+        if (reader.read(pos, buf, 0, len) < len) {
+            throw new IOException("Zipfile is truncated");
+        }
+        crc.update(buf);
+    }
+
+    /**
+     * Read the end of the zipfile into a byte array, and scan back through it for the End Of Central Directory
+     * (EOCD) signature.
+     *
+     * @param reader
+     *            the reader for the zipfile slice
+     * @param maxBytesToRead
+     *            the maximum number of bytes to read from the end of the zipfile
+     * @return the position of the last EOCD signature that leaves room for the EOCD record, or -1 if not found.
+     * @throws IOException
+     *             If an I/O exception occurs.
+     */
+    private long findEOCDSignature(final RandomAccessReader reader, final int maxBytesToRead) throws IOException {
+        final int bytesToRead = (int) Math.min(slice.sliceLength, maxBytesToRead);
+        final byte[] eocdBytes = new byte[bytesToRead];
+        final long readStartOff = slice.sliceLength - bytesToRead;
+        if (reader.read(readStartOff, eocdBytes, 0, bytesToRead) < bytesToRead) {
+            // Should not happen
+            throw new IOException("Zipfile is truncated");
+        }
+        final int eocdIdx = ByteScanUtils.lastIndexOfIntLE(eocdBytes, 0, bytesToRead - 22, 0x06054b50);
+        return eocdIdx < 0 ? -1L : readStartOff + eocdIdx;
+    }
+
     /**
      * Read the central directory of the zipfile.
      * 
@@ -449,33 +500,11 @@ public class LogicalZipFile extends ZipFileSlice {
         // Scan for End Of Central Directory (EOCD) signature. Final comment can be up to 64kB in length,
         // so need to scan back that far to determine if this is a valid zipfile. However for speed,
         // initially just try reading back a maximum of 32 characters.
-        long eocdPos = -1;
-        for (long i = slice.sliceLength - 22, iMin = slice.sliceLength - 22 - 32; i >= iMin && i >= 0L; --i) {
-            if (reader.readUnsignedInt(i) == 0x06054b50L) {
-                eocdPos = i;
-                break;
-            }
-        }
+        long eocdPos = findEOCDSignature(reader, 22 + 32);
         if (eocdPos < 0 && slice.sliceLength > 22 + 32) {
             // If EOCD signature was not found, read the last 64kB of file to RAM in a single chunk
             // so that we can scan back through it at higher speed to locate the EOCD signature
-            final int bytesToRead = (int) Math.min(slice.sliceLength, 65536);
-            final byte[] eocdBytes = new byte[bytesToRead];
-            final long readStartOff = slice.sliceLength - bytesToRead;
-            if (reader.read(readStartOff, eocdBytes, 0, bytesToRead) < bytesToRead) {
-                // Should not happen
-                throw new IOException("Zipfile is truncated");
-            }
-            try (final ArraySlice arraySlice = new ArraySlice(eocdBytes, /* isDeflatedZipEntry = */ false,
-                    /* inflatedLengthHint = */ 0L, nestedJarHandler)) {
-                final RandomAccessReader eocdReader = arraySlice.randomAccessReader();
-                for (long i = eocdBytes.length - 22L; i >= 0L; --i) {
-                    if (eocdReader.readUnsignedInt(i) == 0x06054b50L) {
-                        eocdPos = i + readStartOff;
-                        break;
-                    }
-                }
-            }
+            eocdPos = findEOCDSignature(reader, 65536);
         }
         if (eocdPos < 0) {
             throw new IOException("Jarfile central directory signature not found: " + getPath());
@@ -488,6 +517,8 @@ public class LogicalZipFile extends ZipFileSlice {
         long cenSize = reader.readUnsignedInt(eocdPos + 12);
         long cenOff = reader.readUnsignedInt(eocdPos + 16);
         long cenPos = eocdPos - cenSize;
+        final CRC32 eocdCrc = new CRC32();
+        updateCrc(reader, eocdPos, 22, eocdCrc);
 
         // Check for Zip64 End Of Central Directory Locator record
         final long zip64cdLocIdx = eocdPos - 20;
@@ -500,6 +531,7 @@ public class LogicalZipFile extends ZipFileSlice {
                 throw new IOException("Zip64 central directory at location " + eocdPos64
                         + " does not have Zip64 central directory header: " + getPath());
             }
+            updateCrc(reader, eocdPos64, 56, eocdCrc);
             final long numEnt64 = reader.readLong(eocdPos64 + 24);
             if (reader.readUnsignedInt(eocdPos64 + 16) > 0 || reader.readUnsignedInt(eocdPos64 + 20) > 0
                     || numEnt64 != reader.readLong(eocdPos64 + 32)) {
@@ -532,6 +564,8 @@ public class LogicalZipFile extends ZipFileSlice {
             }
         }
 
+        endOfCentralDirectoryCrc = eocdCrc.getValue();
+
         if (cenSize > eocdPos) {
             throw new IOException(
                     "Central directory size out of range: " + cenSize + " vs. " + eocdPos + ": " + getPath());
@@ -542,6 +576,7 @@ public class LogicalZipFile extends ZipFileSlice {
         if (locPos < 0) {
             throw new IOException("Local file header offset out of range: " + locPos + ": " + getPath());
         }
+        nestedJarHandler.centralDirectoryBytesRead.add(cenSize);
 
         // Read entries into a byte array, if central directory is smaller than 2GB. If central directory
         // is larger than 2GB, need to read each entry field from the file directly using ZipFileSliceReader.
@@ -649,7 +684,8 @@ public class LogicalZipFile extends ZipFileSlice {
                 }
                 final boolean isDeflated = compressionMethod == /* deflated */ 8;
 
-                // Get compressed and uncompressed size
+                // Get CRC, and compressed and uncompressed size
+                final long crc = cenReader.readUnsignedInt(entOff + 16);
                 long compressedSize = (cenReader.readUnsignedInt(entOff + 20));
                 long uncompressedSize = (cenReader.readUnsignedInt(entOff + 24));
 
@@ -784,7 +820,7 @@ public class LogicalZipFile extends ZipFileSlice {
 
                 // Add zip entry
                 final FastZipEntry entry = new FastZipEntry(this, locHeaderPos, entryNameSanitized, isDeflated,
-                        compressedSize, uncompressedSize, lastModifiedMillis, lastModifiedTimeMSDOS,
+                        compressedSize, uncompressedSize, crc, lastModifiedMillis, lastModifiedTimeMSDOS,
                         lastModifiedDateMSDOS, fileAttributes, enableMultiReleaseVersions);
                 entries.add(entry);
 
@@ -856,6 +892,17 @@ public class LogicalZipFile extends ZipFileSlice {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Check whether this is a multi-release jar.
+     *
+     * @return true if this is a multi-release jar.
+     */
+    public boolean isMultiReleaseJar() {
+        return isMultiReleaseJar;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     @Override
     public boolean equals(final Object o) {
         return super.equals(o);
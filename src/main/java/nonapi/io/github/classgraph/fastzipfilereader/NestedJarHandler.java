@@ -53,6 +53,7 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -67,6 +68,7 @@ import io.github.classgraph.ModuleRef;
 import io.github.classgraph.ScanResult;
 import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
 import nonapi.io.github.classgraph.concurrency.SingletonMap;
+import nonapi.io.github.classgraph.concurrency.StripedCounter;
 import nonapi.io.github.classgraph.fileslice.ArraySlice;
 import nonapi.io.github.classgraph.fileslice.FileSlice;
 import nonapi.io.github.classgraph.fileslice.Slice;
@@ -77,6 +79,7 @@ import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.utils.FastPathResolver;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.JarUtils;
+import nonapi.io.github.classgraph.utils.JfrEventType;
 import nonapi.io.github.classgraph.utils.LogNode;
 
 /** Open and read jarfiles, which may be nested within other jarfiles. */
@@ -86,6 +89,24 @@ public class NestedJarHandler {
 
     public ReflectionUtils reflectionUtils;
 
+    /** The number of jarfiles (including nested jarfiles) whose central directory has been read. */
+    public final StripedCounter numJarsOpened = new StripedCounter();
+
+    /** The number of bytes of central directory records read from jarfiles. */
+    public final StripedCounter centralDirectoryBytesRead = new StripedCounter();
+
+    /** The number of bytes produced by inflating deflated zip entries. */
+    public final StripedCounter bytesInflated = new StripedCounter();
+
+    /** The number of bytes of stored (uncompressed) zip entries that were opened. */
+    public final StripedCounter bytesStored = new StripedCounter();
+
+    /** The number of temporary files created, e.g. when a deflated nested jar was spilled to disk. */
+    public final StripedCounter numTempFilesCreated = new StripedCounter();
+
+    /** The number of bytes of files that were memory mapped. */
+    public final StripedCounter memoryMappedBytes = new StripedCounter();
+
     /**
      * A singleton map from a zipfile's {@link File} to the {@link PhysicalZipFile}
      * for that file, used to ensure
@@ -130,12 +151,17 @@ public class NestedJarHandler {
 
                 // Read the InputStream for the child zip entry to a RAM buffer, or spill to
                 // disk if it's too large
+                final Object extractionEvent = JfrEventType.NESTED_JAR_EXTRACTION.begin();
                 final PhysicalZipFile physicalZipFile = new PhysicalZipFile(childZipEntry.getSlice().open(),
                         childZipEntry.uncompressedSize >= 0L
                                 && childZipEntry.uncompressedSize <= FileUtils.MAX_BUFFER_SIZE
                                         ? (int) childZipEntry.uncompressedSize
                                         : -1,
                         childZipEntry.entryName, NestedJarHandler.this, log);
+                if (extractionEvent != null) {
+                    JfrEventType.NESTED_JAR_EXTRACTION.commit(extractionEvent, childZipEntry.getPath(),
+                            childZipEntry.compressedSize, childZipEntry.uncompressedSize);
+                }
 
                 // Create a new logical slice of the extracted inner zipfile
                 childZipEntrySlice = new ZipFileSlice(physicalZipFile, childZipEntry);
@@ -144,6 +170,19 @@ public class NestedJarHandler {
         }
     };
 
+    /**
+     * A singleton map from a toplevel jarfile's canonical {@link File} to the {@link SharedJarCache} entry for
+     * that file, if {@link ScanSpec#enableSharedJarCache} is true. The entries are released when this
+     * {@link NestedJarHandler} is closed.
+     */
+    private SingletonMap<File, SharedJarCache.CachedJar, IOException> //
+    canonicalFileToSharedJarMap = new SingletonMap<File, SharedJarCache.CachedJar, IOException>() {
+        @Override
+        public SharedJarCache.CachedJar newInstance(final File canonicalFile, final LogNode log) {
+            return SharedJarCache.acquire(canonicalFile, scanSpec, reflectionUtils);
+        }
+    };
+
     /**
      * A singleton map from a {@link ZipFileSlice} to the {@link LogicalZipFile} for
      * that slice.
@@ -154,6 +193,7 @@ public class NestedJarHandler {
         public LogicalZipFile newInstance(final ZipFileSlice zipFileSlice, final LogNode log)
                 throws IOException, InterruptedException {
             // Read the central directory for the zipfile
+            numJarsOpened.increment();
             return new LogicalZipFile(zipFileSlice, NestedJarHandler.this, log,
                     scanSpec.enableMultiReleaseVersions);
         }
@@ -171,6 +211,27 @@ public class NestedJarHandler {
                 public Entry<LogicalZipFile, String> newInstance(final String nestedJarPathRaw, final LogNode log)
                         throws IOException, InterruptedException {
                     final String nestedJarPath = FastPathResolver.resolve(nestedJarPathRaw);
+                    if (scanSpec.enableSharedJarCache && !isShared) {
+                        // Open local jarfiles, and any jarfiles nested within them, in the NestedJarHandler
+                        // of the shared jarfile cache entry for the toplevel jarfile
+                        final int firstPlingIdx = nestedJarPath.indexOf('!');
+                        final String toplevelPath = firstPlingIdx < 0 ? nestedJarPath
+                                : nestedJarPath.substring(0, firstPlingIdx);
+                        if (!JarUtils.URL_SCHEME_PATTERN.matcher(toplevelPath).matches()) {
+                            try {
+                                final SharedJarCache.CachedJar cachedJar = canonicalFileToSharedJarMap
+                                        .get(new File(toplevelPath).getCanonicalFile(), log);
+                                return cachedJar.nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                                        .get(nestedJarPath, log);
+                            } catch (final NullSingletonException | NewInstanceException e) {
+                                throw new IOException("Could not get shared jarfile for path " + nestedJarPath
+                                        + " : " + (e.getCause() == null ? e : e.getCause()));
+                            } catch (final SecurityException e) {
+                                throw new IOException(
+                                        "Path component " + toplevelPath + " could not be canonicalized: " + e);
+                            }
+                        }
+                    }
                     final int lastPlingIdx = nestedJarPath.lastIndexOf('!');
                     if (lastPlingIdx < 0) {
                         // nestedJarPath is a simple file path or URL (i.e. doesn't have any '!'
@@ -415,6 +476,9 @@ public class NestedJarHandler {
     /** The interruption checker. */
     public InterruptionChecker interruptionChecker;
 
+    /** True if this {@link NestedJarHandler} belongs to a {@link SharedJarCache} entry. */
+    private final boolean isShared;
+
     /** The default size of a file buffer. */
     private static final int DEFAULT_BUFFER_SIZE = 16384;
 
@@ -436,9 +500,25 @@ public class NestedJarHandler {
      */
     public NestedJarHandler(final ScanSpec scanSpec, final InterruptionChecker interruptionChecker,
             final ReflectionUtils reflectionUtils) {
+        this(scanSpec, interruptionChecker, reflectionUtils, /* isShared = */ false);
+    }
+
+    /**
+     * A handler for nested jars.
+     *
+     * @param scanSpec
+     *                            The {@link ScanSpec}.
+     * @param interruptionChecker
+     *                            the interruption checker
+     * @param isShared
+     *                            true if this handler belongs to a {@link SharedJarCache} entry.
+     */
+    NestedJarHandler(final ScanSpec scanSpec, final InterruptionChecker interruptionChecker,
+            final ReflectionUtils reflectionUtils, final boolean isShared) {
         this.scanSpec = scanSpec;
         this.interruptionChecker = interruptionChecker;
         this.reflectionUtils = reflectionUtils;
+        this.isShared = isShared;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -483,6 +563,7 @@ public class NestedJarHandler {
                 + sanitizeFilename(onlyUseLeafname ? leafname(filePathBase) : filePathBase));
         tempFile.deleteOnExit();
         tempFiles.add(tempFile);
+        numTempFilesCreated.increment();
         return tempFile;
     }
 
@@ -671,6 +752,15 @@ public class NestedJarHandler {
          */
         private final Inflater inflater = new Inflater(/* nowrap = */ true);
 
+        /**
+         * The buffer for raw (deflated) bytes, which is recycled with the {@link Inflater}, so that it is not
+         * allocated for each zip entry that is inflated.
+         */
+        private final byte[] inputBuf = new byte[INFLATE_BUF_SIZE];
+
+        /** The size of the buffer for raw (deflated) bytes. */
+        private static final int INFLATE_BUF_SIZE = 8192;
+
         /**
          * Get the {@link Inflater} instance.
          *
@@ -680,6 +770,15 @@ public class NestedJarHandler {
             return inflater;
         }
 
+        /**
+         * Get the buffer for raw (deflated) bytes.
+         *
+         * @return the buffer.
+         */
+        public byte[] getInputBuf() {
+            return inputBuf;
+        }
+
         /**
          * Called when an {@link Inflater} instance is recycled, to reset the inflater
          * so it can accept new input.
@@ -716,8 +815,7 @@ public class NestedJarHandler {
             private final RecyclableInflater recyclableInflater = inflaterRecycler.acquire();
             private final Inflater inflater = recyclableInflater.getInflater();
             private final AtomicBoolean closed = new AtomicBoolean();
-            private final byte[] buf = new byte[INFLATE_BUF_SIZE];
-            private static final int INFLATE_BUF_SIZE = 8192;
+            private final byte[] buf = recyclableInflater.getInputBuf();
 
             @Override
             public int read() throws IOException {
@@ -843,6 +941,7 @@ public class NestedJarHandler {
                     } catch (final Exception e) {
                         // Ignore
                     }
+                    bytesInflated.add(inflater.getBytesWritten());
                     // Reset and recycle inflater instance
                     inflaterRecycler.recycle(recyclableInflater);
                 }
@@ -961,6 +1060,7 @@ public class NestedJarHandler {
     private FileSlice spillToDisk(final InputStream inputStream, final String tempFileBaseName, final byte[] buf,
             final byte[] overflowBuf, final LogNode log) throws IOException {
         // Create temp file
+        final Object spillEvent = JfrEventType.TEMP_FILE_SPILL.begin();
         File tempFile;
         try {
             tempFile = makeTempFile(tempFileBaseName, /* onlyUseLeafname = */ true);
@@ -987,6 +1087,11 @@ public class NestedJarHandler {
             }
         }
 
+        if (spillEvent != null) {
+            JfrEventType.TEMP_FILE_SPILL.commit(spillEvent, tempFileBaseName, tempFile.getPath(),
+                    tempFile.length());
+        }
+
         // Return a new FileSlice for the temporary file
         return new FileSlice(tempFile, this, log);
     }
@@ -1082,6 +1187,23 @@ public class NestedJarHandler {
                 moduleRefToModuleReaderProxyRecyclerMap.clear();
                 moduleRefToModuleReaderProxyRecyclerMap = null;
             }
+            if (canonicalFileToSharedJarMap != null) {
+                // Release shared jarfiles rather than closing them, since they may be in use by other scans
+                List<SharedJarCache.CachedJar> cachedJars = null;
+                while (cachedJars == null) {
+                    try {
+                        cachedJars = canonicalFileToSharedJarMap.values();
+                    } catch (final InterruptedException e) {
+                        // Try again if interrupted
+                        interrupted = true;
+                    }
+                }
+                for (final SharedJarCache.CachedJar cachedJar : cachedJars) {
+                    SharedJarCache.release(cachedJar);
+                }
+                canonicalFileToSharedJarMap.clear();
+                canonicalFileToSharedJarMap = null;
+            }
             if (zipFileSliceToLogicalZipFileMap != null) {
                 zipFileSliceToLogicalZipFileMap.clear();
                 zipFileSliceToLogicalZipFileMap = null;
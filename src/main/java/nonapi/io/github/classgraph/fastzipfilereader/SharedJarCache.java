@@ -0,0 +1,290 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * A JVM-wide cache of opened toplevel jarfiles, shared between scans that call
+ * {@code ClassGraph#enableSharedJarCache()}. Each cached jarfile is owned by its own {@link NestedJarHandler},
+ * which holds the {@link PhysicalZipFile}, the {@link LogicalZipFile} (i.e. the parsed central directory), and
+ * any nested jarfiles extracted from the jarfile. Entries are reference counted, so that closing a
+ * {@code ScanResult} does not close a jarfile that is in use by another scan. Jarfiles that are not in use by any
+ * scan are evicted in least-recently-used order once their total size exceeds {@link #setMaxSize(long)}, and a
+ * jarfile is reopened if its size or last modified time has changed since it was cached.
+ */
+public final class SharedJarCache {
+    /** The default maximum total size of the cached jarfiles that are not in use by any scan. */
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    /** The maximum total size of the cached jarfiles that are not in use by any scan. */
+    private static long maxSize = DEFAULT_MAX_SIZE;
+
+    /** The cached jarfiles, in least-recently-used order. Guarded by the class lock. */
+    private static final Map<Key, CachedJar> cachedJars = new LinkedHashMap<>(16, 0.75f,
+            /* accessOrder = */ true);
+
+    /** The total size of the cached jarfiles that are not in use by any scan. Guarded by the class lock. */
+    private static long unusedSize;
+
+    /** Constructor. */
+    private SharedJarCache() {
+        // Cannot be constructed
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * The cache key. Jarfiles are only shared between scans that open jarfiles with the same options.
+     */
+    private static class Key {
+        /** The canonical file of the toplevel jarfile. */
+        private final File canonicalFile;
+
+        /** {@link ScanSpec#enableMemoryMapping}. */
+        private final boolean enableMemoryMapping;
+
+        /** {@link ScanSpec#enableMultiReleaseVersions}. */
+        private final boolean enableMultiReleaseVersions;
+
+        /** {@link ScanSpec#scanNestedJars}. */
+        private final boolean scanNestedJars;
+
+        /** {@link ScanSpec#maxBufferedJarRAMSize}. */
+        private final int maxBufferedJarRAMSize;
+
+        /**
+         * Constructor.
+         *
+         * @param canonicalFile
+         *            the canonical file of the toplevel jarfile
+         * @param scanSpec
+         *            the scan spec
+         */
+        Key(final File canonicalFile, final ScanSpec scanSpec) {
+            this.canonicalFile = canonicalFile;
+            this.enableMemoryMapping = scanSpec.enableMemoryMapping;
+            this.enableMultiReleaseVersions = scanSpec.enableMultiReleaseVersions;
+            this.scanNestedJars = scanSpec.scanNestedJars;
+            this.maxBufferedJarRAMSize = scanSpec.maxBufferedJarRAMSize;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return canonicalFile.equals(other.canonicalFile) && enableMemoryMapping == other.enableMemoryMapping
+                    && enableMultiReleaseVersions == other.enableMultiReleaseVersions
+                    && scanNestedJars == other.scanNestedJars
+                    && maxBufferedJarRAMSize == other.maxBufferedJarRAMSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(canonicalFile, enableMemoryMapping, enableMultiReleaseVersions, scanNestedJars,
+                    maxBufferedJarRAMSize);
+        }
+    }
+
+    /** A cached toplevel jarfile. */
+    static class CachedJar {
+        /** The {@link NestedJarHandler} that owns the jarfile and any nested jarfiles extracted from it. */
+        final NestedJarHandler nestedJarHandler;
+
+        /** The length of the jarfile when it was cached. */
+        private final long fileLength;
+
+        /** The last modified time of the jarfile when it was cached. */
+        private final long lastModified;
+
+        /** The number of scans using the jarfile. Guarded by the class lock. */
+        private int refCount;
+
+        /** True if the jarfile has been removed from the cache, and should be closed once it is no longer used. */
+        private boolean removed;
+
+        /**
+         * Constructor.
+         *
+         * @param key
+         *            the key
+         * @param reflectionUtils
+         *            the reflection utils
+         */
+        CachedJar(final Key key, final ReflectionUtils reflectionUtils) {
+            // Don't keep a reference to the caller's ScanSpec, only copy the options that affect jarfile opening
+            final ScanSpec scanSpec = new ScanSpec();
+            scanSpec.enableMemoryMapping = key.enableMemoryMapping;
+            scanSpec.enableMultiReleaseVersions = key.enableMultiReleaseVersions;
+            scanSpec.scanNestedJars = key.scanNestedJars;
+            scanSpec.maxBufferedJarRAMSize = key.maxBufferedJarRAMSize;
+            this.nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(), reflectionUtils,
+                    /* isShared = */ true);
+            this.fileLength = key.canonicalFile.length();
+            this.lastModified = key.canonicalFile.lastModified();
+        }
+
+        /**
+         * Check whether the jarfile has changed since it was cached.
+         *
+         * @param canonicalFile
+         *            the canonical file of the jarfile
+         * @return true if the jarfile has changed.
+         */
+        private boolean isStale(final File canonicalFile) {
+            return canonicalFile.length() != fileLength || canonicalFile.lastModified() != lastModified;
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the cached jarfile for a toplevel jarfile path, opening it if it is not cached or has changed since it
+     * was cached, and increment its reference count. Must be paired with a call to {@link #release(CachedJar)}.
+     *
+     * @param canonicalFile
+     *            the canonical file of the toplevel jarfile
+     * @param scanSpec
+     *            the scan spec
+     * @param reflectionUtils
+     *            the reflection utils
+     * @return the cached jarfile
+     */
+    static CachedJar acquire(final File canonicalFile, final ScanSpec scanSpec,
+            final ReflectionUtils reflectionUtils) {
+        final Key key = new Key(canonicalFile, scanSpec);
+        NestedJarHandler staleNestedJarHandler = null;
+        CachedJar cachedJar;
+        synchronized (SharedJarCache.class) {
+            cachedJar = cachedJars.get(key);
+            if (cachedJar != null && cachedJar.isStale(canonicalFile)) {
+                // Jarfile has changed -- remove it from the cache, and close it once it is no longer used
+                cachedJars.remove(key);
+                cachedJar.removed = true;
+                if (cachedJar.refCount == 0) {
+                    unusedSize -= cachedJar.fileLength;
+                    staleNestedJarHandler = cachedJar.nestedJarHandler;
+                }
+                cachedJar = null;
+            }
+            if (cachedJar == null) {
+                cachedJar = new CachedJar(key, reflectionUtils);
+                cachedJars.put(key, cachedJar);
+            } else if (cachedJar.refCount == 0) {
+                unusedSize -= cachedJar.fileLength;
+            }
+            cachedJar.refCount++;
+        }
+        if (staleNestedJarHandler != null) {
+            staleNestedJarHandler.close(/* log = */ null);
+        }
+        return cachedJar;
+    }
+
+    /**
+     * Decrement the reference count of a cached jarfile, closing it if it has been removed from the cache, or
+     * evicting unused jarfiles if the total size of the unused jarfiles exceeds the maximum size.
+     *
+     * @param cachedJar
+     *            the cached jarfile
+     */
+    static void release(final CachedJar cachedJar) {
+        final List<NestedJarHandler> toClose = new ArrayList<>();
+        synchronized (SharedJarCache.class) {
+            if (--cachedJar.refCount == 0) {
+                if (cachedJar.removed) {
+                    toClose.add(cachedJar.nestedJarHandler);
+                } else {
+                    unusedSize += cachedJar.fileLength;
+                    evict(toClose);
+                }
+            }
+        }
+        for (final NestedJarHandler nestedJarHandler : toClose) {
+            nestedJarHandler.close(/* log = */ null);
+        }
+    }
+
+    /**
+     * Remove unused jarfiles from the cache in least-recently-used order, until the total size of the unused
+     * jarfiles is no greater than the maximum size.
+     *
+     * @param toClose
+     *            the {@link NestedJarHandler} instances of the removed jarfiles, which the caller should close
+     *            after releasing the class lock.
+     */
+    private static void evict(final List<NestedJarHandler> toClose) {
+        for (final Iterator<CachedJar> iter = cachedJars.values().iterator(); unusedSize > maxSize
+                && iter.hasNext();) {
+            final CachedJar cachedJar = iter.next();
+            if (cachedJar.refCount == 0) {
+                iter.remove();
+                cachedJar.removed = true;
+                unusedSize -= cachedJar.fileLength;
+                toClose.add(cachedJar.nestedJarHandler);
+            }
+        }
+    }
+
+    /**
+     * Set the maximum total size of the cached jarfiles that are not in use by any scan. Unused jarfiles are
+     * closed in least-recently-used order once this size is exceeded. Setting the maximum size to zero closes all
+     * unused jarfiles.
+     *
+     * @param maxSizeBytes
+     *            the maximum size, in bytes.
+     */
+    public static void setMaxSize(final long maxSizeBytes) {
+        if (maxSizeBytes < 0L) {
+            throw new IllegalArgumentException("maxSizeBytes cannot be negative");
+        }
+        final List<NestedJarHandler> toClose = new ArrayList<>();
+        synchronized (SharedJarCache.class) {
+            maxSize = maxSizeBytes;
+            evict(toClose);
+        }
+        for (final NestedJarHandler nestedJarHandler : toClose) {
+            nestedJarHandler.close(/* log = */ null);
+        }
+    }
+}
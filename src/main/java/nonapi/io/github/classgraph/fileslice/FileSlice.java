@@ -156,6 +156,9 @@ public class FileSlice extends Slice {
                 }
             }
         }
+        if (backingByteBuffer != null) {
+            nestedJarHandler.memoryMappedBytes.add(fileLength);
+        }
 
         // Mark toplevel slice as open
         nestedJarHandler.markSliceAsOpen(this);
@@ -66,6 +66,12 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
     /** Buffer. */
     private byte[] arr;
 
+    /**
+     * True if {@link #arr} was allocated by this reader or passed in to be reused, rather than being the backing
+     * array of an {@link ArraySlice} (see {@link #getReusableBuffer()}).
+     */
+    private boolean arrIsReusable = true;
+
     /** The number of bytes used in arr. */
     private int arrUsed;
 
@@ -103,12 +109,30 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
      *             If an inflater cannot be opened on the {@link Slice}.
      */
     public ClassfileReader(final Slice slice, final Resource resourceToClose) throws IOException {
+        this(slice, resourceToClose, /* reusableBuf = */ null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param slice
+     *            the {@link Slice} to read.
+     * @param resourceToClose
+     *            the resource to close when {@link ClassfileReader#close()} is called, or null.
+     * @param reusableBuf
+     *            a buffer returned by {@link #getReusableBuffer()} for a previous reader that has been closed,
+     *            which is reused rather than allocating a new buffer, or null.
+     * @throws IOException
+     *             If an inflater cannot be opened on the {@link Slice}.
+     */
+    public ClassfileReader(final Slice slice, final Resource resourceToClose, final byte[] reusableBuf)
+            throws IOException {
         this.classfileLengthHint = (int) slice.sliceLength;
         this.resourceToClose = resourceToClose;
         if (slice.isDeflatedZipEntry) {
             // If this is a deflated slice, need to read from an InflaterInputStream to fill buffer
             inflaterInputStream = slice.open();
-            arr = new byte[INITIAL_BUF_SIZE];
+            arr = reusableBuf != null ? reusableBuf : new byte[INITIAL_BUF_SIZE];
             classfileLengthHint = (int) Math.min(slice.inflatedLengthHint, FileUtils.MAX_BUFFER_SIZE);
         } else {
             if (slice instanceof ArraySlice) {
@@ -118,6 +142,7 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
                 if (arraySlice.sliceStartPos == 0 && arraySlice.sliceLength == arraySlice.arr.length) {
                     // ArraySlice is the whole array
                     arr = arraySlice.arr;
+                    arrIsReusable = false;
                 } else {
                     // ArraySlice covers only a partial array, and this class doesn't support a starting
                     // offset, so copy the sliced part of the array to a new buffer
@@ -129,7 +154,7 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
             } else {
                 // Otherwise this is a FileSlice -- need to fetch chunks of bytes using a random access reader
                 randomAccessReader = slice.randomAccessReader();
-                arr = new byte[INITIAL_BUF_SIZE];
+                arr = reusableBuf != null ? reusableBuf : new byte[INITIAL_BUF_SIZE];
                 classfileLengthHint = (int) Math.min(slice.sliceLength, FileUtils.MAX_BUFFER_SIZE);
             }
         }
@@ -146,8 +171,26 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
      *             If an inflater cannot be opened on the {@link Slice}.
      */
     public ClassfileReader(final InputStream inputStream, final Resource resourceToClose) throws IOException {
+        this(inputStream, resourceToClose, /* reusableBuf = */ null);
+    }
+
+    /**
+     * Constructor for reader of module {@link InputStream} (which is not deflated).
+     * 
+     * @param inputStream
+     *            the {@link InputStream} to read from.
+     * @param resourceToClose
+     *            the underlying resource to close when {@link ClassfileReader#close()} is called, or null.
+     * @param reusableBuf
+     *            a buffer returned by {@link #getReusableBuffer()} for a previous reader that has been closed,
+     *            which is reused rather than allocating a new buffer, or null.
+     * @throws IOException
+     *             If an inflater cannot be opened on the {@link Slice}.
+     */
+    public ClassfileReader(final InputStream inputStream, final Resource resourceToClose,
+            final byte[] reusableBuf) throws IOException {
         inflaterInputStream = inputStream;
-        arr = new byte[INITIAL_BUF_SIZE];
+        arr = reusableBuf != null ? reusableBuf : new byte[INITIAL_BUF_SIZE];
         this.resourceToClose = resourceToClose;
     }
 
@@ -169,6 +212,17 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         return arr;
     }
 
+    /**
+     * Get the buffer of this reader so that it can be reused by a later reader, once this reader has been closed.
+     * The buffer may have grown since it was passed into the constructor.
+     *
+     * @return the buffer, or null if the buffer cannot be reused, because it is the backing array of an
+     *         {@link ArraySlice}.
+     */
+    public byte[] getReusableBuffer() {
+        return arrIsReusable ? arr : null;
+    }
+
     /**
      * Called when there is a buffer underrun to ensure there are sufficient bytes available in the array to read
      * the given number of bytes at the given start index.
@@ -195,18 +249,21 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         final int maxNewArrUsed = (int) Math.min(Math.max(targetArrUsed, (long) (arrUsed + BUF_CHUNK_SIZE)),
                 maxArrLen);
 
-        // Double the size of the array if it's too small to contain the new chunk of bytes
-        long newArrLength = arr.length;
-        while (newArrLength < maxNewArrUsed) {
-            newArrLength = Math.min(maxNewArrUsed, newArrLength * 2L);
-        }
-        if (newArrLength > FileUtils.MAX_BUFFER_SIZE) {
-            throw new IOException("Hit 2GB limit while trying to grow buffer array");
+        // Double the size of the array if it's too small to contain the new chunk of bytes (a reused array
+        // may already be larger than needed, in which case it is not copied)
+        if (arr.length < maxNewArrUsed) {
+            long newArrLength = arr.length;
+            while (newArrLength < maxNewArrUsed) {
+                newArrLength = Math.min(maxNewArrUsed, newArrLength * 2L);
+            }
+            if (newArrLength > FileUtils.MAX_BUFFER_SIZE) {
+                throw new IOException("Hit 2GB limit while trying to grow buffer array");
+            }
+            arr = Arrays.copyOf(arr, (int) Math.min(newArrLength, maxArrLen));
         }
-        arr = Arrays.copyOf(arr, (int) Math.min(newArrLength, maxArrLen));
 
         // Figure out the maximum number of bytes that can be read into the array
-        final int maxBytesToRead = arr.length - arrUsed;
+        final int maxBytesToRead = Math.min(arr.length, maxArrLen) - arrUsed;
 
         // Read a new chunk into the buffer, starting at position arrUsed
         if (inflaterInputStream != null) {
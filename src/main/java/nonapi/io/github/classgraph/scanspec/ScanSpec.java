@@ -35,6 +35,8 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -134,6 +136,12 @@ public class ScanSpec {
     /** If true, enables the determination of inter-class dependencies. */
     public boolean enableInterClassDependencies;
 
+    /**
+     * If true, enables the extraction of the methods called by each method from the bytecode of the method, which
+     * can be obtained using {@code MethodInfo#getCalledMethods()}.
+     */
+    public boolean enableMethodCallGraph;
+
     /**
      * If true, allow external classes (classes outside of accepted packages) to be returned in the ScanResult, if
      * they are directly referred to by an accepted class, as a superclass, implemented interface or annotation.
@@ -267,6 +275,71 @@ public class ScanSpec {
     /** If true, all multi-release versions of a resource are found. */
     public boolean enableMultiReleaseVersions;
 
+    /** If true, run worker tasks on virtual threads, if the JDK supports them. */
+    public boolean enableVirtualThreads;
+
+    /**
+     * If true, start scanning the classfiles of each classpath element while paths are still being scanned in
+     * later classpath elements.
+     */
+    public boolean enablePipelinedScan;
+
+    /**
+     * If true, adjust the number of active worker threads in each stage of the scan according to the measured
+     * throughput, starting from the number of available CPUs.
+     */
+    public boolean enableAdaptiveConcurrency;
+
+    /**
+     * The maximum number of classfiles from the same jarfile that are scanned by a worker as a single work unit, in
+     * the order of their local headers within the jarfile, or 1 to schedule each classfile as its own work unit.
+     */
+    public int classfileBatchSize = 32;
+
+    /**
+     * The maximum time to spend scanning, in nanoseconds, or 0 for no limit. Once this time has passed, no new
+     * classpath elements or classfiles are scanned, and a partial scan result is returned. (Transient, since a
+     * deserialized scan result is never partial, and the deadline should not apply to the classpath scan that is
+     * performed on deserialization.)
+     */
+    public transient long scanDeadlineNanos;
+
+    /**
+     * If true, retain the parsed classfiles after the scan, so that unchanged classfiles do not need to be parsed
+     * again by {@code ScanResult#rescan()}.
+     */
+    public boolean enableIncrementalRescan;
+
+    /**
+     * If true, only parse class-level information while scanning, and defer parsing the fields and methods of each
+     * class until they are first accessed.
+     */
+    public boolean enableLazyMemberInfo;
+
+    /**
+     * If true, open local jarfiles through the JVM-wide shared jarfile cache, so that the jarfiles and their
+     * central directories can be reused by other scans.
+     */
+    public boolean enableSharedJarCache;
+
+    /**
+     * If non-null, the names of the classes that an accepted class must reference in its constant pool, as a class
+     * reference or a type descriptor, in order to be scanned.
+     */
+    public List<String> classReferencePrefilter;
+
+    /** The internal names and type descriptors of {@link #classReferencePrefilter}, as UTF-8 bytes. */
+    private transient byte[][] classReferencePrefilterUTF8;
+
+    /** The directory in which to cache the parsed contents of classfiles in jarfiles, or null for no cache. */
+    public transient Path persistentCacheDir;
+
+    /**
+     * If true, ignore any precomputed index of parsed classfiles stored in a jarfile at
+     * {@code META-INF/classgraph/index.bin}, and always parse the classfiles in the jarfile.
+     */
+    public boolean disableJarIndex;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** Constructor for deserialization. */
@@ -289,6 +362,29 @@ public class ScanSpec {
         }
     }
 
+    /**
+     * Get the internal names (e.g. {@code "com/foo/Bar"}) and type descriptors (e.g. {@code "Lcom/foo/Bar;"}) of
+     * the classes in {@link #classReferencePrefilter}, as UTF-8 bytes, for comparison against the strings in the
+     * constant pool of a classfile.
+     *
+     * @return the internal names and type descriptors, as UTF-8 bytes, or null if there is no prefilter.
+     */
+    public byte[][] getClassReferencePrefilterUTF8() {
+        if (classReferencePrefilter == null) {
+            return null;
+        }
+        if (classReferencePrefilterUTF8 == null) {
+            final byte[][] utf8 = new byte[classReferencePrefilter.size() * 2][];
+            for (int i = 0; i < classReferencePrefilter.size(); i++) {
+                final String internalName = classReferencePrefilter.get(i).replace('.', '/');
+                utf8[i * 2] = internalName.getBytes(StandardCharsets.UTF_8);
+                utf8[i * 2 + 1] = ("L" + internalName + ";").getBytes(StandardCharsets.UTF_8);
+            }
+            classReferencePrefilterUTF8 = utf8;
+        }
+        return classReferencePrefilterUTF8;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -527,6 +623,39 @@ public class ScanSpec {
         return ScanSpecPathMatch.NOT_WITHIN_ACCEPTED_PATH;
     }
 
+    /**
+     * Returns true if a resource with the given relative path is accepted by the path, package and class
+     * accept/reject criteria, i.e. if the resource would be found when scanning paths (not taking into account
+     * the accept/reject criteria for classpath elements).
+     *
+     * @param relativePath
+     *            the relative path of the resource
+     * @return true if the resource is accepted.
+     */
+    public boolean resourcePathIsAccepted(final String relativePath) {
+        final int lastSlashIdx = relativePath.lastIndexOf('/');
+        final String parentRelativePath = lastSlashIdx < 0 ? "/" : relativePath.substring(0, lastSlashIdx + 1);
+        final ScanSpecPathMatch parentMatchStatus = dirAcceptMatchStatus(parentRelativePath);
+        return parentMatchStatus == ScanSpecPathMatch.HAS_ACCEPTED_PATH_PREFIX
+                || parentMatchStatus == ScanSpecPathMatch.AT_ACCEPTED_PATH
+                || (parentMatchStatus == ScanSpecPathMatch.AT_ACCEPTED_CLASS_PACKAGE
+                        && classfileIsSpecificallyAccepted(relativePath));
+    }
+
+    /**
+     * Returns true if a resource with the given relative path is within a rejected path or package, i.e. if the
+     * resource would be skipped when scanning paths, so that scanning cannot be extended upwards to the resource.
+     *
+     * @param relativePath
+     *            the relative path of the resource
+     * @return true if the resource is rejected.
+     */
+    public boolean resourcePathIsRejected(final String relativePath) {
+        final int lastSlashIdx = relativePath.lastIndexOf('/');
+        final String parentRelativePath = lastSlashIdx < 0 ? "/" : relativePath.substring(0, lastSlashIdx + 1);
+        return dirAcceptMatchStatus(parentRelativePath) == ScanSpecPathMatch.HAS_REJECTED_PATH_PREFIX;
+    }
+
     /**
      * Returns true if the given relative path (for a classfile name, including ".class") matches a
      * specifically-accepted (and non-rejected) classfile's relative path.
@@ -0,0 +1,234 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.scanspec;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The union of the scanning specifications of several scans that are performed together, in a single pass over
+ * the classpath. A path is accepted if it is accepted by any of the scans, and classfiles are parsed with the
+ * union of the information requested by the scans, so that the result of each scan can be produced from the
+ * classfiles parsed by the single pass. All options other than the path, package and class accept/reject
+ * criteria, the visibility options and the types of information to scan must be the same for all of the scans.
+ */
+public class UnionScanSpec extends ScanSpec {
+    /** The scan specs of the individual scans. */
+    private final List<ScanSpec> scanSpecs;
+
+    /**
+     * The names of the fields that hold the path, package and class accept/reject criteria, which are left empty
+     * in the union, since paths and classes are matched against the criteria of each individual scan.
+     */
+    private static final Set<String> ACCEPT_REJECT_FIELD_NAMES = new HashSet<>(Arrays.asList(
+            "packageAcceptReject", "packagePrefixAcceptReject", "pathAcceptReject", "pathPrefixAcceptReject",
+            "classAcceptReject", "classfilePathAcceptReject", "classPackageAcceptReject",
+            "classPackagePathAcceptReject"));
+
+    /** The names of the boolean fields that are true in the union if they are true for any individual scan. */
+    private static final Set<String> UNION_FIELD_NAMES = new HashSet<>(Arrays.asList("enableClassInfo",
+            "enableFieldInfo", "enableMethodInfo", "enableAnnotationInfo",
+            "enableStaticFinalFieldConstantInitializerValues", "enableInterClassDependencies",
+            "enableMethodCallGraph", "enableExternalClasses", "ignoreClassVisibility", "ignoreFieldVisibility",
+            "ignoreMethodVisibility", "enableClassAccessibility", "enableFieldAccessibility",
+            "enableMethodAccessibility", "extendScanningUpwardsToExternalClasses"));
+
+    /**
+     * The names of the fields that are copied from the first scan spec without comparison, since they describe
+     * the running JVM rather than the scan.
+     */
+    private static final Set<String> JVM_FIELD_NAMES = new HashSet<>(Arrays.asList("modulePathInfo"));
+
+    /**
+     * Constructor.
+     *
+     * @param scanSpecs
+     *            the scan specs of the individual scans
+     * @throws IllegalArgumentException
+     *             if there are no scan specs, or the scan specs differ in an option that must be the same for all
+     *             of the scans.
+     */
+    public UnionScanSpec(final List<ScanSpec> scanSpecs) {
+        if (scanSpecs.isEmpty()) {
+            throw new IllegalArgumentException("No scans to perform");
+        }
+        this.scanSpecs = Collections.unmodifiableList(new ArrayList<>(scanSpecs));
+        final ScanSpec firstScanSpec = scanSpecs.get(0);
+        for (final Field field : ScanSpec.class.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)
+                    || ACCEPT_REJECT_FIELD_NAMES.contains(field.getName())) {
+                continue;
+            }
+            try {
+                if (UNION_FIELD_NAMES.contains(field.getName())) {
+                    boolean value = false;
+                    for (final ScanSpec scanSpec : scanSpecs) {
+                        value |= field.getBoolean(scanSpec);
+                    }
+                    field.setBoolean(this, value);
+                } else if (JVM_FIELD_NAMES.contains(field.getName())) {
+                    field.set(this, field.get(firstScanSpec));
+                } else {
+                    final Object value = field.get(firstScanSpec);
+                    for (final ScanSpec scanSpec : scanSpecs) {
+                        if (!valuesAreEqual(value, field.get(scanSpec))) {
+                            throw new IllegalArgumentException("Scans that are performed together must have the "
+                                    + "same options, other than accepted and rejected paths, packages and "
+                                    + "classes, visibility options, and the types of information to scan, but "
+                                    + "the option \"" + field.getName() + "\" differs");
+                        }
+                    }
+                    field.set(this, value);
+                }
+            } catch (final IllegalAccessException e) {
+                throw new RuntimeException("Field is not accessible: " + field, e);
+            }
+        }
+        if (enableIncrementalRescan) {
+            throw new IllegalArgumentException("Scans that are performed together cannot be rescanned");
+        }
+    }
+
+    /**
+     * Check whether two option values are equal. Accept/reject criteria are compared by their string
+     * representation.
+     *
+     * @param value1
+     *            the first value
+     * @param value2
+     *            the second value
+     * @return true if the values are equal.
+     */
+    private static boolean valuesAreEqual(final Object value1, final Object value2) {
+        if (value1 == value2) {
+            return true;
+        } else if (value1 == null || value2 == null) {
+            return false;
+        } else if (value1 instanceof AcceptReject && value2 instanceof AcceptReject) {
+            return value1.toString().equals(value2.toString());
+        } else {
+            return value1.equals(value2);
+        }
+    }
+
+    /**
+     * Get the scan specs of the individual scans.
+     *
+     * @return the scan specs of the individual scans, in the order they were provided.
+     */
+    public List<ScanSpec> getScanSpecs() {
+        return scanSpecs;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /* (non-Javadoc)
+     * @see nonapi.io.github.classgraph.scanspec.ScanSpec#sortPrefixes()
+     */
+    @Override
+    public void sortPrefixes() {
+        super.sortPrefixes();
+        for (final ScanSpec scanSpec : scanSpecs) {
+            scanSpec.sortPrefixes();
+        }
+    }
+
+    /**
+     * Get the relative priority of a {@link ScanSpecPathMatch}, so that the union of several scans can descend
+     * into a directory if any of the scans needs to, and can accept the files in the directory if any of the scans
+     * accepts them.
+     *
+     * @param match
+     *            the {@link ScanSpecPathMatch}
+     * @return the priority
+     */
+    private static int getPriority(final ScanSpecPathMatch match) {
+        switch (match) {
+        case HAS_ACCEPTED_PATH_PREFIX:
+        case AT_ACCEPTED_PATH:
+            return 4;
+        case AT_ACCEPTED_CLASS_PACKAGE:
+            return 3;
+        case ANCESTOR_OF_ACCEPTED_PATH:
+            return 2;
+        case NOT_WITHIN_ACCEPTED_PATH:
+            return 1;
+        default:
+            return 0;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see nonapi.io.github.classgraph.scanspec.ScanSpec#dirAcceptMatchStatus(java.lang.String)
+     */
+    @Override
+    public ScanSpecPathMatch dirAcceptMatchStatus(final String relativePath) {
+        ScanSpecPathMatch bestMatch = null;
+        for (final ScanSpec scanSpec : scanSpecs) {
+            final ScanSpecPathMatch match = scanSpec.dirAcceptMatchStatus(relativePath);
+            if (bestMatch == null || getPriority(match) > getPriority(bestMatch)) {
+                bestMatch = match;
+            }
+        }
+        return bestMatch;
+    }
+
+    /* (non-Javadoc)
+     * @see nonapi.io.github.classgraph.scanspec.ScanSpec#classfileIsSpecificallyAccepted(java.lang.String)
+     */
+    @Override
+    public boolean classfileIsSpecificallyAccepted(final String relativePath) {
+        for (final ScanSpec scanSpec : scanSpecs) {
+            if (scanSpec.classfileIsSpecificallyAccepted(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* (non-Javadoc)
+     * @see nonapi.io.github.classgraph.scanspec.ScanSpec#classOrPackageIsRejected(java.lang.String)
+     */
+    @Override
+    public boolean classOrPackageIsRejected(final String className) {
+        for (final ScanSpec scanSpec : scanSpecs) {
+            if (!scanSpec.classOrPackageIsRejected(className)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reads the compact binary encoding written by {@link BinaryWriter} from a range of a byte array. */
+public class BinaryReader {
+    /** The buffer. */
+    private final byte[] buf;
+
+    /** The current read position. */
+    private int pos;
+
+    /** The end of the range to read. */
+    private final int end;
+
+    /** The string table. */
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param buf
+     *            the buffer
+     * @param off
+     *            the start offset of the range to read
+     * @param len
+     *            the length of the range to read
+     */
+    public BinaryReader(final byte[] buf, final int off, final int len) {
+        if (off < 0 || len < 0 || off + len > buf.length || off + len < 0) {
+            throw new IllegalArgumentException("Range out of bounds");
+        }
+        this.buf = buf;
+        this.pos = off;
+        this.end = off + len;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param buf
+     *            the buffer to read
+     */
+    public BinaryReader(final byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Make sure the given number of bytes can be read.
+     *
+     * @param numBytes
+     *            the number of bytes
+     * @throws EOFException
+     *             if there are not enough bytes left.
+     */
+    private void checkAvailable(final int numBytes) throws EOFException {
+        if (numBytes < 0 || numBytes > end - pos) {
+            throw new EOFException("Unexpected end of data");
+        }
+    }
+
+    /**
+     * Read a byte.
+     *
+     * @return the byte
+     * @throws IOException
+     *             if there are no bytes left.
+     */
+    public byte readByte() throws IOException {
+        checkAvailable(1);
+        return buf[pos++];
+    }
+
+    /**
+     * Read an unsigned byte.
+     *
+     * @return the unsigned byte
+     * @throws IOException
+     *             if there are no bytes left.
+     */
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xff;
+    }
+
+    /**
+     * Read a boolean.
+     *
+     * @return the boolean
+     * @throws IOException
+     *             if there are no bytes left.
+     */
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Read a 4-byte big-endian int.
+     *
+     * @return the int
+     * @throws IOException
+     *             if there are not enough bytes left.
+     */
+    public int readInt() throws IOException {
+        checkAvailable(4);
+        final int val = ((buf[pos] & 0xff) << 24) | ((buf[pos + 1] & 0xff) << 16) | ((buf[pos + 2] & 0xff) << 8)
+                | (buf[pos + 3] & 0xff);
+        pos += 4;
+        return val;
+    }
+
+    /**
+     * Read an 8-byte big-endian long.
+     *
+     * @return the long
+     * @throws IOException
+     *             if there are not enough bytes left.
+     */
+    public long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xffffffffL);
+    }
+
+    /**
+     * Read an unsigned variable-length int.
+     *
+     * @return the int
+     * @throws IOException
+     *             if there are not enough bytes left, or the varint is malformed.
+     */
+    public int readVarInt() throws IOException {
+        if (pos < end && buf[pos] >= 0) {
+            // Fast path for single-byte varints, which are the most common case
+            return buf[pos++];
+        }
+        int val = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos >= end) {
+                throw new EOFException("Unexpected end of data");
+            }
+            final int b = buf[pos++];
+            val |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return val;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Read an unsigned variable-length long.
+     *
+     * @return the long
+     * @throws IOException
+     *             if there are not enough bytes left, or the varint is malformed.
+     */
+    public long readVarLong() throws IOException {
+        long val = 0L;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final int b = readByte();
+            val |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return val;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Read a zigzag-encoded signed variable-length int.
+     *
+     * @return the int
+     * @throws IOException
+     *             if there are not enough bytes left, or the varint is malformed.
+     */
+    public int readSignedVarInt() throws IOException {
+        final int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Read a zigzag-encoded signed variable-length long.
+     *
+     * @return the long
+     * @throws IOException
+     *             if there are not enough bytes left, or the varint is malformed.
+     */
+    public long readSignedVarLong() throws IOException {
+        final long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1L);
+    }
+
+    /**
+     * Read a non-negative variable-length int, e.g. the size of an array or a collection.
+     *
+     * @return the int
+     * @throws IOException
+     *             if there are not enough bytes left, or the value is negative or larger than the number of bytes
+     *             left, so that a corrupted value cannot cause a huge allocation.
+     */
+    public int readCount() throws IOException {
+        final int count = readVarInt();
+        if (count < 0 || count > end - pos) {
+            throw new IOException("Count out of range: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Read a string written by {@link BinaryWriter#writeString(String)}.
+     *
+     * @return the string, or null.
+     * @throws IOException
+     *             if there are not enough bytes left, or the string table index is invalid.
+     */
+    public String readString() throws IOException {
+        final int tag = readVarInt();
+        if (tag == 0) {
+            return null;
+        } else if (tag == 1) {
+            final int len = readCount();
+            int asciiEnd = pos;
+            while (asciiEnd < pos + len && buf[asciiEnd] >= 0) {
+                asciiEnd++;
+            }
+            final String str;
+            if (asciiEnd == pos + len) {
+                // Fast path for ASCII strings, where each char was written as a single byte
+                str = new String(buf, pos, len, StandardCharsets.ISO_8859_1);
+                pos += len;
+            } else {
+                final char[] chars = new char[len];
+                for (int i = 0; i < len; i++) {
+                    chars[i] = (char) readVarInt();
+                }
+                str = new String(chars);
+            }
+            strings.add(str);
+            return str;
+        } else {
+            final int idx = tag - 2;
+            if (idx < 0 || idx >= strings.size()) {
+                throw new IOException("String table index out of range: " + idx);
+            }
+            return strings.get(idx);
+        }
+    }
+
+    /**
+     * Read bytes into a new array.
+     *
+     * @param len
+     *            the number of bytes to read
+     * @return the bytes
+     * @throws IOException
+     *             if there are not enough bytes left.
+     */
+    public byte[] readBytes(final int len) throws IOException {
+        checkAvailable(len);
+        final byte[] arr = new byte[len];
+        System.arraycopy(buf, pos, arr, 0, len);
+        pos += len;
+        return arr;
+    }
+
+    /**
+     * Skip bytes.
+     *
+     * @param len
+     *            the number of bytes to skip
+     * @throws IOException
+     *             if there are not enough bytes left.
+     */
+    public void skip(final int len) throws IOException {
+        checkAvailable(len);
+        pos += len;
+    }
+
+    /**
+     * Get the current read position within the buffer.
+     *
+     * @return the current read position.
+     */
+    public int getPosition() {
+        return pos;
+    }
+
+    /**
+     * Get the buffer.
+     *
+     * @return the buffer.
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * Check whether all bytes in the range have been read.
+     *
+     * @return true if all bytes in the range have been read.
+     */
+    public boolean isAtEnd() {
+        return pos >= end;
+    }
+}
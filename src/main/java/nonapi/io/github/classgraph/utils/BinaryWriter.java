@@ -0,0 +1,264 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a compact binary encoding of primitive values and strings to a growable byte array. Integers can be
+ * written as variable-length integers, and strings are written to a string table, so that each distinct string is
+ * only written out once. The encoding is read back using {@link BinaryReader}.
+ */
+public class BinaryWriter {
+    /** The buffer. */
+    private byte[] buf;
+
+    /** The number of bytes written. */
+    private int size;
+
+    /** Map from string to its index in the string table. */
+    private final Map<String, Integer> stringToIndex = new HashMap<>();
+
+    /** Constructor. */
+    public BinaryWriter() {
+        buf = new byte[256];
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Make sure there is space in the buffer for the given number of additional bytes.
+     *
+     * @param numBytes
+     *            the number of additional bytes
+     */
+    private void ensureCapacity(final int numBytes) {
+        final int minCapacity = size + numBytes;
+        if (minCapacity < 0 || minCapacity > FileUtils.MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer too large");
+        }
+        if (minCapacity > buf.length) {
+            buf = Arrays.copyOf(buf, (int) Math.min(FileUtils.MAX_BUFFER_SIZE,
+                    Math.max(minCapacity, buf.length * 2L)));
+        }
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param b
+     *            the byte
+     */
+    public void writeByte(final int b) {
+        ensureCapacity(1);
+        buf[size++] = (byte) b;
+    }
+
+    /**
+     * Write a boolean.
+     *
+     * @param b
+     *            the boolean
+     */
+    public void writeBoolean(final boolean b) {
+        writeByte(b ? 1 : 0);
+    }
+
+    /**
+     * Write an int as 4 bytes, in big-endian order.
+     *
+     * @param val
+     *            the int
+     */
+    public void writeInt(final int val) {
+        ensureCapacity(4);
+        buf[size++] = (byte) (val >>> 24);
+        buf[size++] = (byte) (val >>> 16);
+        buf[size++] = (byte) (val >>> 8);
+        buf[size++] = (byte) val;
+    }
+
+    /**
+     * Write a long as 8 bytes, in big-endian order.
+     *
+     * @param val
+     *            the long
+     */
+    public void writeLong(final long val) {
+        writeInt((int) (val >>> 32));
+        writeInt((int) val);
+    }
+
+    /**
+     * Write an unsigned variable-length int, using 7 bits per byte. Small non-negative values take up one byte,
+     * negative values take up 5 bytes.
+     *
+     * @param val
+     *            the int
+     */
+    public void writeVarInt(final int val) {
+        ensureCapacity(5);
+        int v = val;
+        while ((v & ~0x7f) != 0) {
+            buf[size++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    /**
+     * Write an unsigned variable-length long, using 7 bits per byte.
+     *
+     * @param val
+     *            the long
+     */
+    public void writeVarLong(final long val) {
+        ensureCapacity(10);
+        long v = val;
+        while ((v & ~0x7fL) != 0L) {
+            buf[size++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    /**
+     * Write a signed variable-length int, using zigzag encoding so that values of small magnitude take up one
+     * byte, whether positive or negative.
+     *
+     * @param val
+     *            the int
+     */
+    public void writeSignedVarInt(final int val) {
+        writeVarInt((val << 1) ^ (val >> 31));
+    }
+
+    /**
+     * Write a signed variable-length long, using zigzag encoding so that values of small magnitude take up one
+     * byte, whether positive or negative.
+     *
+     * @param val
+     *            the long
+     */
+    public void writeSignedVarLong(final long val) {
+        writeVarLong((val << 1) ^ (val >> 63));
+    }
+
+    /**
+     * Write a range of a byte array.
+     *
+     * @param arr
+     *            the array
+     * @param off
+     *            the start offset
+     * @param len
+     *            the number of bytes to write
+     */
+    public void writeBytes(final byte[] arr, final int off, final int len) {
+        ensureCapacity(len);
+        System.arraycopy(arr, off, buf, size, len);
+        size += len;
+    }
+
+    /**
+     * Write a string, which may be null. The first time a string is written, its characters are written inline,
+     * and the string is added to the string table. Subsequent writes of the same string only write the index of
+     * the string in the string table.
+     *
+     * @param str
+     *            the string, or null
+     */
+    public void writeString(final String str) {
+        if (str == null) {
+            writeVarInt(0);
+            return;
+        }
+        final Integer idx = stringToIndex.get(str);
+        if (idx != null) {
+            writeVarInt(idx + 2);
+            return;
+        }
+        stringToIndex.put(str, stringToIndex.size());
+        writeVarInt(1);
+        final int len = str.length();
+        writeVarInt(len);
+        // Write each char as a varint, so that ASCII chars take up one byte, and so that unpaired surrogates
+        // (which are allowed in classfile strings) are preserved
+        ensureCapacity(len * 3);
+        for (int i = 0; i < len; i++) {
+            final char c = str.charAt(i);
+            if (c < 0x80) {
+                buf[size++] = (byte) c;
+            } else if (c < 0x4000) {
+                buf[size++] = (byte) ((c & 0x7f) | 0x80);
+                buf[size++] = (byte) (c >>> 7);
+            } else {
+                buf[size++] = (byte) ((c & 0x7f) | 0x80);
+                buf[size++] = (byte) (((c >>> 7) & 0x7f) | 0x80);
+                buf[size++] = (byte) (c >>> 14);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the number of bytes written.
+     *
+     * @return the number of bytes written.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the bytes written, as a new array.
+     *
+     * @return the bytes written.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    /**
+     * Write the bytes written to this writer to an {@link OutputStream}.
+     *
+     * @param outputStream
+     *            the output stream
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        outputStream.write(buf, 0, size);
+    }
+}
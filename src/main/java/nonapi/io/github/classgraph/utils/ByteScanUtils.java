@@ -0,0 +1,489 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Byte array scanning utilities. On JDK 9+, where reading a long from a heap {@link ByteBuffer} compiles to a
+ * single unaligned load, these read 8 bytes at a time and test all 8 bytes at once with bitwise arithmetic
+ * ("SIMD within a register"). On older JDKs, they fall back to scanning one byte at a time.
+ */
+public final class ByteScanUtils {
+    /** True if 8 bytes at a time should be read from byte arrays. */
+    private static final boolean USE_SWAR = VersionFinder.JAVA_MAJOR_VERSION >= 9;
+
+    /** The byte 0x01 in each byte of a long. */
+    private static final long ONES = 0x0101010101010101L;
+
+    /** The high bit of each byte of a long. */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /** The byte '\r' in each byte of a long. */
+    private static final long CR_BYTES = '\r' * ONES;
+
+    /** The byte '\n' in each byte of a long. */
+    private static final long LF_BYTES = '\n' * ONES;
+
+    /**
+     * Constructor.
+     */
+    private ByteScanUtils() {
+        // Cannot be constructed
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Wrap a byte array in a little-endian {@link ByteBuffer}, so that the byte at the lowest index of a long
+     * read from the buffer is in the lowest 8 bits of the long.
+     *
+     * @param arr
+     *            the array
+     * @return the {@link ByteBuffer}
+     */
+    private static ByteBuffer littleEndian(final byte[] arr) {
+        return ByteBuffer.wrap(arr).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Find the zero bytes of a long. The lowest zero byte is always marked correctly, and every zero byte is
+     * marked, but a 0x01 byte above a zero byte may also be marked, so any byte other than the lowest marked byte
+     * needs to be checked.
+     *
+     * @param v
+     *            the long
+     * @return the long, with the high bit of each zero byte set, and all other bits clear (other than for the
+     *         false positives described above).
+     */
+    private static long zeroBytes(final long v) {
+        return (v - ONES) & ~v & HIGH_BITS;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Find the first line ending ('\r' or '\n') in a range of a byte array.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @return the index of the first '\r' or '\n' byte in the range, or toIdx if there is none.
+     */
+    public static int indexOfLineEnd(final byte[] arr, final int fromIdx, final int toIdx) {
+        return USE_SWAR ? indexOfLineEndSWAR(arr, fromIdx, toIdx) : indexOfLineEndScalar(arr, fromIdx, toIdx);
+    }
+
+    /**
+     * Scalar implementation of {@link #indexOfLineEnd(byte[], int, int)}.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @return the index of the first '\r' or '\n' byte in the range, or toIdx if there is none.
+     */
+    static int indexOfLineEndScalar(final byte[] arr, final int fromIdx, final int toIdx) {
+        for (int i = fromIdx; i < toIdx; i++) {
+            final byte b = arr[i];
+            if (b == (byte) '\r' || b == (byte) '\n') {
+                return i;
+            }
+        }
+        return toIdx;
+    }
+
+    /**
+     * SWAR implementation of {@link #indexOfLineEnd(byte[], int, int)}.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @return the index of the first '\r' or '\n' byte in the range, or toIdx if there is none.
+     */
+    static int indexOfLineEndSWAR(final byte[] arr, final int fromIdx, final int toIdx) {
+        int i = fromIdx;
+        if (toIdx - i >= 8) {
+            final ByteBuffer buf = littleEndian(arr);
+            for (; i <= toIdx - 8; i += 8) {
+                final long v = buf.getLong(i);
+                // The lowest marked byte of each mask is exact, so the lowest marked byte of the union is too
+                final long found = zeroBytes(v ^ CR_BYTES) | zeroBytes(v ^ LF_BYTES);
+                if (found != 0L) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        return indexOfLineEndScalar(arr, i, toIdx);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Find the first byte in a range of a byte array that is not a nonzero ASCII character. The zero byte is
+     * treated as non-ASCII, since it is not valid in the modified UTF8 encoding used by classfiles.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @return the index of the first byte in the range that is zero or greater than 127, or toIdx if there is
+     *         none.
+     */
+    public static int indexOfNonASCII(final byte[] arr, final int fromIdx, final int toIdx) {
+        return USE_SWAR ? indexOfNonASCIISWAR(arr, fromIdx, toIdx) : indexOfNonASCIIScalar(arr, fromIdx, toIdx);
+    }
+
+    /**
+     * Scalar implementation of {@link #indexOfNonASCII(byte[], int, int)}.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @return the index of the first byte in the range that is zero or greater than 127, or toIdx if there is
+     *         none.
+     */
+    static int indexOfNonASCIIScalar(final byte[] arr, final int fromIdx, final int toIdx) {
+        for (int i = fromIdx; i < toIdx; i++) {
+            if (arr[i] <= 0) {
+                return i;
+            }
+        }
+        return toIdx;
+    }
+
+    /**
+     * SWAR implementation of {@link #indexOfNonASCII(byte[], int, int)}.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @return the index of the first byte in the range that is zero or greater than 127, or toIdx if there is
+     *         none.
+     */
+    static int indexOfNonASCIISWAR(final byte[] arr, final int fromIdx, final int toIdx) {
+        int i = fromIdx;
+        if (toIdx - i >= 8) {
+            final ByteBuffer buf = littleEndian(arr);
+            for (; i <= toIdx - 8; i += 8) {
+                final long v = buf.getLong(i);
+                final long found = (v & HIGH_BITS) | zeroBytes(v);
+                if (found != 0L) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        return indexOfNonASCIIScalar(arr, i, toIdx);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Find the first occurrence of a byte in a range of a byte array.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @param b
+     *            the byte to find
+     * @return the index of the first occurrence of the byte in the range, or toIdx if there is none.
+     */
+    public static int indexOf(final byte[] arr, final int fromIdx, final int toIdx, final byte b) {
+        return USE_SWAR ? indexOfSWAR(arr, fromIdx, toIdx, b) : indexOfScalar(arr, fromIdx, toIdx, b);
+    }
+
+    /**
+     * Scalar implementation of {@link #indexOf(byte[], int, int, byte)}.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @param b
+     *            the byte to find
+     * @return the index of the first occurrence of the byte in the range, or toIdx if there is none.
+     */
+    static int indexOfScalar(final byte[] arr, final int fromIdx, final int toIdx, final byte b) {
+        for (int i = fromIdx; i < toIdx; i++) {
+            if (arr[i] == b) {
+                return i;
+            }
+        }
+        return toIdx;
+    }
+
+    /**
+     * SWAR implementation of {@link #indexOf(byte[], int, int, byte)}.
+     *
+     * @param arr
+     *            the array
+     * @param fromIdx
+     *            the start index of the range (inclusive)
+     * @param toIdx
+     *            the end index of the range (exclusive)
+     * @param b
+     *            the byte to find
+     * @return the index of the first occurrence of the byte in the range, or toIdx if there is none.
+     */
+    static int indexOfSWAR(final byte[] arr, final int fromIdx, final int toIdx, final byte b) {
+        int i = fromIdx;
+        if (toIdx - i >= 8) {
+            final ByteBuffer buf = littleEndian(arr);
+            final long bytes = (b & 0xffL) * ONES;
+            for (; i <= toIdx - 8; i += 8) {
+                final long found = zeroBytes(buf.getLong(i) ^ bytes);
+                if (found != 0L) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        return indexOfScalar(arr, i, toIdx, b);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Find the last occurrence of a 32-bit little-endian value (such as a zipfile record signature) in a byte
+     * array, starting at or below a given index.
+     *
+     * @param arr
+     *            the array
+     * @param minIdx
+     *            the lowest index at which the value may start
+     * @param maxIdx
+     *            the highest index at which the value may start (at most {@code arr.length - 4})
+     * @param value
+     *            the value to find
+     * @return the highest index in the range [minIdx, maxIdx] at which the value starts, or -1 if there is none.
+     */
+    public static int lastIndexOfIntLE(final byte[] arr, final int minIdx, final int maxIdx, final int value) {
+        if (maxIdx > arr.length - 4) {
+            throw new IllegalArgumentException("maxIdx out of range");
+        }
+        return USE_SWAR ? lastIndexOfIntLESWAR(arr, minIdx, maxIdx, value)
+                : lastIndexOfIntLEScalar(arr, minIdx, maxIdx, value);
+    }
+
+    /**
+     * Check whether a 32-bit little-endian value starts at a given index of a byte array.
+     *
+     * @param arr
+     *            the array
+     * @param idx
+     *            the index
+     * @param value
+     *            the value
+     * @return true if the value starts at the index.
+     */
+    private static boolean intLEMatchesAt(final byte[] arr, final int idx, final int value) {
+        return ((arr[idx] & 0xff) | (arr[idx + 1] & 0xff) << 8 | (arr[idx + 2] & 0xff) << 16
+                | (arr[idx + 3] & 0xff) << 24) == value;
+    }
+
+    /**
+     * Scalar implementation of {@link #lastIndexOfIntLE(byte[], int, int, int)}.
+     *
+     * @param arr
+     *            the array
+     * @param minIdx
+     *            the lowest index at which the value may start
+     * @param maxIdx
+     *            the highest index at which the value may start
+     * @param value
+     *            the value to find
+     * @return the highest index in the range [minIdx, maxIdx] at which the value starts, or -1 if there is none.
+     */
+    static int lastIndexOfIntLEScalar(final byte[] arr, final int minIdx, final int maxIdx, final int value) {
+        for (int i = maxIdx; i >= minIdx; --i) {
+            if (intLEMatchesAt(arr, i, value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * SWAR implementation of {@link #lastIndexOfIntLE(byte[], int, int, int)}. Finds occurrences of the first
+     * byte of the value 8 bytes at a time, then checks each occurrence from highest to lowest.
+     *
+     * @param arr
+     *            the array
+     * @param minIdx
+     *            the lowest index at which the value may start
+     * @param maxIdx
+     *            the highest index at which the value may start
+     * @param value
+     *            the value to find
+     * @return the highest index in the range [minIdx, maxIdx] at which the value starts, or -1 if there is none.
+     */
+    static int lastIndexOfIntLESWAR(final byte[] arr, final int minIdx, final int maxIdx, final int value) {
+        int i = maxIdx - 7;
+        if (i >= minIdx) {
+            final ByteBuffer buf = littleEndian(arr);
+            final long firstBytes = (value & 0xffL) * ONES;
+            for (; i >= minIdx; i -= 8) {
+                // Every occurrence of the first byte is marked, but there may be false positives
+                long found = zeroBytes(buf.getLong(i) ^ firstBytes);
+                while (found != 0L) {
+                    final int highestByte = (63 - Long.numberOfLeadingZeros(found)) >>> 3;
+                    if (intLEMatchesAt(arr, i + highestByte, value)) {
+                        return i + highestByte;
+                    }
+                    found &= ~(0xffL << (highestByte << 3));
+                }
+            }
+        }
+        return lastIndexOfIntLEScalar(arr, minIdx, i + 7, value);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Check whether a range of a byte array matches a lowercase ASCII key, ignoring the case of ASCII letters in
+     * the byte array.
+     *
+     * @param arr
+     *            the array
+     * @param pos
+     *            the index of the start of the range
+     * @param lowerCaseKey
+     *            the key, which may only contain printable ASCII characters, with letters in lowercase
+     * @return true if the range of the array starting at pos matches the key.
+     */
+    public static boolean regionMatchesIgnoreCase(final byte[] arr, final int pos, final byte[] lowerCaseKey) {
+        if (pos < 0 || pos + lowerCaseKey.length > arr.length) {
+            return false;
+        }
+        return USE_SWAR ? regionMatchesIgnoreCaseSWAR(arr, pos, lowerCaseKey, 0)
+                : regionMatchesIgnoreCaseScalar(arr, pos, lowerCaseKey, 0);
+    }
+
+    /**
+     * Scalar implementation of {@link #regionMatchesIgnoreCase(byte[], int, byte[])}.
+     *
+     * @param arr
+     *            the array
+     * @param pos
+     *            the index of the start of the range
+     * @param lowerCaseKey
+     *            the key
+     * @param keyStartIdx
+     *            the index of the first byte of the key to compare
+     * @return true if the range of the array starting at pos matches the key from keyStartIdx onwards.
+     */
+    static boolean regionMatchesIgnoreCaseScalar(final byte[] arr, final int pos, final byte[] lowerCaseKey,
+            final int keyStartIdx) {
+        return regionMatchesIgnoreCaseScalar(arr, pos, lowerCaseKey, keyStartIdx, lowerCaseKey.length);
+    }
+
+    /**
+     * Check whether a range of a byte array matches a range of a lowercase ASCII key, one byte at a time.
+     *
+     * @param arr
+     *            the array
+     * @param pos
+     *            the index of the start of the range of the array (corresponding to the start of the key)
+     * @param lowerCaseKey
+     *            the key
+     * @param keyStartIdx
+     *            the index of the first byte of the key to compare
+     * @param keyEndIdx
+     *            the index after the last byte of the key to compare
+     * @return true if the range of the array matches the key from keyStartIdx to keyEndIdx.
+     */
+    private static boolean regionMatchesIgnoreCaseScalar(final byte[] arr, final int pos,
+            final byte[] lowerCaseKey, final int keyStartIdx, final int keyEndIdx) {
+        for (int i = keyStartIdx; i < keyEndIdx; i++) {
+            final byte b = arr[pos + i];
+            if ((b >= 'A' && b <= 'Z' ? (byte) (b | 0x20) : b) != lowerCaseKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * SWAR implementation of {@link #regionMatchesIgnoreCase(byte[], int, byte[])}.
+     *
+     * @param arr
+     *            the array
+     * @param pos
+     *            the index of the start of the range
+     * @param lowerCaseKey
+     *            the key
+     * @param keyStartIdx
+     *            the index of the first byte of the key to compare
+     * @return true if the range of the array starting at pos matches the key from keyStartIdx onwards.
+     */
+    static boolean regionMatchesIgnoreCaseSWAR(final byte[] arr, final int pos, final byte[] lowerCaseKey,
+            final int keyStartIdx) {
+        int i = keyStartIdx;
+        if (lowerCaseKey.length - i >= 8) {
+            // Most positions that are tried do not match at the first byte, so check that first
+            if (!regionMatchesIgnoreCaseScalar(arr, pos, lowerCaseKey, i, i + 1)) {
+                return false;
+            }
+            final ByteBuffer buf = littleEndian(arr);
+            final ByteBuffer keyBuf = littleEndian(lowerCaseKey);
+            for (; i <= lowerCaseKey.length - 8; i += 8) {
+                final long key = keyBuf.getLong(i);
+                // Find the lowercase letters of the key: adding 0x1f sets the high bit of bytes >= 'a', and
+                // adding 0x05 sets the high bit of bytes > 'z' (no carries, since key bytes are ASCII)
+                final long keyLetters = (key + 0x1f1f1f1f1f1f1f1fL) & ~(key + 0x0505050505050505L) & HIGH_BITS;
+                // Setting bit 0x20 of the array bytes at the letter positions converts 'A'-'Z' to 'a'-'z'
+                if ((buf.getLong(pos + i) | (keyLetters >>> 2)) != key) {
+                    return false;
+                }
+            }
+        }
+        return regionMatchesIgnoreCaseScalar(arr, pos, lowerCaseKey, i);
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.util.Arrays;
+
+/**
+ * A threadsafe intern table for strings stored in the "modified UTF8" format defined in the Java classfile spec,
+ * keyed by the encoded bytes. Looking up a string that has already been interned hashes and compares the encoded
+ * bytes in place, without decoding the string or allocating any objects, so a {@link String} is only created the
+ * first time each distinct string is seen.
+ *
+ * <p>
+ * Strings can also be interned as symbols of a {@link SymbolTable}, using {@link #internSymbol(byte[], int, int)},
+ * in which case no {@link String} is created at all.
+ *
+ * <p>
+ * The table is divided into segments, each of which is locked only when a new string is added. Lookups of
+ * strings that have already been added do not take a lock.
+ */
+public class ByteStringInterner {
+    /** The segments of the table. */
+    private final Segment[] segments;
+
+    /** The symbol table that strings interned by {@link #internSymbol(byte[], int, int)} are added to. */
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    /** The number of bits of the hash that select the segment. */
+    private static final int SEGMENT_BITS = 6;
+
+    /** The number of segments. */
+    private static final int NUM_SEGMENTS = 1 << SEGMENT_BITS;
+
+    /** The initial number of buckets per segment (a power of two). */
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+
+    /** Flag mixed into the hash of strings in which '/' is replaced with '.'. */
+    private static final int REPLACE_SLASH_WITH_DOT = 1;
+
+    /** Flag mixed into the hash of strings that have a leading 'L' and trailing ';' stripped. */
+    private static final int STRIP_L_SEMICOLON = 2;
+
+    /** Flag mixed into the hash of strings that are interned as symbols. */
+    private static final int SYMBOL = 4;
+
+    /** Constructor. */
+    public ByteStringInterner() {
+        segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /** An interned string or symbol, and its encoded bytes. */
+    private static class Entry {
+        /** The hash of the encoded bytes and the flags. */
+        final int hash;
+
+        /** The flags used to decode the string. */
+        final int flags;
+
+        /** The encoded bytes. */
+        final byte[] bytes;
+
+        /** The decoded string, or null if the string was interned as a symbol. */
+        final String string;
+
+        /** The symbol ID, or -1 if the string was not interned as a symbol. */
+        final int symbol;
+
+        /** The next entry in the same bucket, or null. */
+        final Entry next;
+
+        /**
+         * Constructor.
+         *
+         * @param hash
+         *            the hash
+         * @param flags
+         *            the flags
+         * @param bytes
+         *            the encoded bytes
+         * @param string
+         *            the decoded string, or null if the string was interned as a symbol
+         * @param symbol
+         *            the symbol ID, or -1 if the string was not interned as a symbol
+         * @param next
+         *            the next entry in the bucket
+         */
+        Entry(final int hash, final int flags, final byte[] bytes, final String string, final int symbol,
+                final Entry next) {
+            this.hash = hash;
+            this.flags = flags;
+            this.bytes = bytes;
+            this.string = string;
+            this.symbol = symbol;
+            this.next = next;
+        }
+
+        /**
+         * Check whether this entry matches a range of bytes.
+         *
+         * @param buf
+         *            the buffer
+         * @param offset
+         *            the start offset of the encoded string in the buffer
+         * @param numBytes
+         *            the number of bytes in the encoded string
+         * @param flags
+         *            the flags
+         * @return true if the entry matches.
+         */
+        boolean matches(final byte[] buf, final int offset, final int numBytes, final int flags) {
+            if (this.flags != flags || bytes.length != numBytes) {
+                return false;
+            }
+            for (int i = 0; i < numBytes; i++) {
+                if (bytes[i] != buf[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** A segment of the table. */
+    private static class Segment {
+        /**
+         * The buckets of the segment. Entries are immutable, so a lookup can read the buckets without locking. A
+         * lookup that misses an entry that is being added by another thread falls back to a locked lookup.
+         */
+        private volatile Entry[] buckets = new Entry[INITIAL_SEGMENT_CAPACITY];
+
+        /** The number of entries in the segment. Guarded by the segment lock. */
+        private int size;
+
+        /**
+         * Find the entry of an interned string.
+         *
+         * @param buckets
+         *            the buckets to search
+         * @param hash
+         *            the hash
+         * @param buf
+         *            the buffer
+         * @param offset
+         *            the start offset of the encoded string in the buffer
+         * @param numBytes
+         *            the number of bytes in the encoded string
+         * @param flags
+         *            the flags
+         * @return the entry, or null if not found.
+         */
+        private static Entry find(final Entry[] buckets, final int hash, final byte[] buf, final int offset,
+                final int numBytes, final int flags) {
+            for (Entry entry = buckets[hash & (buckets.length - 1)]; entry != null; entry = entry.next) {
+                if (entry.hash == hash && entry.matches(buf, offset, numBytes, flags)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Intern a string, or if the {@link #SYMBOL} flag is set, intern a symbol.
+         *
+         * @param hash
+         *            the hash
+         * @param buf
+         *            the buffer
+         * @param offset
+         *            the start offset of the encoded string in the buffer
+         * @param numBytes
+         *            the number of bytes in the encoded string
+         * @param flags
+         *            the flags
+         * @param symbolTable
+         *            the symbol table to add symbols to
+         * @return the entry of the interned string or symbol.
+         */
+        Entry intern(final int hash, final byte[] buf, final int offset, final int numBytes, final int flags,
+                final SymbolTable symbolTable) {
+            final Entry found = find(buckets, hash, buf, offset, numBytes, flags);
+            if (found != null) {
+                return found;
+            }
+            // Decode the string before taking the lock, since decoding is the slowest part of adding a string
+            final String decoded = (flags & SYMBOL) != 0 ? null
+                    : StringUtils.readString(buf, offset, numBytes, (flags & REPLACE_SLASH_WITH_DOT) != 0,
+                            (flags & STRIP_L_SEMICOLON) != 0);
+            synchronized (this) {
+                Entry[] currBuckets = buckets;
+                final Entry foundLocked = find(currBuckets, hash, buf, offset, numBytes, flags);
+                if (foundLocked != null) {
+                    return foundLocked;
+                }
+                // Symbols are added while holding the lock, so that each string is only added once
+                final int symbol = (flags & SYMBOL) == 0 ? -1 : addSymbol(symbolTable, buf, offset, numBytes);
+                if (size >= currBuckets.length - (currBuckets.length >>> 2)) {
+                    // Load factor exceeded 0.75 -- double the number of buckets
+                    final Entry[] newBuckets = new Entry[currBuckets.length * 2];
+                    for (final Entry bucketHead : currBuckets) {
+                        for (Entry entry = bucketHead; entry != null; entry = entry.next) {
+                            final int newIdx = entry.hash & (newBuckets.length - 1);
+                            newBuckets[newIdx] = new Entry(entry.hash, entry.flags, entry.bytes, entry.string,
+                                    entry.symbol, newBuckets[newIdx]);
+                        }
+                    }
+                    currBuckets = newBuckets;
+                }
+                final int idx = hash & (currBuckets.length - 1);
+                final Entry entry = new Entry(hash, flags, Arrays.copyOfRange(buf, offset, offset + numBytes),
+                        decoded, symbol, currBuckets[idx]);
+                currBuckets[idx] = entry;
+                size++;
+                // Publish the new entry (and the new buckets, if the segment was resized)
+                buckets = currBuckets;
+                return entry;
+            }
+        }
+
+        /**
+         * Add a string to a symbol table.
+         *
+         * @param symbolTable
+         *            the symbol table
+         * @param buf
+         *            the buffer
+         * @param offset
+         *            the start offset of the encoded string in the buffer
+         * @param numBytes
+         *            the number of bytes in the encoded string
+         * @return the symbol ID.
+         */
+        private static int addSymbol(final SymbolTable symbolTable, final byte[] buf, final int offset,
+                final int numBytes) {
+            if (ByteScanUtils.indexOfNonASCII(buf, offset, offset + numBytes) != offset + numBytes) {
+                // Not ASCII -- decode the string
+                return symbolTable.add(StringUtils.readString(buf, offset, numBytes,
+                        /* replaceSlashWithDot = */ false, /* stripLSemicolon = */ false));
+            }
+            return symbolTable.addASCII(buf, offset, numBytes);
+        }
+    }
+
+    /**
+     * Hash a range of bytes and a set of flags.
+     *
+     * @param buf
+     *            the buffer
+     * @param offset
+     *            the start offset of the encoded string in the buffer
+     * @param numBytes
+     *            the number of bytes in the encoded string
+     * @param flags
+     *            the flags
+     * @return the hash.
+     * @throws IllegalArgumentException
+     *             if the range is out of bounds.
+     */
+    private static int hash(final byte[] buf, final int offset, final int numBytes, final int flags) {
+        if (offset < 0 || numBytes < 0 || offset + numBytes > buf.length) {
+            throw new IllegalArgumentException("offset or numBytes out of range");
+        }
+        int hash = flags;
+        for (int i = offset, end = offset + numBytes; i < end; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        // Spread the hash bits, since the low bits select the bucket and the high bits select the segment
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash;
+    }
+
+    /**
+     * Intern a string stored in the "modified UTF8" format, optionally replacing '/' with '.', and optionally
+     * removing the prefix "L" and the suffix ";". If the string has already been interned with the same options,
+     * the interned {@link String} is returned without decoding the string.
+     *
+     * @param buf
+     *            the buffer
+     * @param offset
+     *            the start offset of the encoded string in the buffer
+     * @param numBytes
+     *            the number of bytes in the encoded string
+     * @param replaceSlashWithDot
+     *            if true, replace '/' with '.'.
+     * @param stripLSemicolon
+     *            if true, strip the prefix "L" and the suffix ";".
+     * @return the interned string.
+     * @throws IllegalArgumentException
+     *             if the string could not be decoded.
+     */
+    public String intern(final byte[] buf, final int offset, final int numBytes, final boolean replaceSlashWithDot,
+            final boolean stripLSemicolon) {
+        final int flags = (replaceSlashWithDot ? REPLACE_SLASH_WITH_DOT : 0)
+                | (stripLSemicolon ? STRIP_L_SEMICOLON : 0);
+        final int hash = hash(buf, offset, numBytes, flags);
+        return segments[hash >>> (32 - SEGMENT_BITS)].intern(hash, buf, offset, numBytes, flags, symbolTable).string;
+    }
+
+    /**
+     * Intern a string stored in the "modified UTF8" format as a symbol of the {@link SymbolTable} of this intern
+     * table (see {@link #getSymbolTable()}). If the string has already been interned as a symbol, the symbol ID is
+     * returned without decoding the string. Otherwise the string is added to the symbol table, without creating a
+     * {@link String} unless the string contains non-ASCII characters.
+     *
+     * @param buf
+     *            the buffer
+     * @param offset
+     *            the start offset of the encoded string in the buffer
+     * @param numBytes
+     *            the number of bytes in the encoded string
+     * @return the symbol ID.
+     * @throws IllegalArgumentException
+     *             if the string could not be decoded, or is too long to add to the symbol table.
+     */
+    public int internSymbol(final byte[] buf, final int offset, final int numBytes) {
+        final int hash = hash(buf, offset, numBytes, SYMBOL);
+        return segments[hash >>> (32 - SEGMENT_BITS)].intern(hash, buf, offset, numBytes, SYMBOL, symbolTable).symbol;
+    }
+
+    /**
+     * Get the symbol table that strings interned by {@link #internSymbol(byte[], int, int)} are added to.
+     *
+     * @return the symbol table.
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+}
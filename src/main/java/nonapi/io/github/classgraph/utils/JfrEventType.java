@@ -0,0 +1,340 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Java Flight Recorder event type. Event types are defined through the {@code jdk.jfr.EventFactory} API (JDK
+ * 12+) using reflection, so that this class can be loaded on any JDK, including JDKs without the {@code jdk.jfr}
+ * module. An event type is only defined once Flight Recorder has been initialized (i.e. once a recording has been
+ * started), since defining an event type initializes Flight Recorder, which is slow.
+ *
+ * <p>
+ * Usage: call {@link #begin()} before the operation to record, and if the result is non-null, call
+ * {@link #commit(Object, Object...)} after the operation with the values of the event's fields.
+ */
+public final class JfrEventType {
+    /** A phase of a scan. */
+    public static final JfrEventType SCAN_PHASE = new JfrEventType("io.github.classgraph.ScanPhase", "Scan Phase",
+            "A phase of a ClassGraph scan", /* threshold = */ null, //
+            new String[] { "phase" }, new Class<?>[] { String.class }, new String[] { "Phase" });
+
+    /** The opening of a classpath element. */
+    public static final JfrEventType CLASSPATH_ELEMENT_OPEN = new JfrEventType(
+            "io.github.classgraph.ClasspathElementOpen", "Classpath Element Open",
+            "Opening a classpath element, including reading the central directory of a jarfile",
+            /* threshold = */ null, //
+            new String[] { "path", "size", "numEntries" }, new Class<?>[] { String.class, long.class, int.class },
+            new String[] { "Path", "Size", "Number of Entries" });
+
+    /** The parsing of a classfile. Only recorded if parsing took at least 1 ms, by default. */
+    public static final JfrEventType CLASSFILE_PARSE = new JfrEventType("io.github.classgraph.ClassfileParse",
+            "Classfile Parse", "Reading and parsing a classfile", /* threshold = */ "1 ms", //
+            new String[] { "path", "numBytes" }, new Class<?>[] { String.class, long.class },
+            new String[] { "Path", "Number of Bytes" });
+
+    /** The extraction of a deflated nested jarfile. */
+    public static final JfrEventType NESTED_JAR_EXTRACTION = new JfrEventType(
+            "io.github.classgraph.NestedJarExtraction", "Nested Jar Extraction",
+            "Inflating a deflated jarfile nested within another jarfile", /* threshold = */ null, //
+            new String[] { "path", "compressedSize", "uncompressedSize" },
+            new Class<?>[] { String.class, long.class, long.class },
+            new String[] { "Path", "Compressed Size", "Uncompressed Size" });
+
+    /** The spilling of a stream to a temporary file, because it was too large to buffer in RAM. */
+    public static final JfrEventType TEMP_FILE_SPILL = new JfrEventType("io.github.classgraph.TempFileSpill",
+            "Temp File Spill", "Writing a stream that was too large to buffer in RAM to a temporary file",
+            /* threshold = */ null, //
+            new String[] { "source", "tempFile", "size" }, new Class<?>[] { String.class, String.class, long.class },
+            new String[] { "Source", "Temporary File", "Size" });
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** The {@code jdk.jfr.FlightRecorder#isInitialized()} method, or null if Flight Recorder is not available. */
+    private static final Method IS_INITIALIZED;
+
+    static {
+        Method isInitialized = null;
+        try {
+            isInitialized = Class.forName("jdk.jfr.FlightRecorder").getMethod("isInitialized");
+            // Make sure that the jdk.jfr.EventFactory API is available (JDK 12+)
+            Class.forName("jdk.jfr.EventFactory");
+        } catch (final Throwable t) {
+            // Flight Recorder is not available
+            isInitialized = null;
+        }
+        IS_INITIALIZED = isInitialized;
+    }
+
+    /** The event name. */
+    private final String name;
+
+    /** The event label. */
+    private final String label;
+
+    /** The event description. */
+    private final String description;
+
+    /** The default threshold duration (e.g. "1 ms"), or null if events should always be committed. */
+    private final String threshold;
+
+    /** The field names. */
+    private final String[] fieldNames;
+
+    /** The field types. */
+    private final Class<?>[] fieldTypes;
+
+    /** The field labels. */
+    private final String[] fieldLabels;
+
+    /** The {@code jdk.jfr.EventFactory}, or null if not yet created. */
+    private volatile Object eventFactory;
+
+    /** The {@code jdk.jfr.EventType} of the event factory, or null if not yet created. */
+    private volatile Object eventType;
+
+    /** True if creating the event factory failed. */
+    private volatile boolean failed;
+
+    /**
+     * Constructor.
+     *
+     * @param name
+     *            the event name
+     * @param label
+     *            the event label
+     * @param description
+     *            the event description
+     * @param threshold
+     *            the default threshold duration (e.g. "1 ms"), or null if events should always be committed
+     * @param fieldNames
+     *            the field names
+     * @param fieldTypes
+     *            the field types
+     * @param fieldLabels
+     *            the field labels
+     */
+    private JfrEventType(final String name, final String label, final String description, final String threshold,
+            final String[] fieldNames, final Class<?>[] fieldTypes, final String[] fieldLabels) {
+        this.name = name;
+        this.label = label;
+        this.description = description;
+        this.threshold = threshold;
+        this.fieldNames = fieldNames;
+        this.fieldTypes = fieldTypes;
+        this.fieldLabels = fieldLabels;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Reflective access to the {@code jdk.jfr} API, loaded only once Flight Recorder has been initialized.
+     */
+    private static final class Jfr {
+        /** The {@code jdk.jfr.AnnotationElement} class. */
+        static final Class<?> ANNOTATION_ELEMENT_CLASS;
+
+        /** The {@code jdk.jfr.ValueDescriptor} class. */
+        static final Class<?> VALUE_DESCRIPTOR_CLASS;
+
+        /** The {@code jdk.jfr.EventFactory#create(List, List)} method. */
+        static final Method CREATE;
+
+        /** The {@code jdk.jfr.EventFactory#getEventType()} method. */
+        static final Method GET_EVENT_TYPE;
+
+        /** The {@code jdk.jfr.EventFactory#newEvent()} method. */
+        static final Method NEW_EVENT;
+
+        /** The {@code jdk.jfr.EventType#isEnabled()} method. */
+        static final Method IS_ENABLED;
+
+        /** The {@code jdk.jfr.Event#begin()} method. */
+        static final Method BEGIN;
+
+        /** The {@code jdk.jfr.Event#end()} method. */
+        static final Method END;
+
+        /** The {@code jdk.jfr.Event#shouldCommit()} method. */
+        static final Method SHOULD_COMMIT;
+
+        /** The {@code jdk.jfr.Event#set(int, Object)} method. */
+        static final Method SET;
+
+        /** The {@code jdk.jfr.Event#commit()} method. */
+        static final Method COMMIT;
+
+        static {
+            try {
+                ANNOTATION_ELEMENT_CLASS = Class.forName("jdk.jfr.AnnotationElement");
+                VALUE_DESCRIPTOR_CLASS = Class.forName("jdk.jfr.ValueDescriptor");
+                final Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+                final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                CREATE = eventFactoryClass.getMethod("create", List.class, List.class);
+                GET_EVENT_TYPE = eventFactoryClass.getMethod("getEventType");
+                NEW_EVENT = eventFactoryClass.getMethod("newEvent");
+                IS_ENABLED = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+                BEGIN = eventClass.getMethod("begin");
+                END = eventClass.getMethod("end");
+                SHOULD_COMMIT = eventClass.getMethod("shouldCommit");
+                SET = eventClass.getMethod("set", int.class, Object.class);
+                COMMIT = eventClass.getMethod("commit");
+            } catch (final ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Could not access Flight Recorder API", e);
+            }
+        }
+
+        /**
+         * Create a {@code jdk.jfr.AnnotationElement}.
+         *
+         * @param annotationClassName
+         *            the name of the annotation class in the {@code jdk.jfr} package
+         * @param value
+         *            the annotation value
+         * @return the {@code jdk.jfr.AnnotationElement}
+         * @throws ReflectiveOperationException
+         *             if the annotation element could not be created
+         */
+        static Object annotationElement(final String annotationClassName, final Object value)
+                throws ReflectiveOperationException {
+            return ANNOTATION_ELEMENT_CLASS.getConstructor(Class.class, Object.class)
+                    .newInstance(Class.forName("jdk.jfr." + annotationClassName).asSubclass(Annotation.class),
+                            value);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Check whether Flight Recorder has been initialized.
+     *
+     * @return true if Flight Recorder is available and has been initialized.
+     */
+    private static boolean isFlightRecorderInitialized() {
+        if (IS_INITIALIZED == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_INITIALIZED.invoke(null);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Create the {@code jdk.jfr.EventFactory} for this event type.
+     *
+     * @return true if the event factory was created.
+     */
+    private synchronized boolean createEventFactory() {
+        if (eventFactory != null) {
+            return true;
+        } else if (failed) {
+            return false;
+        }
+        try {
+            final List<Object> eventAnnotations = new ArrayList<>();
+            eventAnnotations.add(Jfr.annotationElement("Name", name));
+            eventAnnotations.add(Jfr.annotationElement("Label", label));
+            eventAnnotations.add(Jfr.annotationElement("Description", description));
+            eventAnnotations.add(Jfr.annotationElement("Category", new String[] { "ClassGraph" }));
+            eventAnnotations.add(Jfr.annotationElement("StackTrace", Boolean.FALSE));
+            if (threshold != null) {
+                eventAnnotations.add(Jfr.annotationElement("Threshold", threshold));
+            }
+            final List<Object> fields = new ArrayList<>();
+            for (int i = 0; i < fieldNames.length; i++) {
+                fields.add(Jfr.VALUE_DESCRIPTOR_CLASS.getConstructor(Class.class, String.class, List.class)
+                        .newInstance(fieldTypes[i], fieldNames[i],
+                                Collections.singletonList(Jfr.annotationElement("Label", fieldLabels[i]))));
+            }
+            final Object factory = Jfr.CREATE.invoke(null, eventAnnotations, fields);
+            eventType = Jfr.GET_EVENT_TYPE.invoke(factory);
+            eventFactory = factory;
+            return true;
+        } catch (final Throwable t) {
+            // Flight Recorder API is not accessible
+            failed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Begin an event, if Flight Recorder has been initialized and this event type is enabled.
+     *
+     * @return the {@code jdk.jfr.Event}, or null if the event should not be recorded.
+     */
+    public Object begin() {
+        if (eventFactory == null
+                // Don't create the event factory until Flight Recorder has been initialized
+                && (failed || !isFlightRecorderInitialized() || !createEventFactory())) {
+            return null;
+        }
+        try {
+            if (!(Boolean) Jfr.IS_ENABLED.invoke(eventType)) {
+                return null;
+            }
+            final Object event = Jfr.NEW_EVENT.invoke(eventFactory);
+            Jfr.BEGIN.invoke(event);
+            return event;
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * End an event, and commit it if its duration is at least the threshold for this event type.
+     *
+     * @param event
+     *            the {@code jdk.jfr.Event} returned by {@link #begin()}, or null
+     * @param fieldValues
+     *            the values of the event's fields, in the order the fields were defined
+     */
+    public void commit(final Object event, final Object... fieldValues) {
+        if (event == null) {
+            return;
+        }
+        try {
+            Jfr.END.invoke(event);
+            if ((Boolean) Jfr.SHOULD_COMMIT.invoke(event)) {
+                for (int i = 0; i < fieldValues.length; i++) {
+                    Jfr.SET.invoke(event, i, fieldValues[i]);
+                }
+                Jfr.COMMIT.invoke(event);
+            }
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            // Ignore
+        }
+    }
+}
@@ -28,6 +28,9 @@
  */
 package nonapi.io.github.classgraph.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * File utilities.
  */
@@ -62,14 +65,16 @@ public final class StringUtils {
         if (startOffset < 0L || numBytes < 0 || startOffset + numBytes > arr.length) {
             throw new IllegalArgumentException("offset or numBytes out of range");
         }
+        final int numASCIIBytes = ByteScanUtils.indexOfNonASCII(arr, startOffset, startOffset + numBytes)
+                - startOffset;
+        if (numASCIIBytes == numBytes) {
+            return readASCIIString(arr, startOffset, numBytes, replaceSlashWithDot, stripLSemicolon);
+        }
         final char[] chars = new char[numBytes];
         int byteIdx = 0;
         int charIdx = 0;
-        for (; byteIdx < numBytes; byteIdx++) {
-            final int c = arr[startOffset + byteIdx] & 0xff;
-            if (c > 127) {
-                break;
-            }
+        for (; byteIdx < numASCIIBytes; byteIdx++) {
+            final int c = arr[startOffset + byteIdx];
             chars[charIdx++] = (char) (replaceSlashWithDot && c == '/' ? '.' : c);
         }
         while (byteIdx < numBytes) {
@@ -134,6 +139,54 @@ public final class StringUtils {
         }
     }
 
+    /**
+     * Fast path for {@link #readString(byte[], int, int, boolean, boolean)}, for strings that only contain nonzero
+     * ASCII characters (which is the case for almost all strings in classfiles). The modified UTF8 encoding of an
+     * ASCII string is the same as its ISO-8859-1 encoding, so the string can be created from the bytes without
+     * decoding each character into a char array.
+     *
+     * @param arr
+     *            the array to read the string from
+     * @param startOffset
+     *            The start offset of the string within the array.
+     * @param numBytes
+     *            The number of bytes of the UTF8 encoding of the string.
+     * @param replaceSlashWithDot
+     *            If true, replace '/' with '.'.
+     * @param stripLSemicolon
+     *            If true, string final ';' character.
+     * @return The string.
+     * @throws IllegalArgumentException
+     *             If stripLSemicolon is true, and the string does not start with 'L' and end with ';'.
+     */
+    private static String readASCIIString(final byte[] arr, final int startOffset, final int numBytes,
+            final boolean replaceSlashWithDot, final boolean stripLSemicolon) throws IllegalArgumentException {
+        final int endOffset = startOffset + numBytes;
+        int start = startOffset;
+        int len = numBytes;
+        if (stripLSemicolon) {
+            if (len < 2 || arr[start] != 'L' || arr[endOffset - 1] != ';') {
+                throw new IllegalArgumentException("Expected string to start with 'L' and end with ';', got \""
+                        + new String(arr, startOffset, numBytes, StandardCharsets.ISO_8859_1) + "\"");
+            }
+            start++;
+            len -= 2;
+        }
+        if (replaceSlashWithDot) {
+            final int firstSlashIdx = ByteScanUtils.indexOf(arr, start, start + len, (byte) '/');
+            if (firstSlashIdx < start + len) {
+                final byte[] bytes = Arrays.copyOfRange(arr, start, start + len);
+                for (int i = firstSlashIdx - start; i < len; i++) {
+                    if (bytes[i] == '/') {
+                        bytes[i] = '.';
+                    }
+                }
+                return new String(bytes, StandardCharsets.ISO_8859_1);
+            }
+        }
+        return new String(arr, start, len, StandardCharsets.ISO_8859_1);
+    }
+
     /**
      * A replacement for Java 8's String.join().
      * 
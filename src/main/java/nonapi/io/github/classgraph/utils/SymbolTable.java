@@ -0,0 +1,312 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An append-only table of strings, each identified by an integer symbol ID. Strings are packed into large shared
+ * byte arrays, as Latin-1 if every character of the string is in the range 0x00-0xff (which is the case for almost
+ * all class names, type descriptors and type signatures), otherwise as UTF-16, so that a string stored in the
+ * table takes only its encoded length plus 8 bytes, compared to the 40 or more bytes of overhead of a
+ * {@link String} and its backing array. A {@link String} is only created when {@link #get(int)} is called.
+ *
+ * <p>
+ * The table does not check whether a string has already been added, so strings should be deduplicated before
+ * they are added (see {@link ByteStringInterner#internSymbol(byte[], int, int)}). Adding strings is synchronized.
+ * Reading strings does not take a lock, but a symbol ID must be safely published to the reading thread after the
+ * symbol was added.
+ */
+public class SymbolTable {
+    /** The encoded strings, packed into chunks. */
+    private volatile byte[][] chunks = new byte[16][];
+
+    /** The packed entries of the symbols (see {@link #packEntry(int, int, int, boolean)}), in pages. */
+    private volatile long[][] entryPages = new long[16][];
+
+    /** The number of symbols. Guarded by this. */
+    private int numSymbols;
+
+    /** The index of the current chunk. Guarded by this. */
+    private int chunkIdx = -1;
+
+    /** The position of the next free byte in the current chunk. Guarded by this. */
+    private int chunkPos = CHUNK_SIZE;
+
+    /** The total number of bytes used by encoded strings. Guarded by this. */
+    private long numEncodedBytes;
+
+    /** The number of bits of the byte offset within a chunk. */
+    private static final int CHUNK_BITS = 16;
+
+    /**
+     * The size of a chunk. Strings longer than a chunk (which may only happen for UTF-16 strings, since constant
+     * pool strings are at most 65535 bytes long) are stored in a chunk of their own.
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** The number of bits of the index of an entry within a page. */
+    private static final int PAGE_BITS = 12;
+
+    /** The number of entries per page. */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** The number of bits used to store the byte length of a string in a packed entry. */
+    private static final int LENGTH_BITS = 18;
+
+    /** The maximum number of characters of a string that can be stored in the table. */
+    public static final int MAX_LENGTH = ((1 << LENGTH_BITS) - 1) / 2;
+
+    /** Bit that is set in a packed entry if the string is stored as UTF-16. */
+    private static final long UTF16_BIT = 1L << 63;
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Pack the location of an encoded string into a single long.
+     *
+     * @param chunk
+     *            the index of the chunk
+     * @param offset
+     *            the byte offset of the string within the chunk
+     * @param numBytes
+     *            the number of bytes in the encoded string
+     * @param isUTF16
+     *            true if the string is stored as UTF-16
+     * @return the packed entry.
+     */
+    private static long packEntry(final int chunk, final int offset, final int numBytes, final boolean isUTF16) {
+        return (isUTF16 ? UTF16_BIT : 0L) | ((long) chunk << (CHUNK_BITS + LENGTH_BITS))
+                | ((long) offset << LENGTH_BITS) | numBytes;
+    }
+
+    /**
+     * Get the packed entry of a symbol.
+     *
+     * @param symbol
+     *            the symbol ID
+     * @return the packed entry.
+     * @throws IllegalArgumentException
+     *             if the symbol ID is not valid.
+     */
+    private long getEntry(final int symbol) {
+        final long[][] currEntryPages = entryPages;
+        final long[] page = symbol < 0 || (symbol >>> PAGE_BITS) >= currEntryPages.length ? null
+                : currEntryPages[symbol >>> PAGE_BITS];
+        final long entry = page == null ? 0L : page[symbol & (PAGE_SIZE - 1)];
+        if (entry == 0L) {
+            throw new IllegalArgumentException("Invalid symbol: " + symbol);
+        }
+        return entry;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Add a string to the table.
+     *
+     * @param str
+     *            the string
+     * @return the symbol ID of the string.
+     * @throws IllegalArgumentException
+     *             if the string is longer than {@link #MAX_LENGTH}.
+     */
+    public synchronized int add(final String str) {
+        final int len = str.length();
+        if (len > MAX_LENGTH) {
+            throw new IllegalArgumentException("String is too long to add to symbol table");
+        }
+        boolean isLatin1 = true;
+        for (int i = 0; i < len; i++) {
+            if (str.charAt(i) > 0xff) {
+                isLatin1 = false;
+                break;
+            }
+        }
+        final int numBytes = isLatin1 ? len : len * 2;
+        final byte[] chunk = allocate(numBytes);
+        if (isLatin1) {
+            for (int i = 0; i < len; i++) {
+                chunk[chunkPos + i] = (byte) str.charAt(i);
+            }
+        } else {
+            for (int i = 0, j = chunkPos; i < len; i++, j += 2) {
+                final char c = str.charAt(i);
+                chunk[j] = (byte) (c >>> 8);
+                chunk[j + 1] = (byte) c;
+            }
+        }
+        return addEntry(numBytes, !isLatin1);
+    }
+
+    /**
+     * Add a string to the table, given as a range of bytes of an ASCII string.
+     *
+     * @param buf
+     *            the buffer
+     * @param offset
+     *            the start offset of the string in the buffer
+     * @param numBytes
+     *            the number of bytes in the string, each of which must be in the range 0x01-0x7f.
+     * @return the symbol ID of the string.
+     */
+    synchronized int addASCII(final byte[] buf, final int offset, final int numBytes) {
+        final byte[] chunk = allocate(numBytes);
+        System.arraycopy(buf, offset, chunk, chunkPos, numBytes);
+        return addEntry(numBytes, /* isUTF16 = */ false);
+    }
+
+    /**
+     * Make sure there is room for an encoded string in the current chunk, adding a new chunk if needed. Must be
+     * called while holding the lock.
+     *
+     * @param numBytes
+     *            the number of bytes in the encoded string
+     * @return the current chunk, which has room for the encoded string at {@link #chunkPos}.
+     */
+    private byte[] allocate(final int numBytes) {
+        if (chunkPos >= CHUNK_SIZE || chunkPos + numBytes > CHUNK_SIZE) {
+            byte[][] currChunks = chunks;
+            chunkIdx++;
+            if (chunkIdx == currChunks.length) {
+                final byte[][] newChunks = new byte[currChunks.length * 2][];
+                System.arraycopy(currChunks, 0, newChunks, 0, currChunks.length);
+                currChunks = newChunks;
+            }
+            currChunks[chunkIdx] = new byte[Math.max(CHUNK_SIZE, numBytes)];
+            chunkPos = 0;
+            chunks = currChunks;
+        }
+        return chunks[chunkIdx];
+    }
+
+    /**
+     * Add an entry for the encoded string that was just written to the current chunk at {@link #chunkPos}. Must
+     * be called while holding the lock.
+     *
+     * @param numBytes
+     *            the number of bytes in the encoded string
+     * @param isUTF16
+     *            true if the string is stored as UTF-16
+     * @return the symbol ID of the string.
+     */
+    private int addEntry(final int numBytes, final boolean isUTF16) {
+        final int symbol = numSymbols;
+        long[][] currEntryPages = entryPages;
+        final int pageIdx = symbol >>> PAGE_BITS;
+        if (pageIdx == currEntryPages.length) {
+            final long[][] newEntryPages = new long[currEntryPages.length * 2][];
+            System.arraycopy(currEntryPages, 0, newEntryPages, 0, currEntryPages.length);
+            currEntryPages = newEntryPages;
+        }
+        if (currEntryPages[pageIdx] == null) {
+            currEntryPages[pageIdx] = new long[PAGE_SIZE];
+        }
+        // Store the chunk index plus one, so that a packed entry is never 0 (which marks an unused entry)
+        currEntryPages[pageIdx][symbol & (PAGE_SIZE - 1)] = packEntry(chunkIdx + 1, chunkPos, numBytes, isUTF16);
+        chunkPos += numBytes;
+        numEncodedBytes += numBytes;
+        numSymbols++;
+        // Publish the new entry
+        entryPages = currEntryPages;
+        return symbol;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the string for a symbol ID. A new {@link String} is created each time this is called.
+     *
+     * @param symbol
+     *            the symbol ID
+     * @return the string.
+     * @throws IllegalArgumentException
+     *             if the symbol ID is not valid.
+     */
+    public String get(final int symbol) {
+        final long entry = getEntry(symbol);
+        final byte[] chunk = chunks[(int) ((entry & ~UTF16_BIT) >>> (CHUNK_BITS + LENGTH_BITS)) - 1];
+        final int offset = (int) (entry >>> LENGTH_BITS) & (CHUNK_SIZE - 1);
+        final int numBytes = (int) entry & ((1 << LENGTH_BITS) - 1);
+        if ((entry & UTF16_BIT) == 0) {
+            return new String(chunk, offset, numBytes, StandardCharsets.ISO_8859_1);
+        }
+        final char[] chars = new char[numBytes / 2];
+        for (int i = 0, j = offset; i < chars.length; i++, j += 2) {
+            chars[i] = (char) (((chunk[j] & 0xff) << 8) | (chunk[j + 1] & 0xff));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Get the hash code of the string for a symbol ID, without creating a {@link String}. The hash code is the
+     * same as the result of {@link String#hashCode()}.
+     *
+     * @param symbol
+     *            the symbol ID
+     * @return the hash code of the string.
+     * @throws IllegalArgumentException
+     *             if the symbol ID is not valid.
+     */
+    public int hashCode(final int symbol) {
+        final long entry = getEntry(symbol);
+        final byte[] chunk = chunks[(int) ((entry & ~UTF16_BIT) >>> (CHUNK_BITS + LENGTH_BITS)) - 1];
+        final int offset = (int) (entry >>> LENGTH_BITS) & (CHUNK_SIZE - 1);
+        final int numBytes = (int) entry & ((1 << LENGTH_BITS) - 1);
+        int hash = 0;
+        if ((entry & UTF16_BIT) == 0) {
+            for (int i = offset, end = offset + numBytes; i < end; i++) {
+                hash = 31 * hash + (chunk[i] & 0xff);
+            }
+        } else {
+            for (int i = offset, end = offset + numBytes; i < end; i += 2) {
+                hash = 31 * hash + (((chunk[i] & 0xff) << 8) | (chunk[i + 1] & 0xff));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Get the number of symbols in the table.
+     *
+     * @return the number of symbols.
+     */
+    public synchronized int size() {
+        return numSymbols;
+    }
+
+    /**
+     * Get the total number of bytes used to store the strings in the table.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getNumEncodedBytes() {
+        return numEncodedBytes;
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.FieldInfo;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ScanResult#writeTo(java.io.OutputStream)} and {@link ScanResult#readFrom(java.io.InputStream)}.
+ */
+public class BinarySerializationTest {
+    /** Annotation. */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Ann {
+        /** Value. */
+        String value() default "default";
+
+        /** Floats. */
+        float[] floats() default { Float.POSITIVE_INFINITY, Float.NaN };
+    }
+
+    /** Interface. */
+    public interface Iface {
+    }
+
+    /** Superclass. */
+    @Ann("superclass")
+    public static class Superclass implements Iface {
+        /** Constant. */
+        public static final String CONSTANT = "constant";
+
+        /**
+         * Method.
+         *
+         * @param param
+         *            the param
+         * @return the list
+         */
+        @Ann
+        public List<String> method(final int[] param) {
+            return null;
+        }
+    }
+
+    /** Subclass. */
+    public static class Subclass extends Superclass {
+        /** Field. */
+        @Ann("field")
+        public Superclass field;
+    }
+
+    /** Type annotation. */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE_USE)
+    public @interface TypeAnn {
+    }
+
+    /** Class with type annotations, which are not serialized. */
+    public static class TypeAnnotated {
+        /** Field with a type annotation. */
+        public List<@TypeAnn String> field;
+
+        /**
+         * Method with a type annotation on its return type.
+         *
+         * @return null
+         */
+        public @TypeAnn String method() {
+            return null;
+        }
+    }
+
+    /**
+     * Round-trip a {@link ScanResult} through the binary format.
+     *
+     * @param scanResult
+     *            the scan result
+     * @return the deserialized scan result
+     * @throws IOException
+     *             if the scan result could not be serialized or deserialized
+     */
+    private static ScanResult roundTrip(final ScanResult scanResult) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        scanResult.writeTo(outputStream);
+        return ScanResult.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    /**
+     * Test that a scan result deserialized from the binary format has the same classes and relationships as the
+     * original scan result, other than type annotations, which are not serialized.
+     *
+     * @throws IOException
+     *             if the scan result could not be serialized or deserialized
+     */
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        try (ScanResult scanResult1 = new ClassGraph()
+                .acceptClasses(BinarySerializationTest.class.getName(), Ann.class.getName(), Iface.class.getName(),
+                        Superclass.class.getName(), Subclass.class.getName(), TypeAnn.class.getName(),
+                        TypeAnnotated.class.getName())
+                .enableAllInfo().enableInterClassDependencies().enableStaticFinalFieldConstantInitializerValues()
+                .scan();
+                ScanResult scanResult2 = roundTrip(scanResult1)) {
+            assertThat(scanResult1.isObtainedFromDeserialization()).isFalse();
+            assertThat(scanResult2.isObtainedFromDeserialization()).isTrue();
+            assertThat(scanResult2.getAllClasses().getNames()).isEqualTo(scanResult1.getAllClasses().getNames());
+            assertThat(scanResult2.getSubclasses(Superclass.class).getNames())
+                    .containsExactly(Subclass.class.getName());
+            assertThat(scanResult2.getClassesImplementing(Iface.class).getNames())
+                    .containsExactlyInAnyOrder(Superclass.class.getName(), Subclass.class.getName());
+            assertThat(scanResult2.getClassesWithAnnotation(Ann.class).getNames())
+                    .containsExactly(Superclass.class.getName());
+            assertThat(scanResult2.getClassesWithFieldAnnotation(Ann.class).getNames())
+                    .containsExactly(Subclass.class.getName());
+            final String packageName = BinarySerializationTest.class.getPackage().getName();
+            assertThat(scanResult2.getPackageInfo(packageName).getClassInfo().getNames())
+                    .isEqualTo(scanResult1.getPackageInfo(packageName).getClassInfo().getNames());
+
+            // Type annotations are not serialized, so they are missing from the deserialized scan result
+            final String typeAnnStr = "@" + TypeAnn.class.getName() + " ";
+            final ClassInfo typeAnnotated1 = scanResult1.getClassInfo(TypeAnnotated.class.getName());
+            final ClassInfo typeAnnotated2 = scanResult2.getClassInfo(TypeAnnotated.class.getName());
+            final FieldInfo field1 = typeAnnotated1.getDeclaredFieldInfo("field");
+            final MethodInfo method1 = typeAnnotated1.getDeclaredMethodInfo("method").get(0);
+            assertThat(field1.toString()).contains(typeAnnStr);
+            assertThat(method1.toString()).contains(typeAnnStr);
+            assertThat(typeAnnotated2.getDeclaredFieldInfo("field").toString())
+                    .isEqualTo(field1.toString().replace(typeAnnStr, ""));
+            assertThat(typeAnnotated2.getDeclaredMethodInfo("method").get(0).toString())
+                    .isEqualTo(method1.toString().replace(typeAnnStr, ""));
+
+            // Everything else is the same after deserialization
+            for (final ClassInfo classInfo1 : scanResult1.getAllClasses()) {
+                final ClassInfo classInfo2 = scanResult2.getClassInfo(classInfo1.getName());
+                final boolean hasTypeAnnotations = classInfo1 == typeAnnotated1;
+                assertThat(classInfo2.toString()).isEqualTo(classInfo1.toString());
+                assertThat(classInfo2.getAnnotationInfo().toString())
+                        .isEqualTo(classInfo1.getAnnotationInfo().toString());
+                assertThat(classInfo2.getDeclaredFieldInfo().toString()).isEqualTo(hasTypeAnnotations
+                        ? classInfo1.getDeclaredFieldInfo().toString().replace(typeAnnStr, "")
+                        : classInfo1.getDeclaredFieldInfo().toString());
+                assertThat(classInfo2.getDeclaredMethodInfo().toString()).isEqualTo(hasTypeAnnotations
+                        ? classInfo1.getDeclaredMethodInfo().toString().replace(typeAnnStr, "")
+                        : classInfo1.getDeclaredMethodInfo().toString());
+                assertThat(classInfo2.getClassDependencies().getNames())
+                        .isEqualTo(classInfo1.getClassDependencies().getNames());
+                assertThat(classInfo2.getOuterClasses().getNames())
+                        .isEqualTo(classInfo1.getOuterClasses().getNames());
+            }
+            assertThat(scanResult2.getClassInfo(Ann.class.getName()).getAnnotationDefaultParameterValues()
+                    .toString()).contains("Infinity");
+
+            // The deserialized scan result can be serialized again
+            try (ScanResult scanResult3 = roundTrip(scanResult2)) {
+                assertThat(scanResult3.getAllClasses().getNames())
+                        .isEqualTo(scanResult1.getAllClasses().getNames());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#acceptClassesReferencing(String...)}.
+ */
+public class ClassReferencePrefilterTest {
+    /** Annotation to find. */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker {
+    }
+
+    /** Superclass, which does not reference {@link Marker}. */
+    public static class Base {
+    }
+
+    /** Annotated subclass. */
+    @Marker
+    public static class Annotated extends Base {
+    }
+
+    /** Class with a field annotated with {@link Marker}. */
+    public static class AnnotatedField {
+        /** Field. */
+        @Marker
+        public int field;
+    }
+
+    /** Class that does not reference {@link Marker}. */
+    public static class Unrelated {
+    }
+
+    /** Test that only classes that reference the annotation are scanned. */
+    @Test
+    public void prefilter() {
+        try (ScanResult scanResult = new ClassGraph()
+                .acceptPackages(ClassReferencePrefilterTest.class.getPackage().getName()).enableAllInfo()
+                .acceptClassesReferencing(Marker.class.getName()).scan()) {
+            assertThat(scanResult.getClassesWithAnnotation(Marker.class).getNames())
+                    .containsOnly(Annotated.class.getName());
+            assertThat(scanResult.getClassesWithFieldAnnotation(Marker.class).getNames())
+                    .containsOnly(AnnotatedField.class.getName());
+            assertThat(scanResult.getAllClasses().getNames()).doesNotContain(Unrelated.class.getName());
+        }
+    }
+
+    /** Test that skipped classes are scanned if they are the superclass of a scanned class. */
+    @Test
+    public void superclassOfScannedClassIsScanned() {
+        try (ScanResult scanResult = new ClassGraph()
+                .acceptPackages(ClassReferencePrefilterTest.class.getPackage().getName()).enableClassInfo()
+                .acceptClassesReferencing(Marker.class.getName()).scan()) {
+            final ClassInfo superclass = scanResult.getClassInfo(Annotated.class.getName()).getSuperclass();
+            assertThat(superclass.getName()).isEqualTo(Base.class.getName());
+            assertThat(superclass.isExternalClass()).isFalse();
+            assertThat(scanResult.getAllClasses().getNames()).contains(Base.class.getName());
+        }
+    }
+}
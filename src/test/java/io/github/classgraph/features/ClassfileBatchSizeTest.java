@@ -0,0 +1,58 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#setClassfileBatchSize(int)}.
+ */
+public class ClassfileBatchSizeTest {
+    /** A jarfile containing many classfiles. */
+    private static final String JAR_PATH = ClassfileBatchSizeTest.class.getClassLoader().getResource("issue209.jar")
+            .getPath();
+
+    /**
+     * Scan the jarfile.
+     *
+     * @param classfileBatchSize
+     *            the classfile batch size
+     * @param pipelined
+     *            whether to perform a pipelined scan
+     * @return the names of the classes found
+     */
+    private static List<String> scan(final int classfileBatchSize, final boolean pipelined) {
+        final ClassGraph classGraph = new ClassGraph().overrideClasspath(JAR_PATH).enableAllInfo()
+                .setClassfileBatchSize(classfileBatchSize);
+        if (pipelined) {
+            classGraph.enablePipelinedScan();
+        }
+        try (ScanResult scanResult = classGraph.scan(4)) {
+            return scanResult.getAllClasses().getNames();
+        }
+    }
+
+    /** Test that batching classfiles does not change the classes that are found. */
+    @Test
+    public void batchingDoesNotChangeResult() {
+        final List<String> unbatched = scan(1, false);
+        assertThat(unbatched.size()).isGreaterThan(1);
+        for (final int classfileBatchSize : new int[] { 2, 7, 1000 }) {
+            assertThat(scan(classfileBatchSize, false)).isEqualTo(unbatched);
+            assertThat(scan(classfileBatchSize, true)).isEqualTo(unbatched);
+        }
+    }
+
+    /** Test that the batch size must be positive. */
+    @Test
+    public void batchSizeMustBePositive() {
+        assertThatThrownBy(() -> new ClassGraph().setClassfileBatchSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
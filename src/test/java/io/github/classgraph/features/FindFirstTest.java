@@ -0,0 +1,54 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ClassInfoList.ClassInfoFilter;
+
+/**
+ * Test {@link ClassGraph#findFirst(ClassInfoFilter)}.
+ */
+public class FindFirstTest {
+    /** Annotation to find. */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface FindMe {
+    }
+
+    /** Annotated class. */
+    @FindMe
+    public static class Annotated {
+    }
+
+    /** Test finding a class by class annotation. */
+    @Test
+    public void findFirstByAnnotation() {
+        final ClassInfo classInfo = new ClassGraph().acceptPackages(FindFirstTest.class.getPackage().getName())
+                .enableAnnotationInfo().findFirst(new ClassInfoFilter() {
+                    @Override
+                    public boolean accept(final ClassInfo ci) {
+                        return ci.hasAnnotation(FindMe.class);
+                    }
+                });
+        assertThat(classInfo).isNotNull();
+        assertThat(classInfo.getName()).isEqualTo(Annotated.class.getName());
+    }
+
+    /** Test that null is returned if no class matches. */
+    @Test
+    public void findFirstNoMatch() {
+        final ClassInfo classInfo = new ClassGraph().acceptPackages(FindFirstTest.class.getPackage().getName())
+                .findFirst(new ClassInfoFilter() {
+                    @Override
+                    public boolean accept(final ClassInfo ci) {
+                        return false;
+                    }
+                });
+        assertThat(classInfo).isNull();
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#writeJarIndex(java.io.File)}.
+ */
+public class JarIndexTest {
+    /** The path of the index within a jarfile. */
+    private static final String INDEX_PATH = "META-INF/classgraph/index.bin";
+
+    /** Annotation. */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Ann {
+        /** Value. */
+        String value() default "default";
+    }
+
+    /** Superclass. */
+    @Ann("superclass")
+    public static class Superclass {
+        /** Constant. */
+        public static final int CONSTANT = 42;
+
+        /**
+         * Method.
+         *
+         * @param param
+         *            the param
+         * @return the list
+         */
+        public List<String> method(final String param) {
+            return null;
+        }
+    }
+
+    /** Subclass. */
+    public static class Subclass extends Superclass {
+        /** Field. */
+        public long field;
+    }
+
+    /**
+     * Check whether a jarfile contains an index.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @return true if the jarfile contains an index
+     * @throws IOException
+     *             if the jarfile could not be read
+     */
+    private static boolean hasIndex(final Path jarFile) throws IOException {
+        try (ZipFile zipFile = new ZipFile(jarFile.toFile())) {
+            return zipFile.getEntry(INDEX_PATH) != null;
+        }
+    }
+
+    /**
+     * Scan a jarfile with all info enabled, and describe the scanned classes.
+     *
+     * @param classGraph
+     *            the {@link ClassGraph} instance to scan with
+     * @param jarFile
+     *            the jarfile
+     * @param log
+     *            the list to add the scan log to
+     * @return a description of the scanned classes
+     */
+    private static List<String> scan(final ClassGraph classGraph, final Path jarFile, final List<String> log) {
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                log.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+                // Nothing to flush
+            }
+
+            @Override
+            public void close() {
+                // Nothing to close
+            }
+        };
+        logger.addHandler(handler);
+        final List<String> description = new ArrayList<>();
+        try (ScanResult scanResult = classGraph.overrideClasspath(jarFile.toString())
+                .acceptPackages(JarIndexTest.class.getPackage().getName()).verbose().scan()) {
+            for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+                description.add(classInfo.getName() + " " + classInfo.getModifiers() + " "
+                        + classInfo.getSuperclasses().getNames() + " " + classInfo.getAnnotationInfo() + " "
+                        + classInfo.getFieldInfo() + " " + classInfo.getDeclaredMethodInfo() + " "
+                        + classInfo.getSubclasses().getNames());
+            }
+        } finally {
+            logger.removeHandler(handler);
+        }
+        return description;
+    }
+
+    /**
+     * Test that a scan that reads parsed classfiles from a jar index gives the same result as a scan that parses
+     * the classfiles.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void indexedScanMatchesUnindexedScan(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Ann.class, Superclass.class, Subclass.class);
+
+        final List<String> unindexed = scan(new ClassGraph().enableAllInfo().disableJarIndex(), jarFile,
+                new ArrayList<String>());
+        assertThat(unindexed).hasSize(3);
+
+        assertThat(new ClassGraph().enableAllInfo().writeJarIndex(jarFile.toFile())).isEqualTo(3);
+        assertThat(hasIndex(jarFile)).isTrue();
+
+        final List<String> log = new ArrayList<>();
+        final List<String> indexed = scan(new ClassGraph().enableAllInfo(), jarFile, log);
+        assertThat(indexed).isEqualTo(unindexed);
+        assertThat(log.toString()).contains("Found jar index with 3 parsed classfiles");
+
+        // Rewriting the index replaces the existing index
+        assertThat(new ClassGraph().enableAllInfo().writeJarIndex(jarFile.toFile())).isEqualTo(3);
+        assertThat(scan(new ClassGraph().enableAllInfo(), jarFile, new ArrayList<String>())).isEqualTo(unindexed);
+    }
+
+    /**
+     * Test that a classfile that was changed after the index was written is parsed rather than read from the
+     * index.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void changedClassfileIsParsed(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Ann.class, Superclass.class, Subclass.class);
+        new ClassGraph().enableAllInfo().writeJarIndex(jarFile.toFile());
+
+        // Rename the field of Subclass from "field" to "fielx", without changing the classfile size
+        final byte[] classfile = JarTestUtils.readClassfile(Subclass.class);
+        final byte[] fieldName = "\u0001\u0000\u0005field".getBytes(StandardCharsets.ISO_8859_1);
+        int fieldNameIdx = -1;
+        for (int i = 0; i + fieldName.length <= classfile.length && fieldNameIdx < 0; i++) {
+            fieldNameIdx = i;
+            for (int j = 0; j < fieldName.length; j++) {
+                if (classfile[i + j] != fieldName[j]) {
+                    fieldNameIdx = -1;
+                    break;
+                }
+            }
+        }
+        assertThat(fieldNameIdx).isGreaterThanOrEqualTo(0);
+        classfile[fieldNameIdx + fieldName.length - 1] = 'x';
+        final Path changedJarFile = tempDir.resolve("changed.jar");
+        JarTestUtils.copyJar(jarFile, changedJarFile, Subclass.class.getName().replace('.', '/') + ".class", classfile);
+        assertThat(hasIndex(changedJarFile)).isTrue();
+
+        final List<String> changed = scan(new ClassGraph().enableAllInfo(), changedJarFile,
+                new ArrayList<String>());
+        assertThat(changed).hasSize(3);
+        assertThat(changed.toString()).contains("fielx").doesNotContain("field");
+    }
+
+    /**
+     * Test that an index written with different options that affect classfile parsing is ignored.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void indexWithDifferentOptionsIsIgnored(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Ann.class, Superclass.class, Subclass.class);
+        final List<String> unindexed = scan(new ClassGraph().enableAllInfo().disableJarIndex(), jarFile,
+                new ArrayList<String>());
+
+        new ClassGraph().enableClassInfo().writeJarIndex(jarFile.toFile());
+        final List<String> log = new ArrayList<>();
+        assertThat(scan(new ClassGraph().enableAllInfo(), jarFile, log)).isEqualTo(unindexed);
+        assertThat(log.toString()).contains("Ignoring jar index written with different classfile parsing options");
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.classgraph.features;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Helpers for tests that scan jarfiles built from the classfiles of test classes.
+ */
+final class JarTestUtils {
+    /** Constructor. */
+    private JarTestUtils() {
+        // Cannot be constructed
+    }
+
+    /**
+     * Read the classfile of a class.
+     *
+     * @param cls
+     *            the class
+     * @return the classfile
+     * @throws IOException
+     *             if the classfile could not be read
+     */
+    static byte[] readClassfile(final Class<?> cls) throws IOException {
+        try (InputStream inputStream = JarTestUtils.class.getClassLoader()
+                .getResourceAsStream(cls.getName().replace('.', '/') + ".class")) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            copy(inputStream, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Write a jarfile containing the deflated classfiles of the given classes.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @param classes
+     *            the classes
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    static void writeJar(final Path jarFile, final Class<?>... classes) throws IOException {
+        writeJar(jarFile, /* stored = */ false, classes);
+    }
+
+    /**
+     * Write a jarfile containing the classfiles of the given classes.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @param stored
+     *            if true, store the classfiles, otherwise deflate them
+     * @param classes
+     *            the classes
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    static void writeJar(final Path jarFile, final boolean stored, final Class<?>... classes) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(jarFile))) {
+            for (final Class<?> cls : classes) {
+                final byte[] bytes = readClassfile(cls);
+                final ZipEntry zipEntry = new ZipEntry(cls.getName().replace('.', '/') + ".class");
+                if (stored) {
+                    final CRC32 crc = new CRC32();
+                    crc.update(bytes);
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(bytes.length);
+                    zipEntry.setCrc(crc.getValue());
+                }
+                zipOutputStream.putNextEntry(zipEntry);
+                zipOutputStream.write(bytes);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Copy a jarfile, replacing the content of one entry.
+     *
+     * @param srcJarFile
+     *            the jarfile to copy
+     * @param destJarFile
+     *            the copy
+     * @param replacedEntryPath
+     *            the path of the entry to replace
+     * @param replacementContent
+     *            the new content of the entry
+     * @throws IOException
+     *             if the jarfile could not be copied
+     */
+    static void copyJar(final Path srcJarFile, final Path destJarFile, final String replacedEntryPath,
+            final byte[] replacementContent) throws IOException {
+        try (ZipFile zipFile = new ZipFile(srcJarFile.toFile());
+                ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(destJarFile))) {
+            for (final Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+                final ZipEntry zipEntry = entries.nextElement();
+                zipOutputStream.putNextEntry(new ZipEntry(zipEntry.getName()));
+                if (zipEntry.getName().equals(replacedEntryPath)) {
+                    zipOutputStream.write(replacementContent);
+                } else {
+                    try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+                        copy(inputStream, zipOutputStream);
+                    }
+                }
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Copy an {@link InputStream} to an {@link OutputStream}.
+     *
+     * @param inputStream
+     *            the input stream
+     * @param outputStream
+     *            the output stream
+     * @throws IOException
+     *             if the copy failed
+     */
+    static void copy(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+        final byte[] buf = new byte[8192];
+        for (int n; (n = inputStream.read(buf)) > 0;) {
+            outputStream.write(buf, 0, n);
+        }
+    }
+}
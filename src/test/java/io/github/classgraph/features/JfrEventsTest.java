@@ -0,0 +1,77 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test that a scan emits JFR events while a Flight Recorder recording is running.
+ */
+public class JfrEventsTest {
+    /**
+     * Scan the classes of this package while recording ClassGraph JFR events, and read back the recorded events.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the recording could not be written or read
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_12)
+    public void scanEmitsJfrEvents(@TempDir final Path tempDir) throws IOException {
+        final Path recordingFile = tempDir.resolve("scan.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("io.github.classgraph.ScanPhase");
+            recording.enable("io.github.classgraph.ClasspathElementOpen");
+            recording.enable("io.github.classgraph.ClassfileParse").withThreshold(Duration.ZERO);
+            recording.start();
+            try (ScanResult scanResult = new ClassGraph()
+                    .acceptPackages(JfrEventsTest.class.getPackage().getName()).enableClassInfo().scan()) {
+                assertThat(scanResult.getClassInfo(JfrEventsTest.class.getName())).isNotNull();
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        final Set<String> phases = new HashSet<>();
+        final List<String> parsedPaths = new ArrayList<>();
+        int numClasspathElementOpenEvents = 0;
+        for (final RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            switch (event.getEventType().getName()) {
+            case "io.github.classgraph.ScanPhase":
+                phases.add(event.getString("phase"));
+                break;
+            case "io.github.classgraph.ClasspathElementOpen":
+                numClasspathElementOpenEvents++;
+                break;
+            case "io.github.classgraph.ClassfileParse":
+                parsedPaths.add(event.getString("path"));
+                assertThat(event.getLong("numBytes")).isGreaterThan(0L);
+                break;
+            default:
+                break;
+            }
+        }
+        assertThat(phases).contains("CLASSPATH_DISCOVERY", "PARSE_CLASSFILES", "LINK_CLASSFILES",
+                "INDEX_CLASSES");
+        assertThat(numClasspathElementOpenEvents).isGreaterThan(0);
+        assertThat(parsedPaths).contains(JfrEventsTest.class.getName().replace('.', '/') + ".class");
+    }
+}
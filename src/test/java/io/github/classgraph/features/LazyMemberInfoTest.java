@@ -0,0 +1,106 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#enableLazyMemberInfo()}.
+ */
+public class LazyMemberInfoTest {
+    /** Member annotation. */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface MemberAnnotation {
+        /**
+         * Value.
+         *
+         * @return the value
+         */
+        String value() default "default";
+    }
+
+    /** Class with annotated members. */
+    public static class ClassWithMembers {
+        /** Field. */
+        @MemberAnnotation
+        public int field;
+
+        /**
+         * Method.
+         *
+         * @param param
+         *            the param
+         */
+        @MemberAnnotation("method")
+        public void method(final String param) {
+        }
+    }
+
+    /** Test that fields and methods are parsed on first access. */
+    @Test
+    public void membersAreParsedOnFirstAccess() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(LazyMemberInfoTest.class.getPackage().getName())
+                .enableAllInfo().enableLazyMemberInfo().scan()) {
+            final ClassInfo classInfo = scanResult.getClassInfo(ClassWithMembers.class.getName());
+            assertThat(classInfo.getDeclaredFieldInfo().getNames()).containsExactly("field");
+            assertThat(classInfo.getDeclaredMethodInfo("method").get(0).getParameterInfo()).hasSize(1);
+            assertThat(classInfo.getDeclaredMethodInfo("method").get(0).getAnnotationInfo(MemberAnnotation.class)
+                    .getParameterValues().getValue("value")).isEqualTo("method");
+            assertThat(classInfo.getMethodAnnotations().getNames()).contains(MemberAnnotation.class.getName());
+
+            // Annotation parameter defaults are always parsed eagerly
+            final ClassInfo annotationClassInfo = scanResult.getClassInfo(MemberAnnotation.class.getName());
+            assertThat(annotationClassInfo.getAnnotationDefaultParameterValues().getValue("value"))
+                    .isEqualTo("default");
+        }
+    }
+
+    /** Test that finding classes by member annotation parses the members of all classes. */
+    @Test
+    public void memberAnnotationQueries() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(LazyMemberInfoTest.class.getPackage().getName())
+                .enableAllInfo().enableLazyMemberInfo().scan()) {
+            assertThat(scanResult.getClassesWithFieldAnnotation(MemberAnnotation.class).getNames())
+                    .containsExactly(ClassWithMembers.class.getName());
+            assertThat(scanResult.getClassesWithMethodAnnotation(MemberAnnotation.class).getNames())
+                    .containsExactly(ClassWithMembers.class.getName());
+        }
+    }
+
+    /** Test that a lazy scan returns the same members as a regular scan. */
+    @Test
+    public void sameMembersAsRegularScan() {
+        try (ScanResult lazyScanResult = new ClassGraph()
+                .acceptPackages(LazyMemberInfoTest.class.getPackage().getName()).enableAllInfo()
+                .enableLazyMemberInfo().scan();
+                ScanResult scanResult = new ClassGraph()
+                        .acceptPackages(LazyMemberInfoTest.class.getPackage().getName()).enableAllInfo().scan()) {
+            for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+                final ClassInfo lazyClassInfo = lazyScanResult.getClassInfo(classInfo.getName());
+                assertThat(lazyClassInfo.getDeclaredFieldInfo().getNames())
+                        .isEqualTo(classInfo.getDeclaredFieldInfo().getNames());
+                assertThat(lazyClassInfo.getDeclaredMethodAndConstructorInfo().getNames())
+                        .isEqualTo(classInfo.getDeclaredMethodAndConstructorInfo().getNames());
+            }
+        }
+    }
+
+    /** Test that members cannot be parsed after the ScanResult is closed. */
+    @Test
+    public void membersCannotBeParsedAfterClose() {
+        final ClassInfo classInfo;
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(LazyMemberInfoTest.class.getPackage().getName())
+                .enableAllInfo().enableLazyMemberInfo().scan()) {
+            classInfo = scanResult.getClassInfo(ClassWithMembers.class.getName());
+        }
+        assertThatThrownBy(classInfo::getDeclaredFieldInfo).isInstanceOf(IllegalArgumentException.class);
+    }
+}
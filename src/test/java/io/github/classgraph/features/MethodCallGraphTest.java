@@ -0,0 +1,235 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.MethodRef;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#enableMethodCallGraph()}.
+ */
+public class MethodCallGraphTest {
+    /** Callee interface. */
+    public interface CalleeInterface {
+        /**
+         * Interface method.
+         *
+         * @return the value
+         */
+        int interfaceMethod();
+    }
+
+    /** Callee class. */
+    public static class Callee implements CalleeInterface {
+        /**
+         * Static method.
+         *
+         * @return the value
+         */
+        public static int staticMethod() {
+            return 1;
+        }
+
+        /**
+         * Instance method.
+         *
+         * @return the value
+         */
+        public int instanceMethod() {
+            return 2;
+        }
+
+        @Override
+        public int interfaceMethod() {
+            return 3;
+        }
+    }
+
+    /** Subclass of the callee class, which inherits its methods. */
+    public static class SubCallee extends Callee {
+    }
+
+    /** Caller class. */
+    public static class Caller {
+        /**
+         * Calls methods with each kind of invoke instruction.
+         *
+         * @param iface
+         *            the interface to call
+         * @return the sum
+         */
+        public int callAll(final CalleeInterface iface) {
+            final Callee callee = new Callee();
+            return Callee.staticMethod() + callee.instanceMethod() + iface.interfaceMethod()
+                    + callee.instanceMethod() + Math.max(1, 2);
+        }
+
+        /**
+         * Calls a method through a subclass that inherits it.
+         *
+         * @return the value
+         */
+        public int callInherited() {
+            return new SubCallee().instanceMethod();
+        }
+
+        /**
+         * Calls methods from a lambda expression and through a method reference.
+         *
+         * @return the sum
+         */
+        public int callIndirectly() {
+            final IntSupplier lambda = () -> Callee.staticMethod();
+            final IntSupplier methodRef = Callee::staticMethod;
+            return lambda.getAsInt() + methodRef.getAsInt();
+        }
+
+        /**
+         * Calls nothing.
+         *
+         * @return the value
+         */
+        public int callNothing() {
+            return 0;
+        }
+    }
+
+    /**
+     * Scan the classes of this test.
+     *
+     * @return the scan result
+     */
+    private static ScanResult scan() {
+        return new ClassGraph().acceptClasses(MethodCallGraphTest.class.getName() + "*").enableMethodCallGraph()
+                .ignoreMethodVisibility().scan();
+    }
+
+    /**
+     * Get the names of the called methods, in the form "className.methodName".
+     *
+     * @param methodInfo
+     *            the calling method
+     * @return the called method names
+     */
+    private static List<String> getCalledMethodNames(final MethodInfo methodInfo) {
+        final List<String> names = new ArrayList<>();
+        for (final MethodRef methodRef : methodInfo.getCalledMethods()) {
+            names.add(methodRef.getClassName() + "." + methodRef.getName());
+        }
+        return names;
+    }
+
+    /** Test that the methods called by each method are found, in order, without duplicates. */
+    @Test
+    public void calledMethods() {
+        try (ScanResult scanResult = scan()) {
+            final MethodInfo callAll = scanResult.getClassInfo(Caller.class.getName())
+                    .getDeclaredMethodInfo("callAll").get(0);
+            assertThat(getCalledMethodNames(callAll)).containsExactly(Callee.class.getName() + ".<init>",
+                    Callee.class.getName() + ".staticMethod", Callee.class.getName() + ".instanceMethod",
+                    CalleeInterface.class.getName() + ".interfaceMethod", "java.lang.Math.max");
+            final MethodRef staticMethodRef = callAll.getCalledMethods().get(1);
+            assertThat(staticMethodRef.getTypeDescriptorStr()).isEqualTo("()I");
+            assertThat(staticMethodRef.getMethodInfo())
+                    .isEqualTo(scanResult.getClassInfo(Callee.class.getName()).getMethodInfo("staticMethod").get(0));
+            assertThat(callAll.getCalledMethods().get(4).getMethodInfo()).isNull();
+
+            // The lambda body and the method reference target are found through the bootstrap method arguments
+            final MethodInfo callIndirectly = scanResult.getClassInfo(Caller.class.getName())
+                    .getDeclaredMethodInfo("callIndirectly").get(0);
+            assertThat(getCalledMethodNames(callIndirectly)).contains(Callee.class.getName() + ".staticMethod",
+                    IntSupplier.class.getName() + ".getAsInt");
+            assertThat(getCalledMethodNames(callIndirectly).stream().anyMatch(name -> name.contains(".lambda$")))
+                    .isTrue();
+
+            assertThat(scanResult.getClassInfo(Caller.class.getName()).getDeclaredMethodInfo("callNothing").get(0)
+                    .getCalledMethods()).isEmpty();
+            assertThat(scanResult.getClassInfo(CalleeInterface.class.getName())
+                    .getDeclaredMethodInfo("interfaceMethod").get(0).getCalledMethods()).isEmpty();
+        }
+    }
+
+    /** Test the reverse index from called methods to calling methods. */
+    @Test
+    public void callers() {
+        try (ScanResult scanResult = scan()) {
+            final MethodInfo staticMethod = scanResult.getClassInfo(Callee.class.getName())
+                    .getDeclaredMethodInfo("staticMethod").get(0);
+            assertThat(staticMethod.getCallers().getNames()).contains("callAll", "callIndirectly");
+            assertThat(staticMethod.getCallers().getNames().stream().anyMatch(name -> name.startsWith("lambda$")))
+                    .isTrue();
+
+            // Calls through a subclass are found for the inherited method
+            final MethodInfo instanceMethod = scanResult.getClassInfo(Callee.class.getName())
+                    .getDeclaredMethodInfo("instanceMethod").get(0);
+            assertThat(scanResult.getCallers(instanceMethod).getNames()).containsExactly("callAll",
+                    "callInherited");
+            assertThat(scanResult.getCallers(Callee.class.getName(), "instanceMethod", "()I").getNames())
+                    .containsExactly("callAll");
+
+            // Callers of methods outside the scanned classes can be found by name
+            assertThat(scanResult.getCallers("java.lang.Math", "max", "(II)I").getNames())
+                    .containsExactly("callAll");
+            assertThat(scanResult.getCallers("java.lang.Math", "min", "(II)I")).isEmpty();
+        }
+    }
+
+    /** Test that the call graph survives a binary serialization round trip. */
+    @Test
+    public void binarySerialization() throws Exception {
+        try (ScanResult scanResult = scan()) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.writeTo(outputStream);
+            try (ScanResult deserialized = ScanResult
+                    .readFrom(new ByteArrayInputStream(outputStream.toByteArray()))) {
+                final MethodInfo callAll = scanResult.getClassInfo(Caller.class.getName())
+                        .getDeclaredMethodInfo("callAll").get(0);
+                final MethodInfo deserializedCallAll = deserialized.getClassInfo(Caller.class.getName())
+                        .getDeclaredMethodInfo("callAll").get(0);
+                assertThat(deserializedCallAll.getCalledMethods()).isEqualTo(callAll.getCalledMethods());
+                assertThat(deserialized.getCallers("java.lang.Math", "max", "(II)I").getNames())
+                        .containsExactly("callAll");
+            }
+        }
+    }
+
+    /** Test that the call graph is the same when the fields and methods are parsed lazily. */
+    @Test
+    public void lazyMemberInfo() {
+        try (ScanResult scanResult = scan();
+                ScanResult lazyScanResult = new ClassGraph()
+                        .acceptClasses(MethodCallGraphTest.class.getName() + "*").enableMethodCallGraph()
+                        .ignoreMethodVisibility().enableLazyMemberInfo().scan()) {
+            for (final MethodInfo methodInfo : scanResult.getClassInfo(Caller.class.getName())
+                    .getDeclaredMethodInfo()) {
+                final MethodInfo lazyMethodInfo = lazyScanResult.getClassInfo(Caller.class.getName())
+                        .getDeclaredMethodInfo(methodInfo.getName()).get(0);
+                assertThat(lazyMethodInfo.getCalledMethods()).isEqualTo(methodInfo.getCalledMethods());
+            }
+        }
+    }
+
+    /** Test that the call graph cannot be read unless it was enabled. */
+    @Test
+    public void notEnabled() {
+        try (ScanResult scanResult = new ClassGraph().acceptClasses(Caller.class.getName()).enableMethodInfo()
+                .scan()) {
+            final MethodInfo callAll = scanResult.getClassInfo(Caller.class.getName())
+                    .getDeclaredMethodInfo("callAll").get(0);
+            assertThatThrownBy(callAll::getCalledMethods).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> scanResult.getCallers("java.lang.Math", "max", "(II)I"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
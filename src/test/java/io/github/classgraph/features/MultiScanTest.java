@@ -0,0 +1,255 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.FieldInfo;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Accepted;
+import io.github.classgraph.test.rejected.RejectedAnnotation;
+import io.github.classgraph.test.rejected.RejectedInterface;
+import io.github.classgraph.test.rejected.RejectedSuperclass;
+
+/**
+ * Test {@link ClassGraph#scanAll(ClassGraph...)}.
+ */
+public class MultiScanTest {
+    /** Public class. */
+    public static class PublicClass {
+        /** Public method. */
+        public void publicMethod() {
+        }
+
+        /** Private method. */
+        @SuppressWarnings("unused")
+        private void privateMethod() {
+        }
+    }
+
+    /** Non-public class. */
+    static class NonPublicClass extends PublicClass {
+    }
+
+    /** Annotation for classes, fields, methods, parameters and types. */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ ElementType.TYPE, ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER,
+            ElementType.TYPE_USE })
+    public @interface Ann {
+    }
+
+    /** Class with annotations on its fields, methods, method parameters and types. */
+    @Ann
+    public static class AnnotatedClass {
+        /** Constant. */
+        @Ann
+        public static final int CONSTANT = 1;
+
+        /** Field with a type annotation. */
+        public List<@Ann String> list;
+
+        /** Protected field. */
+        protected List<String> protectedList;
+
+        /**
+         * Method.
+         *
+         * @param param
+         *            the parameter
+         * @return the parameter
+         */
+        @Ann
+        public String method(@Ann final String param) {
+            return param;
+        }
+    }
+
+    /** The package of this test. */
+    private static final String PACKAGE_NAME = MultiScanTest.class.getPackage().getName();
+
+    /**
+     * Create a {@link ClassGraph} that accepts the package of this test, with public classes and methods only.
+     *
+     * @return the {@link ClassGraph}
+     */
+    private static ClassGraph packageScan() {
+        return new ClassGraph().acceptPackages(PACKAGE_NAME).enableClassInfo();
+    }
+
+    /**
+     * Create a {@link ClassGraph} that accepts the nested classes of this test, including non-public classes and
+     * methods.
+     *
+     * @return the {@link ClassGraph}
+     */
+    private static ClassGraph classScan() {
+        return new ClassGraph().acceptClasses(PublicClass.class.getName(), NonPublicClass.class.getName())
+                .enableMethodInfo().ignoreClassVisibility().ignoreMethodVisibility();
+    }
+
+    /**
+     * Create scans of a jarfile that request different types of information: all information, for all packages;
+     * field and method info, with a rejected package; and class info only, with a rejected package.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @return the {@link ClassGraph} for each scan
+     */
+    private static ClassGraph[] mixedInfoScans(final Path jarFile) {
+        final String acceptedPackageName = Accepted.class.getPackage().getName();
+        final String rejectedPackageName = RejectedSuperclass.class.getPackage().getName();
+        return new ClassGraph[] {
+                new ClassGraph().overrideClasspath(jarFile.toString())
+                        .acceptPackages(PACKAGE_NAME, acceptedPackageName, rejectedPackageName).enableAllInfo()
+                        .ignoreFieldVisibility(),
+                new ClassGraph().overrideClasspath(jarFile.toString())
+                        .acceptPackages(PACKAGE_NAME, acceptedPackageName).rejectPackages(rejectedPackageName)
+                        .enableFieldInfo().enableMethodInfo(),
+                new ClassGraph().overrideClasspath(jarFile.toString()).acceptPackages(acceptedPackageName)
+                        .rejectPackages(rejectedPackageName).enableClassInfo() };
+    }
+
+    /**
+     * Describe the classes of a scan result, their superclasses and interfaces, and optionally their fields and
+     * methods.
+     *
+     * @param scanResult
+     *            the scan result
+     * @param includeMembers
+     *            if true, describe the fields and methods of the classes
+     * @return the description
+     */
+    private static List<String> describe(final ScanResult scanResult, final boolean includeMembers) {
+        final List<String> description = new ArrayList<>();
+        for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+            description.add(classInfo.toString());
+            if (classInfo.getSuperclass() != null) {
+                description.add("  extends " + classInfo.getSuperclass());
+            }
+            for (final ClassInfo interfaceInfo : classInfo.getInterfaces()) {
+                description.add("  implements " + interfaceInfo);
+            }
+            if (includeMembers) {
+                for (final FieldInfo fieldInfo : classInfo.getDeclaredFieldInfo()) {
+                    description.add("  " + fieldInfo);
+                }
+                for (final MethodInfo methodInfo : classInfo.getDeclaredMethodInfo()) {
+                    description.add("  " + methodInfo);
+                }
+            }
+        }
+        return description;
+    }
+
+    /** Test that each result of a multi-scan is the same as the result of the corresponding separate scan. */
+    @Test
+    public void sameResultsAsSeparateScans() {
+        final List<ScanResult> scanResults = ClassGraph.scanAll(packageScan(), classScan());
+        try (ScanResult packageScanResult = scanResults.get(0);
+                ScanResult classScanResult = scanResults.get(1);
+                ScanResult separatePackageScanResult = packageScan().scan();
+                ScanResult separateClassScanResult = classScan().scan()) {
+            assertThat(scanResults).hasSize(2);
+            assertThat(packageScanResult.getAllClasses().getNames())
+                    .isEqualTo(separatePackageScanResult.getAllClasses().getNames());
+            assertThat(packageScanResult.getAllClasses().getNames()).contains(PublicClass.class.getName())
+                    .doesNotContain(NonPublicClass.class.getName());
+            assertThat(classScanResult.getAllClasses().getNames())
+                    .isEqualTo(separateClassScanResult.getAllClasses().getNames());
+            assertThat(classScanResult.getAllClasses().getNames()).containsOnly(PublicClass.class.getName(),
+                    NonPublicClass.class.getName());
+
+            // Method info was only requested by the second scan, and only the second scan ignores visibility
+            assertThatThrownBy(
+                    () -> packageScanResult.getClassInfo(PublicClass.class.getName()).getDeclaredMethodInfo())
+                            .isInstanceOf(IllegalArgumentException.class);
+            final ClassInfo publicClassInfo = classScanResult.getClassInfo(PublicClass.class.getName());
+            assertThat(publicClassInfo.getDeclaredMethodInfo().getNames()).containsOnly("publicMethod",
+                    "privateMethod");
+            assertThat(classScanResult.getSubclasses(PublicClass.class.getName()).getNames())
+                    .containsOnly(NonPublicClass.class.getName());
+
+            // Resources are filtered by the accept criteria of each scan
+            assertThat(packageScanResult.getResourcesWithExtension("class").getPaths())
+                    .isEqualTo(separatePackageScanResult.getResourcesWithExtension("class").getPaths());
+            assertThat(classScanResult.getResourcesWithExtension("class").getPaths())
+                    .isEqualTo(separateClassScanResult.getResourcesWithExtension("class").getPaths());
+        }
+    }
+
+    /**
+     * Test that each result of a multi-scan of scans that request different types of information, and that reject
+     * different packages, is the same as the result of the corresponding separate scan.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void sameResultsAsSeparateScansForMixedInfo(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Ann.class, AnnotatedClass.class, PublicClass.class, Accepted.class,
+                RejectedSuperclass.class, RejectedInterface.class, RejectedAnnotation.class);
+        final List<ScanResult> scanResults = ClassGraph.scanAll(mixedInfoScans(jarFile));
+        try {
+            final ClassGraph[] separateScans = mixedInfoScans(jarFile);
+            for (int i = 0; i < separateScans.length; i++) {
+                final boolean includeMembers = i < 2;
+                try (ScanResult separateScanResult = separateScans[i].scan()) {
+                    assertThat(describe(scanResults.get(i), includeMembers))
+                            .isEqualTo(describe(separateScanResult, includeMembers));
+                }
+            }
+
+            // Annotations, constant initializer values and the rejected package were only requested by the
+            // first scan
+            final String allInfo = describe(scanResults.get(0), /* includeMembers = */ true).toString();
+            assertThat(allInfo).contains("@" + Ann.class.getName() + " public java.lang.String method",
+                    "java.util.List<@" + Ann.class.getName() + " java.lang.String> list", "CONSTANT = 1",
+                    "protectedList", "public class " + RejectedSuperclass.class.getName());
+            final String memberInfo = describe(scanResults.get(1), /* includeMembers = */ true).toString();
+            assertThat(memberInfo).contains("public java.lang.String method", "list")
+                    .doesNotContain("@" + Ann.class.getName(), "CONSTANT = 1", "protectedList",
+                            "public class " + RejectedSuperclass.class.getName());
+        } finally {
+            for (final ScanResult scanResult : scanResults) {
+                scanResult.close();
+            }
+        }
+    }
+
+    /** Test that closing one result of a multi-scan does not close the resources of the other results. */
+    @Test
+    public void closingOneResultKeepsOthersUsable() throws Exception {
+        final List<ScanResult> scanResults = ClassGraph.scanAll(packageScan(), classScan());
+        scanResults.get(0).close();
+        try (ScanResult classScanResult = scanResults.get(1)) {
+            final String classfilePath = PublicClass.class.getName().replace('.', '/') + ".class";
+            assertThat(classScanResult.getResourcesWithPath(classfilePath).get(0).load().length)
+                    .isGreaterThan(0);
+        }
+    }
+
+    /** Test that scans that differ in other options cannot be performed together. */
+    @Test
+    public void differentOptionsAreRejected() {
+        assertThatThrownBy(() -> ClassGraph.scanAll(packageScan(), classScan().enableSystemJarsAndModules()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClassGraph.scanAll()).isInstanceOf(IllegalArgumentException.class);
+    }
+}
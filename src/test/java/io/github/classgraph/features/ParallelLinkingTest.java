@@ -0,0 +1,87 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ModuleInfo;
+import io.github.classgraph.PackageInfo;
+import io.github.classgraph.ScanMetrics.Phase;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test that linking classfiles in parallel produces the same class, package and module graphs as linking them
+ * serially.
+ */
+public class ParallelLinkingTest {
+    /**
+     * Scan the JDK's {@code java.*} packages, which contain more than enough classes for linking to be performed
+     * in parallel.
+     *
+     * @param numThreads
+     *            the number of worker threads
+     * @return the scan result
+     */
+    private static ScanResult scanJdk(final int numThreads) {
+        return new ClassGraph().enableSystemJarsAndModules().acceptPackages("java").enableClassInfo()
+                .enableAnnotationInfo().ignoreClassVisibility().scan(numThreads);
+    }
+
+    /**
+     * Describe the classes, packages and modules of a scan result, with their relationships, in the order returned
+     * by the {@link ScanResult} API.
+     *
+     * @param scanResult
+     *            the scan result
+     * @return the description, one line per class, package or module
+     */
+    private static List<String> describe(final ScanResult scanResult) {
+        final List<String> lines = new ArrayList<>();
+        for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+            final ClassInfo superclass = classInfo.getSuperclass();
+            final PackageInfo packageInfo = classInfo.getPackageInfo();
+            final ModuleInfo moduleInfo = classInfo.getModuleInfo();
+            lines.add("class " + classInfo.getName() + " extends "
+                    + (superclass == null ? null : superclass.getName()) + " implements "
+                    + classInfo.getInterfaces().getNames() + " annotations " + classInfo.getAnnotations().getNames()
+                    + " subclasses " + classInfo.getSubclasses().getNames() + " implementers "
+                    + classInfo.getClassesImplementing().getNames() + " annotated "
+                    + classInfo.getClassesWithAnnotation().getNames() + " package "
+                    + (packageInfo == null ? null : packageInfo.getName()) + " module "
+                    + (moduleInfo == null ? null : moduleInfo.getName()));
+        }
+        for (final PackageInfo packageInfo : scanResult.getPackageInfo()) {
+            final PackageInfo parent = packageInfo.getParent();
+            lines.add("package " + packageInfo.getName() + " parent " + (parent == null ? null : parent.getName())
+                    + " children " + packageInfo.getChildren().getNames() + " classes "
+                    + packageInfo.getClassInfo().getNames());
+        }
+        for (final ModuleInfo moduleInfo : scanResult.getModuleInfo()) {
+            // The classes of each module are described by the class lines (ModuleInfo.getClassInfo() does not
+            // support modules that contain no accepted classes)
+            lines.add("module " + moduleInfo.getName() + " packages " + moduleInfo.getPackageInfo().getNames());
+        }
+        return lines;
+    }
+
+    /**
+     * Test that linking in parallel gives the same result as linking serially.
+     */
+    @Test
+    public void parallelLinkingMatchesSerialLinking() {
+        try (ScanResult serial = scanJdk(1); ScanResult parallel = scanJdk(4)) {
+            assertThat(serial.getAllClasses().size()).isGreaterThanOrEqualTo(1000);
+            // Check that the serial and parallel link paths were taken
+            assertThat(serial.getScanMetrics().getNumWorkerThreads(Phase.LINK_CLASSFILES)).isZero();
+            assertThat(parallel.getScanMetrics().getNumWorkerThreads(Phase.LINK_CLASSFILES)).isEqualTo(4);
+            assertThat(parallel.getPackageInfo().getNames()).isEqualTo(serial.getPackageInfo().getNames());
+            assertThat(parallel.getModuleInfo().getNames()).isEqualTo(serial.getModuleInfo().getNames());
+            assertThat(describe(parallel)).isEqualTo(describe(serial));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#enablePersistentCache(Path)}.
+ */
+public class PersistentCacheTest {
+    /** Annotation. */
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Ann {
+        /** Value. */
+        String value() default "default";
+
+        /** Classes. */
+        Class<?>[] classes() default {};
+    }
+
+    /** Superclass. */
+    @Ann(value = "superclass", classes = { String.class, int[].class })
+    public static class Superclass {
+        /** Constant. */
+        public static final int CONSTANT = 42;
+
+        /**
+         * Method.
+         *
+         * @param param
+         *            the param
+         * @return the list
+         * @throws IOException
+         *             never
+         */
+        public List<String> method(@Ann final String param) throws IOException {
+            return null;
+        }
+    }
+
+    /** Subclass. */
+    public static class Subclass extends Superclass implements Comparable<Subclass> {
+        /** Field. */
+        public long field;
+
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        @Override
+        public int compareTo(final Subclass o) {
+            return 0;
+        }
+    }
+
+    /**
+     * Scan a jarfile with the persistent cache enabled, and describe the scanned classes.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @param cacheDir
+     *            the cache directory
+     * @return a description of the scanned classes
+     */
+    private static List<String> scan(final Path jarFile, final Path cacheDir) {
+        final List<String> description = new ArrayList<>();
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString())
+                .acceptPackages(PersistentCacheTest.class.getPackage().getName()).enableAllInfo()
+                .enableStaticFinalFieldConstantInitializerValues().enablePersistentCache(cacheDir).scan()) {
+            for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+                description.add(classInfo.getName() + " " + classInfo.getModifiers() + " "
+                        + classInfo.getSuperclasses().getNames() + " " + classInfo.getInterfaces().getNames() + " "
+                        + classInfo.getTypeSignatureOrTypeDescriptor() + " " + classInfo.getAnnotationInfo() + " "
+                        + classInfo.getDeclaredFieldInfo() + " " + classInfo.getDeclaredMethodInfo() + " "
+                        + classInfo.getSubclasses().getNames() + " " + classInfo.getOuterClasses().getNames());
+            }
+        }
+        return description;
+    }
+
+    /**
+     * Count the cache files in the cache directory.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @return the number of cache files
+     * @throws IOException
+     *             if the cache directory could not be read
+     */
+    private static int countCacheFiles(final Path cacheDir) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(cacheDir, "*.cgcache")) {
+            for (@SuppressWarnings("unused")
+            final Path path : dirStream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test that a scan that reads parsed classfiles from the persistent cache gives the same result as a scan that
+     * parses the classfiles.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void cachedScanMatchesUncachedScan(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Ann.class, Superclass.class, Subclass.class);
+        final Path cacheDir = tempDir.resolve("cache");
+
+        final List<String> uncached = scan(jarFile, cacheDir);
+        assertThat(uncached).hasSize(3);
+        assertThat(uncached.toString()).contains("superclass").contains("CONSTANT = 42");
+        assertThat(countCacheFiles(cacheDir)).isEqualTo(1);
+
+        final List<String> cached = scan(jarFile, cacheDir);
+        assertThat(cached).isEqualTo(uncached);
+        assertThat(countCacheFiles(cacheDir)).isEqualTo(1);
+    }
+
+    /**
+     * Test that the persistent cache is not used after a jarfile changes.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void changedJarIsRescanned(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Ann.class, Superclass.class, Subclass.class);
+        final Path cacheDir = tempDir.resolve("cache");
+        assertThat(scan(jarFile, cacheDir)).hasSize(3);
+
+        JarTestUtils.writeJar(jarFile, Ann.class, Superclass.class);
+        final List<String> changed = scan(jarFile, cacheDir);
+        assertThat(changed).hasSize(2);
+        assertThat(changed.toString()).doesNotContain(Subclass.class.getName());
+    }
+}
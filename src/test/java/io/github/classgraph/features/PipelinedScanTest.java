@@ -0,0 +1,48 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#enablePipelinedScan()}.
+ */
+public class PipelinedScanTest {
+    /** Superclass. */
+    private static class Superclass {
+    }
+
+    /** Subclass. */
+    private static class Subclass extends Superclass {
+    }
+
+    /** Test that a pipelined scan gives the same result as a non-pipelined scan. */
+    @Test
+    public void pipelinedScan() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(PipelinedScanTest.class.getPackage().getName())
+                .enableAllInfo().scan();
+                ScanResult scanResultPipelined = new ClassGraph()
+                        .acceptPackages(PipelinedScanTest.class.getPackage().getName()).enableAllInfo()
+                        .enablePipelinedScan().scan()) {
+            assertThat(scanResultPipelined.getAllClasses().getNames())
+                    .isEqualTo(scanResult.getAllClasses().getNames());
+            final ClassInfo superclass = scanResultPipelined.getClassInfo(Superclass.class.getName());
+            assertThat(superclass.getSubclasses().getNames()).containsExactly(Subclass.class.getName());
+        }
+    }
+
+    /** Test that scanning is extended upwards to external classes in a pipelined scan. */
+    @Test
+    public void pipelinedScanExtendsScanningUpwards() {
+        try (ScanResult scanResult = new ClassGraph().acceptClasses(Subclass.class.getName()).enableAllInfo()
+                .enablePipelinedScan().scan()) {
+            final ClassInfo subclass = scanResult.getClassInfo(Subclass.class.getName());
+            assertThat(subclass.getSuperclass().getName()).isEqualTo(Superclass.class.getName());
+            assertThat(subclass.getSuperclass().isExternalClass()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ScanResult#rescan()}.
+ */
+public class RescanTest {
+    /** Superclass. */
+    public static class Superclass {
+        /** Method. */
+        public void method() {
+        }
+    }
+
+    /** Subclass. */
+    public static class Subclass extends Superclass {
+        /** Method. */
+        @Override
+        public void method() {
+        }
+    }
+
+    /**
+     * Copy the classfile of a class into a directory.
+     *
+     * @param cls
+     *            the class
+     * @param dir
+     *            the directory
+     * @return the path of the copied classfile
+     * @throws IOException
+     *             if the classfile could not be copied
+     */
+    private static Path copyClassfile(final Class<?> cls, final Path dir) throws IOException {
+        final String classfilePath = cls.getName().replace('.', '/') + ".class";
+        final Path target = dir.resolve(classfilePath);
+        Files.createDirectories(target.getParent());
+        try (InputStream inputStream = RescanTest.class.getClassLoader().getResourceAsStream(classfilePath)) {
+            Files.copy(inputStream, target);
+        }
+        return target;
+    }
+
+    /**
+     * Test that unchanged classfiles are reused by a rescan, and that changed and removed classfiles are detected.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the classfiles could not be copied
+     */
+    @Test
+    public void rescanReusesUnchangedClassfiles(@TempDir final Path tempDir) throws IOException {
+        copyClassfile(Superclass.class, tempDir);
+        final Path subclassPath = copyClassfile(Subclass.class, tempDir);
+
+        ScanResult scanResult = new ClassGraph().overrideClasspath(tempDir.toString())
+                .acceptPackages(RescanTest.class.getPackage().getName()).enableAllInfo().enableIncrementalRescan()
+                .scan();
+        try {
+            final ClassInfo superclass = scanResult.getClassInfo(Superclass.class.getName());
+            final ClassInfo subclass = scanResult.getClassInfo(Subclass.class.getName());
+            assertThat(superclass.getSubclasses().getNames()).containsExactly(Subclass.class.getName());
+
+            // Nothing changed -- both classfiles are reused
+            scanResult = scanResult.rescan();
+            final ClassInfo superclass2 = scanResult.getClassInfo(Superclass.class.getName());
+            final ClassInfo subclass2 = scanResult.getClassInfo(Subclass.class.getName());
+            assertThat(superclass2).isNotSameAs(superclass);
+            assertThat(superclass2.getSubclasses().getNames()).containsExactly(Subclass.class.getName());
+            assertThat(superclass2.getDeclaredMethodInfo("method").get(0))
+                    .isSameAs(superclass.getDeclaredMethodInfo("method").get(0));
+            assertThat(subclass2.getDeclaredMethodInfo("method").get(0))
+                    .isSameAs(subclass.getDeclaredMethodInfo("method").get(0));
+            assertThat(subclass2.getDeclaredMethodInfo("method").get(0).getClassInfo()).isSameAs(subclass2);
+
+            // Subclass changed -- only the subclass is parsed again
+            Files.setLastModifiedTime(subclassPath,
+                    FileTime.fromMillis(Files.getLastModifiedTime(subclassPath).toMillis() + 10000L));
+            scanResult = scanResult.rescan();
+            final ClassInfo superclass3 = scanResult.getClassInfo(Superclass.class.getName());
+            final ClassInfo subclass3 = scanResult.getClassInfo(Subclass.class.getName());
+            assertThat(superclass3.getDeclaredMethodInfo("method").get(0))
+                    .isSameAs(superclass.getDeclaredMethodInfo("method").get(0));
+            assertThat(subclass3.getDeclaredMethodInfo("method").get(0))
+                    .isNotSameAs(subclass.getDeclaredMethodInfo("method").get(0));
+            assertThat(subclass3.getSuperclass()).isSameAs(superclass3);
+
+            // Subclass removed
+            Files.delete(subclassPath);
+            scanResult = scanResult.rescan();
+            assertThat(scanResult.getClassInfo(Subclass.class.getName())).isNull();
+            assertThat(scanResult.getClassInfo(Superclass.class.getName()).getSubclasses()).isEmpty();
+        } finally {
+            scanResult.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#setScanDeadline(long, TimeUnit)}.
+ */
+public class ScanDeadlineTest {
+    /** The scan deadline for {@link #deadlinePassedMidScan(Path)}, in milliseconds. */
+    private static final long MID_SCAN_DEADLINE_MILLIS = 1000L;
+
+    /** Superclass. */
+    public static class Superclass {
+    }
+
+    /** Subclass. */
+    public static class Subclass1 extends Superclass {
+    }
+
+    /** Subclass. */
+    public static class Subclass2 extends Superclass {
+    }
+
+    /** Subclass. */
+    public static class Subclass3 extends Superclass {
+    }
+
+    /**
+     * Test that a scan whose deadline has already passed when scanning starts returns a partial result, rather
+     * than throwing an exception.
+     */
+    @Test
+    public void deadlinePassedReturnsPartialResult() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(ScanDeadlineTest.class.getPackage().getName())
+                .enableClassInfo().setScanDeadline(1, TimeUnit.NANOSECONDS).scan()) {
+            assertThat(scanResult.isPartial()).isTrue();
+            assertThat(scanResult.getUnscannedClasspathElements()).isNotEmpty();
+            assertThat(scanResult.getClassInfo(ScanDeadlineTest.class.getName())).isNull();
+        }
+    }
+
+    /**
+     * Test that a scan that completes before its deadline returns a complete result.
+     */
+    @Test
+    public void deadlineNotPassedReturnsCompleteResult() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(ScanDeadlineTest.class.getPackage().getName())
+                .enableClassInfo().setScanDeadline(1, TimeUnit.HOURS).scan()) {
+            assertThat(scanResult.isPartial()).isFalse();
+            assertThat(scanResult.getUnscannedClasspathElements()).isEmpty();
+            assertThat(scanResult.getClassInfo(ScanDeadlineTest.class.getName())).isNotNull();
+        }
+    }
+
+    /**
+     * Test that the pipelined scan also returns a partial result once the deadline has passed.
+     */
+    @Test
+    public void deadlinePassedPipelinedScan() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(ScanDeadlineTest.class.getPackage().getName())
+                .enableClassInfo().enablePipelinedScan().setScanDeadline(1, TimeUnit.NANOSECONDS).scan()) {
+            assertThat(scanResult.isPartial()).isTrue();
+            assertThat(scanResult.getUnscannedClasspathElements()).isNotEmpty();
+        }
+    }
+
+    /** Test that a negative timeout is rejected. */
+    @Test
+    public void negativeDeadline() {
+        assertThatThrownBy(() -> new ClassGraph().setScanDeadline(-1, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Test a deadline that passes while a classfile is being scanned. The persistent cache file of a jarfile is
+     * replaced with a named pipe, so that the first classfile work unit of the jarfile blocks reading the cache
+     * file until the deadline has passed. The work unit that is in flight when the deadline passes should be
+     * completed and its class linked into a usable result, and the remaining work units should be skipped, with
+     * the jarfile reported as not fully scanned.
+     *
+     * @param tempDir
+     *            the temp dir
+     * @throws Exception
+     *             if the test fails
+     */
+    @Test
+    public void deadlinePassedMidScan(@TempDir final Path tempDir) throws Exception {
+        final Path jarFile = tempDir.resolve("classes.jar");
+        JarTestUtils.writeJar(jarFile, Subclass1.class, Subclass2.class, Subclass3.class);
+        final Path cacheDir = tempDir.resolve("cache");
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString()).enableClassInfo()
+                .enablePersistentCache(cacheDir).scan()) {
+            assertThat(scanResult.getAllClasses()).hasSize(3);
+        }
+        final List<Path> cacheFiles = new ArrayList<>();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(cacheDir)) {
+            for (final Path path : dirStream) {
+                cacheFiles.add(path);
+            }
+        }
+        assertThat(cacheFiles).hasSize(1);
+        final Path cacheFile = cacheFiles.get(0);
+        final byte[] cacheFileContent = Files.readAllBytes(cacheFile);
+        Files.delete(cacheFile);
+        assumeTrue(mkfifo(cacheFile), "Named pipes are not supported");
+
+        // Opening the named pipe for writing blocks until the scan opens it for reading, and the scan then
+        // blocks reading the cache file until the deadline has passed (the deadline starts before the cache
+        // file is opened) and the content of the cache file has been written
+        final Thread writerThread = new Thread(() -> {
+            try (OutputStream outputStream = Files.newOutputStream(cacheFile)) {
+                Thread.sleep(MID_SCAN_DEADLINE_MILLIS);
+                outputStream.write(cacheFileContent);
+            } catch (final IOException | InterruptedException e) {
+                // Ignore
+            }
+        });
+        writerThread.setDaemon(true);
+        writerThread.start();
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString()).enableClassInfo()
+                .enablePersistentCache(cacheDir).setClassfileBatchSize(1)
+                .setScanDeadline(MID_SCAN_DEADLINE_MILLIS, TimeUnit.MILLISECONDS).scan(1)) {
+            assertThat(scanResult.isPartial()).isTrue();
+            final List<String> unscannedClasspathElements = scanResult.getUnscannedClasspathElements();
+            assertThat(unscannedClasspathElements).hasSize(1);
+            assertThat(unscannedClasspathElements.get(0)).endsWith(jarFile.getFileName().toString());
+            // Only the classfile that was in flight when the deadline passed was scanned, and it was linked
+            assertThat(scanResult.getAllClasses()).hasSize(1);
+            final ClassInfo scannedClassInfo = scanResult.getAllClasses().get(0);
+            assertThat(scannedClassInfo.getSuperclass().getName()).isEqualTo(Superclass.class.getName());
+            assertThat(scanResult.getSubclasses(Superclass.class).getNames())
+                    .containsExactly(scannedClassInfo.getName());
+            assertThat(scannedClassInfo.loadClass().getSuperclass()).isEqualTo(Superclass.class);
+        }
+    }
+
+    /**
+     * Create a named pipe.
+     *
+     * @param path
+     *            the path of the named pipe
+     * @return true if the named pipe was created
+     */
+    private static boolean mkfifo(final Path path) {
+        try {
+            return new ProcessBuilder("mkfifo", path.toString()).inheritIO().start().waitFor() == 0;
+        } catch (final IOException e) {
+            return false;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
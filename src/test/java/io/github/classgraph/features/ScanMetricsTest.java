@@ -0,0 +1,200 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanMetrics;
+import io.github.classgraph.ScanMetrics.Phase;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ScanResult#getScanMetrics()}.
+ */
+public class ScanMetricsTest {
+    /** Superclass. */
+    public static class Superclass {
+    }
+
+    /** Subclass. */
+    public static class Subclass extends Superclass {
+    }
+
+    /** Private class, which is skipped unless {@link ClassGraph#ignoreClassVisibility()} is called. */
+    private static class PrivateClass {
+    }
+
+    /**
+     * Test the phase timings and classfile counters of a scan of a jarfile with deflated entries.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void deflatedJar(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("deflated.jar");
+        JarTestUtils.writeJar(jarFile, /* stored = */ false, Superclass.class, Subclass.class, PrivateClass.class);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString())
+                .acceptPackages(ScanMetricsTest.class.getPackage().getName()).enableClassInfo().scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).containsExactlyInAnyOrder(Superclass.class.getName(),
+                    Subclass.class.getName());
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            assertThat(scanMetrics).isNotNull();
+            assertThat(scanMetrics.getNumJarsOpened()).isEqualTo(1);
+            assertThat(scanMetrics.getCentralDirectoryBytesRead()).isGreaterThan(0);
+            assertThat(scanMetrics.getBytesInflated()).isGreaterThan(0);
+            assertThat(scanMetrics.getBytesStored()).isZero();
+            assertThat(scanMetrics.getNumClassfilesParsed()).isEqualTo(2);
+            assertThat(scanMetrics.getNumClassfilesReused()).isZero();
+            assertThat(scanMetrics.getNumClassfilesSkipped()).isEqualTo(1);
+            assertThat(scanMetrics.getNumSkipClassExceptions()).isEqualTo(1);
+            assertThat(scanMetrics.getNumTempFilesCreated()).isZero();
+            long phaseWallTimeNanos = 0L;
+            for (final Phase phase : Phase.values()) {
+                assertThat(scanMetrics.getWallTimeNanos(phase)).as(phase.toString()).isGreaterThan(0);
+                assertThat(scanMetrics.getCpuTimeNanos(phase)).as(phase.toString()).isGreaterThanOrEqualTo(-1);
+                assertThat(scanMetrics.getTailTimeNanos(phase)).as(phase.toString()).isGreaterThanOrEqualTo(0);
+                phaseWallTimeNanos += scanMetrics.getWallTimeNanos(phase);
+            }
+            // Phases do not overlap unless the scan is pipelined
+            assertThat(scanMetrics.getTotalWallTimeNanos()).isGreaterThanOrEqualTo(phaseWallTimeNanos);
+            assertThat(scanMetrics.toString()).contains("PARSE_CLASSFILES").contains("tailTimeNanos=")
+                    .contains("numClassfilesParsed=2");
+        }
+    }
+
+    /**
+     * Test the I/O counters of a pipelined scan of a memory mapped jarfile with stored entries.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void storedJar(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("stored.jar");
+        JarTestUtils.writeJar(jarFile, /* stored = */ true, Superclass.class, Subclass.class, PrivateClass.class);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString())
+                .acceptPackages(ScanMetricsTest.class.getPackage().getName()).enableClassInfo()
+                .ignoreClassVisibility().enableMemoryMapping().enablePipelinedScan().scan()) {
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            assertThat(scanMetrics.getBytesInflated()).isZero();
+            assertThat(scanMetrics.getBytesStored()).isGreaterThan(0).isLessThan(Files.size(jarFile));
+            assertThat(scanMetrics.getMemoryMappedBytes()).isEqualTo(Files.size(jarFile));
+            assertThat(scanMetrics.getNumClassfilesParsed()).isEqualTo(3);
+            assertThat(scanMetrics.getNumClassfilesSkipped()).isZero();
+            assertThat(scanMetrics.getWallTimeNanos(Phase.PARSE_CLASSFILES)).isGreaterThan(0);
+        }
+    }
+
+    /**
+     * Test that a scan with adaptive concurrency finds the same classes, and reports the number of worker threads
+     * chosen for each phase.
+     */
+    @Test
+    public void adaptiveConcurrency() {
+        final int numThreads = 4;
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(ScanMetricsTest.class.getPackage().getName())
+                .enableClassInfo().enableAdaptiveConcurrency().scan(numThreads);
+                ScanResult expected = new ClassGraph().acceptPackages(ScanMetricsTest.class.getPackage().getName())
+                        .enableClassInfo().scan(numThreads)) {
+            assertThat(scanResult.getAllClasses().getNames()).isEqualTo(expected.getAllClasses().getNames());
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            for (final Phase phase : new Phase[] { Phase.OPEN_CLASSPATH_ELEMENTS, Phase.SCAN_PATHS,
+                    Phase.PARSE_CLASSFILES }) {
+                assertThat(scanMetrics.getNumWorkerThreads(phase)).as(phase.toString()).isGreaterThan(0)
+                        .isLessThanOrEqualTo(numThreads);
+                assertThat(expected.getScanMetrics().getNumWorkerThreads(phase)).as(phase.toString())
+                        .isEqualTo(numThreads);
+            }
+            assertThat(scanMetrics.getNumWorkerThreads(Phase.INDEX_CLASSES)).isZero();
+        }
+    }
+
+    /**
+     * Test that the cost of every classfile in a batch of classfiles is reported to the adaptive concurrency
+     * controller, not just the cost of the first classfile in the batch.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void adaptiveConcurrencyCostOfBatchedClassfiles(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("batched.jar");
+        JarTestUtils.writeJar(jarFile, Superclass.class, Subclass.class);
+        final long classfileBytes = JarTestUtils.readClassfile(Superclass.class).length
+                + JarTestUtils.readClassfile(Subclass.class).length;
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString())
+                .acceptPackages(ScanMetricsTest.class.getPackage().getName()).enableClassInfo()
+                .enableAdaptiveConcurrency().setClassfileBatchSize(32).scan(4)) {
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            assertThat(scanMetrics.getNumClassfilesParsed()).isEqualTo(2);
+            assertThat(scanMetrics.getAdaptiveConcurrencyWorkItems(Phase.PARSE_CLASSFILES)).isEqualTo(2);
+            assertThat(scanMetrics.getAdaptiveConcurrencyCost(Phase.PARSE_CLASSFILES)).isEqualTo(classfileBytes);
+        }
+    }
+
+    /**
+     * Test the cost of opening classpath entries reported to the adaptive concurrency controller. The cost of a
+     * jarfile is its size, and the cost of a directory is unknown, since directories have to be scanned
+     * recursively.
+     *
+     * @param tempDir
+     *            the temporary directory
+     * @throws IOException
+     *             if the jarfile could not be written
+     */
+    @Test
+    public void adaptiveConcurrencyCostOfClasspathEntries(@TempDir final Path tempDir) throws IOException {
+        final Path jarFile = tempDir.resolve("entry.jar");
+        JarTestUtils.writeJar(jarFile, Superclass.class, Subclass.class);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString())
+                .acceptPackages(ScanMetricsTest.class.getPackage().getName()).enableClassInfo()
+                .enableAdaptiveConcurrency().scan(4)) {
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            assertThat(scanMetrics.getAdaptiveConcurrencyWorkItems(Phase.OPEN_CLASSPATH_ELEMENTS)).isEqualTo(1);
+            assertThat(scanMetrics.getAdaptiveConcurrencyCost(Phase.OPEN_CLASSPATH_ELEMENTS))
+                    .isEqualTo(Files.size(jarFile));
+        }
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarFile.toString(), tempDir.toString())
+                .acceptPackages(ScanMetricsTest.class.getPackage().getName()).enableClassInfo()
+                .enableAdaptiveConcurrency().scan(4)) {
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            assertThat(scanMetrics.getAdaptiveConcurrencyWorkItems(Phase.OPEN_CLASSPATH_ELEMENTS)).isEqualTo(2);
+            assertThat(scanMetrics.getAdaptiveConcurrencyCost(Phase.OPEN_CLASSPATH_ELEMENTS)).isEqualTo(-1L);
+        }
+    }
+
+    /**
+     * Test that a deserialized {@link ScanResult} has no scan metrics.
+     *
+     * @throws IOException
+     *             if the scan result could not be serialized or deserialized
+     */
+    @Test
+    public void deserializedScanResultHasNoMetrics() throws IOException {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(ScanMetricsTest.class.getPackage().getName())
+                .enableClassInfo().scan()) {
+            assertThat(scanResult.getScanMetrics()).isNotNull();
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.writeTo(outputStream);
+            try (ScanResult deserialized = ScanResult
+                    .readFrom(new ByteArrayInputStream(outputStream.toByteArray()))) {
+                assertThat(deserialized.getScanMetrics()).isNull();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#enableSharedJarCache()}.
+ */
+public class SharedJarCacheTest {
+    /** The path of a class in a nested jar. */
+    private static final String NESTED_JAR_PATH = "jar:file://"
+            + SharedJarCacheTest.class.getClassLoader().getResource("nested-jars-level1.zip").getPath()
+            + "!/level2.jar!/level3.jar!/classpath1/classpath2";
+
+    /** Close the unused shared jarfiles, and restore the default maximum size of the cache. */
+    @AfterEach
+    public void clearSharedJarCache() {
+        ClassGraph.setSharedJarCacheMaxSize(0L);
+        ClassGraph.setSharedJarCacheMaxSize(256L * 1024 * 1024);
+    }
+
+    /**
+     * Test that closing a {@link ScanResult} does not close a shared jarfile that is in use by another scan.
+     *
+     * @throws IOException
+     *             if a resource could not be read.
+     */
+    @Test
+    public void closingScanResultDoesNotCloseSharedJar() throws IOException {
+        final ScanResult scanResult1 = new ClassGraph().overrideClasspath(NESTED_JAR_PATH).enableClassInfo()
+                .enableSharedJarCache().scan();
+        try (ScanResult scanResult2 = new ClassGraph().overrideClasspath(NESTED_JAR_PATH).enableClassInfo()
+                .enableSharedJarCache().scan()) {
+            assertThat(scanResult1.getAllClasses().getNames()).containsOnly("com.test.Test");
+            scanResult1.close();
+            assertThat(scanResult2.getAllClasses().getNames()).containsOnly("com.test.Test");
+            final Resource resource = scanResult2.getAllClasses().get(0).getResource();
+            assertThat(resource.load()).isNotEmpty();
+        }
+    }
+
+    /** Test that jarfiles are reopened after they have been evicted from the cache. */
+    @Test
+    public void evictedJarIsReopened() {
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(NESTED_JAR_PATH).enableClassInfo()
+                .enableSharedJarCache().scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).containsOnly("com.test.Test");
+        }
+        ClassGraph.setSharedJarCacheMaxSize(0L);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(NESTED_JAR_PATH).enableClassInfo()
+                .enableSharedJarCache().scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).containsOnly("com.test.Test");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassGraph.ClassInfoConsumer;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Test {@link ClassGraph#scanStreaming(ClassInfoConsumer)}.
+ */
+public class StreamingScanTest {
+    /** Superclass. */
+    private static class Superclass {
+    }
+
+    /** Subclass. */
+    private static class Subclass extends Superclass implements Runnable, Serializable {
+        /** serialVersionUID. */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void run() {
+        }
+    }
+
+    /** Test that a streaming scan produces the same classes as a regular scan. */
+    @Test
+    public void streamingScan() {
+        final Map<String, ClassInfo> streamedClassInfo = new ConcurrentHashMap<>();
+        new ClassGraph().acceptPackages(StreamingScanTest.class.getPackage().getName()).ignoreClassVisibility()
+                .scanStreaming(new ClassInfoConsumer() {
+                    @Override
+                    public void accept(final ClassInfo classInfo) {
+                        streamedClassInfo.put(classInfo.getName(), classInfo);
+                    }
+                });
+        try (ScanResult scanResult = new ClassGraph()
+                .acceptPackages(StreamingScanTest.class.getPackage().getName()).ignoreClassVisibility()
+                .enableClassInfo().scan()) {
+            final List<String> streamedClassNames = new ArrayList<>(streamedClassInfo.keySet());
+            Collections.sort(streamedClassNames);
+            assertThat(streamedClassNames).isEqualTo(scanResult.getAllClasses().getNames());
+        }
+        final ClassInfo subclass = streamedClassInfo.get(Subclass.class.getName());
+        assertThat(subclass.getSuperclassName()).isEqualTo(Superclass.class.getName());
+        assertThat(subclass.getDeclaredInterfaceNames()).containsExactly(Runnable.class.getName(),
+                Serializable.class.getName());
+        assertThat(streamedClassInfo.get(Superclass.class.getName()).getSuperclassName()).isNull();
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import nonapi.io.github.classgraph.concurrency.VirtualThreads;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * Test {@link ClassGraph#enableVirtualThreads()} (falls back to platform threads on JDKs without virtual threads).
+ */
+public class VirtualThreadsTest {
+    /** Test that scanning on virtual threads gives the same result as scanning on platform threads. */
+    @Test
+    public void virtualThreads() {
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(VirtualThreadsTest.class.getPackage().getName())
+                .enableAllInfo().scan();
+                ScanResult scanResultVirtual = new ClassGraph()
+                        .acceptPackages(VirtualThreadsTest.class.getPackage().getName()).enableAllInfo()
+                        .enableVirtualThreads().scan()) {
+            assertThat(scanResultVirtual.getAllClasses().getNames())
+                    .contains(VirtualThreadsTest.class.getName());
+            assertThat(scanResultVirtual.getAllClasses().getNames())
+                    .isEqualTo(scanResult.getAllClasses().getNames());
+        }
+    }
+
+    /**
+     * Test that the worker tasks are run on virtual threads, if the JDK supports them. Log entries are written in
+     * realtime, so that the threads the worker tasks were run on can be found from the threads that log entries
+     * were published on.
+     *
+     * @throws ReflectiveOperationException
+     *             if {@code Thread#isVirtual()} could not be called
+     */
+    @Test
+    public void workerTasksRunOnVirtualThreads() throws ReflectiveOperationException {
+        assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported");
+        final Thread scanThread = Thread.currentThread();
+        final List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        final Set<Thread> workerThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        final boolean useParentHandlers = logger.getUseParentHandlers();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                log.add(record.getMessage());
+                if (Thread.currentThread() != scanThread) {
+                    workerThreads.add(Thread.currentThread());
+                }
+            }
+
+            @Override
+            public void flush() {
+                // Nothing to flush
+            }
+
+            @Override
+            public void close() {
+                // Nothing to close
+            }
+        };
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        try (ScanResult scanResult = new ClassGraph().acceptPackages(VirtualThreadsTest.class.getPackage().getName())
+                .enableClassInfo().enableVirtualThreads().enableRealtimeLogging().scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).contains(VirtualThreadsTest.class.getName());
+        } finally {
+            LogNode.logInRealtime(false);
+            logger.setUseParentHandlers(useParentHandlers);
+            logger.removeHandler(handler);
+        }
+        assertThat(String.join("\n", log)).contains("Using virtual threads");
+        assertThat(workerThreads).isNotEmpty();
+        final Method isVirtual = Thread.class.getMethod("isVirtual");
+        for (final Thread workerThread : workerThreads) {
+            assertThat((Boolean) isVirtual.invoke(workerThread)).isTrue();
+        }
+    }
+}
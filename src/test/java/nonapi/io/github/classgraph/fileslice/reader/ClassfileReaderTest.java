@@ -0,0 +1,89 @@
+package nonapi.io.github.classgraph.fileslice.reader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import nonapi.io.github.classgraph.fileslice.ArraySlice;
+
+/**
+ * Test {@link ClassfileReader}.
+ */
+public class ClassfileReaderTest {
+    /**
+     * Create test content, where each int is its own index.
+     *
+     * @param numInts
+     *            the number of ints
+     * @return the content
+     */
+    private static byte[] content(final int numInts) {
+        final byte[] content = new byte[numInts * 4];
+        for (int i = 0; i < numInts; i++) {
+            content[i * 4] = (byte) (i >>> 24);
+            content[i * 4 + 1] = (byte) (i >>> 16);
+            content[i * 4 + 2] = (byte) (i >>> 8);
+            content[i * 4 + 3] = (byte) i;
+        }
+        return content;
+    }
+
+    /**
+     * Read all the ints in the content, and check that each int is its own index.
+     *
+     * @param reader
+     *            the reader
+     * @param numInts
+     *            the number of ints
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    private static void readContent(final ClassfileReader reader, final int numInts) throws IOException {
+        for (int i = 0; i < numInts; i++) {
+            assertThat(reader.readInt()).isEqualTo(i);
+        }
+    }
+
+    /** Test that a buffer that is large enough is reused as-is by the next reader, despite stale contents. */
+    @Test
+    public void largeBufferIsReused() throws IOException {
+        final byte[] buf = new byte[64 * 1024];
+        Arrays.fill(buf, (byte) 0x7f);
+        try (ClassfileReader reader = new ClassfileReader(new ByteArrayInputStream(content(1000)), null, buf)) {
+            readContent(reader, 1000);
+            assertThat(reader.getReusableBuffer()).isSameAs(buf);
+        }
+        try (ClassfileReader reader = new ClassfileReader(new ByteArrayInputStream(content(10)), null, buf)) {
+            readContent(reader, 10);
+            assertThat(reader.getReusableBuffer()).isSameAs(buf);
+        }
+    }
+
+    /** Test that a buffer that is too small is grown, and the grown buffer is returned for reuse. */
+    @Test
+    public void smallBufferIsGrown() throws IOException {
+        final byte[] buf = new byte[16];
+        try (ClassfileReader reader = new ClassfileReader(new ByteArrayInputStream(content(20000)), null, buf)) {
+            readContent(reader, 20000);
+            assertThat(reader.getReusableBuffer()).isNotSameAs(buf);
+            assertThat(reader.getReusableBuffer().length).isGreaterThanOrEqualTo(20000 * 4);
+        }
+    }
+
+    /** Test that the backing array of an {@link ArraySlice} is not handed out for reuse. */
+    @Test
+    public void arraySliceBufferIsNotReused() throws IOException {
+        final byte[] content = content(100);
+        try (ClassfileReader reader = new ClassfileReader(
+                new ArraySlice(content, /* isDeflatedZipEntry = */ false, /* inflatedLengthHint = */ 0L,
+                        /* nestedJarHandler = */ null),
+                null, new byte[16])) {
+            readContent(reader, 100);
+            assertThat(reader.getReusableBuffer()).isNull();
+        }
+    }
+}
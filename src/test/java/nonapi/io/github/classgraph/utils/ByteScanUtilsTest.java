@@ -0,0 +1,111 @@
+package nonapi.io.github.classgraph.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link ByteScanUtils}.
+ */
+public class ByteScanUtilsTest {
+    /** Bytes that are likely to trip up the SWAR implementations. */
+    private static final byte[] INTERESTING_BYTES = { 0, 1, '\r', '\n', '\f', 'P', 'K', 5, 6, '/', 'a', 'A', 'z',
+            'Z', '@', '[', '`', '{', '-', (byte) 0x80, (byte) 0xc0, (byte) 0xe1, (byte) 0xff };
+
+    /**
+     * Create a random byte array made of the interesting bytes.
+     *
+     * @param random
+     *            the random number generator
+     * @return the byte array
+     */
+    private static byte[] randomBytes(final Random random) {
+        final byte[] arr = new byte[random.nextInt(40)];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = random.nextInt(4) == 0 ? INTERESTING_BYTES[random.nextInt(INTERESTING_BYTES.length)]
+                    : (byte) ('b' + random.nextInt(4));
+        }
+        return arr;
+    }
+
+    /** Test that the SWAR and scalar implementations agree on random inputs. */
+    @Test
+    public void swarMatchesScalar() {
+        final Random random = new Random(42);
+        for (int iter = 0; iter < 100000; iter++) {
+            final byte[] arr = randomBytes(random);
+            final int fromIdx = arr.length == 0 ? 0 : random.nextInt(arr.length);
+            final int toIdx = fromIdx + random.nextInt(arr.length - fromIdx + 1);
+            assertThat(ByteScanUtils.indexOfLineEndSWAR(arr, fromIdx, toIdx))
+                    .isEqualTo(ByteScanUtils.indexOfLineEndScalar(arr, fromIdx, toIdx));
+            assertThat(ByteScanUtils.indexOfNonASCIISWAR(arr, fromIdx, toIdx))
+                    .isEqualTo(ByteScanUtils.indexOfNonASCIIScalar(arr, fromIdx, toIdx));
+            final byte b = INTERESTING_BYTES[random.nextInt(INTERESTING_BYTES.length)];
+            assertThat(ByteScanUtils.indexOfSWAR(arr, fromIdx, toIdx, b))
+                    .isEqualTo(ByteScanUtils.indexOfScalar(arr, fromIdx, toIdx, b));
+            if (arr.length >= 4) {
+                final int maxIdx = Math.min(toIdx, arr.length - 4);
+                final int minIdx = Math.min(fromIdx, maxIdx);
+                final int value = 0x06054b50 + (random.nextInt(4) == 0 ? 1 : 0);
+                assertThat(ByteScanUtils.lastIndexOfIntLESWAR(arr, minIdx, maxIdx, value))
+                        .isEqualTo(ByteScanUtils.lastIndexOfIntLEScalar(arr, minIdx, maxIdx, value));
+            }
+        }
+    }
+
+    /** Test case-insensitive matching of manifest keys. */
+    @Test
+    public void regionMatchesIgnoreCase() {
+        final byte[] key = "automatic-module-name".getBytes(StandardCharsets.UTF_8);
+        final String[] matching = { "Automatic-Module-Name", "AUTOMATIC-MODULE-NAME", "automatic-module-name" };
+        final String[] nonMatching = { "Automatic\rModule-Name", "Automatic-Module-Nam", "Automatic-Modulé-Name",
+                "Automatic-Module-Nam@", "Automatic-Module-Nam{", "Automatic-Module\rName" };
+        for (final String str : matching) {
+            final byte[] arr = ("x" + str).getBytes(StandardCharsets.UTF_8);
+            assertThat(ByteScanUtils.regionMatchesIgnoreCase(arr, 1, key)).as(str).isTrue();
+            assertThat(ByteScanUtils.regionMatchesIgnoreCaseScalar(arr, 1, key, 0)).as(str).isTrue();
+        }
+        for (final String str : nonMatching) {
+            final byte[] arr = ("x" + str).getBytes(StandardCharsets.UTF_8);
+            assertThat(ByteScanUtils.regionMatchesIgnoreCase(arr, 1, key)).as(str).isFalse();
+            if (arr.length > key.length) {
+                assertThat(ByteScanUtils.regionMatchesIgnoreCaseSWAR(arr, 1, key, 0)).as(str).isFalse();
+                assertThat(ByteScanUtils.regionMatchesIgnoreCaseScalar(arr, 1, key, 0)).as(str).isFalse();
+            }
+        }
+
+        // Compare the SWAR and scalar implementations on all pairs of bytes at each position of a 16-byte key
+        final byte[] longKey = "class-path-abc-z".getBytes(StandardCharsets.UTF_8);
+        final byte[] arr = longKey.clone();
+        for (int pos = 0; pos < longKey.length; pos++) {
+            for (int b = 0; b < 256; b++) {
+                arr[pos] = (byte) b;
+                assertThat(ByteScanUtils.regionMatchesIgnoreCaseSWAR(arr, 0, longKey, 0))
+                        .isEqualTo(ByteScanUtils.regionMatchesIgnoreCaseScalar(arr, 0, longKey, 0));
+            }
+            arr[pos] = longKey[pos];
+        }
+    }
+
+    /** Test finding the zipfile End Of Central Directory signature. */
+    @Test
+    public void lastIndexOfIntLE() {
+        final byte[] arr = new byte[100];
+        arr[10] = 'P';
+        arr[11] = 'K';
+        arr[12] = 5;
+        arr[13] = 6;
+        arr[50] = 'P';
+        arr[51] = 'K';
+        arr[52] = 5;
+        arr[53] = 6;
+        arr[70] = 'P';
+        arr[71] = 'K';
+        assertThat(ByteScanUtils.lastIndexOfIntLE(arr, 0, 96, 0x06054b50)).isEqualTo(50);
+        assertThat(ByteScanUtils.lastIndexOfIntLE(arr, 0, 49, 0x06054b50)).isEqualTo(10);
+        assertThat(ByteScanUtils.lastIndexOfIntLE(arr, 11, 49, 0x06054b50)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,89 @@
+package nonapi.io.github.classgraph.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link ByteStringInterner}.
+ */
+public class ByteStringInternerTest {
+    /**
+     * Encode a string in the modified UTF8 format (identical to UTF8 for strings without NUL or supplementary
+     * characters), surrounded by padding bytes.
+     *
+     * @param str
+     *            the string
+     * @return the padded encoded bytes, with the string starting at offset 3
+     */
+    private static byte[] encode(final String str) {
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        final byte[] buf = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, buf, 3, bytes.length);
+        return buf;
+    }
+
+    /** Test that interning the same bytes returns the same instance. */
+    @Test
+    public void sameBytesReturnSameInstance() {
+        final ByteStringInterner interner = new ByteStringInterner();
+        final byte[] buf1 = encode("java/lang/String");
+        final byte[] buf2 = encode("java/lang/String");
+        final String str1 = interner.intern(buf1, 3, buf1.length - 6, false, false);
+        final String str2 = interner.intern(buf2, 3, buf2.length - 6, false, false);
+        assertThat(str1).isEqualTo("java/lang/String");
+        assertThat(str2).isSameAs(str1);
+    }
+
+    /** Test that the same bytes decoded with different options are interned separately. */
+    @Test
+    public void optionsAreInternedSeparately() {
+        final ByteStringInterner interner = new ByteStringInterner();
+        final byte[] buf = encode("Ljava/lang/String;");
+        final int len = buf.length - 6;
+        assertThat(interner.intern(buf, 3, len, false, false)).isEqualTo("Ljava/lang/String;");
+        assertThat(interner.intern(buf, 3, len, true, false)).isEqualTo("Ljava.lang.String;");
+        assertThat(interner.intern(buf, 3, len, false, true)).isEqualTo("java/lang/String");
+        assertThat(interner.intern(buf, 3, len, true, true)).isEqualTo("java.lang.String");
+    }
+
+    /** Test that non-ASCII strings are decoded correctly. */
+    @Test
+    public void nonASCIIStrings() {
+        final ByteStringInterner interner = new ByteStringInterner();
+        final String str = "päckage/Klässe中";
+        final byte[] buf = encode(str);
+        assertThat(interner.intern(buf, 3, buf.length - 6, false, false)).isEqualTo(str);
+        assertThat(interner.intern(buf, 3, buf.length - 6, true, false)).isEqualTo(str.replace('/', '.'));
+    }
+
+    /** Test that interned strings stay distinct when the table grows. */
+    @Test
+    public void manyStrings() {
+        final ByteStringInterner interner = new ByteStringInterner();
+        final String[] interned = new String[20000];
+        for (int i = 0; i < interned.length; i++) {
+            final byte[] buf = encode("com/example/Class" + i);
+            interned[i] = interner.intern(buf, 3, buf.length - 6, true, false);
+        }
+        for (int i = 0; i < interned.length; i++) {
+            final byte[] buf = encode("com/example/Class" + i);
+            assertThat(interner.intern(buf, 3, buf.length - 6, true, false)).isSameAs(interned[i]);
+            assertThat(interned[i]).isEqualTo("com.example.Class" + i);
+        }
+    }
+
+    /** Test that an invalid range is rejected. */
+    @Test
+    public void invalidRange() {
+        final ByteStringInterner interner = new ByteStringInterner();
+        final byte[] buf = encode("abc");
+        assertThatThrownBy(() -> interner.intern(buf, 3, buf.length, false, false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> interner.intern(buf, -1, 1, false, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
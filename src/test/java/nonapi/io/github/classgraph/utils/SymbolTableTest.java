@@ -0,0 +1,80 @@
+package nonapi.io.github.classgraph.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test {@link SymbolTable}.
+ */
+public class SymbolTableTest {
+    /** Test that Latin-1 and non-Latin-1 strings are returned unchanged, with the same hash code. */
+    @Test
+    public void addAndGet() {
+        final SymbolTable symbolTable = new SymbolTable();
+        final String[] strs = { "", "()V", "Ljava/lang/String;", "(Ljava/util/List<Ljava/lang/String;>;)V",
+                "café", "中文", "\ud800" };
+        final int[] symbols = new int[strs.length];
+        for (int i = 0; i < strs.length; i++) {
+            symbols[i] = symbolTable.add(strs[i]);
+        }
+        for (int i = 0; i < strs.length; i++) {
+            assertThat(symbolTable.get(symbols[i])).isEqualTo(strs[i]);
+            assertThat(symbolTable.hashCode(symbols[i])).isEqualTo(strs[i].hashCode());
+        }
+        assertThat(symbolTable.size()).isEqualTo(strs.length);
+    }
+
+    /** Test that strings are stored correctly across chunk and page boundaries. */
+    @Test
+    public void manySymbols() {
+        final SymbolTable symbolTable = new SymbolTable();
+        final int[] symbols = new int[50000];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = symbolTable.add("(Lcom/example/Class" + i + ";)V");
+        }
+        final char[] longChars = new char[100000];
+        for (int i = 0; i < longChars.length; i++) {
+            longChars[i] = (char) ('Ā' + i % 100);
+        }
+        final String longStr = new String(longChars);
+        final int longSymbol = symbolTable.add(longStr);
+        final int afterLongSymbol = symbolTable.add("()V");
+        for (int i = 0; i < symbols.length; i++) {
+            assertThat(symbolTable.get(symbols[i])).isEqualTo("(Lcom/example/Class" + i + ";)V");
+        }
+        assertThat(symbolTable.get(longSymbol)).isEqualTo(longStr);
+        assertThat(symbolTable.get(afterLongSymbol)).isEqualTo("()V");
+    }
+
+    /** Test that interning the same bytes as a symbol returns the same symbol ID. */
+    @Test
+    public void internSymbol() {
+        final ByteStringInterner interner = new ByteStringInterner();
+        final byte[] buf1 = "Ljava/lang/String;".getBytes(StandardCharsets.UTF_8);
+        final byte[] buf2 = "xLjava/lang/String;".getBytes(StandardCharsets.UTF_8);
+        final byte[] buf3 = "(I)Lpäckage/Klasse;".getBytes(StandardCharsets.UTF_8);
+        final int symbol1 = interner.internSymbol(buf1, 0, buf1.length);
+        assertThat(interner.internSymbol(buf2, 1, buf2.length - 1)).isEqualTo(symbol1);
+        final int symbol3 = interner.internSymbol(buf3, 0, buf3.length);
+        assertThat(symbol3).isNotEqualTo(symbol1);
+        assertThat(interner.getSymbolTable().get(symbol1)).isEqualTo("Ljava/lang/String;");
+        assertThat(interner.getSymbolTable().get(symbol3)).isEqualTo("(I)Lpäckage/Klasse;");
+        // Interning as a string does not add a symbol
+        assertThat(interner.intern(buf1, 0, buf1.length, false, false)).isEqualTo("Ljava/lang/String;");
+        assertThat(interner.getSymbolTable().size()).isEqualTo(2);
+    }
+
+    /** Test that an invalid symbol ID is rejected. */
+    @Test
+    public void invalidSymbol() {
+        final SymbolTable symbolTable = new SymbolTable();
+        symbolTable.add("a");
+        assertThatThrownBy(() -> symbolTable.get(1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> symbolTable.get(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> symbolTable.get(1 << 30)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
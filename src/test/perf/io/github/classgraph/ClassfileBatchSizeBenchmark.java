@@ -0,0 +1,87 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the effect of the classfile batch size ({@link ClassGraph#setClassfileBatchSize(int)}) on scanning the
+ * jarfiles of the classpath, with a warm or a cold page cache. Dropping the page cache before each scan requires
+ * running the benchmark as root on Linux, and the benchmark fails if the page cache cannot be dropped.
+ */
+@State(Scope.Benchmark)
+public class ClassfileBatchSizeBenchmark {
+    /** The maximum number of classfiles per batch (1 to disable batching). */
+    @Param({ "1", "8", "32", "128" })
+    public int classfileBatchSize;
+
+    /** If true, drop the page cache before each scan. */
+    @Param({ "false", "true" })
+    public boolean coldPageCache;
+
+    /**
+     * Drop the page cache before each scan, if scanning with a cold page cache.
+     *
+     * @throws IOException
+     *             if the page cache could not be dropped
+     */
+    @Setup(Level.Invocation)
+    public void dropPageCache() throws IOException {
+        if (coldPageCache) {
+            try (OutputStream outputStream = new FileOutputStream("/proc/sys/vm/drop_caches")) {
+                outputStream.write("1\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    /**
+     * Scan the jarfiles of the classpath with class info enabled, so that all classfiles are parsed.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void scanClasspathJars(final Blackhole blackhole) {
+        try (ScanResult scanResult = new ClassGraph().enableClassInfo().setClassfileBatchSize(classfileBatchSize)
+                .scan()) {
+            blackhole.consume(scanResult.getAllClasses().size());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import nonapi.io.github.classgraph.fileslice.reader.ClassfileReader;
+
+/**
+ * Compares the allocation rate of reading classfiles and allocating their constant pool arrays, with and without
+ * recycling the buffers between classfiles through {@link ClassfileParseBuffers}. Run with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+public class ClassfileParseAllocationBenchmark {
+    /** If true, recycle the parse buffers between classfiles, otherwise allocate new buffers per classfile. */
+    @Param({ "false", "true" })
+    public boolean recycleBuffers;
+
+    /** The classfiles. */
+    private List<byte[]> classfiles;
+
+    /**
+     * Load the classfiles of the java.util and io.github.classgraph packages.
+     *
+     * @throws IOException
+     *             if a classfile could not be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        classfiles = new ArrayList<>();
+        try (ScanResult scanResult = new ClassGraph().enableSystemJarsAndModules()
+                .acceptPackagesNonRecursive("java.util", "io.github.classgraph").scan()) {
+            for (final Resource resource : scanResult.getResourcesWithExtension("class")) {
+                classfiles.add(resource.load());
+            }
+        }
+    }
+
+    /**
+     * Read each classfile from an {@link java.io.InputStream} (as for a deflated jar entry or a module), and
+     * allocate its constant pool arrays.
+     *
+     * @param blackhole
+     *            the blackhole
+     * @throws IOException
+     *             if a classfile could not be read
+     */
+    @Benchmark
+    public void readClassfiles(final Blackhole blackhole) throws IOException {
+        final ClassfileParseBuffers parseBuffers = recycleBuffers ? new ClassfileParseBuffers() : null;
+        for (final byte[] classfile : classfiles) {
+            try (ClassfileReader reader = new ClassfileReader(new ByteArrayInputStream(classfile), null,
+                    parseBuffers == null ? null : parseBuffers.readBuf)) {
+                reader.readInt(); // magic
+                reader.readInt(); // minor and major version
+                final int cpCount = reader.readUnsignedShort();
+                final int[] entryTag;
+                if (parseBuffers != null) {
+                    parseBuffers.ensureConstantPoolCapacity(cpCount);
+                    entryTag = parseBuffers.entryTag;
+                } else {
+                    blackhole.consume(new int[cpCount]); // entryOffset
+                    blackhole.consume(new int[cpCount]); // indirectStringRefs
+                    entryTag = new int[cpCount];
+                }
+                entryTag[0] = cpCount;
+                reader.bufferTo(classfile.length);
+                blackhole.consume(reader.buf()[classfile.length - 1] + entryTag[0]);
+                if (parseBuffers != null) {
+                    parseBuffers.readBuf = reader.getReusableBuffer();
+                    parseBuffers.reset();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import nonapi.io.github.classgraph.utils.ByteStringInterner;
+import nonapi.io.github.classgraph.utils.StringUtils;
+
+/**
+ * Compares interning the CONSTANT_Utf8 strings of a set of classfiles by decoding each string and interning it
+ * through a {@link ConcurrentHashMap}, against interning each string by its encoded bytes through a
+ * {@link ByteStringInterner}. Run with {@code -prof gc} to compare the allocation rate.
+ */
+@State(Scope.Benchmark)
+public class ConstantPoolStringBenchmark {
+    /** The classfiles. */
+    private List<byte[]> classfiles;
+
+    /** The offsets of the CONSTANT_Utf8 strings of each classfile. */
+    private List<int[]> utf8Offsets;
+
+    /** The lengths of the CONSTANT_Utf8 strings of each classfile. */
+    private List<int[]> utf8Lengths;
+
+    /**
+     * Load the classfiles of the io.github.classgraph package, and find their CONSTANT_Utf8 strings.
+     *
+     * @throws IOException
+     *             if a classfile could not be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        classfiles = new ArrayList<>();
+        utf8Offsets = new ArrayList<>();
+        utf8Lengths = new ArrayList<>();
+        try (ScanResult scanResult = new ClassGraph().acceptPackagesNonRecursive("io.github.classgraph").scan()) {
+            for (final Resource resource : scanResult.getResourcesWithExtension("class")) {
+                final byte[] classfile = resource.load();
+                final int cpCount = ((classfile[8] & 0xff) << 8) | (classfile[9] & 0xff);
+                final List<Integer> offsets = new ArrayList<>();
+                final List<Integer> lengths = new ArrayList<>();
+                int pos = 10;
+                for (int i = 1; i < cpCount; i++) {
+                    final int tag = classfile[pos++] & 0xff;
+                    switch (tag) {
+                    case 1: // Utf8
+                        final int len = ((classfile[pos] & 0xff) << 8) | (classfile[pos + 1] & 0xff);
+                        offsets.add(pos + 2);
+                        lengths.add(len);
+                        pos += 2 + len;
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        pos += 8;
+                        i++;
+                        break;
+                    case 15: // MethodHandle
+                        pos += 3;
+                        break;
+                    case 7: // Class
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        pos += 2;
+                        break;
+                    default: // Integer, Float, Fieldref, Methodref, InterfaceMethodref, NameAndType, Dynamic...
+                        pos += 4;
+                        break;
+                    }
+                }
+                final int[] offsetsArr = new int[offsets.size()];
+                final int[] lengthsArr = new int[lengths.size()];
+                for (int i = 0; i < offsetsArr.length; i++) {
+                    offsetsArr[i] = offsets.get(i);
+                    lengthsArr[i] = lengths.get(i);
+                }
+                classfiles.add(classfile);
+                utf8Offsets.add(offsetsArr);
+                utf8Lengths.add(lengthsArr);
+            }
+        }
+    }
+
+    /**
+     * Decode each string, then intern it through a {@link ConcurrentHashMap}.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void decodeThenIntern(final Blackhole blackhole) {
+        final ConcurrentHashMap<String, String> stringInternMap = new ConcurrentHashMap<>();
+        for (int i = 0; i < classfiles.size(); i++) {
+            final byte[] classfile = classfiles.get(i);
+            final int[] offsets = utf8Offsets.get(i);
+            final int[] lengths = utf8Lengths.get(i);
+            for (int j = 0; j < offsets.length; j++) {
+                final String str = StringUtils.readString(classfile, offsets[j], lengths[j],
+                        /* replaceSlashWithDot = */ false, /* stripLSemicolon = */ false);
+                final String oldValue = stringInternMap.putIfAbsent(str, str);
+                blackhole.consume(oldValue == null ? str : oldValue);
+            }
+        }
+    }
+
+    /**
+     * Intern each string by its encoded bytes through a {@link ByteStringInterner}.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void internEncodedBytes(final Blackhole blackhole) {
+        final ByteStringInterner stringInterner = new ByteStringInterner();
+        for (int i = 0; i < classfiles.size(); i++) {
+            final byte[] classfile = classfiles.get(i);
+            final int[] offsets = utf8Offsets.get(i);
+            final int[] lengths = utf8Lengths.get(i);
+            for (int j = 0; j < offsets.length; j++) {
+                blackhole.consume(stringInterner.intern(classfile, offsets[j], lengths[j],
+                        /* replaceSlashWithDot = */ false, /* stripLSemicolon = */ false));
+            }
+        }
+    }
+
+    /**
+     * Scan the JRE system modules with all info enabled, to measure the allocation rate of the whole parse phase.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void scanSystemModules(final Blackhole blackhole) {
+        try (ScanResult scanResult = new ClassGraph().enableAllInfo().enableSystemJarsAndModules().scan()) {
+            blackhole.consume(scanResult.getAllClasses().size());
+        }
+    }
+}
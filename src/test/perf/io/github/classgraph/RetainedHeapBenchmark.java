@@ -0,0 +1,182 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the heap retained by a {@link ScanResult} with all info enabled, for a large synthetic classpath of
+ * generated classes whose fields and methods have many distinct type descriptors and generic type signatures. The
+ * retained heap is reported as the {@code retainedBytes} secondary result. Compare against a build before the
+ * type descriptors and type signatures of fields and methods were stored in a scan-wide symbol table to measure
+ * the reduction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+public class RetainedHeapBenchmark {
+    /** The number of generated classes. */
+    @Param({ "20000" })
+    public int numClasses;
+
+    /** The number of generated classes per compilation unit. */
+    private static final int CLASSES_PER_FILE = 200;
+
+    /** The directory containing the compiled classes. */
+    private Path classDir;
+
+    /** The retained heap, reported as a secondary result. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        /** The number of bytes of heap retained by the {@link ScanResult}. */
+        public long retainedBytes;
+    }
+
+    /**
+     * Generate and compile the synthetic classes.
+     *
+     * @throws IOException
+     *             if the classes could not be written or compiled
+     */
+    @Setup
+    public void generateClasses() throws IOException {
+        final Path sourceDir = Files.createTempDirectory("classgraph-retained-heap-src");
+        classDir = Files.createTempDirectory("classgraph-retained-heap-classes");
+        final List<String> sourceFiles = new ArrayList<>();
+        for (int fileIdx = 0; fileIdx * CLASSES_PER_FILE < numClasses; fileIdx++) {
+            final Path sourceFile = sourceDir.resolve("Gen" + fileIdx + ".java");
+            try (Writer writer = Files.newBufferedWriter(sourceFile, StandardCharsets.UTF_8)) {
+                writer.write("package gen;\nimport java.util.*;\npublic class Gen" + fileIdx + " {}\n");
+                for (int i = fileIdx * CLASSES_PER_FILE; i < Math.min(numClasses,
+                        (fileIdx + 1) * CLASSES_PER_FILE); i++) {
+                    final String prev = "C" + Math.max(0, i - 1);
+                    final String other = "C" + (i / 7);
+                    writer.write("class C" + i + "<T extends Comparable<T>> {\n");
+                    writer.write("  Map<String, " + prev + "<T>> map;\n  List<" + other + "<T>> list;\n");
+                    writer.write("  int count;\n  String name;\n");
+                    writer.write("  " + prev + "<T> get(int i, List<T> l) { return null; }\n");
+                    writer.write("  void set(" + other + "<T> o, Map<T, String> m) { }\n");
+                    writer.write("  <U> U convert(U u, " + prev + "<?>[] arr) { return u; }\n");
+                    writer.write("  String getName() { return name; }\n  void run() { }\n");
+                    writer.write("}\n");
+                }
+            }
+            sourceFiles.add(sourceFile.toString());
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final List<String> args = new ArrayList<>();
+        args.add("-nowarn");
+        args.add("-d");
+        args.add(classDir.toString());
+        args.addAll(sourceFiles);
+        if (compiler.run(null, null, null, args.toArray(new String[0])) != 0) {
+            throw new IOException("Could not compile generated classes");
+        }
+        deleteRecursively(sourceDir);
+    }
+
+    /**
+     * Delete the compiled classes.
+     *
+     * @throws IOException
+     *             if the classes could not be deleted
+     */
+    @TearDown
+    public void deleteClasses() throws IOException {
+        deleteRecursively(classDir);
+    }
+
+    /**
+     * Delete a directory and its contents.
+     *
+     * @param dir
+     *            the directory
+     * @throws IOException
+     *             if the directory could not be deleted
+     */
+    private static void deleteRecursively(final Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Get the used heap size after garbage collection.
+     *
+     * @return the used heap size in bytes
+     */
+    private static long usedHeapAfterGC() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Scan the synthetic classes with all info enabled, and measure the heap retained by the {@link ScanResult}.
+     *
+     * @param retainedHeap
+     *            the retained heap counter
+     * @return the number of classes, so that the {@link ScanResult} is not optimized away
+     */
+    @Benchmark
+    public int scanSyntheticClasspath(final RetainedHeap retainedHeap) {
+        final long usedBefore = usedHeapAfterGC();
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(classDir.toFile()).enableAllInfo()
+                .scan()) {
+            final long usedAfter = usedHeapAfterGC();
+            retainedHeap.retainedBytes = usedAfter - usedBefore;
+            return scanResult.getAllClasses().size();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares loading a serialized {@link ScanResult} from JSON ({@link ScanResult#fromJSON(String)}) with loading it
+ * from the binary format ({@link ScanResult#readFrom(java.io.InputStream)}), for the same scan of the classpath.
+ */
+@State(Scope.Benchmark)
+public class ScanResultSerializationBenchmark {
+    /** The scan result, serialized as JSON. */
+    private String json;
+
+    /** The scan result, serialized in binary format. */
+    private byte[] binary;
+
+    /**
+     * Scan the classpath with all info enabled, and serialize the scan result in both formats.
+     *
+     * @throws IOException
+     *             if the scan result could not be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        try (ScanResult scanResult = new ClassGraph().enableAllInfo().enableInterClassDependencies().scan()) {
+            json = scanResult.toJSON();
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            scanResult.writeTo(outputStream);
+            binary = outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Load the scan result from JSON.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void fromJSON(final Blackhole blackhole) {
+        try (ScanResult scanResult = ScanResult.fromJSON(json)) {
+            blackhole.consume(scanResult.getAllClasses().size());
+        }
+    }
+
+    /**
+     * Load the scan result from the binary format.
+     *
+     * @param blackhole
+     *            the blackhole
+     * @throws IOException
+     *             if the scan result could not be read
+     */
+    @Benchmark
+    public void readFrom(final Blackhole blackhole) throws IOException {
+        try (ScanResult scanResult = ScanResult.readFrom(new ByteArrayInputStream(binary))) {
+            blackhole.consume(scanResult.getAllClasses().size());
+        }
+    }
+}
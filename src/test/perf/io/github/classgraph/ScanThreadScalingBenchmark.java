@@ -0,0 +1,81 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how scanning scales with the number of worker threads. The primary result is the time of a full scan,
+ * which is dominated by reading and parsing classfiles. The wall time of the link phase and of the parse phase of
+ * each scan are reported separately as the {@code linkNanos} and {@code parseNanos} secondary results, so that the
+ * scaling of linking can be read independently of the scaling of parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+public class ScanThreadScalingBenchmark {
+    /** The number of worker threads. */
+    @Param({ "1", "2", "4", "8" })
+    public int numThreads;
+
+    /** The per-phase wall times, reported as secondary results. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PhaseTimes {
+        /** The wall time of the link phase, in nanoseconds. */
+        public long linkNanos;
+
+        /** The wall time of the parse phase, in nanoseconds. */
+        public long parseNanos;
+    }
+
+    /**
+     * Scan the JRE system modules with all info enabled, so that linking has a large number of classes to process,
+     * and record the wall time of the link and parse phases.
+     *
+     * @param phaseTimes
+     *            the per-phase wall time counters
+     * @return the number of classes, so that the {@link ScanResult} is not optimized away
+     */
+    @Benchmark
+    public int scanSystemModules(final PhaseTimes phaseTimes) {
+        try (ScanResult scanResult = new ClassGraph().enableAllInfo().enableSystemJarsAndModules()
+                .scan(numThreads)) {
+            final ScanMetrics scanMetrics = scanResult.getScanMetrics();
+            phaseTimes.linkNanos = scanMetrics.getWallTimeNanos(ScanMetrics.Phase.LINK_CLASSFILES);
+            phaseTimes.parseNanos = scanMetrics.getWallTimeNanos(ScanMetrics.Phase.PARSE_CLASSFILES);
+            return scanResult.getAllClasses().size();
+        }
+    }
+}
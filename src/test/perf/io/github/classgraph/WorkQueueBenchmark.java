@@ -0,0 +1,184 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the
+ * Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import nonapi.io.github.classgraph.concurrency.AutoCloseableExecutorService;
+import nonapi.io.github.classgraph.concurrency.WorkQueue;
+import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * Compares the throughput of the work-stealing {@link WorkQueue} against a single shared
+ * {@link LinkedBlockingQueue} (the previous WorkQueue implementation), for a large number of tiny work units, some
+ * of which add further work units while being processed (as classfile scanning does when extending scanning
+ * upwards to superclasses).
+ */
+@State(Scope.Benchmark)
+public class WorkQueueBenchmark {
+    /** The number of worker threads. */
+    @Param({ "1", "2", "4", "8" })
+    public int numThreads;
+
+    /** The number of initial work units. */
+    @Param({ "100000" })
+    public int numWorkUnits;
+
+    /** Every work unit whose value is divisible by this number adds one more work unit. */
+    private static final int SPAWN_INTERVAL = 8;
+
+    /** The executor service. */
+    private AutoCloseableExecutorService executorService;
+
+    /** The initial work units. */
+    private List<Integer> workUnits;
+
+    /**
+     * Setup.
+     */
+    @Setup
+    public void setUp() {
+        executorService = new AutoCloseableExecutorService(numThreads);
+        workUnits = new ArrayList<>(numWorkUnits);
+        for (int i = 0; i < numWorkUnits; i++) {
+            workUnits.add(i);
+        }
+    }
+
+    /**
+     * Tear down.
+     */
+    @TearDown
+    public void tearDown() {
+        executorService.close();
+    }
+
+    /**
+     * A tiny amount of CPU work per work unit.
+     *
+     * @param workUnit
+     *            the work unit
+     * @return the hash
+     */
+    private static long work(final int workUnit) {
+        long hash = workUnit;
+        for (int i = 0; i < 16; i++) {
+            hash = hash * 31 + i;
+        }
+        return hash;
+    }
+
+    /**
+     * Benchmark the work-stealing {@link WorkQueue}.
+     *
+     * @return the result
+     * @throws InterruptedException
+     *             if interrupted
+     * @throws ExecutionException
+     *             if a worker threw an exception
+     */
+    @Benchmark
+    public long workStealingQueue() throws InterruptedException, ExecutionException {
+        final AtomicLong result = new AtomicLong();
+        WorkQueue.runWorkQueue(workUnits, executorService, executorService.interruptionChecker, numThreads, null,
+                new WorkUnitProcessor<Integer>() {
+                    @Override
+                    public void processWorkUnit(final Integer workUnit, final WorkQueue<Integer> workQueue,
+                            final LogNode log) {
+                        if (workUnit >= 0 && workUnit % SPAWN_INTERVAL == 0) {
+                            workQueue.addWorkUnit(-workUnit - 1);
+                        }
+                        result.addAndGet(work(workUnit));
+                    }
+                });
+        return result.get();
+    }
+
+    /**
+     * Benchmark a single shared {@link LinkedBlockingQueue} with poison pills, as used by the previous
+     * {@link WorkQueue} implementation.
+     *
+     * @return the result
+     * @throws Exception
+     *             if a worker threw an exception
+     */
+    @Benchmark
+    public long sharedBlockingQueue() throws Exception {
+        final AtomicLong result = new AtomicLong();
+        final Integer poisonPill = Integer.MIN_VALUE;
+        final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>(workUnits);
+        final AtomicInteger numIncompleteWorkUnits = new AtomicInteger(workUnits.size());
+        final Callable<Void> worker = new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                for (Integer workUnit; (workUnit = queue.take()) != poisonPill;) {
+                    if (workUnit >= 0 && workUnit % SPAWN_INTERVAL == 0) {
+                        numIncompleteWorkUnits.incrementAndGet();
+                        queue.add(-workUnit - 1);
+                    }
+                    result.addAndGet(work(workUnit));
+                    if (numIncompleteWorkUnits.decrementAndGet() == 0) {
+                        for (int i = 0; i < numThreads; i++) {
+                            queue.add(poisonPill);
+                        }
+                    }
+                }
+                return null;
+            }
+        };
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 1; i < numThreads; i++) {
+            futures.add(executorService.submit(worker));
+        }
+        try {
+            worker.call();
+        } finally {
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        }
+        return result.get();
+    }
+}
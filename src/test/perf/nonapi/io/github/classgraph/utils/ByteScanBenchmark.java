@@ -0,0 +1,241 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ScanResult;
+
+/**
+ * Compares the scalar and SWAR implementations of {@link ByteScanUtils} on a large manifest, on the end of a
+ * zipfile with a long comment, and on the constant pool strings of the largest JDK classfiles.
+ */
+@State(Scope.Benchmark)
+public class ByteScanBenchmark {
+    /** If true, use the SWAR implementations, otherwise use the scalar implementations. */
+    @Param({ "false", "true" })
+    public boolean swar;
+
+    /** The manifest keys (in lowercase). */
+    private static final byte[][] MANIFEST_KEYS = { "implementation-title".getBytes(StandardCharsets.UTF_8),
+            "specification-title".getBytes(StandardCharsets.UTF_8), "class-path".getBytes(StandardCharsets.UTF_8),
+            "bundle-classpath".getBytes(StandardCharsets.UTF_8),
+            "spring-boot-classes".getBytes(StandardCharsets.UTF_8),
+            "multi-release".getBytes(StandardCharsets.UTF_8),
+            "automatic-module-name".getBytes(StandardCharsets.UTF_8) };
+
+    /** A large manifest, with a long Class-Path entry and a digest entry for each of many files. */
+    private byte[] manifest;
+
+    /** The end of a zipfile with a 64kB comment, with the EOCD signature before the comment. */
+    private byte[] zipfileEnd;
+
+    /** The classfiles. */
+    private List<byte[]> classfiles;
+
+    /** The offsets of the CONSTANT_Utf8 strings of each classfile. */
+    private List<int[]> utf8Offsets;
+
+    /** The lengths of the CONSTANT_Utf8 strings of each classfile. */
+    private List<int[]> utf8Lengths;
+
+    /**
+     * Create the manifest and the zipfile end, and load the 100 largest classfiles of the java.base module.
+     *
+     * @throws IOException
+     *             if a classfile could not be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        final ByteArrayOutputStream manifestBuf = new ByteArrayOutputStream();
+        final StringBuilder classPath = new StringBuilder("Manifest-Version: 1.0\r\nClass-Path:");
+        for (int i = 0; i < 2000; i++) {
+            classPath.append(" lib/dependency-").append(i).append("-1.0.0.jar");
+        }
+        // Wrap lines at 72 bytes, as required by the manifest spec
+        for (int i = 0; i < classPath.length(); i += 71) {
+            manifestBuf.write((i == 0 ? "" : " ").getBytes(StandardCharsets.UTF_8));
+            manifestBuf.write(classPath.substring(i, Math.min(classPath.length(), i + 71))
+                    .getBytes(StandardCharsets.UTF_8));
+            manifestBuf.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        manifestBuf.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 20000; i++) {
+            manifestBuf.write(("Name: com/example/pkg" + (i % 100) + "/GeneratedClass" + i + ".class\r\n"
+                    + "SHA-256-Digest: 47DEQpj8HBSa+/TImW+5JCeuQeRkm5NMpJWZG3hSuFU=\r\n\r\n")
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+        manifest = manifestBuf.toByteArray();
+
+        zipfileEnd = new byte[65536];
+        for (int i = 0; i < zipfileEnd.length; i++) {
+            zipfileEnd[i] = (byte) ('A' + i % 26);
+        }
+        zipfileEnd[0] = 'P';
+        zipfileEnd[1] = 'K';
+        zipfileEnd[2] = 5;
+        zipfileEnd[3] = 6;
+
+        classfiles = new ArrayList<>();
+        utf8Offsets = new ArrayList<>();
+        utf8Lengths = new ArrayList<>();
+        final List<byte[]> allClassfiles = new ArrayList<>();
+        try (ScanResult scanResult = new ClassGraph().enableSystemJarsAndModules().acceptModules("java.base")
+                .acceptPackages("java").scan()) {
+            for (final Resource resource : scanResult.getResourcesWithExtension("class")) {
+                allClassfiles.add(resource.load());
+            }
+        }
+        Collections.sort(allClassfiles, new Comparator<byte[]>() {
+            @Override
+            public int compare(final byte[] a, final byte[] b) {
+                return Integer.compare(b.length, a.length);
+            }
+        });
+        for (final byte[] classfile : allClassfiles.subList(0, Math.min(100, allClassfiles.size()))) {
+            final int cpCount = ((classfile[8] & 0xff) << 8) | (classfile[9] & 0xff);
+            final List<Integer> offsets = new ArrayList<>();
+            final List<Integer> lengths = new ArrayList<>();
+            int pos = 10;
+            for (int i = 1; i < cpCount; i++) {
+                final int tag = classfile[pos++] & 0xff;
+                switch (tag) {
+                case 1: // Utf8
+                    final int len = ((classfile[pos] & 0xff) << 8) | (classfile[pos + 1] & 0xff);
+                    offsets.add(pos + 2);
+                    lengths.add(len);
+                    pos += 2 + len;
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    pos += 8;
+                    i++;
+                    break;
+                case 15: // MethodHandle
+                    pos += 3;
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    pos += 2;
+                    break;
+                default: // Integer, Float, Fieldref, Methodref, InterfaceMethodref, NameAndType, Dynamic...
+                    pos += 4;
+                    break;
+                }
+            }
+            final int[] offsetsArr = new int[offsets.size()];
+            final int[] lengthsArr = new int[lengths.size()];
+            for (int i = 0; i < offsetsArr.length; i++) {
+                offsetsArr[i] = offsets.get(i);
+                lengthsArr[i] = lengths.get(i);
+            }
+            classfiles.add(classfile);
+            utf8Offsets.add(offsetsArr);
+            utf8Lengths.add(lengthsArr);
+        }
+    }
+
+    /**
+     * Find each line of the manifest, and match the start of each line against the manifest keys.
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void parseManifest(final Blackhole blackhole) {
+        final byte[] arr = manifest;
+        for (int i = 0; i < arr.length;) {
+            for (final byte[] key : MANIFEST_KEYS) {
+                if (i + key.length <= arr.length) {
+                    blackhole.consume(swar ? ByteScanUtils.regionMatchesIgnoreCaseSWAR(arr, i, key, 0)
+                            : ByteScanUtils.regionMatchesIgnoreCaseScalar(arr, i, key, 0));
+                }
+            }
+            final int lineEnd = swar ? ByteScanUtils.indexOfLineEndSWAR(arr, i, arr.length)
+                    : ByteScanUtils.indexOfLineEndScalar(arr, i, arr.length);
+            i = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Scan back through the end of the zipfile for the EOCD signature.
+     *
+     * @return the position of the EOCD signature
+     */
+    @Benchmark
+    public int findEOCDSignature() {
+        return swar
+                ? ByteScanUtils.lastIndexOfIntLESWAR(zipfileEnd, 0, zipfileEnd.length - 22, 0x06054b50)
+                : ByteScanUtils.lastIndexOfIntLEScalar(zipfileEnd, 0, zipfileEnd.length - 22, 0x06054b50);
+    }
+
+    /**
+     * Check whether each constant pool string is ASCII, and find the first '/' in each string (as done before
+     * decoding the string).
+     *
+     * @param blackhole
+     *            the blackhole
+     */
+    @Benchmark
+    public void scanConstantPoolStrings(final Blackhole blackhole) {
+        for (int i = 0; i < classfiles.size(); i++) {
+            final byte[] classfile = classfiles.get(i);
+            final int[] offsets = utf8Offsets.get(i);
+            final int[] lengths = utf8Lengths.get(i);
+            for (int j = 0; j < offsets.length; j++) {
+                final int end = offsets[j] + lengths[j];
+                if (swar) {
+                    blackhole.consume(ByteScanUtils.indexOfNonASCIISWAR(classfile, offsets[j], end));
+                    blackhole.consume(ByteScanUtils.indexOfSWAR(classfile, offsets[j], end, (byte) '/'));
+                } else {
+                    blackhole.consume(ByteScanUtils.indexOfNonASCIIScalar(classfile, offsets[j], end));
+                    blackhole.consume(ByteScanUtils.indexOfScalar(classfile, offsets[j], end, (byte) '/'));
+                }
+            }
+        }
+    }
+}